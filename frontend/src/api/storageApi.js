@@ -1,5 +1,15 @@
+import axios from 'axios';
 import apiClient from './apiClient';
 
+// 浏览器直传时请求直接发往存储桶，不使用后端的baseURL和响应拦截器；存储桶需配置CORS允许PUT、POST并暴露ETag响应头
+const bucketClient = axios.create();
+
+// 直传分片默认并发数
+const DIRECT_UPLOAD_CONCURRENCY = 4;
+
+// 单次申请分片签名URL的数量上限，与后端一致
+const PART_URL_BATCH_SIZE = 1000;
+
 /**
  * 云存储服务API
  */
@@ -34,6 +44,15 @@ const storageApi = {
     });
   },
 
+  /**
+   * 查询异步上传任务状态
+   * @param {string} jobId - 异步上传任务ID
+   * @returns {Promise} - 返回Promise对象
+   */
+  getUploadJob: async (jobId) => {
+    return apiClient.get(`/api/storage/upload-async/${jobId}`);
+  },
+
   /**
    * 下载文件
    * @param {string} fileId - 文件ID
@@ -44,6 +63,24 @@ const storageApi = {
     window.open(`/api/storage/download/${fileId}`, '_blank');
   },
 
+  /**
+   * 分页列出文件，只查询元信息索引
+   * @param {Object} params - 查询条件：prefix、tenant、from、to、order（name/time）、cursor、limit
+   * @returns {Promise} - 返回Promise对象，结果包含files和nextCursor
+   */
+  listFiles: async (params = {}) => {
+    return apiClient.get('/api/storage/files', { params });
+  },
+
+  /**
+   * 查询文件元信息，不下载文件内容
+   * @param {string} fileId - 文件ID
+   * @returns {Promise} - 返回Promise对象
+   */
+  getFileStat: async (fileId) => {
+    return apiClient.get(`/api/storage/files/${fileId}`);
+  },
+
   /**
    * 删除文件
    * @param {string} fileId - 文件ID
@@ -65,13 +102,153 @@ const storageApi = {
     });
   },
 
+  /**
+   * 申请浏览器直传凭证
+   * @param {string} fileName - 文件名
+   * @param {string} contentType - 文件类型，PUT上传时请求头必须与此一致
+   * @param {number} expireSeconds - 过期时间（秒）
+   * @param {number} maxSize - 允许上传的最大字节数，不传时使用后端上限
+   * @returns {Promise} - 返回Promise对象，结果包含fileId、uploadUrl、formUrl和formFields
+   */
+  prepareDirectUpload: async (fileName, contentType, expireSeconds = 900, maxSize = undefined) => {
+    return apiClient.post('/api/storage/direct-upload', null, {
+      params: { fileName, contentType, expireSeconds, maxSize },
+    });
+  },
+
+  /**
+   * 确认直传完成，后端登记文件
+   * @param {string} fileId - 文件ID
+   * @param {number} expectedSize - 预期的文件大小，与实际不一致时返回409
+   * @returns {Promise} - 返回Promise对象，结果为文件元信息
+   */
+  confirmDirectUpload: async (fileId, expectedSize) => {
+    return apiClient.post('/api/storage/direct-upload/confirm', null, {
+      params: { fileId, expectedSize },
+    });
+  },
+
+  /**
+   * 直传文件：按表单策略POST到存储桶，完成后确认；表单策略限定了文件大小，存储桶直接拒绝超限的请求
+   * @param {File} file - 要上传的文件
+   * @param {Function} onProgress - 进度回调，参数为0-100
+   * @returns {Promise} - 返回Promise对象，结果为文件元信息
+   */
+  directUpload: async (file, onProgress) => {
+    const contentType = file.type || 'application/octet-stream';
+    const { fileId, formUrl, formFields } = await storageApi.prepareDirectUpload(
+      file.name, contentType, undefined, Math.max(file.size, 1));
+    const formData = new FormData();
+    Object.entries(formFields).forEach(([name, value]) => formData.append(name, value));
+    // 文件字段必须放在最后
+    formData.append('file', file);
+    await bucketClient.post(formUrl, formData, {
+      onUploadProgress: (event) => {
+        if (onProgress && event.total) {
+          onProgress(Math.round((event.loaded / event.total) * 100));
+        }
+      },
+    });
+    return storageApi.confirmDirectUpload(fileId, file.size);
+  },
+
   /**
    * 初始化分片上传
    * @param {string} fileName - 文件名
+   * @param {string} contentType - 文件类型
+   * @param {number} fileSize - 文件大小
+   * @param {number} partSize - 分片大小，传入后可以查询缺少的分片
+   * @returns {Promise} - 返回Promise对象，结果为上传ID
+   */
+  initMultipartUpload: async (fileName, contentType, fileSize, partSize) => {
+    return apiClient.post('/api/storage/multipart/init', null, {
+      params: { fileName, contentType, fileSize, partSize },
+    });
+  },
+
+  /**
+   * 批量申请分片直传的签名URL
+   * @param {string} uploadId - 上传ID
+   * @param {Array<number>} partNumbers - 分片编号
+   * @returns {Promise} - 返回Promise对象，结果为分片编号到URL的映射
+   */
+  getPartUploadUrls: async (uploadId, partNumbers) => {
+    return apiClient.get(`/api/storage/multipart/${uploadId}/part-urls`, {
+      params: { partNumbers: partNumbers.join(',') },
+    });
+  },
+
+  /**
+   * 登记直传成功的分片
+   * @param {string} uploadId - 上传ID
+   * @param {number} partNumber - 分片编号
+   * @param {number} size - 分片大小
+   * @param {string} eTag - 存储桶返回的分片ETag
    * @returns {Promise} - 返回Promise对象
    */
-  initMultipartUpload: async (fileName) => {
-    return apiClient.post('/api/storage/multipart/init', { fileName });
+  recordDirectPart: async (uploadId, partNumber, size, eTag) => {
+    return apiClient.put(`/api/storage/multipart/${uploadId}/parts/${partNumber}`, null, {
+      params: { size, eTag },
+    });
+  },
+
+  /**
+   * 分片直传：多个分片并发PUT到存储桶，每个分片成功后登记，全部完成后由后端按登记的分片合并
+   * 传入上次失败时的uploadId即可续传，只上传缺少的分片
+   * @param {File} file - 要上传的文件
+   * @param {Object} options - partSize分片大小（续传时不需要）、concurrency并发数、uploadId续传的上传ID、onProgress进度回调
+   * @returns {Promise} - 返回Promise对象，结果包含fileId和uploadId；失败时错误对象带有uploadId
+   */
+  directMultipartUpload: async (file, options = {}) => {
+    const { concurrency = DIRECT_UPLOAD_CONCURRENCY, onProgress } = options;
+    let { uploadId, partSize } = options;
+    let pending;
+    let uploadedBytes = 0;
+    if (uploadId) {
+      // 续传时沿用初始化时登记的分片大小
+      const status = await storageApi.getMultipartUploadStatus(uploadId);
+      partSize = status.partSize;
+      pending = status.missingParts;
+      uploadedBytes = status.parts.reduce((sum, part) => sum + part.size, 0);
+    } else {
+      const contentType = file.type || 'application/octet-stream';
+      uploadId = await storageApi.initMultipartUpload(file.name, contentType, file.size, partSize);
+      const totalParts = Math.ceil(file.size / partSize);
+      pending = Array.from({ length: totalParts }, (_, i) => i + 1);
+    }
+
+    const reportProgress = () => {
+      if (onProgress) {
+        onProgress(Math.round((uploadedBytes / file.size) * 100));
+      }
+    };
+
+    try {
+      for (let from = 0; from < pending.length; from += PART_URL_BATCH_SIZE) {
+        const batch = pending.slice(from, from + PART_URL_BATCH_SIZE);
+        const urls = await storageApi.getPartUploadUrls(uploadId, batch);
+        let next = 0;
+        // 每个worker依次取下一个分片上传，同时在途的分片数不超过并发数
+        const worker = async () => {
+          while (next < batch.length) {
+            const partNumber = batch[next++];
+            const start = (partNumber - 1) * partSize;
+            const chunk = file.slice(start, Math.min(start + partSize, file.size));
+            const response = await bucketClient.put(urls[partNumber], chunk);
+            const eTag = response.headers.etag.replace(/"/g, '');
+            await storageApi.recordDirectPart(uploadId, partNumber, chunk.size, eTag);
+            uploadedBytes += chunk.size;
+            reportProgress();
+          }
+        };
+        await Promise.all(Array.from({ length: Math.min(concurrency, batch.length) }, worker));
+      }
+      const fileId = await apiClient.post('/api/storage/multipart/complete', null, { params: { uploadId } });
+      return { fileId, uploadId };
+    } catch (error) {
+      error.uploadId = uploadId;
+      throw error;
+    }
   },
 
   /**
@@ -92,6 +269,15 @@ const storageApi = {
     });
   },
 
+  /**
+   * 查询分片上传进度，断线重连后只补传缺少的分片
+   * @param {string} uploadId - 上传ID
+   * @returns {Promise} - 返回Promise对象，结果包含parts和missingParts
+   */
+  getMultipartUploadStatus: async (uploadId) => {
+    return apiClient.get(`/api/storage/multipart/${uploadId}/parts`);
+  },
+
   /**
    * 完成分片上传
    * @param {string} uploadId - 上传ID
@@ -6,6 +6,7 @@ import storageApi from '../api/storageApi';
 
 const FileManager = () => {
   const [fileList, setFileList] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [searchTerm, setSearchTerm] = useState('');
   const [isLoading, setIsLoading] = useState(false);
   const [error, setError] = useState(null);
@@ -15,54 +16,35 @@ const FileManager = () => {
   const [presignedUrl, setPresignedUrl] = useState('');
   const [expireSeconds, setExpireSeconds] = useState(3600); // 默认1小时
 
-  // 模拟文件列表数据
   useEffect(() => {
     fetchFiles();
   }, []);
 
-  const fetchFiles = async () => {
+  /**
+   * 获取文件列表，传入游标时追加下一页，否则从第一页重新加载
+   * 有前缀时按文件ID排序，否则按上传时间从新到旧
+   */
+  const fetchFiles = async (cursor = null) => {
     setIsLoading(true);
     setError(null);
 
     try {
-      // 由于实际后端没有提供获取文件列表的API，这里使用模拟数据
-      // 在实际项目中，应该调用真实的API获取文件列表
-      const mockFiles = [
-        {
-          id: 'file123',
-          name: 'example.jpg',
-          size: 2048000, // 2MB
-          type: 'image/jpeg',
-          uploadTime: new Date(Date.now() - 86400000).toISOString(), // 1天前
-          storagePath: 'images/example.jpg',
-        },
-        {
-          id: 'file456',
-          name: 'document.pdf',
-          size: 5120000, // 5MB
-          type: 'application/pdf',
-          uploadTime: new Date(Date.now() - 172800000).toISOString(), // 2天前
-          storagePath: 'documents/document.pdf',
-        },
-        {
-          id: 'file789',
-          name: 'data.xlsx',
-          size: 1024000, // 1MB
-          type: 'application/vnd.openxmlformats-officedocument.spreadsheetml.sheet',
-          uploadTime: new Date(Date.now() - 259200000).toISOString(), // 3天前
-          storagePath: 'excel/data.xlsx',
-        },
-      ];
-
-      // 添加搜索过滤
-      const filteredFiles = searchTerm
-        ? mockFiles.filter(file => 
-            file.name.toLowerCase().includes(searchTerm.toLowerCase()) ||
-            file.id.toLowerCase().includes(searchTerm.toLowerCase())
-          )
-        : mockFiles;
-
-      setFileList(filteredFiles);
+      const prefix = searchTerm.trim();
+      const page = await storageApi.listFiles({
+        prefix: prefix || undefined,
+        order: prefix ? 'name' : 'time',
+        cursor: cursor || undefined,
+        limit: 50,
+      });
+      const files = page.files.map(file => ({
+        id: file.fileId,
+        name: file.fileId,
+        size: file.size,
+        type: file.contentType,
+        uploadTime: file.lastModified,
+      }));
+      setFileList(cursor ? [...fileList, ...files] : files);
+      setNextCursor(page.nextCursor);
     } catch (err) {
       setError('获取文件列表失败，请重试');
     } finally {
@@ -90,8 +72,7 @@ const FileManager = () => {
 
     try {
       await storageApi.deleteFile(selectedFile.id);
-      // 在实际项目中，这里会重新获取文件列表
-      // 由于使用的是模拟数据，这里直接从本地状态中移除
+      // 直接从本地状态中移除，不重新加载已翻过的页
       setFileList(fileList.filter(file => file.id !== selectedFile.id));
       setDeleteDialogOpen(false);
       setSelectedFile(null);
@@ -223,7 +204,7 @@ const FileManager = () => {
 
       <Box sx={{ mb: 3, display: 'flex', gap: 2 }}>
         <TextField
-          label="搜索文件名或ID"
+          label="按文件ID前缀搜索"
           value={searchTerm}
           onChange={(e) => setSearchTerm(e.target.value)}
           sx={{ flex: 1 }}
@@ -238,7 +219,7 @@ const FileManager = () => {
         </Button>
         <Button
           variant="outlined"
-          onClick={fetchFiles}
+          onClick={() => fetchFiles()}
           startIcon={<Refresh />}
           disabled={isLoading}
         >
@@ -269,6 +250,14 @@ const FileManager = () => {
         />
       </Box>
 
+      {nextCursor && (
+        <Box sx={{ mt: 2, textAlign: 'center' }}>
+          <Button variant="outlined" onClick={() => fetchFiles(nextCursor)} disabled={isLoading}>
+            加载更多
+          </Button>
+        </Box>
+      )}
+
       {/* 删除确认对话框 */}
       <Dialog
         open={deleteDialogOpen}
@@ -14,6 +14,8 @@ const FileUploader = () => {
   const [uploadResult, setUploadResult] = useState(null);
   const [error, setError] = useState(null);
   const [progress, setProgress] = useState(0);
+  // 上次失败的分片上传，重新上传同一文件时从缺少的分片续传
+  const [resumeUpload, setResumeUpload] = useState(null);
 
   const handleFileChange = (e) => {
     const selectedFile = e.target.files[0];
@@ -51,6 +53,9 @@ const FileUploader = () => {
         case 'async':
           result = await storageApi.uploadFileAsync(file);
           break;
+        case 'direct':
+          result = await storageApi.directUpload(file, setProgress);
+          break;
         case 'multipart':
           result = await handleMultipartUpload(file);
           break;
@@ -67,33 +72,19 @@ const FileUploader = () => {
   };
 
   const handleMultipartUpload = async (file) => {
-    const totalChunks = Math.ceil(file.size / CHUNK_SIZE);
-    const parts = [];
-
     try {
-      // 1. 初始化分片上传
-      const initResult = await storageApi.initMultipartUpload(file.name);
-      const { uploadId, fileId } = initResult;
-
-      // 2. 上传所有分片
-      for (let i = 0; i < totalChunks; i++) {
-        const start = i * CHUNK_SIZE;
-        const end = Math.min(start + CHUNK_SIZE, file.size);
-        const chunk = file.slice(start, end);
-
-        const partResult = await storageApi.uploadPart(uploadId, i + 1, fileId, chunk);
-        parts.push({
-          partNumber: i + 1,
-          etag: partResult.etag,
-        });
-
-        // 更新进度
-        setProgress(Math.round(((i + 1) / totalChunks) * 100));
-      }
-
-      // 3. 完成分片上传
-      return storageApi.completeMultipartUpload(uploadId, fileId, parts);
+      // 分片并发直传到存储桶，文件内容不经过服务端
+      const result = await storageApi.directMultipartUpload(file, {
+        partSize: CHUNK_SIZE,
+        uploadId: resumeUpload?.file === file ? resumeUpload.uploadId : undefined,
+        onProgress: setProgress,
+      });
+      setResumeUpload(null);
+      return result;
     } catch (error) {
+      if (error.uploadId) {
+        setResumeUpload({ file, uploadId: error.uploadId });
+      }
       throw error;
     }
   };
@@ -109,7 +100,8 @@ const FileUploader = () => {
         <RadioGroup value={uploadType} onChange={(e) => setUploadType(e.target.value)}>
           <FormControlLabel value="normal" control={<Radio />} label="普通上传" />
           <FormControlLabel value="async" control={<Radio />} label="异步上传" />
-          <FormControlLabel value="multipart" control={<Radio />} label="分片上传（大文件）" />
+          <FormControlLabel value="direct" control={<Radio />} label="直传存储桶" />
+          <FormControlLabel value="multipart" control={<Radio />} label="分片直传（大文件，支持续传）" />
         </RadioGroup>
       </FormControl>
 
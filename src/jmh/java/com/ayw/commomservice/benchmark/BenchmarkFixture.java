@@ -0,0 +1,63 @@
+package com.ayw.commomservice.benchmark;
+
+import com.ayw.commomservice.concurrent.MonitoredThreadPoolExecutor;
+import com.ayw.commomservice.config.ProcessingProperties;
+import com.ayw.commomservice.config.StorageProperties;
+import com.ayw.commomservice.service.cache.DerivedFileIndex;
+import com.ayw.commomservice.service.document.PdfTemplateRenderer;
+import com.ayw.commomservice.service.document.StreamingExcelExporter;
+import com.ayw.commomservice.service.image.ImageOperations;
+import com.ayw.commomservice.service.image.WatermarkOverlayCache;
+import com.ayw.commomservice.service.impl.FileProcessingServiceImpl;
+
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 基于内存存储组装的文件处理服务，不启动Spring容器
+ * 派生文件索引不做缓存，每次调用都完整执行一次处理
+ */
+public class BenchmarkFixture implements AutoCloseable {
+    private final InMemoryStorageService storage = new InMemoryStorageService();
+    private final MonitoredThreadPoolExecutor partExecutor =
+            MonitoredThreadPoolExecutor.callerRuns("bench-part", 2, 2, 16, 60);
+    private final MonitoredThreadPoolExecutor pdfExecutor =
+            MonitoredThreadPoolExecutor.callerRuns("bench-pdf", 2, 2, 16, 60);
+    private final FileProcessingServiceImpl fileProcessingService;
+
+    public BenchmarkFixture() {
+        ProcessingProperties processingProperties = new ProcessingProperties();
+        ImageOperations imageOperations = new ImageOperations(new WatermarkOverlayCache(
+                storage, processingProperties.getWatermark().getCacheMaxBytes()));
+        StreamingExcelExporter excelExporter = new StreamingExcelExporter(
+                storage, partExecutor, processingProperties, new StorageProperties());
+        PdfTemplateRenderer pdfRenderer = new PdfTemplateRenderer(storage, pdfExecutor, processingProperties);
+        // 批量流水线和导入依赖线程池与数据库，基准测试不涉及
+        this.fileProcessingService = new FileProcessingServiceImpl(storage, new UncachedDerivedFileIndex(),
+                imageOperations, null, excelExporter, null, pdfRenderer);
+    }
+
+    public InMemoryStorageService getStorage() {
+        return storage;
+    }
+
+    public FileProcessingServiceImpl getFileProcessingService() {
+        return fileProcessingService;
+    }
+
+    @Override
+    public void close() {
+        partExecutor.shutdown();
+        pdfExecutor.shutdown();
+    }
+
+    /**
+     * 总是重新生成派生文件的索引
+     */
+    private static class UncachedDerivedFileIndex extends DerivedFileIndex {
+        @Override
+        public String getOrCreate(String derivedFileId, Predicate<String> exists, Supplier<String> generator) {
+            return generator.get();
+        }
+    }
+}
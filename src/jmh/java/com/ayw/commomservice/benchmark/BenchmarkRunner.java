@@ -0,0 +1,157 @@
+package com.ayw.commomservice.benchmark;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * 运行基准测试并与基线比较
+ * 吞吐量低于基线或每次操作分配的内存高于基线超过允许比例时以非0状态退出，使构建失败；
+ * 基线中没有的基准测试同样视为失败，新增基准测试时需要一并更新基线
+ *
+ * 系统属性：
+ * benchmark.include 要运行的基准测试正则，默认全部
+ * benchmark.baseline 基线文件路径
+ * benchmark.maxRegression 允许的退化比例，默认0.2
+ * benchmark.updateBaseline 为true时用本次结果更新基线中对应的条目，不做比较
+ */
+public class BenchmarkRunner {
+    private static final String THROUGHPUT_SUFFIX = ".throughput";
+    private static final String ALLOCATION_SUFFIX = ".allocBytesPerOp";
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = System.getProperty("benchmark.include", BenchmarkRunner.class.getPackageName() + ".*Benchmark");
+        Path baselineFile = Paths.get(System.getProperty("benchmark.baseline", "src/jmh/resources/benchmark-baseline.properties"));
+        double maxRegression = Double.parseDouble(System.getProperty("benchmark.maxRegression", "0.2"));
+        boolean updateBaseline = Boolean.parseBoolean(System.getProperty("benchmark.updateBaseline", "false"));
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result.json")
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        Map<String, Double> current = measurements(results);
+        if (updateBaseline) {
+            // 只运行部分基准测试时保留其余条目
+            Map<String, Double> baseline = readBaseline(baselineFile);
+            baseline.putAll(current);
+            writeBaseline(baselineFile, baseline);
+            System.out.println("Benchmark baseline updated: " + baselineFile.toAbsolutePath());
+            return;
+        }
+
+        List<String> regressions = compare(readBaseline(baselineFile), current, maxRegression);
+        if (!regressions.isEmpty()) {
+            System.err.println("Benchmark regressions beyond " + Math.round(maxRegression * 100) + "% or missing baselines:");
+            regressions.forEach(regression -> System.err.println("  " + regression));
+            System.exit(1);
+        }
+        System.out.println("No benchmark regressions beyond " + Math.round(maxRegression * 100) + "%");
+    }
+
+    /**
+     * 提取每个基准测试的吞吐量和每次操作分配的字节数
+     */
+    private static Map<String, Double> measurements(Collection<RunResult> results) {
+        Map<String, Double> measurements = new TreeMap<>();
+        for (RunResult result : results) {
+            String key = key(result.getParams());
+            measurements.put(key + THROUGHPUT_SUFFIX, result.getPrimaryResult().getScore());
+            for (Map.Entry<String, Result> secondary : result.getSecondaryResults().entrySet()) {
+                // 不同JMH版本的指标名前缀不同
+                if (secondary.getKey().endsWith("gc.alloc.rate.norm")) {
+                    measurements.put(key + ALLOCATION_SUFFIX, secondary.getValue().getScore());
+                }
+            }
+        }
+        return measurements;
+    }
+
+    private static List<String> compare(Map<String, Double> baseline, Map<String, Double> current, double maxRegression) {
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : current.entrySet()) {
+            Double expected = baseline.get(entry.getKey());
+            if (expected == null) {
+                regressions.add(entry.getKey() + ": no baseline, run with -Dbenchmark.updateBaseline=true to add it");
+                continue;
+            }
+            double actual = entry.getValue();
+            boolean regressed = entry.getKey().endsWith(THROUGHPUT_SUFFIX)
+                    ? actual < expected * (1 - maxRegression)
+                    : actual > expected * (1 + maxRegression);
+            if (regressed) {
+                regressions.add(String.format(Locale.ROOT, "%s: baseline %.2f, actual %.2f", entry.getKey(), expected, actual));
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * 基准测试名加参数，如ImageProcessingBenchmark.processImage:format=jpg,operation=crop,size=640x480
+     */
+    private static String key(BenchmarkParams params) {
+        String benchmark = params.getBenchmark();
+        StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+        String separator = ":";
+        for (String name : params.getParamsKeys()) {
+            key.append(separator).append(name).append('=').append(params.getParam(name));
+            separator = ",";
+        }
+        return key.toString();
+    }
+
+    private static Map<String, Double> readBaseline(Path baselineFile) throws IOException {
+        Map<String, Double> baseline = new TreeMap<>();
+        if (!Files.exists(baselineFile)) {
+            System.out.println("Benchmark baseline not found: " + baselineFile.toAbsolutePath());
+            return baseline;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(baselineFile)) {
+            properties.load(reader);
+        }
+        for (String name : properties.stringPropertyNames()) {
+            baseline.put(name, Double.parseDouble(properties.getProperty(name)));
+        }
+        return baseline;
+    }
+
+    private static void writeBaseline(Path baselineFile, Map<String, Double> measurements) throws IOException {
+        StringBuilder content = new StringBuilder("# 基准测试基线，由 -Dbenchmark.updateBaseline=true 生成\n"
+                + "# 在固定的基准机器上运行 mvn -Pbenchmark verify -Dbenchmark.updateBaseline=true 后提交本文件，\n"
+                + "# 之后的运行与其比较；基线中没有的基准测试会使构建失败\n");
+        for (Map.Entry<String, Double> entry : measurements.entrySet()) {
+            // 属性文件中键里的冒号和等号需要转义
+            content.append(entry.getKey().replace(":", "\\:").replace("=", "\\="))
+                    .append('=')
+                    .append(String.format(Locale.ROOT, "%.2f", entry.getValue()))
+                    .append('\n');
+        }
+        if (baselineFile.getParent() != null) {
+            Files.createDirectories(baselineFile.getParent());
+        }
+        Files.writeString(baselineFile, content);
+    }
+}
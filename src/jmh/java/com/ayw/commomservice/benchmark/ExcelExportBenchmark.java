@@ -0,0 +1,103 @@
+package com.ayw.commomservice.benchmark;
+
+import com.ayw.commomservice.service.FileProcessingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式导出Excel基准：数据行按需生成，导出内容经分片上传写入内存存储
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExcelExportBenchmark {
+    private static final int EXCEL_COLUMNS = 10;
+
+    @Param({"1000", "20000"})
+    public int excelRows;
+
+    private BenchmarkFixture fixture;
+    private FileProcessingService fileProcessingService;
+    private List<String> excelHeaders;
+
+    @Setup
+    public void setUp() {
+        fixture = new BenchmarkFixture();
+        fileProcessingService = fixture.getFileProcessingService();
+        excelHeaders = new ArrayList<>();
+        for (int i = 0; i < EXCEL_COLUMNS; i++) {
+            excelHeaders.add("column" + i);
+        }
+    }
+
+    /**
+     * 清理每轮导出的文件
+     */
+    @TearDown(Level.Iteration)
+    public void clearOutputs() {
+        fixture.getStorage().retainOnly();
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public String exportExcel() {
+        return fileProcessingService.exportExcel(rows(), excelHeaders, "Sheet1");
+    }
+
+    /**
+     * 按需生成的数据行，导出过程中不在内存中保留整个数据集
+     */
+    private Iterator<Map<String, Object>> rows() {
+        return new Iterator<>() {
+            private int row;
+
+            @Override
+            public boolean hasNext() {
+                return row < excelRows;
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                Map<String, Object> values = new HashMap<>();
+                for (int i = 0; i < EXCEL_COLUMNS; i++) {
+                    String column = excelHeaders.get(i);
+                    switch (i % 4) {
+                        case 0 -> values.put(column, "row-" + row + "-" + i);
+                        case 1 -> values.put(column, (long) row * i);
+                        case 2 -> values.put(column, BigDecimal.valueOf(row, 2));
+                        default -> values.put(column, new Date(1_600_000_000_000L + row * 1000L));
+                    }
+                }
+                row++;
+                return values;
+            }
+        };
+    }
+}
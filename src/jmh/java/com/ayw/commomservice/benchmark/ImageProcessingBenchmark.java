@@ -0,0 +1,124 @@
+package com.ayw.commomservice.benchmark;
+
+import com.ayw.commomservice.service.FileProcessingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片处理基准：不同尺寸和格式的源图片分别执行压缩、格式转换、裁剪和加水印
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageProcessingBenchmark {
+    private static final String SOURCE_FILE_ID = "source";
+
+    @Param({"640x480", "1920x1080", "4032x3024"})
+    public String size;
+
+    @Param({"jpg", "png"})
+    public String format;
+
+    @Param({"compress", "convert", "crop", "watermark"})
+    public String operation;
+
+    private BenchmarkFixture fixture;
+    private FileProcessingService fileProcessingService;
+    private Map<String, Object> params;
+
+    @Setup
+    public void setUp() throws IOException {
+        int width = Integer.parseInt(size.substring(0, size.indexOf('x')));
+        int height = Integer.parseInt(size.substring(size.indexOf('x') + 1));
+        fixture = new BenchmarkFixture();
+        fixture.getStorage().put(SOURCE_FILE_ID, encode(sampleImage(width, height), format));
+        fileProcessingService = fixture.getFileProcessingService();
+        params = params(width, height);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public String processImage() {
+        return fileProcessingService.processImage(SOURCE_FILE_ID, operation, params);
+    }
+
+    private Map<String, Object> params(int width, int height) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("format", format);
+        switch (operation) {
+            case "compress" -> {
+                params.put("quality", 0.7);
+                params.put("width", width / 2);
+                params.put("height", height / 2);
+            }
+            case "convert" -> params.put("format", "jpg".equals(format) ? "png" : "jpg");
+            case "crop" -> {
+                params.put("x", width / 4);
+                params.put("y", height / 4);
+                params.put("width", width / 2);
+                params.put("height", height / 2);
+            }
+            case "watermark" -> {
+                params.put("watermarkText", "CONFIDENTIAL");
+                params.put("fontName", "SansSerif");
+                params.put("opacity", 0.4);
+                params.put("position", "bottom-right");
+            }
+            default -> throw new IllegalArgumentException("Unsupported image operation: " + operation);
+        }
+        return params;
+    }
+
+    /**
+     * 渐变背景加随机色块，避免纯色图片的压缩结果失真
+     */
+    private BufferedImage sampleImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.WHITE, width, height, Color.DARK_GRAY));
+        graphics.fillRect(0, 0, width, height);
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            graphics.setColor(new Color(random.nextInt(0xFFFFFF)));
+            graphics.fillRect(random.nextInt(width), random.nextInt(height),
+                    1 + random.nextInt(width / 8), 1 + random.nextInt(height / 8));
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    private byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, format, outputStream);
+        return outputStream.toByteArray();
+    }
+}
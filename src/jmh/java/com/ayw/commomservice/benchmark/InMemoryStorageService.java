@@ -0,0 +1,123 @@
+package com.ayw.commomservice.benchmark;
+
+import com.ayw.commomservice.model.FileStat;
+import com.ayw.commomservice.service.impl.AbstractStorageService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基准测试使用的内存存储，排除网络和磁盘的影响，只测量处理本身
+ */
+public class InMemoryStorageService extends AbstractStorageService {
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+    /**
+     * 生成文件ID，供基准测试直接调用
+     */
+    public String fileIdFor(String fileName) {
+        return generateFileId(fileName);
+    }
+
+    /**
+     * 校验扩展名，供基准测试直接调用
+     */
+    public boolean isAllowed(String fileName, String[] allowedExtensions) {
+        return validateFileExtension(fileName, allowedExtensions);
+    }
+
+    public void put(String fileId, byte[] content) {
+        objects.put(fileId, content);
+    }
+
+    /**
+     * 清空测试过程中上传的文件，保留指定的源文件
+     */
+    public void retainOnly(String... fileIds) {
+        objects.keySet().retainAll(Set.of(fileIds));
+        uploads.clear();
+    }
+
+    @Override
+    protected String putObject(String fileId, InputStream inputStream, long contentLength,
+                               String contentType, Map<String, String> metadata) {
+        objects.put(fileId, readAll(inputStream));
+        return fileId;
+    }
+
+    @Override
+    public InputStream download(String fileId) {
+        return new ByteArrayInputStream(content(fileId));
+    }
+
+    @Override
+    public FileStat stat(String fileId) {
+        FileStat stat = new FileStat();
+        stat.setFileId(fileId);
+        stat.setSize(content(fileId).length);
+        stat.setLastModified(new Date());
+        return stat;
+    }
+
+    @Override
+    public boolean delete(String fileId) {
+        return objects.remove(fileId) != null;
+    }
+
+    @Override
+    protected String doGeneratePresignedUrl(String fileId, Date expiration) {
+        return "memory://" + fileId;
+    }
+
+    @Override
+    protected String doInitiateMultipartUpload(String fileId, String contentType, Map<String, String> metadata) {
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new ConcurrentHashMap<>());
+        return uploadId;
+    }
+
+    @Override
+    protected String doUploadPart(String fileId, String uploadId, int partNumber, InputStream inputStream, long partSize) {
+        uploads.get(uploadId).put(partNumber, readAll(inputStream));
+        return String.valueOf(partNumber);
+    }
+
+    @Override
+    protected void doCompleteMultipartUpload(String fileId, String uploadId, Map<Integer, String> parts) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        for (byte[] part : new TreeMap<>(uploads.remove(uploadId)).values()) {
+            outputStream.writeBytes(part);
+        }
+        objects.put(fileId, outputStream.toByteArray());
+    }
+
+    @Override
+    protected void doAbortMultipartUpload(String fileId, String uploadId) {
+        uploads.remove(uploadId);
+    }
+
+    private byte[] content(String fileId) {
+        byte[] content = objects.get(fileId);
+        if (content == null) {
+            throw new RuntimeException("File not found: " + fileId);
+        }
+        return content;
+    }
+
+    private byte[] readAll(InputStream inputStream) {
+        try {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read upload stream", e);
+        }
+    }
+}
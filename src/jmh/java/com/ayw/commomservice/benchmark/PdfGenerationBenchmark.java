@@ -0,0 +1,103 @@
+package com.ayw.commomservice.benchmark;
+
+import com.ayw.commomservice.service.FileProcessingService;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Rectangle;
+import com.itextpdf.text.pdf.PdfWriter;
+import com.itextpdf.text.pdf.TextField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDF生成基准：逐行输出和填充表单模板两种方式
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfGenerationBenchmark {
+    private static final String TEMPLATE_FILE_ID = "template.pdf";
+    private static final int FIELD_COUNT = 20;
+
+    @Param({"paragraphs", "template"})
+    public String pdfLayout;
+
+    private BenchmarkFixture fixture;
+    private FileProcessingService fileProcessingService;
+    private Map<String, Object> pdfParams;
+
+    @Setup
+    public void setUp() throws IOException, DocumentException {
+        fixture = new BenchmarkFixture();
+        fixture.getStorage().put(TEMPLATE_FILE_ID, formTemplate());
+        fileProcessingService = fixture.getFileProcessingService();
+
+        Map<String, Object> templateData = new LinkedHashMap<>();
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            templateData.put("field" + i, "Value " + i);
+        }
+        pdfParams = new HashMap<>();
+        pdfParams.put("templateData", templateData);
+        if ("template".equals(pdfLayout)) {
+            pdfParams.put("templateFileId", TEMPLATE_FILE_ID);
+        }
+    }
+
+    /**
+     * 清理每轮生成的文件，内存存储只保留模板
+     */
+    @TearDown(Level.Iteration)
+    public void clearOutputs() {
+        fixture.getStorage().retainOnly(TEMPLATE_FILE_ID);
+    }
+
+    @TearDown
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public String generatePdf() {
+        return fileProcessingService.processDocument(null, "pdfGenerate", pdfParams);
+    }
+
+    /**
+     * 生成带FIELD_COUNT个文本域的PDF模板
+     */
+    private byte[] formTemplate() throws IOException, DocumentException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter writer = PdfWriter.getInstance(document, outputStream);
+        document.open();
+        document.add(new Paragraph("Benchmark template"));
+        for (int i = 0; i < FIELD_COUNT; i++) {
+            float top = 760 - i * 30;
+            TextField field = new TextField(writer, new Rectangle(72, top - 20, 400, top), "field" + i);
+            writer.addAnnotation(field.getTextField());
+        }
+        document.close();
+        return outputStream.toByteArray();
+    }
+}
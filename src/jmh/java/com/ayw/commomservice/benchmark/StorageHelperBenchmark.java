@@ -0,0 +1,38 @@
+package com.ayw.commomservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 上传路径上的辅助方法基准：生成文件ID和校验扩展名
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageHelperBenchmark {
+    private static final String[] ALLOWED_EXTENSIONS = {"jpg", "jpeg", "png", "gif", "webp", "pdf", "xlsx", "docx"};
+
+    private final InMemoryStorageService storage = new InMemoryStorageService();
+
+    @Benchmark
+    public String generateFileId() {
+        return storage.fileIdFor("quarterly-report-2024.final.PDF");
+    }
+
+    @Benchmark
+    public boolean validateFileExtension() {
+        return storage.isAllowed("quarterly-report-2024.final.PDF", ALLOWED_EXTENSIONS);
+    }
+}
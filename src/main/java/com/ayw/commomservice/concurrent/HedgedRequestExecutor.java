@@ -0,0 +1,155 @@
+package com.ayw.commomservice.concurrent;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 对冲请求执行器
+ * 请求在期限内没有完成时再发出一个相同的请求，返回先成功的结果，落后的结果交给丢弃回调释放；
+ * 期限取近期请求耗时的指定分位数，只有落在长尾中的请求才会被对冲，额外请求量约为 1 - 分位数
+ */
+public class HedgedRequestExecutor {
+    /**
+     * 保留的耗时样本数
+     */
+    private static final int SAMPLE_SIZE = 1024;
+
+    /**
+     * 样本数达到该值后才按分位数计算期限
+     */
+    private static final int MIN_SAMPLES = 100;
+
+    /**
+     * 每收集这么多样本重新计算一次期限
+     */
+    private static final int RECOMPUTE_INTERVAL = 64;
+
+    private final Executor executor;
+    private final double percentile;
+    private final long minDelayNanos;
+
+    /**
+     * 耗时样本环形缓冲区，由this加锁保护
+     */
+    private final long[] samples = new long[SAMPLE_SIZE];
+    private long sampleCount;
+    private volatile long delayNanos;
+
+    private final AtomicLong hedgedCount = new AtomicLong();
+    private final AtomicLong hedgeWinCount = new AtomicLong();
+
+    /**
+     * @param executor 执行请求的线程池，队满时应拒绝而不是由调用线程执行
+     * @param percentile 期限对应的耗时分位数，如0.95
+     * @param minDelayMillis 期限下限
+     * @param initialDelayMillis 样本不足时使用的期限
+     */
+    public HedgedRequestExecutor(Executor executor, double percentile, long minDelayMillis, long initialDelayMillis) {
+        this.executor = executor;
+        this.percentile = Math.min(Math.max(percentile, 0), 1);
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+        this.delayNanos = Math.max(minDelayNanos, TimeUnit.MILLISECONDS.toNanos(initialDelayMillis));
+    }
+
+    /**
+     * 执行请求，必要时发出对冲请求
+     * @param request 请求，可能被执行两次
+     * @param discard 释放未被采用的结果，如关闭连接
+     * @return 先成功的结果
+     * @throws Exception 所有请求都失败时抛出第一个完成的请求的异常
+     */
+    public <T> T execute(Callable<T> request, Consumer<T> discard) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        try {
+            submit(request, discard, result, pending, false);
+        } catch (RejectedExecutionException e) {
+            // 线程池已满时不对冲，在调用线程中直接请求
+            return request.call();
+        }
+        try {
+            try {
+                return result.get(delayNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                pending.incrementAndGet();
+                try {
+                    submit(request, discard, result, pending, true);
+                    hedgedCount.incrementAndGet();
+                } catch (RejectedExecutionException rejected) {
+                    pending.decrementAndGet();
+                }
+                return result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // 之后完成的请求会因结果已取消而被丢弃
+            result.cancel(false);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception exception ? exception : e;
+        }
+    }
+
+    /**
+     * 发出对冲请求的次数
+     */
+    public long getHedgedCount() {
+        return hedgedCount.get();
+    }
+
+    /**
+     * 对冲请求先于原请求成功的次数
+     */
+    public long getHedgeWinCount() {
+        return hedgeWinCount.get();
+    }
+
+    public long getDelayMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(delayNanos);
+    }
+
+    private <T> void submit(Callable<T> request, Consumer<T> discard, CompletableFuture<T> result,
+                            AtomicInteger pending, boolean hedge) {
+        long startTime = System.nanoTime();
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return request.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor).whenComplete((value, error) -> {
+            if (error == null) {
+                record(System.nanoTime() - startTime);
+                if (!result.complete(value)) {
+                    discard.accept(value);
+                } else if (hedge) {
+                    hedgeWinCount.incrementAndGet();
+                }
+            } else if (pending.decrementAndGet() == 0) {
+                result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
+        });
+    }
+
+    private synchronized void record(long elapsedNanos) {
+        samples[(int) (sampleCount++ % SAMPLE_SIZE)] = elapsedNanos;
+        if (sampleCount >= MIN_SAMPLES && sampleCount % RECOMPUTE_INTERVAL == 0) {
+            long[] sorted = Arrays.copyOf(samples, (int) Math.min(sampleCount, SAMPLE_SIZE));
+            Arrays.sort(sorted);
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(sorted.length * percentile) - 1);
+            delayNanos = Math.max(minDelayNanos, sorted[Math.max(0, index)]);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.ayw.commomservice.concurrent;
+
+import com.ayw.commomservice.model.PoolStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 有界队列线程池，线程按池名称命名并统计拒绝次数
+ * 注册为Bean时线程池指标自动导出，标签name为线程池名称
+ */
+public class MonitoredThreadPoolExecutor extends ThreadPoolExecutor implements MeterBinder {
+    private final String name;
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * @param name 线程池名称，同时作为线程名前缀
+     * @param corePoolSize 核心线程数
+     * @param maximumPoolSize 最大线程数
+     * @param queueCapacity 等待队列容量
+     * @param keepAliveSeconds 空闲线程存活秒数
+     * @param rejectedHandler 队列满时的拒绝策略
+     */
+    public MonitoredThreadPoolExecutor(String name, int corePoolSize, int maximumPoolSize, int queueCapacity,
+                                       long keepAliveSeconds, RejectedExecutionHandler rejectedHandler) {
+        super(corePoolSize, maximumPoolSize, keepAliveSeconds, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), new NamedThreadFactory(name));
+        this.name = name;
+        setRejectedExecutionHandler((runnable, executor) -> {
+            rejectedCount.incrementAndGet();
+            rejectedHandler.rejectedExecution(runnable, executor);
+        });
+    }
+
+    /**
+     * 队列满时抛出RejectedExecutionException的线程池
+     */
+    public static MonitoredThreadPoolExecutor aborting(String name, int corePoolSize, int maximumPoolSize,
+                                                       int queueCapacity, long keepAliveSeconds) {
+        return new MonitoredThreadPoolExecutor(name, corePoolSize, maximumPoolSize, queueCapacity,
+                keepAliveSeconds, new AbortPolicy());
+    }
+
+    /**
+     * 队列满时由提交线程自己执行任务的线程池，用于向上游施加背压
+     */
+    public static MonitoredThreadPoolExecutor callerRuns(String name, int corePoolSize, int maximumPoolSize,
+                                                         int queueCapacity, long keepAliveSeconds) {
+        return new MonitoredThreadPoolExecutor(name, corePoolSize, maximumPoolSize, queueCapacity,
+                keepAliveSeconds, new CallerRunsPolicy());
+    }
+
+    /**
+     * 队列满时阻塞提交线程直到队列有空位的线程池，用于流水线各阶段之间的背压
+     * 此时拒绝次数统计的是提交线程被阻塞的次数
+     */
+    public static MonitoredThreadPoolExecutor blocking(String name, int poolSize, int queueCapacity) {
+        return new MonitoredThreadPoolExecutor(name, poolSize, poolSize, queueCapacity, 60, (runnable, executor) -> {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("Executor " + name + " has been shut down");
+            }
+            try {
+                executor.getQueue().put(runnable);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for executor " + name, e);
+            }
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public PoolStats getStats() {
+        PoolStats stats = new PoolStats();
+        stats.setName(name);
+        stats.setPoolSize(getPoolSize());
+        stats.setCorePoolSize(getCorePoolSize());
+        stats.setMaximumPoolSize(getMaximumPoolSize());
+        stats.setActiveCount(getActiveCount());
+        stats.setQueueSize(getQueue().size());
+        stats.setQueueRemainingCapacity(getQueue().remainingCapacity());
+        stats.setCompletedTaskCount(getCompletedTaskCount());
+        stats.setRejectedCount(rejectedCount.get());
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // executor.active、executor.queued、executor.pool.size、executor.completed等标准指标
+        new ExecutorServiceMetrics(this, name, Tags.empty()).bindTo(registry);
+        FunctionCounter.builder("executor.rejected", rejectedCount, AtomicLong::get)
+                .description("Tasks rejected, run by the caller or blocked because the queue was full")
+                .tag("name", name)
+                .register(registry);
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ayw.commomservice.config;
+
+import com.ayw.commomservice.concurrent.MonitoredThreadPoolExecutor;
+import com.ayw.commomservice.service.StorageService;
+import com.ayw.commomservice.service.cache.DerivedFileIndex;
+import com.ayw.commomservice.service.image.ImageOperations;
+import com.ayw.commomservice.service.image.ImagePipeline;
+import com.ayw.commomservice.service.image.WatermarkOverlayCache;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ProcessingProperties.class)
+public class ProcessingConfig {
+
+    private final ProcessingProperties processingProperties;
+
+    public ProcessingConfig(ProcessingProperties processingProperties) {
+        this.processingProperties = processingProperties;
+    }
+
+    /**
+     * 批量图片处理流水线，各阶段线程池随应用关闭
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ImagePipeline imagePipeline(StorageService storageService, DerivedFileIndex derivedFileIndex,
+                                       ImageOperations imageOperations) {
+        return new ImagePipeline(storageService, derivedFileIndex, imageOperations,
+                processingProperties.getImagePipeline());
+    }
+
+    @Bean
+    public WatermarkOverlayCache watermarkOverlayCache(StorageService storageService) {
+        return new WatermarkOverlayCache(storageService, processingProperties.getWatermark().getCacheMaxBytes());
+    }
+
+    /**
+     * Excel导入线程池，每个工作表一个任务，队列满时由提交线程执行
+     */
+    @Bean(destroyMethod = "shutdown")
+    public MonitoredThreadPoolExecutor excelImportExecutor() {
+        ProcessingProperties.ExcelImport excelImport = processingProperties.getExcelImport();
+        return MonitoredThreadPoolExecutor.callerRuns(
+                "excel-import",
+                excelImport.getSheetConcurrency(),
+                excelImport.getSheetConcurrency(),
+                excelImport.getQueueCapacity(),
+                60);
+    }
+
+    /**
+     * 批量生成PDF线程池，队列满时由提交线程自己生成，向上游施加背压
+     */
+    @Bean(destroyMethod = "shutdown")
+    public MonitoredThreadPoolExecutor pdfRenderExecutor() {
+        ProcessingProperties.Pdf pdf = processingProperties.getPdf();
+        int threads = pdf.getRenderThreads() > 0 ? pdf.getRenderThreads() : Runtime.getRuntime().availableProcessors();
+        return MonitoredThreadPoolExecutor.callerRuns("pdf-render", threads, threads, pdf.getQueueCapacity(), 60);
+    }
+}
@@ -0,0 +1,449 @@
+package com.ayw.commomservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "processing")
+public class ProcessingProperties {
+
+    private ImagePipeline imagePipeline = new ImagePipeline();
+
+    private Watermark watermark = new Watermark();
+
+    private ExcelExport excelExport = new ExcelExport();
+
+    private ExcelImport excelImport = new ExcelImport();
+
+    private Pdf pdf = new Pdf();
+
+    private Jobs jobs = new Jobs();
+
+    public ImagePipeline getImagePipeline() {
+        return imagePipeline;
+    }
+
+    public void setImagePipeline(ImagePipeline imagePipeline) {
+        this.imagePipeline = imagePipeline;
+    }
+
+    public Watermark getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(Watermark watermark) {
+        this.watermark = watermark;
+    }
+
+    public ExcelExport getExcelExport() {
+        return excelExport;
+    }
+
+    public void setExcelExport(ExcelExport excelExport) {
+        this.excelExport = excelExport;
+    }
+
+    public ExcelImport getExcelImport() {
+        return excelImport;
+    }
+
+    public void setExcelImport(ExcelImport excelImport) {
+        this.excelImport = excelImport;
+    }
+
+    public Pdf getPdf() {
+        return pdf;
+    }
+
+    public void setPdf(Pdf pdf) {
+        this.pdf = pdf;
+    }
+
+    public Jobs getJobs() {
+        return jobs;
+    }
+
+    public void setJobs(Jobs jobs) {
+        this.jobs = jobs;
+    }
+
+    public static class ImagePipeline {
+        /**
+         * 下载阶段线程数
+         */
+        private int fetchThreads = 16;
+        /**
+         * 解码处理阶段线程数，0表示CPU核数
+         */
+        private int decodeThreads = 0;
+        /**
+         * 编码阶段线程数，0表示CPU核数
+         */
+        private int encodeThreads = 0;
+        /**
+         * 上传阶段线程数
+         */
+        private int uploadThreads = 16;
+        /**
+         * 每个阶段的等待队列容量，队满时上游阶段阻塞
+         */
+        private int queueCapacity = 64;
+
+        public int getFetchThreads() {
+            return fetchThreads;
+        }
+
+        public void setFetchThreads(int fetchThreads) {
+            this.fetchThreads = fetchThreads;
+        }
+
+        public int getDecodeThreads() {
+            return decodeThreads;
+        }
+
+        public void setDecodeThreads(int decodeThreads) {
+            this.decodeThreads = decodeThreads;
+        }
+
+        public int getEncodeThreads() {
+            return encodeThreads;
+        }
+
+        public void setEncodeThreads(int encodeThreads) {
+            this.encodeThreads = encodeThreads;
+        }
+
+        public int getUploadThreads() {
+            return uploadThreads;
+        }
+
+        public void setUploadThreads(int uploadThreads) {
+            this.uploadThreads = uploadThreads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class Watermark {
+        /**
+         * 已渲染水印图层的缓存总大小（字节）
+         */
+        private long cacheMaxBytes = 32L * 1024 * 1024;
+
+        public long getCacheMaxBytes() {
+            return cacheMaxBytes;
+        }
+
+        public void setCacheMaxBytes(long cacheMaxBytes) {
+            this.cacheMaxBytes = cacheMaxBytes;
+        }
+    }
+
+    public static class ExcelExport {
+        /**
+         * 每批写入的行数
+         */
+        private int batchSize = 1000;
+        /**
+         * 上传分片大小，生成的内容每满一个分片就开始上传
+         */
+        private int partSize = 5 * 1024 * 1024;
+        /**
+         * 单个导出同时上传的分片数
+         */
+        private int uploadConcurrency = 2;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getPartSize() {
+            return partSize;
+        }
+
+        public void setPartSize(int partSize) {
+            this.partSize = partSize;
+        }
+
+        public int getUploadConcurrency() {
+            return uploadConcurrency;
+        }
+
+        public void setUploadConcurrency(int uploadConcurrency) {
+            this.uploadConcurrency = uploadConcurrency;
+        }
+    }
+
+    public static class ExcelImport {
+        /**
+         * 每个JDBC批次插入的行数
+         */
+        private int batchSize = 1000;
+        /**
+         * 同时导入的工作表数
+         */
+        private int sheetConcurrency = 4;
+        /**
+         * 等待导入的工作表队列容量
+         */
+        private int queueCapacity = 100;
+        /**
+         * 允许导入的表，不在其中的表拒绝导入
+         */
+        private List<String> allowedTables = new ArrayList<>();
+        /**
+         * 导入文件暂存目录
+         */
+        private String spoolDir = System.getProperty("java.io.tmpdir") + "/commomservice-import";
+        /**
+         * 已结束任务的状态保留秒数
+         */
+        private long jobRetentionSeconds = 3600;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getSheetConcurrency() {
+            return sheetConcurrency;
+        }
+
+        public void setSheetConcurrency(int sheetConcurrency) {
+            this.sheetConcurrency = sheetConcurrency;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public List<String> getAllowedTables() {
+            return allowedTables;
+        }
+
+        public void setAllowedTables(List<String> allowedTables) {
+            this.allowedTables = allowedTables;
+        }
+
+        public String getSpoolDir() {
+            return spoolDir;
+        }
+
+        public void setSpoolDir(String spoolDir) {
+            this.spoolDir = spoolDir;
+        }
+
+        public long getJobRetentionSeconds() {
+            return jobRetentionSeconds;
+        }
+
+        public void setJobRetentionSeconds(long jobRetentionSeconds) {
+            this.jobRetentionSeconds = jobRetentionSeconds;
+        }
+    }
+
+    public static class Pdf {
+        /**
+         * 批量生成PDF的线程数，0表示CPU核数
+         */
+        private int renderThreads = 0;
+        /**
+         * 等待生成的文档队列容量，队满时由提交线程自己生成
+         */
+        private int queueCapacity = 256;
+        /**
+         * 缓存的已解析模板数量
+         */
+        private int templateCacheSize = 64;
+        /**
+         * 填充表单及输出文字使用的字体文件，为空时使用Helvetica（不支持中文）
+         */
+        private String fontPath;
+        /**
+         * 生成中的PDF暂存目录
+         */
+        private String spoolDir = System.getProperty("java.io.tmpdir") + "/commomservice-pdf";
+
+        public int getRenderThreads() {
+            return renderThreads;
+        }
+
+        public void setRenderThreads(int renderThreads) {
+            this.renderThreads = renderThreads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getTemplateCacheSize() {
+            return templateCacheSize;
+        }
+
+        public void setTemplateCacheSize(int templateCacheSize) {
+            this.templateCacheSize = templateCacheSize;
+        }
+
+        public String getFontPath() {
+            return fontPath;
+        }
+
+        public void setFontPath(String fontPath) {
+            this.fontPath = fontPath;
+        }
+
+        public String getSpoolDir() {
+            return spoolDir;
+        }
+
+        public void setSpoolDir(String spoolDir) {
+            this.spoolDir = spoolDir;
+        }
+    }
+
+    public static class Jobs {
+        /**
+         * 是否在本节点启动任务执行线程，关闭时仍可提交和查询任务
+         */
+        private boolean enabled = true;
+        /**
+         * 交互式通道的工作线程数
+         */
+        private int interactiveWorkers = 8;
+        /**
+         * 批量通道的工作线程数
+         */
+        private int bulkWorkers = 2;
+        /**
+         * 没有待执行任务时轮询数据库的间隔
+         */
+        private long pollIntervalMillis = 500;
+        /**
+         * 领取任务的租约时长，执行期间定期续约，节点宕机后到期的任务重新排队
+         */
+        private long leaseSeconds = 300;
+        /**
+         * 租约过期后重新执行的最大次数
+         */
+        private int maxAttempts = 3;
+        /**
+         * 完成回调的超时秒数
+         */
+        private long callbackTimeoutSeconds = 10;
+        /**
+         * 完成回调失败后的重试次数
+         */
+        private int callbackMaxRetries = 2;
+        /**
+         * 允许的回调主机白名单，以"."开头的项匹配该域名的所有子域名；
+         * 为空时允许任意主机，但拒绝解析到回环、内网、链路本地地址的回调
+         */
+        private List<String> callbackAllowedHosts = new ArrayList<>();
+        /**
+         * 已结束任务的保留小时数
+         */
+        private long retentionHours = 72;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getInteractiveWorkers() {
+            return interactiveWorkers;
+        }
+
+        public void setInteractiveWorkers(int interactiveWorkers) {
+            this.interactiveWorkers = interactiveWorkers;
+        }
+
+        public int getBulkWorkers() {
+            return bulkWorkers;
+        }
+
+        public void setBulkWorkers(int bulkWorkers) {
+            this.bulkWorkers = bulkWorkers;
+        }
+
+        public long getPollIntervalMillis() {
+            return pollIntervalMillis;
+        }
+
+        public void setPollIntervalMillis(long pollIntervalMillis) {
+            this.pollIntervalMillis = pollIntervalMillis;
+        }
+
+        public long getLeaseSeconds() {
+            return leaseSeconds;
+        }
+
+        public void setLeaseSeconds(long leaseSeconds) {
+            this.leaseSeconds = leaseSeconds;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getCallbackTimeoutSeconds() {
+            return callbackTimeoutSeconds;
+        }
+
+        public void setCallbackTimeoutSeconds(long callbackTimeoutSeconds) {
+            this.callbackTimeoutSeconds = callbackTimeoutSeconds;
+        }
+
+        public int getCallbackMaxRetries() {
+            return callbackMaxRetries;
+        }
+
+        public void setCallbackMaxRetries(int callbackMaxRetries) {
+            this.callbackMaxRetries = callbackMaxRetries;
+        }
+
+        public List<String> getCallbackAllowedHosts() {
+            return callbackAllowedHosts;
+        }
+
+        public void setCallbackAllowedHosts(List<String> callbackAllowedHosts) {
+            this.callbackAllowedHosts = callbackAllowedHosts;
+        }
+
+        public long getRetentionHours() {
+            return retentionHours;
+        }
+
+        public void setRetentionHours(long retentionHours) {
+            this.retentionHours = retentionHours;
+        }
+    }
+}
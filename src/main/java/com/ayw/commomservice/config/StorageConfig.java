@@ -1,33 +1,87 @@
 package com.ayw.commomservice.config;
 
+import com.ayw.commomservice.concurrent.MonitoredThreadPoolExecutor;
+import com.ayw.commomservice.mapper.ContentHashMapper;
+import com.ayw.commomservice.mapper.DirectUploadGrantMapper;
+import com.ayw.commomservice.mapper.FileMetadataMapper;
+import com.ayw.commomservice.mapper.MultipartUploadMapper;
+import com.ayw.commomservice.mapper.UploadSessionMapper;
 import com.ayw.commomservice.service.StorageService;
+import com.ayw.commomservice.service.cache.PresignedUrlCache;
+import com.ayw.commomservice.service.cache.TieredStorageCache;
+import com.ayw.commomservice.service.impl.AbstractStorageService;
 import com.ayw.commomservice.service.impl.AliyunOssStorageService;
+import com.ayw.commomservice.service.impl.CachingStorageService;
+import com.ayw.commomservice.service.impl.DeduplicatingStorageService;
+import com.ayw.commomservice.service.impl.DelegatingStorageService;
+import com.ayw.commomservice.service.impl.IndexingStorageService;
+import com.ayw.commomservice.service.impl.LocalStorageService;
+import com.ayw.commomservice.service.impl.MeteredStorageService;
+import com.ayw.commomservice.service.impl.ShardedStorageService;
+import com.ayw.commomservice.service.impl.TencentCosStorageService;
+import com.ayw.commomservice.service.registry.ContentHashRegistry;
+import com.ayw.commomservice.service.registry.DirectUploadRegistry;
+import com.ayw.commomservice.service.registry.FileMetadataIndex;
+import com.ayw.commomservice.service.registry.MultipartUploadRegistry;
+import com.ayw.commomservice.service.registry.UploadSessionRegistry;
+import com.ayw.commomservice.service.registry.UploadSessionSweeper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 @EnableConfigurationProperties(StorageProperties.class)
 public class StorageConfig {
 
     private final StorageProperties storageProperties;
+    private final ObjectProvider<MultipartUploadMapper> multipartUploadMapper;
+    private final ObjectProvider<ContentHashMapper> contentHashMapper;
+    private final ObjectProvider<FileMetadataMapper> fileMetadataMapper;
+    private final ObjectProvider<UploadSessionMapper> uploadSessionMapper;
+    private final ObjectProvider<DirectUploadGrantMapper> directUploadGrantMapper;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
 
-    public StorageConfig(StorageProperties storageProperties) {
+    public StorageConfig(StorageProperties storageProperties,
+                         ObjectProvider<MultipartUploadMapper> multipartUploadMapper,
+                         ObjectProvider<ContentHashMapper> contentHashMapper,
+                         ObjectProvider<FileMetadataMapper> fileMetadataMapper,
+                         ObjectProvider<UploadSessionMapper> uploadSessionMapper,
+                         ObjectProvider<DirectUploadGrantMapper> directUploadGrantMapper,
+                         ObjectProvider<MeterRegistry> meterRegistry) {
         this.storageProperties = storageProperties;
+        this.multipartUploadMapper = multipartUploadMapper;
+        this.contentHashMapper = contentHashMapper;
+        this.fileMetadataMapper = fileMetadataMapper;
+        this.uploadSessionMapper = uploadSessionMapper;
+        this.directUploadGrantMapper = directUploadGrantMapper;
+        this.meterRegistry = meterRegistry;
     }
 
     @Bean
     @ConditionalOnProperty(name = "storage.type", havingValue = "aliyun")
     public StorageService aliyunOssStorageService() {
-        return new AliyunOssStorageService(storageProperties.getAliyun());
+        return decorate(configure(new AliyunOssStorageService(storageProperties.getAliyun(), ossHedgeExecutor())));
     }
 
     @Bean
     @ConditionalOnProperty(name = "storage.type", havingValue = "tencent")
     public StorageService tencentCosStorageService() {
-        // 后续实现腾讯云COS存储服务
-        throw new UnsupportedOperationException("Tencent COS storage service not implemented yet");
+        return decorate(configure(new TencentCosStorageService(storageProperties.getTencent(), cosTransferExecutor())));
+    }
+
+    /**
+     * COS TransferManager传输分块的线程池，队满时由提交线程自己传输；分片存储的多个COS后端共用
+     */
+    @Bean(destroyMethod = "shutdown")
+    public MonitoredThreadPoolExecutor cosTransferExecutor() {
+        int threads = storageProperties.getTencent().getTransferThreads();
+        return MonitoredThreadPoolExecutor.callerRuns("cos-transfer", threads, threads, threads * 16, 60);
     }
 
     @Bean
@@ -36,4 +90,195 @@ public class StorageConfig {
         // 后续实现MinIO存储服务
         throw new UnsupportedOperationException("MinIO storage service not implemented yet");
     }
-}
\ No newline at end of file
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.type", havingValue = "local")
+    public StorageService localStorageService() {
+        return decorate(configure(new LocalStorageService(storageProperties.getLocal())));
+    }
+
+    /**
+     * 多个存储后端按文件ID一致性哈希分片，可配置多副本
+     */
+    @Bean
+    @ConditionalOnProperty(name = "storage.type", havingValue = "sharded")
+    public StorageService shardedStorageService() {
+        StorageProperties.Sharding sharding = storageProperties.getSharding();
+        List<ShardedStorageService.Shard> shards = new ArrayList<>();
+        for (StorageProperties.Sharding.Backend backend : sharding.getBackends()) {
+            AbstractStorageService storageService = switch (String.valueOf(backend.getType())) {
+                case "aliyun" -> new AliyunOssStorageService(backend.getAliyun(), ossHedgeExecutor());
+                case "tencent" -> new TencentCosStorageService(backend.getTencent(), cosTransferExecutor());
+                case "local" -> new LocalStorageService(backend.getLocal());
+                default -> throw new IllegalArgumentException("Unsupported sharded storage backend type: " + backend.getType());
+            };
+            shards.add(new ShardedStorageService.Shard(backend.getName(), configure(storageService)));
+        }
+        ShardedStorageService shardedStorageService = new ShardedStorageService(shards, sharding, storageReplicaExecutor());
+        shardedStorageService.setUploadExecutor(storageUploadExecutor());
+        return decorate(shardedStorageService);
+    }
+
+    /**
+     * 并行写入各副本的线程池，队满时由提交线程自己写入
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "storage.type", havingValue = "sharded")
+    public MonitoredThreadPoolExecutor storageReplicaExecutor() {
+        int threads = storageProperties.getSharding().getReplicaThreads();
+        return MonitoredThreadPoolExecutor.callerRuns("storage-replica", threads, threads, threads * 4, 60);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.cache.enabled", havingValue = "true")
+    public TieredStorageCache tieredStorageCache() {
+        return new TieredStorageCache(storageProperties.getCache());
+    }
+
+    /**
+     * 异步上传专用线程池，与公共ForkJoinPool隔离，队列满时拒绝新任务
+     */
+    @Bean(destroyMethod = "shutdown")
+    public MonitoredThreadPoolExecutor storageUploadExecutor() {
+        StorageProperties.AsyncUpload asyncUpload = storageProperties.getAsyncUpload();
+        return MonitoredThreadPoolExecutor.aborting(
+                "storage-upload",
+                asyncUpload.getCorePoolSize(),
+                asyncUpload.getMaxPoolSize(),
+                asyncUpload.getQueueCapacity(),
+                asyncUpload.getKeepAliveSeconds());
+    }
+
+    /**
+     * 并发上传分片的线程池，与异步上传线程池分开，避免上传任务等待自己线程池中的分片
+     */
+    @Bean(destroyMethod = "shutdown")
+    public MonitoredThreadPoolExecutor storagePartExecutor() {
+        StorageProperties.Multipart multipart = storageProperties.getMultipart();
+        return MonitoredThreadPoolExecutor.callerRuns(
+                "storage-part",
+                multipart.getPoolSize(),
+                multipart.getPoolSize(),
+                multipart.getQueueCapacity(),
+                60);
+    }
+
+    /**
+     * 并发执行批量删除的线程池，队满时由提交线程自己删除
+     */
+    @Bean(destroyMethod = "shutdown")
+    public MonitoredThreadPoolExecutor storageDeleteExecutor() {
+        int threads = storageProperties.getBatchDelete().getThreads();
+        return MonitoredThreadPoolExecutor.callerRuns("storage-delete", threads, threads, threads * 4, 60);
+    }
+
+    /**
+     * 对冲下载执行GET请求的线程池，队满时拒绝，此时不对冲而在调用线程中直接请求
+     */
+    @Bean(destroyMethod = "shutdown")
+    public MonitoredThreadPoolExecutor ossHedgeExecutor() {
+        int threads = storageProperties.getAliyun().getHedge().getThreads();
+        return MonitoredThreadPoolExecutor.aborting("oss-hedge", threads, threads, threads, 60);
+    }
+
+    @Bean
+    public MultipartUploadRegistry multipartUploadRegistry() {
+        MultipartUploadMapper mapper = storageProperties.getMultipart().isPersistentRegistry()
+                ? multipartUploadMapper.getIfAvailable()
+                : null;
+        return new MultipartUploadRegistry(mapper);
+    }
+
+    /**
+     * 客户端分片上传的会话和已上传分片，与multipart_upload共用持久化开关
+     */
+    @Bean
+    public UploadSessionRegistry uploadSessionRegistry() {
+        UploadSessionMapper mapper = storageProperties.getMultipart().isPersistentRegistry()
+                ? uploadSessionMapper.getIfAvailable()
+                : null;
+        return new UploadSessionRegistry(mapper);
+    }
+
+    /**
+     * 直传凭证允许的最大字节数，与multipart_upload共用持久化开关
+     */
+    @Bean
+    public DirectUploadRegistry directUploadRegistry() {
+        DirectUploadGrantMapper mapper = storageProperties.getMultipart().isPersistentRegistry()
+                ? directUploadGrantMapper.getIfAvailable()
+                : null;
+        return new DirectUploadRegistry(mapper);
+    }
+
+    /**
+     * 定期取消并移除超过保留时长仍未完成的客户端分片上传，同时清理一直未确认的直传凭证
+     */
+    @Bean
+    public UploadSessionSweeper uploadSessionSweeper(StorageService storageService) {
+        return new UploadSessionSweeper(uploadSessionRegistry(), directUploadRegistry(), storageService,
+                storageProperties.getMultipart());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.dedup.enabled", havingValue = "true")
+    public ContentHashRegistry contentHashRegistry() {
+        ContentHashMapper mapper = storageProperties.getDedup().isPersistentIndex()
+                ? contentHashMapper.getIfAvailable()
+                : null;
+        return new ContentHashRegistry(mapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.index.enabled", havingValue = "true")
+    public FileMetadataIndex fileMetadataIndex() {
+        StorageProperties.Index index = storageProperties.getIndex();
+        FileMetadataMapper mapper = index.isPersistent() ? fileMetadataMapper.getIfAvailable() : null;
+        return new FileMetadataIndex(mapper, index.getCacheSize(), index.getCacheTtlSeconds());
+    }
+
+    /**
+     * 为存储平台实现设置线程池和分片上传配置
+     */
+    private AbstractStorageService configure(AbstractStorageService backend) {
+        backend.setUploadExecutor(storageUploadExecutor());
+        backend.setMultipartUploadRegistry(multipartUploadRegistry());
+        backend.setDirectUploadRegistry(directUploadRegistry());
+        backend.enableParallelMultipartUpload(storageProperties.getMultipart(), storagePartExecutor());
+        StorageProperties.Presign presign = storageProperties.getPresign();
+        backend.setPresignedUrlCache(new PresignedUrlCache(presign.getWindowSeconds(), presign.getCacheSize()));
+        backend.enableParallelBatchDelete(storageProperties.getBatchDelete().getBatchSize(), storageDeleteExecutor());
+        return backend;
+    }
+
+    /**
+     * 按配置为存储服务叠加通用能力
+     */
+    private StorageService decorate(StorageService backend) {
+        StorageService storageService = backend;
+        // 索引在去重之下，只有文件真正写入或删除时才更新索引
+        if (storageProperties.getIndex().isEnabled()) {
+            storageService = withUploadExecutor(new IndexingStorageService(storageService, fileMetadataIndex(),
+                    storageProperties.getIndex().isFallbackToStore()));
+        }
+        if (storageProperties.getDedup().isEnabled()) {
+            StorageProperties.Dedup dedup = storageProperties.getDedup();
+            storageService = withUploadExecutor(new DeduplicatingStorageService(storageService, contentHashRegistry(),
+                    dedup.getMemoryThreshold()));
+        }
+        if (storageProperties.getCache().isEnabled()) {
+            storageService = withUploadExecutor(new CachingStorageService(storageService, tieredStorageCache()));
+        }
+        // 指标装饰器在最外层，记录的是调用方看到的耗时，包含缓存命中
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            storageService = withUploadExecutor(new MeteredStorageService(storageService, registry, storageProperties.getType()));
+        }
+        return storageService;
+    }
+
+    private DelegatingStorageService withUploadExecutor(DelegatingStorageService storageService) {
+        storageService.setUploadExecutor(storageUploadExecutor());
+        return storageService;
+    }
+}
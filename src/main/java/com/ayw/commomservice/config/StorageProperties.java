@@ -2,10 +2,13 @@ package com.ayw.commomservice.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @ConfigurationProperties(prefix = "storage")
 public class StorageProperties {
     /**
-     * 存储类型：aliyun, tencent, minio
+     * 存储类型：aliyun, tencent, minio, local, sharded
      */
     private String type;
 
@@ -15,6 +18,26 @@ public class StorageProperties {
 
     private Minio minio = new Minio();
 
+    private Local local = new Local();
+
+    private Cache cache = new Cache();
+
+    private AsyncUpload asyncUpload = new AsyncUpload();
+
+    private Multipart multipart = new Multipart();
+
+    private Dedup dedup = new Dedup();
+
+    private Sharding sharding = new Sharding();
+
+    private Presign presign = new Presign();
+
+    private BatchDelete batchDelete = new BatchDelete();
+
+    private Index index = new Index();
+
+    private Download download = new Download();
+
     public String getType() {
         return type;
     }
@@ -47,12 +70,118 @@ public class StorageProperties {
         this.minio = minio;
     }
 
+    public Local getLocal() {
+        return local;
+    }
+
+    public void setLocal(Local local) {
+        this.local = local;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    public AsyncUpload getAsyncUpload() {
+        return asyncUpload;
+    }
+
+    public void setAsyncUpload(AsyncUpload asyncUpload) {
+        this.asyncUpload = asyncUpload;
+    }
+
+    public Multipart getMultipart() {
+        return multipart;
+    }
+
+    public void setMultipart(Multipart multipart) {
+        this.multipart = multipart;
+    }
+
+    public Dedup getDedup() {
+        return dedup;
+    }
+
+    public void setDedup(Dedup dedup) {
+        this.dedup = dedup;
+    }
+
+    public Sharding getSharding() {
+        return sharding;
+    }
+
+    public void setSharding(Sharding sharding) {
+        this.sharding = sharding;
+    }
+
+    public Presign getPresign() {
+        return presign;
+    }
+
+    public void setPresign(Presign presign) {
+        this.presign = presign;
+    }
+
+    public BatchDelete getBatchDelete() {
+        return batchDelete;
+    }
+
+    public void setBatchDelete(BatchDelete batchDelete) {
+        this.batchDelete = batchDelete;
+    }
+
+    public Index getIndex() {
+        return index;
+    }
+
+    public void setIndex(Index index) {
+        this.index = index;
+    }
+
+    public Download getDownload() {
+        return download;
+    }
+
+    public void setDownload(Download download) {
+        this.download = download;
+    }
+
     public static class Aliyun {
         private String endpoint;
         private String accessKeyId;
         private String accessKeySecret;
         private String bucketName;
         private String region;
+        /**
+         * HTTP连接池最大连接数
+         */
+        private int maxConnections = 1024;
+        private int connectionTimeoutMillis = 5000;
+        /**
+         * 两次读取之间的最大等待时间，超过则断开连接，避免慢请求无限期占用线程
+         */
+        private int socketTimeoutMillis = 30000;
+        /**
+         * 从连接池获取连接的最长等待时间
+         */
+        private int connectionRequestTimeoutMillis = 5000;
+        /**
+         * 空闲超过该时间的连接被回收
+         */
+        private long idleConnectionTimeMillis = 60000;
+        /**
+         * 是否校验上传下载内容的CRC64
+         */
+        private boolean crcCheckEnabled = true;
+        /**
+         * 可重试错误的最大重试次数
+         */
+        private int maxErrorRetry = 3;
+        private Hedge hedge = new Hedge();
 
         public String getEndpoint() {
             return endpoint;
@@ -93,6 +222,133 @@ public class StorageProperties {
         public void setRegion(String region) {
             this.region = region;
         }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getConnectionTimeoutMillis() {
+            return connectionTimeoutMillis;
+        }
+
+        public void setConnectionTimeoutMillis(int connectionTimeoutMillis) {
+            this.connectionTimeoutMillis = connectionTimeoutMillis;
+        }
+
+        public int getSocketTimeoutMillis() {
+            return socketTimeoutMillis;
+        }
+
+        public void setSocketTimeoutMillis(int socketTimeoutMillis) {
+            this.socketTimeoutMillis = socketTimeoutMillis;
+        }
+
+        public int getConnectionRequestTimeoutMillis() {
+            return connectionRequestTimeoutMillis;
+        }
+
+        public void setConnectionRequestTimeoutMillis(int connectionRequestTimeoutMillis) {
+            this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+        }
+
+        public long getIdleConnectionTimeMillis() {
+            return idleConnectionTimeMillis;
+        }
+
+        public void setIdleConnectionTimeMillis(long idleConnectionTimeMillis) {
+            this.idleConnectionTimeMillis = idleConnectionTimeMillis;
+        }
+
+        public boolean isCrcCheckEnabled() {
+            return crcCheckEnabled;
+        }
+
+        public void setCrcCheckEnabled(boolean crcCheckEnabled) {
+            this.crcCheckEnabled = crcCheckEnabled;
+        }
+
+        public int getMaxErrorRetry() {
+            return maxErrorRetry;
+        }
+
+        public void setMaxErrorRetry(int maxErrorRetry) {
+            this.maxErrorRetry = maxErrorRetry;
+        }
+
+        public Hedge getHedge() {
+            return hedge;
+        }
+
+        public void setHedge(Hedge hedge) {
+            this.hedge = hedge;
+        }
+    }
+
+    public static class Hedge {
+        /**
+         * 是否开启对冲下载：首个请求在期限内没有返回数据时再发一个相同请求，取先返回的一个
+         */
+        private boolean enabled = false;
+        /**
+         * 期限取近期首字节耗时的该分位数
+         */
+        private double percentile = 0.95;
+        /**
+         * 期限下限，避免耗时普遍很短时频繁发出对冲请求
+         */
+        private long minDelayMillis = 10;
+        /**
+         * 样本不足时使用的期限
+         */
+        private long initialDelayMillis = 200;
+        /**
+         * 执行下载请求的线程池大小，即同时进行的对冲下载数上限
+         */
+        private int threads = 64;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public long getMinDelayMillis() {
+            return minDelayMillis;
+        }
+
+        public void setMinDelayMillis(long minDelayMillis) {
+            this.minDelayMillis = minDelayMillis;
+        }
+
+        public long getInitialDelayMillis() {
+            return initialDelayMillis;
+        }
+
+        public void setInitialDelayMillis(long initialDelayMillis) {
+            this.initialDelayMillis = initialDelayMillis;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
     }
 
     public static class Tencent {
@@ -100,6 +356,36 @@ public class StorageProperties {
         private String secretKey;
         private String bucketName;
         private String region;
+        /**
+         * 自定义访问域名（如host:port），为空时按地域生成，可指向本地模拟服务
+         */
+        private String endpoint;
+        /**
+         * 访问协议：http, https
+         */
+        private String httpProtocol = "https";
+        /**
+         * HTTP连接池最大连接数
+         */
+        private int maxConnections = 256;
+        private int connectionTimeoutMillis = 5000;
+        private int socketTimeoutMillis = 30000;
+        /**
+         * TransferManager并发传输分块的线程数
+         */
+        private int transferThreads = 16;
+        /**
+         * 上传的分块大小，不超过该大小的上传直接在内存中整体上传
+         */
+        private int partSize = 8 * 1024 * 1024;
+        /**
+         * 超过该字节数的上传拆分为多个分块并发传输
+         */
+        private long multipartThreshold = 16L * 1024 * 1024;
+        /**
+         * 并发传输的暂存目录
+         */
+        private String spoolDir = System.getProperty("java.io.tmpdir") + "/commomservice-cos";
 
         public String getSecretId() {
             return secretId;
@@ -132,6 +418,78 @@ public class StorageProperties {
         public void setRegion(String region) {
             this.region = region;
         }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public void setEndpoint(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public String getHttpProtocol() {
+            return httpProtocol;
+        }
+
+        public void setHttpProtocol(String httpProtocol) {
+            this.httpProtocol = httpProtocol;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getConnectionTimeoutMillis() {
+            return connectionTimeoutMillis;
+        }
+
+        public void setConnectionTimeoutMillis(int connectionTimeoutMillis) {
+            this.connectionTimeoutMillis = connectionTimeoutMillis;
+        }
+
+        public int getSocketTimeoutMillis() {
+            return socketTimeoutMillis;
+        }
+
+        public void setSocketTimeoutMillis(int socketTimeoutMillis) {
+            this.socketTimeoutMillis = socketTimeoutMillis;
+        }
+
+        public int getTransferThreads() {
+            return transferThreads;
+        }
+
+        public void setTransferThreads(int transferThreads) {
+            this.transferThreads = transferThreads;
+        }
+
+        public int getPartSize() {
+            return partSize;
+        }
+
+        public void setPartSize(int partSize) {
+            this.partSize = partSize;
+        }
+
+        public long getMultipartThreshold() {
+            return multipartThreshold;
+        }
+
+        public void setMultipartThreshold(long multipartThreshold) {
+            this.multipartThreshold = multipartThreshold;
+        }
+
+        public String getSpoolDir() {
+            return spoolDir;
+        }
+
+        public void setSpoolDir(String spoolDir) {
+            this.spoolDir = spoolDir;
+        }
     }
 
     public static class Minio {
@@ -172,4 +530,641 @@ public class StorageProperties {
             this.bucketName = bucketName;
         }
     }
-}
\ No newline at end of file
+
+    public static class Local {
+        /**
+         * 本地存储根目录
+         */
+        private String rootDir = "./storage-data";
+        /**
+         * 生成访问URL时使用的下载地址前缀，本地存储的访问URL不带签名也不会过期
+         */
+        private String baseUrl = "http://localhost:8080/api/storage/download/";
+
+        public String getRootDir() {
+            return rootDir;
+        }
+
+        public void setRootDir(String rootDir) {
+            this.rootDir = rootDir;
+        }
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        public void setBaseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+    }
+
+    public static class Cache {
+        /**
+         * 是否启用下载缓存
+         */
+        private boolean enabled = false;
+        /**
+         * 内存缓存总字节数上限
+         */
+        private long memoryMaxBytes = 64L * 1024 * 1024;
+        /**
+         * 进入内存缓存的单个文件大小上限，超过则进入磁盘缓存
+         */
+        private long memoryMaxObjectBytes = 1024L * 1024;
+        /**
+         * 磁盘缓存目录
+         */
+        private String diskDir = System.getProperty("java.io.tmpdir") + "/commomservice-cache";
+        /**
+         * 磁盘缓存总字节数上限
+         */
+        private long diskMaxBytes = 1024L * 1024 * 1024;
+        /**
+         * 进入磁盘缓存的单个文件大小上限，超过则不缓存
+         */
+        private long diskMaxObjectBytes = 256L * 1024 * 1024;
+        /**
+         * 文件元信息缓存有效期（秒），其他节点覆盖或删除文件后本节点最多在这段时间内读到旧信息，不大于0时不缓存
+         */
+        private long statTtlSeconds = 60;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getMemoryMaxBytes() {
+            return memoryMaxBytes;
+        }
+
+        public void setMemoryMaxBytes(long memoryMaxBytes) {
+            this.memoryMaxBytes = memoryMaxBytes;
+        }
+
+        public long getMemoryMaxObjectBytes() {
+            return memoryMaxObjectBytes;
+        }
+
+        public void setMemoryMaxObjectBytes(long memoryMaxObjectBytes) {
+            this.memoryMaxObjectBytes = memoryMaxObjectBytes;
+        }
+
+        public String getDiskDir() {
+            return diskDir;
+        }
+
+        public void setDiskDir(String diskDir) {
+            this.diskDir = diskDir;
+        }
+
+        public long getDiskMaxBytes() {
+            return diskMaxBytes;
+        }
+
+        public void setDiskMaxBytes(long diskMaxBytes) {
+            this.diskMaxBytes = diskMaxBytes;
+        }
+
+        public long getDiskMaxObjectBytes() {
+            return diskMaxObjectBytes;
+        }
+
+        public void setDiskMaxObjectBytes(long diskMaxObjectBytes) {
+            this.diskMaxObjectBytes = diskMaxObjectBytes;
+        }
+
+        public long getStatTtlSeconds() {
+            return statTtlSeconds;
+        }
+
+        public void setStatTtlSeconds(long statTtlSeconds) {
+            this.statTtlSeconds = statTtlSeconds;
+        }
+    }
+
+    public static class AsyncUpload {
+        /**
+         * 异步上传线程池核心线程数
+         */
+        private int corePoolSize = 4;
+        /**
+         * 异步上传线程池最大线程数
+         */
+        private int maxPoolSize = 8;
+        /**
+         * 等待队列容量，队满后拒绝新的异步上传
+         */
+        private int queueCapacity = 100;
+        /**
+         * 空闲线程存活秒数
+         */
+        private long keepAliveSeconds = 60;
+        /**
+         * 异步上传暂存文件目录
+         */
+        private String spoolDir = System.getProperty("java.io.tmpdir") + "/commomservice-upload";
+        /**
+         * 已结束任务的状态保留秒数
+         */
+        private long jobRetentionSeconds = 3600;
+
+        public int getCorePoolSize() {
+            return corePoolSize;
+        }
+
+        public void setCorePoolSize(int corePoolSize) {
+            this.corePoolSize = corePoolSize;
+        }
+
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+
+        public void setMaxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getKeepAliveSeconds() {
+            return keepAliveSeconds;
+        }
+
+        public void setKeepAliveSeconds(long keepAliveSeconds) {
+            this.keepAliveSeconds = keepAliveSeconds;
+        }
+
+        public String getSpoolDir() {
+            return spoolDir;
+        }
+
+        public void setSpoolDir(String spoolDir) {
+            this.spoolDir = spoolDir;
+        }
+
+        public long getJobRetentionSeconds() {
+            return jobRetentionSeconds;
+        }
+
+        public void setJobRetentionSeconds(long jobRetentionSeconds) {
+            this.jobRetentionSeconds = jobRetentionSeconds;
+        }
+    }
+
+    public static class Multipart {
+        /**
+         * 超过该字节数的上传自动切换为并发分片上传，不大于0时关闭
+         */
+        private long threshold = 32L * 1024 * 1024;
+        /**
+         * 分片大小
+         */
+        private int partSize = 8 * 1024 * 1024;
+        /**
+         * 单个文件同时上传的分片数
+         */
+        private int concurrency = 4;
+        /**
+         * 单个分片失败后的重试次数
+         */
+        private int maxRetries = 3;
+        /**
+         * 分片上传线程池大小，所有文件共享
+         */
+        private int poolSize = 16;
+        /**
+         * 分片上传线程池队列容量，队满时由提交线程自己上传
+         */
+        private int queueCapacity = 64;
+        /**
+         * 是否将分片上传ID与文件ID的映射持久化到数据库
+         */
+        private boolean persistentRegistry = true;
+        /**
+         * 超过一个分片、未达到阈值的内容暂存目录
+         */
+        private String spoolDir = System.getProperty("java.io.tmpdir") + "/commomservice-multipart";
+        /**
+         * 客户端分片上传会话的保留小时数，超过该时长没有上传新分片时取消上传并清理已上传的分片，不大于0时不清理
+         */
+        private long sessionTtlHours = 24;
+        /**
+         * 检查过期上传会话的间隔秒数
+         */
+        private long sessionSweepIntervalSeconds = 600;
+
+        public long getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(long threshold) {
+            this.threshold = threshold;
+        }
+
+        public int getPartSize() {
+            return partSize;
+        }
+
+        public void setPartSize(int partSize) {
+            this.partSize = partSize;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public boolean isPersistentRegistry() {
+            return persistentRegistry;
+        }
+
+        public void setPersistentRegistry(boolean persistentRegistry) {
+            this.persistentRegistry = persistentRegistry;
+        }
+
+        public String getSpoolDir() {
+            return spoolDir;
+        }
+
+        public void setSpoolDir(String spoolDir) {
+            this.spoolDir = spoolDir;
+        }
+
+        public long getSessionTtlHours() {
+            return sessionTtlHours;
+        }
+
+        public void setSessionTtlHours(long sessionTtlHours) {
+            this.sessionTtlHours = sessionTtlHours;
+        }
+
+        public long getSessionSweepIntervalSeconds() {
+            return sessionSweepIntervalSeconds;
+        }
+
+        public void setSessionSweepIntervalSeconds(long sessionSweepIntervalSeconds) {
+            this.sessionSweepIntervalSeconds = sessionSweepIntervalSeconds;
+        }
+    }
+
+    public static class Dedup {
+        /**
+         * 是否按内容去重，相同内容的上传返回已有文件ID
+         */
+        private boolean enabled = false;
+        /**
+         * 不超过该字节数的上传先在内存中计算摘要，命中时不写入存储平台；超过则边写入边计算，命中时删除写入的文件
+         */
+        private int memoryThreshold = 1024 * 1024;
+        /**
+         * 是否将内容摘要与引用计数持久化到数据库
+         */
+        private boolean persistentIndex = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMemoryThreshold() {
+            return memoryThreshold;
+        }
+
+        public void setMemoryThreshold(int memoryThreshold) {
+            this.memoryThreshold = memoryThreshold;
+        }
+
+        public boolean isPersistentIndex() {
+            return persistentIndex;
+        }
+
+        public void setPersistentIndex(boolean persistentIndex) {
+            this.persistentIndex = persistentIndex;
+        }
+    }
+
+    public static class Presign {
+        /**
+         * 签名URL过期时间的对齐窗口秒数，同一窗口内同一文件返回相同的URL，不大于0时每次重新签名；
+         * 实际窗口不超过请求有效期的十分之一
+         */
+        private long windowSeconds = 600;
+        /**
+         * 缓存的签名URL条数上限，超过时淘汰最久未用的条目
+         */
+        private int cacheSize = 100000;
+
+        public long getWindowSeconds() {
+            return windowSeconds;
+        }
+
+        public void setWindowSeconds(long windowSeconds) {
+            this.windowSeconds = windowSeconds;
+        }
+
+        public int getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+    }
+
+    public static class Index {
+        /**
+         * 是否维护文件元信息索引，开启后stat和文件列表只查索引
+         */
+        private boolean enabled = false;
+        /**
+         * 是否将索引持久化到数据库
+         */
+        private boolean persistent = true;
+        /**
+         * 内存中缓存的索引记录数
+         */
+        private int cacheSize = 100000;
+        /**
+         * 缓存的索引记录的有效秒数
+         */
+        private long cacheTtlSeconds = 60;
+        /**
+         * 索引中没有的文件是否查询存储平台并补登记，只在为启用索引前上传的文件补登记期间打开
+         */
+        private boolean fallbackToStore = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isPersistent() {
+            return persistent;
+        }
+
+        public void setPersistent(boolean persistent) {
+            this.persistent = persistent;
+        }
+
+        public int getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+
+        public long getCacheTtlSeconds() {
+            return cacheTtlSeconds;
+        }
+
+        public void setCacheTtlSeconds(long cacheTtlSeconds) {
+            this.cacheTtlSeconds = cacheTtlSeconds;
+        }
+
+        public boolean isFallbackToStore() {
+            return fallbackToStore;
+        }
+
+        public void setFallbackToStore(boolean fallbackToStore) {
+            this.fallbackToStore = fallbackToStore;
+        }
+    }
+
+    public static class Download {
+        /**
+         * 流式下载写出响应的线程数上限，即同时进行的下载数
+         */
+        private int threads = 64;
+        /**
+         * 等待写出的下载数，队满后拒绝新的下载
+         */
+        private int queueCapacity = 64;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class BatchDelete {
+        /**
+         * 每批删除的文件数，OSS和COS单次请求最多1000个
+         */
+        private int batchSize = 1000;
+        /**
+         * 同时执行的批数
+         */
+        private int threads = 8;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+    }
+
+    public static class Sharding {
+        /**
+         * 参与分片的存储后端，按名称做一致性哈希，增减后端只影响相邻区间的文件
+         */
+        private List<Backend> backends = new ArrayList<>();
+        /**
+         * 每个文件写入的副本数，不超过后端数量
+         */
+        private int replicationFactor = 1;
+        /**
+         * 每个后端在哈希环上的虚拟节点数
+         */
+        private int virtualNodes = 160;
+        /**
+         * 副本并行写入线程池大小
+         */
+        private int replicaThreads = 16;
+        /**
+         * 多副本上传时不超过该字节数的内容在内存中暂存，超过则暂存到磁盘
+         */
+        private int memoryThreshold = 1024 * 1024;
+        /**
+         * 多副本上传的暂存目录
+         */
+        private String spoolDir = System.getProperty("java.io.tmpdir") + "/commomservice-replica";
+        /**
+         * 后端请求失败后降低读取优先级的秒数
+         */
+        private long failureCooldownSeconds = 30;
+
+        public List<Backend> getBackends() {
+            return backends;
+        }
+
+        public void setBackends(List<Backend> backends) {
+            this.backends = backends;
+        }
+
+        public int getReplicationFactor() {
+            return replicationFactor;
+        }
+
+        public void setReplicationFactor(int replicationFactor) {
+            this.replicationFactor = replicationFactor;
+        }
+
+        public int getVirtualNodes() {
+            return virtualNodes;
+        }
+
+        public void setVirtualNodes(int virtualNodes) {
+            this.virtualNodes = virtualNodes;
+        }
+
+        public int getReplicaThreads() {
+            return replicaThreads;
+        }
+
+        public void setReplicaThreads(int replicaThreads) {
+            this.replicaThreads = replicaThreads;
+        }
+
+        public int getMemoryThreshold() {
+            return memoryThreshold;
+        }
+
+        public void setMemoryThreshold(int memoryThreshold) {
+            this.memoryThreshold = memoryThreshold;
+        }
+
+        public String getSpoolDir() {
+            return spoolDir;
+        }
+
+        public void setSpoolDir(String spoolDir) {
+            this.spoolDir = spoolDir;
+        }
+
+        public long getFailureCooldownSeconds() {
+            return failureCooldownSeconds;
+        }
+
+        public void setFailureCooldownSeconds(long failureCooldownSeconds) {
+            this.failureCooldownSeconds = failureCooldownSeconds;
+        }
+
+        public static class Backend {
+            /**
+             * 后端名称，决定在哈希环上的位置，配置后不应修改
+             */
+            private String name;
+            /**
+             * 后端类型：aliyun, tencent, local
+             */
+            private String type;
+            private Aliyun aliyun = new Aliyun();
+            private Tencent tencent = new Tencent();
+            private Local local = new Local();
+
+            public String getName() {
+                return name;
+            }
+
+            public void setName(String name) {
+                this.name = name;
+            }
+
+            public String getType() {
+                return type;
+            }
+
+            public void setType(String type) {
+                this.type = type;
+            }
+
+            public Aliyun getAliyun() {
+                return aliyun;
+            }
+
+            public void setAliyun(Aliyun aliyun) {
+                this.aliyun = aliyun;
+            }
+
+            public Tencent getTencent() {
+                return tencent;
+            }
+
+            public void setTencent(Tencent tencent) {
+                this.tencent = tencent;
+            }
+
+            public Local getLocal() {
+                return local;
+            }
+
+            public void setLocal(Local local) {
+                this.local = local;
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ayw.commomservice.config;
+
+import com.ayw.commomservice.concurrent.MonitoredThreadPoolExecutor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * 异步请求（StreamingResponseBody流式下载）使用有界线程池
+ * 存储相关线程池注册为Executor Bean后Spring Boot不再创建applicationTaskExecutor，
+ * 未配置时MVC异步请求退回每个请求新建一个线程的SimpleAsyncTaskExecutor
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final StorageProperties storageProperties;
+
+    public WebMvcConfig(StorageProperties storageProperties) {
+        this.storageProperties = storageProperties;
+    }
+
+    /**
+     * 写出流式下载响应的线程池，队满时拒绝新的下载
+     */
+    @Bean(destroyMethod = "shutdown")
+    public MonitoredThreadPoolExecutor mvcAsyncExecutor() {
+        StorageProperties.Download download = storageProperties.getDownload();
+        return MonitoredThreadPoolExecutor.aborting("mvc-async", download.getThreads(), download.getThreads(),
+                download.getQueueCapacity(), 60);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(mvcAsyncExecutor()));
+    }
+}
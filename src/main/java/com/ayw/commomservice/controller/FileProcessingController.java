@@ -1,33 +1,89 @@
 package com.ayw.commomservice.controller;
 
+import com.ayw.commomservice.model.ImageTask;
+import com.ayw.commomservice.model.ImageTaskResult;
+import com.ayw.commomservice.model.ImportJob;
+import com.ayw.commomservice.model.PdfBulkRequest;
+import com.ayw.commomservice.model.PdfBulkResult;
+import com.ayw.commomservice.model.PoolStats;
+import com.ayw.commomservice.model.ProcessingJob;
+import com.ayw.commomservice.model.ProcessingJobRequest;
+import com.ayw.commomservice.service.ExcelImportService;
 import com.ayw.commomservice.service.FileProcessingService;
+import com.ayw.commomservice.service.ProcessingJobService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/file/process")
 public class FileProcessingController {
 
+    /**
+     * 单次批量处理的图片数上限，请求线程等待整批完成，过大的批次会长时间占用请求线程和流水线
+     */
+    private static final int MAX_IMAGE_BATCH_SIZE = 500;
+
     private final FileProcessingService fileProcessingService;
+    private final ExcelImportService excelImportService;
+    private final ProcessingJobService processingJobService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public FileProcessingController(FileProcessingService fileProcessingService) {
+    public FileProcessingController(FileProcessingService fileProcessingService,
+                                    ExcelImportService excelImportService,
+                                    ProcessingJobService processingJobService,
+                                    ObjectMapper objectMapper) {
         this.fileProcessingService = fileProcessingService;
+        this.excelImportService = excelImportService;
+        this.processingJobService = processingJobService;
+        this.objectMapper = objectMapper;
     }
 
     /**
      * 处理图片
+     * 操作参数不合法（如水印尺寸超出范围）或图片格式不支持时返回400
      */
     @PostMapping("/image")
     public ResponseEntity<String> processImage(
             @RequestParam String fileId,
             @RequestParam String operation,
             @RequestBody Map<String, Object> params) {
-        String processedFileId = fileProcessingService.processImage(fileId, operation, params);
-        return ResponseEntity.ok(processedFileId);
+        try {
+            String processedFileId = fileProcessingService.processImage(fileId, operation, params);
+            return ResponseEntity.ok(processedFileId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    /**
+     * 批量处理图片
+     * 任务数超过上限时返回400，客户端应拆分为多次请求
+     */
+    @PostMapping("/image/batch")
+    public ResponseEntity<List<ImageTaskResult>> processImageBatch(@RequestBody List<ImageTask> tasks) {
+        if (tasks.size() > MAX_IMAGE_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        return ResponseEntity.ok(fileProcessingService.processImageBatch(tasks));
+    }
+
+    /**
+     * 获取批量图片处理流水线状态
+     */
+    @GetMapping("/image/batch/pools")
+    public ResponseEntity<List<PoolStats>> getImagePipelineStats() {
+        return ResponseEntity.ok(fileProcessingService.getImagePipelineStats());
     }
 
     /**
@@ -41,4 +97,113 @@ public class FileProcessingController {
         String processedFileId = fileProcessingService.processDocument(fileId, operation, params);
         return ResponseEntity.ok(processedFileId);
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量生成PDF
+     */
+    @PostMapping("/document/pdf/bulk")
+    public ResponseEntity<PdfBulkResult> generatePdfBulk(@RequestBody PdfBulkRequest request) {
+        return ResponseEntity.ok(fileProcessingService.generatePdfBulk(request));
+    }
+
+    /**
+     * 流式导出Excel，请求体为NDJSON，每行一个JSON对象或数组
+     */
+    @PostMapping(value = "/document/excel-export", consumes = {"application/x-ndjson", "application/json"})
+    public ResponseEntity<String> exportExcel(
+            @RequestParam(required = false) List<String> headers,
+            @RequestParam(defaultValue = "Sheet1") String sheetName,
+            InputStream body) throws IOException {
+        try (MappingIterator<Object> rows = objectMapper.readerFor(Object.class).readValues(body)) {
+            String fileId = fileProcessingService.exportExcel(rows, headers, sheetName);
+            return ResponseEntity.ok(fileId);
+        }
+    }
+
+    /**
+     * 提交Excel导入任务，返回202及可轮询的任务ID
+     */
+    @PostMapping("/document/excel-import")
+    public ResponseEntity<ImportJob> importExcel(
+            @RequestParam String fileId,
+            @RequestParam String table,
+            @RequestBody(required = false) Map<String, String> columns) {
+        ImportJob job;
+        try {
+            job = excelImportService.submit(fileId, table, columns);
+        } catch (IllegalArgumentException e) {
+            // 表不在allowed-tables中或表名、列名不合法
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/file/process/document/excel-import/" + job.getJobId()))
+                .body(job);
+    }
+
+    /**
+     * 查询Excel导入进度
+     */
+    @GetMapping("/document/excel-import/{jobId}")
+    public ResponseEntity<ImportJob> getImportJob(@PathVariable String jobId) {
+        ImportJob job = excelImportService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    /**
+     * Excel导入线程池运行状态
+     */
+    @GetMapping("/document/excel-import/pool")
+    public ResponseEntity<PoolStats> getImportPoolStats() {
+        return ResponseEntity.ok(excelImportService.getPoolStats());
+    }
+
+    /**
+     * 提交异步处理任务，返回202及可轮询的任务ID
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<ProcessingJob> submitJob(@RequestBody ProcessingJobRequest request) {
+        ProcessingJob job = processingJobService.submit(request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/file/process/jobs/" + job.getJobId()))
+                .body(job);
+    }
+
+    /**
+     * 异步处理任务各优先级通道线程池运行状态
+     */
+    @GetMapping("/jobs/pools")
+    public ResponseEntity<List<PoolStats>> getJobPoolStats() {
+        return ResponseEntity.ok(processingJobService.getPoolStats());
+    }
+
+    /**
+     * 查询异步处理任务
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ProcessingJob> getProcessingJob(@PathVariable String jobId) {
+        ProcessingJob job = processingJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    /**
+     * 获取异步处理结果：成功返回200及结果文件ID，未完成返回202，失败返回422及错误信息
+     */
+    @GetMapping("/jobs/{jobId}/result")
+    public ResponseEntity<String> getProcessingJobResult(@PathVariable String jobId) {
+        ProcessingJob job = processingJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return switch (job.getStatus()) {
+            case SUCCEEDED -> ResponseEntity.ok(job.getResultFileId());
+            case FAILED -> ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(job.getError());
+            default -> ResponseEntity.accepted().build();
+        };
+    }
+}
@@ -1,27 +1,98 @@
 package com.ayw.commomservice.controller;
 
+import com.ayw.commomservice.model.CacheStats;
+import com.ayw.commomservice.model.DirectUpload;
+import com.ayw.commomservice.model.FileListQuery;
+import com.ayw.commomservice.model.FilePage;
+import com.ayw.commomservice.model.MultipartUploadStatus;
+import com.ayw.commomservice.model.FileStat;
+import com.ayw.commomservice.model.PoolStats;
+import com.ayw.commomservice.model.UploadJob;
+import com.ayw.commomservice.model.UploadedPart;
+import com.ayw.commomservice.service.AsyncUploadService;
+import com.ayw.commomservice.service.StorageErrors;
 import com.ayw.commomservice.service.StorageService;
+import com.ayw.commomservice.service.cache.DerivedFileIndex;
+import com.ayw.commomservice.service.cache.TieredStorageCache;
+import com.ayw.commomservice.service.registry.FileMetadataIndex;
+import com.ayw.commomservice.service.registry.UploadSessionRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/storage")
 public class StorageController {
 
+    /**
+     * 异步上传队列已满时建议客户端的重试间隔秒数
+     */
+    private static final String UPLOAD_RETRY_AFTER_SECONDS = "5";
+
+    /**
+     * 单次批量签名的文件数上限
+     */
+    private static final int MAX_PRESIGN_BATCH_SIZE = 1000;
+
+    /**
+     * 单次批量删除的文件数上限
+     */
+    private static final int MAX_DELETE_BATCH_SIZE = 10000;
+
+    /**
+     * 文件列表单页条数上限
+     */
+    private static final int MAX_LIST_PAGE_SIZE = 1000;
+
+    /**
+     * 表单直传允许的最大字节数，与存储平台单次上传的上限一致，更大的文件使用分片直传
+     */
+    private static final long MAX_DIRECT_UPLOAD_SIZE = 5L * 1024 * 1024 * 1024;
+
+    /**
+     * 分片编号上限
+     */
+    private static final int MAX_PART_NUMBER = 10000;
+
     private final StorageService storageService;
+    private final AsyncUploadService asyncUploadService;
+    private final ObjectProvider<TieredStorageCache> storageCache;
+    private final DerivedFileIndex derivedFileIndex;
+    private final ObjectProvider<FileMetadataIndex> fileMetadataIndex;
+    private final UploadSessionRegistry uploadSessionRegistry;
 
     @Autowired
-    public StorageController(StorageService storageService) {
+    public StorageController(StorageService storageService,
+                             AsyncUploadService asyncUploadService,
+                             ObjectProvider<TieredStorageCache> storageCache,
+                             DerivedFileIndex derivedFileIndex,
+                             ObjectProvider<FileMetadataIndex> fileMetadataIndex,
+                             UploadSessionRegistry uploadSessionRegistry) {
         this.storageService = storageService;
+        this.asyncUploadService = asyncUploadService;
+        this.storageCache = storageCache;
+        this.derivedFileIndex = derivedFileIndex;
+        this.fileMetadataIndex = fileMetadataIndex;
+        this.uploadSessionRegistry = uploadSessionRegistry;
     }
 
     /**
@@ -45,41 +116,190 @@ public class StorageController {
     }
 
     /**
-     * 异步上传文件
+     * 异步上传文件，返回202及可轮询的任务ID
      */
     @PostMapping("/upload-async")
-    public ResponseEntity<CompletableFuture<String>> uploadFileAsync(
+    public ResponseEntity<UploadJob> uploadFileAsync(
             @RequestParam("file") MultipartFile file,
             @RequestParam(required = false) Map<String, String> metadata) {
-        try (InputStream inputStream = file.getInputStream()) {
-            CompletableFuture<String> fileIdFuture = storageService.uploadAsync(
-                    inputStream,
-                    file.getOriginalFilename(),
-                    file.getContentType(),
-                    metadata);
-            return ResponseEntity.ok(fileIdFuture);
+        try {
+            UploadJob job = asyncUploadService.submit(file, metadata);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/storage/upload-async/" + job.getJobId()))
+                    .body(job);
+        } catch (RejectedExecutionException e) {
+            // 上传线程池已满，由客户端稍后重试
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, UPLOAD_RETRY_AFTER_SECONDS)
+                    .build();
         } catch (IOException e) {
-            CompletableFuture<String> failedFuture = new CompletableFuture<>();
-            failedFuture.completeExceptionally(
-                    new RuntimeException("Failed to upload file: " + e.getMessage()));
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(failedFuture);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     /**
-     * 下载文件
+     * 查询异步上传任务状态
+     */
+    @GetMapping("/upload-async/{jobId}")
+    public ResponseEntity<UploadJob> getUploadJob(@PathVariable String jobId) {
+        UploadJob job = asyncUploadService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(job);
+    }
+
+    /**
+     * 异步上传线程池运行状态
+     */
+    @GetMapping("/upload-async/pool")
+    public ResponseEntity<PoolStats> getUploadPoolStats() {
+        return ResponseEntity.ok(asyncUploadService.getPoolStats());
+    }
+
+    /**
+     * 下载文件，支持Range/If-Range断点续传
      */
     @GetMapping("/download/{fileId}")
-    public ResponseEntity<byte[]> downloadFile(@PathVariable String fileId) {
-        try (InputStream inputStream = storageService.download(fileId)) {
-            byte[] content = inputStream.readAllBytes();
-            HttpHeaders headers = new HttpHeaders();
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileId + "\"");
-            return new ResponseEntity<>(content, headers, HttpStatus.OK);
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                    .body(("File not found: " + fileId).getBytes());
+    public ResponseEntity<StreamingResponseBody> downloadFile(
+            @PathVariable String fileId,
+            @RequestHeader HttpHeaders requestHeaders) {
+        FileStat stat;
+        try {
+            stat = storageService.stat(fileId);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        long length = stat.getSize();
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileId + "\"");
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setContentType(stat.getContentType() != null
+                ? MediaType.parseMediaType(stat.getContentType())
+                : MediaType.APPLICATION_OCTET_STREAM);
+        String eTag = quoteETag(stat.getETag());
+        if (eTag != null) {
+            headers.setETag(eTag);
+        }
+        if (stat.getLastModified() != null) {
+            headers.setLastModified(stat.getLastModified().getTime());
+        }
+
+        // 只处理单个范围，多范围请求按完整文件返回
+        List<HttpRange> ranges = parseRanges(requestHeaders);
+        if (ranges.size() == 1 && isIfRangeSatisfied(requestHeaders, eTag, stat)) {
+            HttpRange range = ranges.get(0);
+            long start = range.getRangeStart(length);
+            long end = range.getRangeEnd(length);
+            if (start >= length || start > end) {
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .headers(headers)
+                        .build();
+            }
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            headers.setContentLength(end - start + 1);
+            StreamingResponseBody body = outputStream ->
+                    storageService.transferTo(fileId, start, end, outputStream);
+            return new ResponseEntity<>(body, headers, HttpStatus.PARTIAL_CONTENT);
+        }
+
+        headers.setContentLength(length);
+        StreamingResponseBody body = outputStream ->
+                storageService.transferTo(fileId, 0, length - 1, outputStream);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    /**
+     * 解析Range请求头，格式错误时忽略Range按完整文件返回
+     */
+    private List<HttpRange> parseRanges(HttpHeaders requestHeaders) {
+        try {
+            return requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 校验If-Range条件，文件已变化时应返回完整文件
+     */
+    private boolean isIfRangeSatisfied(HttpHeaders requestHeaders, String eTag, FileStat stat) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range要求强校验，弱ETag永远不匹配
+            return eTag != null && !ifRange.startsWith("W/") && ifRange.equals(eTag);
+        }
+        if (stat.getLastModified() == null) {
+            return false;
+        }
+        try {
+            long ifRangeDate = requestHeaders.getFirstDate(HttpHeaders.IF_RANGE);
+            return ifRangeDate == stat.getLastModified().getTime() / 1000 * 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private String quoteETag(String eTag) {
+        if (eTag == null || eTag.isEmpty()) {
+            return null;
+        }
+        if (eTag.startsWith("\"") || eTag.startsWith("W/")) {
+            return eTag;
+        }
+        return "\"" + eTag + "\"";
+    }
+
+    /**
+     * 查询文件元信息，不下载文件内容
+     */
+    @GetMapping("/files/{fileId}")
+    public ResponseEntity<FileStat> getFileStat(@PathVariable String fileId) {
+        try {
+            return ResponseEntity.ok(storageService.stat(fileId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+    }
+
+    /**
+     * 按游标分页列出文件，只查询元信息索引
+     * order为name时按文件ID升序，为time时按修改时间从新到旧
+     */
+    @GetMapping("/files")
+    public ResponseEntity<FilePage> listFiles(
+            @RequestParam(required = false) String tenant,
+            @RequestParam(required = false) String prefix,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+            @RequestParam(defaultValue = "name") String order,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        FileMetadataIndex index = fileMetadataIndex.getIfAvailable();
+        if (index == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        if (limit <= 0 || limit > MAX_LIST_PAGE_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        FileListQuery query = new FileListQuery();
+        query.setTenant(tenant);
+        query.setPrefix(prefix != null && !prefix.isEmpty() ? prefix : null);
+        query.setFrom(from);
+        query.setTo(to);
+        query.setLimit(limit);
+        try {
+            query.setOrder(FileListQuery.Order.valueOf(order.toUpperCase()));
+            return ResponseEntity.ok(index.list(query, cursor));
+        } catch (IllegalArgumentException e) {
+            // 排序方式或游标格式错误
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         }
     }
 
@@ -89,6 +309,9 @@ public class StorageController {
     @DeleteMapping("/delete/{fileId}")
     public ResponseEntity<Boolean> deleteFile(@PathVariable String fileId) {
         boolean deleted = storageService.delete(fileId);
+        if (fileId.startsWith(DerivedFileIndex.DERIVED_PREFIX)) {
+            derivedFileIndex.invalidate(fileId);
+        }
         if (deleted) {
             return ResponseEntity.ok(true);
         } else {
@@ -96,6 +319,23 @@ public class StorageController {
         }
     }
 
+    /**
+     * 批量删除文件，请求体为文件ID数组，返回文件ID到是否删除成功的映射
+     */
+    @PostMapping("/delete-batch")
+    public ResponseEntity<Map<String, Boolean>> deleteFiles(@RequestBody List<String> fileIds) {
+        if (fileIds.size() > MAX_DELETE_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        Map<String, Boolean> results = storageService.deleteBatch(fileIds);
+        for (String fileId : results.keySet()) {
+            if (fileId.startsWith(DerivedFileIndex.DERIVED_PREFIX)) {
+                derivedFileIndex.invalidate(fileId);
+            }
+        }
+        return ResponseEntity.ok(results);
+    }
+
     /**
      * 生成带时效的访问签名URL
      */
@@ -107,15 +347,77 @@ public class StorageController {
         return ResponseEntity.ok(presignedUrl);
     }
 
+    /**
+     * 批量生成签名URL，请求体为文件ID数组，返回文件ID到URL的映射
+     * 同一文件在同一对齐窗口内返回相同的URL
+     */
+    @PostMapping("/presigned-urls")
+    public ResponseEntity<Map<String, String>> generatePresignedUrls(
+            @RequestBody List<String> fileIds,
+            @RequestParam(defaultValue = "3600") long expireSeconds) {
+        if (fileIds.size() > MAX_PRESIGN_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        return ResponseEntity.ok(storageService.generatePresignedUrls(fileIds, expireSeconds));
+    }
+
+    /**
+     * 申请浏览器直传凭证，文件内容由浏览器直接PUT或表单POST到存储平台，不经过本服务
+     * 上传完成后须调用确认接口登记文件；存储平台不支持直传时返回501
+     */
+    @PostMapping("/direct-upload")
+    public ResponseEntity<DirectUpload> prepareDirectUpload(
+            @RequestParam String fileName,
+            @RequestParam(required = false) String contentType,
+            @RequestParam(defaultValue = "" + MAX_DIRECT_UPLOAD_SIZE) long maxSize,
+            @RequestParam(defaultValue = "900") long expireSeconds) {
+        if (maxSize <= 0 || maxSize > MAX_DIRECT_UPLOAD_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        try {
+            return ResponseEntity.ok(storageService.prepareDirectUpload(fileName, contentType, maxSize, expireSeconds));
+        } catch (UnsupportedOperationException e) {
+            return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
+        }
+    }
+
+    /**
+     * 确认直传完成，按存储平台上的实际元信息登记文件
+     * 文件不存在时返回404；超过申请凭证时的maxSize时删除文件并返回413；传入expectedSize且与实际大小不一致时返回409
+     */
+    @PostMapping("/direct-upload/confirm")
+    public ResponseEntity<FileStat> confirmDirectUpload(
+            @RequestParam String fileId,
+            @RequestParam(required = false) Long expectedSize) {
+        FileStat stat;
+        try {
+            stat = storageService.confirmDirectUpload(fileId);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (RuntimeException e) {
+            if (StorageErrors.isNotFound(e)) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            throw e;
+        }
+        if (expectedSize != null && expectedSize != stat.getSize()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(stat);
+        }
+        return ResponseEntity.ok(stat);
+    }
+
     /**
      * 分片上传初始化
+     * 传入客户端切分的分片大小后，查询进度时可以算出还缺哪些分片
      */
     @PostMapping("/multipart/init")
     public ResponseEntity<String> initiateMultipartUpload(
             @RequestParam String fileName,
             @RequestParam String contentType,
-            @RequestParam long fileSize) {
+            @RequestParam long fileSize,
+            @RequestParam(defaultValue = "0") int partSize) {
         String uploadId = storageService.initiateMultipartUpload(fileName, contentType, fileSize);
+        uploadSessionRegistry.register(uploadId, fileSize, partSize);
         return ResponseEntity.ok(uploadId);
     }
 
@@ -127,8 +429,16 @@ public class StorageController {
             @RequestParam String uploadId,
             @RequestParam int partNumber,
             @RequestParam("file") MultipartFile file) {
+        if (partNumber < 1 || partNumber > MAX_PART_NUMBER) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        if (!uploadSessionRegistry.contains(uploadId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
         try (InputStream inputStream = file.getInputStream()) {
             String eTag = storageService.uploadPart(uploadId, partNumber, inputStream, file.getSize());
+            // 分片上传成功即登记，断线后这个分片不需要重传
+            uploadSessionRegistry.recordPart(uploadId, partNumber, file.getSize(), eTag);
             return ResponseEntity.ok(eTag);
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -136,14 +446,112 @@ public class StorageController {
         }
     }
 
+    /**
+     * 批量生成分片直传的签名URL，返回分片编号到URL的映射
+     * 浏览器PUT分片后从响应头ETag取得分片ETag
+     */
+    @GetMapping("/multipart/{uploadId}/part-urls")
+    public ResponseEntity<Map<Integer, String>> generatePresignedPartUrls(
+            @PathVariable String uploadId,
+            @RequestParam List<Integer> partNumbers,
+            @RequestParam(defaultValue = "3600") long expireSeconds) {
+        if (partNumbers.isEmpty() || partNumbers.size() > MAX_PRESIGN_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        Map<Integer, String> urls = new LinkedHashMap<>();
+        try {
+            for (Integer partNumber : partNumbers) {
+                if (partNumber < 1 || partNumber > MAX_PART_NUMBER) {
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+                }
+                urls.put(partNumber, storageService.generatePresignedPartUrl(uploadId, partNumber, expireSeconds));
+            }
+        } catch (UnsupportedOperationException e) {
+            return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).build();
+        } catch (IllegalArgumentException e) {
+            // 分片上传ID无效
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(urls);
+    }
+
+    /**
+     * 登记浏览器直传成功的分片，断线重连后查询进度即可知道不需要重传；完成时不传请求体即可使用登记的ETag
+     */
+    @PutMapping("/multipart/{uploadId}/parts/{partNumber}")
+    public ResponseEntity<Void> recordDirectPart(
+            @PathVariable String uploadId,
+            @PathVariable int partNumber,
+            @RequestParam long size,
+            @RequestParam String eTag) {
+        if (partNumber < 1 || partNumber > MAX_PART_NUMBER) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        if (!uploadSessionRegistry.contains(uploadId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        uploadSessionRegistry.recordPart(uploadId, partNumber, size, eTag);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * 查询分片上传进度，返回已上传的分片和缺少的分片，断线重连后只需补传缺少的分片
+     */
+    @GetMapping("/multipart/{uploadId}/parts")
+    public ResponseEntity<MultipartUploadStatus> getMultipartUploadStatus(@PathVariable String uploadId) {
+        MultipartUploadStatus status = uploadSessionRegistry.getStatus(uploadId);
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(status);
+    }
+
     /**
      * 完成分片上传
+     * 不传请求体时使用服务端登记的分片，还有缺少的分片时返回409
      */
     @PostMapping("/multipart/complete")
     public ResponseEntity<String> completeMultipartUpload(
             @RequestParam String uploadId,
-            @RequestBody Map<Integer, String> parts) {
+            @RequestBody(required = false) Map<Integer, String> parts) {
+        if (parts == null || parts.isEmpty()) {
+            MultipartUploadStatus status = uploadSessionRegistry.getStatus(uploadId);
+            if (status == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            if (!status.getMissingParts().isEmpty() || status.getParts().isEmpty()) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body("Missing parts: " + status.getMissingParts());
+            }
+            parts = new HashMap<>();
+            for (UploadedPart part : status.getParts()) {
+                parts.put(part.getPartNumber(), part.getETag());
+            }
+        }
         String fileId = storageService.completeMultipartUpload(uploadId, parts);
+        uploadSessionRegistry.remove(uploadId);
         return ResponseEntity.ok(fileId);
     }
-}
\ No newline at end of file
+
+    /**
+     * 取消分片上传
+     */
+    @DeleteMapping("/multipart/{uploadId}")
+    public ResponseEntity<Void> abortMultipartUpload(@PathVariable String uploadId) {
+        storageService.abortMultipartUpload(uploadId);
+        uploadSessionRegistry.remove(uploadId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * 下载缓存统计信息
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStats> getCacheStats() {
+        TieredStorageCache cache = storageCache.getIfAvailable();
+        if (cache == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(cache.getStats());
+    }
+}
@@ -0,0 +1,44 @@
+package com.ayw.commomservice.mapper;
+
+import com.ayw.commomservice.model.ContentHash;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+@Mapper
+public interface ContentHashMapper {
+
+    /**
+     * @return 插入的行数，相同内容已登记时为0
+     */
+    @Insert("INSERT IGNORE INTO content_hash (content_hash, tenant, extension, content_type, file_id, ref_count, size, created_at) "
+            + "VALUES (#{contentHash}, #{tenant}, #{extension}, #{contentType}, #{fileId}, #{refCount}, #{size}, #{createdAt})")
+    int insertIgnore(ContentHash contentHash);
+
+    @Select("SELECT content_hash, tenant, extension, content_type, file_id, ref_count, size, created_at FROM content_hash "
+            + "WHERE content_hash = #{contentHash} AND tenant = #{tenant} AND extension = #{extension} "
+            + "AND content_type = #{contentType}")
+    ContentHash selectByHash(@Param("contentHash") String contentHash, @Param("tenant") String tenant,
+                             @Param("extension") String extension, @Param("contentType") String contentType);
+
+    /**
+     * 只增加仍被引用的记录，引用计数已减到0的记录即将删除
+     */
+    @Update("UPDATE content_hash SET ref_count = ref_count + 1 "
+            + "WHERE content_hash = #{contentHash} AND tenant = #{tenant} AND extension = #{extension} "
+            + "AND content_type = #{contentType} AND ref_count > 0")
+    int incrementRefCount(@Param("contentHash") String contentHash, @Param("tenant") String tenant,
+                          @Param("extension") String extension, @Param("contentType") String contentType);
+
+    @Update("UPDATE content_hash SET ref_count = ref_count - 1 WHERE file_id = #{fileId} AND ref_count > 0")
+    int decrementRefCount(@Param("fileId") String fileId);
+
+    @Delete("DELETE FROM content_hash WHERE file_id = #{fileId} AND ref_count = 0")
+    int deleteUnreferenced(@Param("fileId") String fileId);
+
+    @Delete("DELETE FROM content_hash WHERE file_id = #{fileId}")
+    int deleteByFileId(@Param("fileId") String fileId);
+}
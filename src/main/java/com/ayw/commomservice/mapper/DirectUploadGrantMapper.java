@@ -0,0 +1,36 @@
+package com.ayw.commomservice.mapper;
+
+import com.ayw.commomservice.model.DirectUploadGrant;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Date;
+import java.util.List;
+
+@Mapper
+public interface DirectUploadGrantMapper {
+
+    /**
+     * 同一文件ID重新申请凭证时以最后一次为准
+     */
+    @Insert("INSERT INTO direct_upload_grant (file_id, max_size, expiration, created_at) "
+            + "VALUES (#{fileId}, #{maxSize}, #{expiration}, #{createdAt}) "
+            + "ON DUPLICATE KEY UPDATE max_size = VALUES(max_size), expiration = VALUES(expiration), "
+            + "created_at = VALUES(created_at)")
+    int upsert(DirectUploadGrant grant);
+
+    @Select("SELECT file_id, max_size, expiration, created_at FROM direct_upload_grant WHERE file_id = #{fileId}")
+    DirectUploadGrant selectByFileId(@Param("fileId") String fileId);
+
+    @Delete("DELETE FROM direct_upload_grant WHERE file_id = #{fileId}")
+    int deleteByFileId(@Param("fileId") String fileId);
+
+    /**
+     * 发放时间早于cutoff的凭证，按发放时间排序
+     */
+    @Select("SELECT file_id FROM direct_upload_grant WHERE created_at < #{cutoff} ORDER BY created_at LIMIT #{limit}")
+    List<String> selectCreatedBefore(@Param("cutoff") Date cutoff, @Param("limit") int limit);
+}
@@ -0,0 +1,23 @@
+package com.ayw.commomservice.mapper;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface ExcelImportMapper {
+
+    /**
+     * 插入一行数据，表名和列名由调用方校验后拼入SQL
+     * 同一工作表的SQL文本相同，在BATCH执行器中合并为一个JDBC批次
+     */
+    @Insert({"<script>",
+            "INSERT INTO ${table} (<foreach collection='columns' item='column' separator=','>${column}</foreach>)",
+            "VALUES (<foreach collection='values' item='value' separator=','>#{value}</foreach>)",
+            "</script>"})
+    int insertRow(@Param("table") String table,
+                  @Param("columns") List<String> columns,
+                  @Param("values") List<Object> values);
+}
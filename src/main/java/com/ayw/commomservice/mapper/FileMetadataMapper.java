@@ -0,0 +1,60 @@
+package com.ayw.commomservice.mapper;
+
+import com.ayw.commomservice.model.FileListQuery;
+import com.ayw.commomservice.model.FileMetadata;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface FileMetadataMapper {
+    String COLUMNS = "file_id, tenant, size, content_type, etag, metadata, last_modified";
+
+    /**
+     * 插入或覆盖，同一文件ID重复上传时以最后一次为准
+     */
+    @Insert("INSERT INTO file_metadata (" + COLUMNS + ") "
+            + "VALUES (#{fileId}, #{tenant}, #{size}, #{contentType}, #{ETag}, #{metadata}, #{lastModified}) "
+            + "ON DUPLICATE KEY UPDATE tenant = VALUES(tenant), size = VALUES(size), content_type = VALUES(content_type), "
+            + "etag = VALUES(etag), metadata = VALUES(metadata), last_modified = VALUES(last_modified)")
+    int upsert(FileMetadata fileMetadata);
+
+    @Select("SELECT " + COLUMNS + " FROM file_metadata WHERE file_id = #{fileId}")
+    FileMetadata selectById(@Param("fileId") String fileId);
+
+    @Delete("DELETE FROM file_metadata WHERE file_id = #{fileId}")
+    int deleteById(@Param("fileId") String fileId);
+
+    @Delete("<script>DELETE FROM file_metadata WHERE file_id IN "
+            + "<foreach collection='fileIds' item='fileId' open='(' separator=',' close=')'>#{fileId}</foreach></script>")
+    int deleteByIds(@Param("fileIds") Collection<String> fileIds);
+
+    /**
+     * 按游标分页列出，从上一页最后一条之后继续扫描索引，翻页代价与页码无关
+     * @param query 查询条件，prefix中的LIKE通配符需已转义
+     */
+    @Select({"<script>",
+            "SELECT " + COLUMNS + " FROM file_metadata",
+            "<where>",
+            "<if test='tenant != null'>AND tenant = #{tenant}</if>",
+            "<if test='prefix != null'>AND file_id LIKE CONCAT(#{prefix}, '%')</if>",
+            "<if test='from != null'>AND last_modified &gt;= #{from}</if>",
+            "<if test='to != null'>AND last_modified &lt; #{to}</if>",
+            "<if test=\"afterFileId != null and order.name() == 'NAME'\">AND file_id &gt; #{afterFileId}</if>",
+            "<if test=\"afterFileId != null and order.name() == 'TIME'\">",
+            "AND (last_modified &lt; #{afterTime} OR (last_modified = #{afterTime} AND file_id &lt; #{afterFileId}))",
+            "</if>",
+            "</where>",
+            "<choose>",
+            "<when test=\"order.name() == 'TIME'\">ORDER BY last_modified DESC, file_id DESC</when>",
+            "<otherwise>ORDER BY file_id</otherwise>",
+            "</choose>",
+            "LIMIT #{limit}",
+            "</script>"})
+    List<FileMetadata> list(FileListQuery query);
+}
@@ -0,0 +1,22 @@
+package com.ayw.commomservice.mapper;
+
+import com.ayw.commomservice.model.MultipartUpload;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+@Mapper
+public interface MultipartUploadMapper {
+
+    @Insert("INSERT INTO multipart_upload (upload_id, file_id, content_type, created_at) "
+            + "VALUES (#{uploadId}, #{fileId}, #{contentType}, #{createdAt})")
+    int insert(MultipartUpload upload);
+
+    @Select("SELECT upload_id, file_id, content_type, created_at FROM multipart_upload WHERE upload_id = #{uploadId}")
+    MultipartUpload selectByUploadId(@Param("uploadId") String uploadId);
+
+    @Delete("DELETE FROM multipart_upload WHERE upload_id = #{uploadId}")
+    int deleteByUploadId(@Param("uploadId") String uploadId);
+}
@@ -0,0 +1,75 @@
+package com.ayw.commomservice.mapper;
+
+import com.ayw.commomservice.model.ProcessingJob;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Date;
+import java.util.List;
+
+@Mapper
+public interface ProcessingJobMapper {
+    String COLUMNS = "job_id, type, file_id, operation, params, lane, status, result_file_id, error, callback_url, "
+            + "attempts, lease_owner, lease_until, created_at, started_at, completed_at";
+
+    @Insert("INSERT INTO processing_job (job_id, type, file_id, operation, params, lane, status, callback_url, attempts, created_at) "
+            + "VALUES (#{jobId}, #{type}, #{fileId}, #{operation}, #{params}, #{lane}, #{status}, #{callbackUrl}, 0, #{createdAt})")
+    int insert(ProcessingJob job);
+
+    @Select("SELECT " + COLUMNS + " FROM processing_job WHERE job_id = #{jobId}")
+    ProcessingJob selectById(@Param("jobId") String jobId);
+
+    /**
+     * 锁定通道中最早的待执行任务，已被其他节点锁定的行直接跳过，需在事务中调用
+     */
+    @Select("SELECT job_id FROM processing_job WHERE lane = #{lane} AND status = 'PENDING' "
+            + "ORDER BY created_at LIMIT #{limit} FOR UPDATE SKIP LOCKED")
+    List<String> lockPending(@Param("lane") ProcessingJob.Lane lane, @Param("limit") int limit);
+
+    @Update("<script>UPDATE processing_job SET status = 'RUNNING', lease_owner = #{owner}, lease_until = #{leaseUntil}, "
+            + "attempts = attempts + 1, started_at = #{now} WHERE job_id IN "
+            + "<foreach collection='jobIds' item='jobId' open='(' separator=',' close=')'>#{jobId}</foreach></script>")
+    int markRunning(@Param("jobIds") List<String> jobIds, @Param("owner") String owner,
+                    @Param("leaseUntil") Date leaseUntil, @Param("now") Date now);
+
+    @Select("<script>SELECT " + COLUMNS + " FROM processing_job WHERE job_id IN "
+            + "<foreach collection='jobIds' item='jobId' open='(' separator=',' close=')'>#{jobId}</foreach></script>")
+    List<ProcessingJob> selectByIds(@Param("jobIds") List<String> jobIds);
+
+    /**
+     * 续约本节点正在执行的任务
+     */
+    @Update("UPDATE processing_job SET lease_until = #{leaseUntil} WHERE lease_owner = #{owner} AND status = 'RUNNING'")
+    int renewLeases(@Param("owner") String owner, @Param("leaseUntil") Date leaseUntil);
+
+    /**
+     * 记录执行结果，只有仍持有租约的节点可以写入
+     * @return 更新的行数，租约已被其他节点接管时为0
+     */
+    @Update("UPDATE processing_job SET status = #{status}, result_file_id = #{resultFileId}, error = #{error}, "
+            + "completed_at = #{completedAt}, lease_owner = NULL, lease_until = NULL "
+            + "WHERE job_id = #{jobId} AND lease_owner = #{leaseOwner} AND status = 'RUNNING'")
+    int complete(ProcessingJob job);
+
+    /**
+     * 租约过期且未超过重试次数的任务重新排队
+     */
+    @Update("UPDATE processing_job SET status = 'PENDING', lease_owner = NULL, lease_until = NULL "
+            + "WHERE status = 'RUNNING' AND lease_until < #{now} AND attempts < #{maxAttempts}")
+    int requeueExpired(@Param("now") Date now, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * 租约过期且已达到重试次数的任务标记为失败
+     */
+    @Update("UPDATE processing_job SET status = 'FAILED', error = 'Lease expired after maximum attempts', "
+            + "completed_at = #{now}, lease_owner = NULL, lease_until = NULL "
+            + "WHERE status = 'RUNNING' AND lease_until < #{now} AND attempts >= #{maxAttempts}")
+    int failExpired(@Param("now") Date now, @Param("maxAttempts") int maxAttempts);
+
+    @Delete("DELETE FROM processing_job WHERE completed_at < #{before} LIMIT 1000")
+    int deleteCompletedBefore(@Param("before") Date before);
+}
@@ -0,0 +1,56 @@
+package com.ayw.commomservice.mapper;
+
+import com.ayw.commomservice.model.UploadSession;
+import com.ayw.commomservice.model.UploadedPart;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Date;
+import java.util.List;
+
+@Mapper
+public interface UploadSessionMapper {
+
+    @Insert("INSERT INTO upload_session (upload_id, file_size, part_size, created_at, last_active_at) "
+            + "VALUES (#{uploadId}, #{fileSize}, #{partSize}, #{createdAt}, #{lastActiveAt})")
+    int insert(UploadSession session);
+
+    @Select("SELECT upload_id, file_size, part_size, created_at, last_active_at FROM upload_session "
+            + "WHERE upload_id = #{uploadId}")
+    UploadSession selectByUploadId(@Param("uploadId") String uploadId);
+
+    /**
+     * 登记分片时刷新会话的最后活动时间
+     */
+    @Update("UPDATE upload_session SET last_active_at = #{lastActiveAt} "
+            + "WHERE upload_id = #{uploadId} AND last_active_at < #{lastActiveAt}")
+    int touch(@Param("uploadId") String uploadId, @Param("lastActiveAt") Date lastActiveAt);
+
+    /**
+     * 最后活动时间早于cutoff的会话，按最后活动时间排序
+     */
+    @Select("SELECT upload_id FROM upload_session WHERE last_active_at < #{cutoff} ORDER BY last_active_at LIMIT #{limit}")
+    List<String> selectInactiveSince(@Param("cutoff") Date cutoff, @Param("limit") int limit);
+
+    @Delete("DELETE FROM upload_session WHERE upload_id = #{uploadId}")
+    int deleteByUploadId(@Param("uploadId") String uploadId);
+
+    /**
+     * 登记分片，同一分片重传时以最后一次为准
+     */
+    @Insert("INSERT INTO upload_session_part (upload_id, part_number, size, etag, uploaded_at) "
+            + "VALUES (#{uploadId}, #{partNumber}, #{size}, #{ETag}, #{uploadedAt}) "
+            + "ON DUPLICATE KEY UPDATE size = VALUES(size), etag = VALUES(etag), uploaded_at = VALUES(uploaded_at)")
+    int upsertPart(UploadedPart part);
+
+    @Select("SELECT upload_id, part_number, size, etag, uploaded_at FROM upload_session_part "
+            + "WHERE upload_id = #{uploadId} ORDER BY part_number")
+    List<UploadedPart> selectParts(@Param("uploadId") String uploadId);
+
+    @Delete("DELETE FROM upload_session_part WHERE upload_id = #{uploadId}")
+    int deleteParts(@Param("uploadId") String uploadId);
+}
@@ -0,0 +1,88 @@
+package com.ayw.commomservice.model;
+
+/**
+ * 下载缓存统计信息
+ */
+public class CacheStats {
+    private long memoryHits;
+    private long diskHits;
+    private long misses;
+    private long memoryEvictions;
+    private long diskEvictions;
+    private long memoryEntries;
+    private long memoryBytes;
+    private long diskEntries;
+    private long diskBytes;
+
+    public long getMemoryHits() {
+        return memoryHits;
+    }
+
+    public void setMemoryHits(long memoryHits) {
+        this.memoryHits = memoryHits;
+    }
+
+    public long getDiskHits() {
+        return diskHits;
+    }
+
+    public void setDiskHits(long diskHits) {
+        this.diskHits = diskHits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    public long getMemoryEvictions() {
+        return memoryEvictions;
+    }
+
+    public void setMemoryEvictions(long memoryEvictions) {
+        this.memoryEvictions = memoryEvictions;
+    }
+
+    public long getDiskEvictions() {
+        return diskEvictions;
+    }
+
+    public void setDiskEvictions(long diskEvictions) {
+        this.diskEvictions = diskEvictions;
+    }
+
+    public long getMemoryEntries() {
+        return memoryEntries;
+    }
+
+    public void setMemoryEntries(long memoryEntries) {
+        this.memoryEntries = memoryEntries;
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public void setMemoryBytes(long memoryBytes) {
+        this.memoryBytes = memoryBytes;
+    }
+
+    public long getDiskEntries() {
+        return diskEntries;
+    }
+
+    public void setDiskEntries(long diskEntries) {
+        this.diskEntries = diskEntries;
+    }
+
+    public long getDiskBytes() {
+        return diskBytes;
+    }
+
+    public void setDiskBytes(long diskBytes) {
+        this.diskBytes = diskBytes;
+    }
+}
@@ -0,0 +1,96 @@
+package com.ayw.commomservice.model;
+
+import java.util.Date;
+
+/**
+ * 文件内容摘要记录，相同内容的上传共用同一个文件
+ */
+public class ContentHash {
+    /**
+     * 内容的SHA-256摘要（十六进制）
+     */
+    private String contentHash;
+    /**
+     * 租户，取自上传时元数据中的tenant，没有时为空字符串；不同租户的相同内容不共用文件
+     */
+    private String tenant;
+    /**
+     * 文件扩展名，含点号，没有扩展名时为空字符串
+     */
+    private String extension;
+    /**
+     * 文件类型，没有时为空字符串；类型不同的相同内容不共用文件
+     */
+    private String contentType;
+    private String fileId;
+    /**
+     * 引用计数，每次上传加一，每次删除减一，减到0时删除文件
+     */
+    private int refCount;
+    private long size;
+    private Date createdAt;
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public void setExtension(String extension) {
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(int refCount) {
+        this.refCount = refCount;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
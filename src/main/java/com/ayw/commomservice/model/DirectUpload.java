@@ -0,0 +1,66 @@
+package com.ayw.commomservice.model;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * 浏览器直传存储平台的上传凭证
+ * 客户端可以用PUT请求把文件内容发到uploadUrl，也可以把formFields和文件作为multipart表单POST到formUrl，
+ * 上传完成后调用确认接口登记文件
+ */
+public class DirectUpload {
+    private String fileId;
+    /**
+     * 签名PUT URL，请求头Content-Type必须与申请时的文件类型一致
+     */
+    private String uploadUrl;
+    /**
+     * 表单上传地址
+     */
+    private String formUrl;
+    /**
+     * 表单上传的字段（策略、签名等），文件字段须放在最后
+     */
+    private Map<String, String> formFields;
+    private Date expiration;
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public String getUploadUrl() {
+        return uploadUrl;
+    }
+
+    public void setUploadUrl(String uploadUrl) {
+        this.uploadUrl = uploadUrl;
+    }
+
+    public String getFormUrl() {
+        return formUrl;
+    }
+
+    public void setFormUrl(String formUrl) {
+        this.formUrl = formUrl;
+    }
+
+    public Map<String, String> getFormFields() {
+        return formFields;
+    }
+
+    public void setFormFields(Map<String, String> formFields) {
+        this.formFields = formFields;
+    }
+
+    public Date getExpiration() {
+        return expiration;
+    }
+
+    public void setExpiration(Date expiration) {
+        this.expiration = expiration;
+    }
+}
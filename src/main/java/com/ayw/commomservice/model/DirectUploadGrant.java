@@ -0,0 +1,45 @@
+package com.ayw.commomservice.model;
+
+import java.util.Date;
+
+/**
+ * 已发放的直传凭证，确认上传时据此校验文件大小
+ */
+public class DirectUploadGrant {
+    private String fileId;
+    private long maxSize;
+    private Date expiration;
+    private Date createdAt;
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public Date getExpiration() {
+        return expiration;
+    }
+
+    public void setExpiration(Date expiration) {
+        this.expiration = expiration;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,111 @@
+package com.ayw.commomservice.model;
+
+import java.util.Date;
+
+/**
+ * 文件列表查询条件，按游标分页，翻页时从上一页最后一条之后继续，不使用OFFSET
+ */
+public class FileListQuery {
+
+    public enum Order {
+        /**
+         * 按文件ID升序
+         */
+        NAME,
+        /**
+         * 按修改时间从新到旧
+         */
+        TIME
+    }
+
+    /**
+     * 租户，为null时不限
+     */
+    private String tenant;
+    /**
+     * 文件ID前缀，为null时不限
+     */
+    private String prefix;
+    /**
+     * 修改时间下限（包含），为null时不限
+     */
+    private Date from;
+    /**
+     * 修改时间上限（不包含），为null时不限
+     */
+    private Date to;
+    private Order order = Order.NAME;
+    /**
+     * 上一页最后一条的文件ID，首页为null
+     */
+    private String afterFileId;
+    /**
+     * 上一页最后一条的修改时间，按时间排序时与afterFileId一起使用
+     */
+    private Date afterTime;
+    private int limit = 50;
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public Date getFrom() {
+        return from;
+    }
+
+    public void setFrom(Date from) {
+        this.from = from;
+    }
+
+    public Date getTo() {
+        return to;
+    }
+
+    public void setTo(Date to) {
+        this.to = to;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public void setOrder(Order order) {
+        this.order = order;
+    }
+
+    public String getAfterFileId() {
+        return afterFileId;
+    }
+
+    public void setAfterFileId(String afterFileId) {
+        this.afterFileId = afterFileId;
+    }
+
+    public Date getAfterTime() {
+        return afterTime;
+    }
+
+    public void setAfterTime(Date afterTime) {
+        this.afterTime = afterTime;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,78 @@
+package com.ayw.commomservice.model;
+
+import java.util.Date;
+
+/**
+ * 文件元信息索引记录，查询文件大小、类型和列出文件时不访问存储平台
+ */
+public class FileMetadata {
+    private String fileId;
+    /**
+     * 租户，取自上传时元数据中的tenant，没有时为空字符串
+     */
+    private String tenant;
+    private long size;
+    private String contentType;
+    private String eTag;
+    /**
+     * 用户元数据（JSON）
+     */
+    private String metadata;
+    private Date lastModified;
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public void setTenant(String tenant) {
+        this.tenant = tenant;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public void setETag(String eTag) {
+        this.eTag = eTag;
+    }
+
+    public String getMetadata() {
+        return metadata;
+    }
+
+    public void setMetadata(String metadata) {
+        this.metadata = metadata;
+    }
+
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Date lastModified) {
+        this.lastModified = lastModified;
+    }
+}
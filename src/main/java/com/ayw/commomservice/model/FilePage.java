@@ -0,0 +1,30 @@
+package com.ayw.commomservice.model;
+
+import java.util.List;
+
+/**
+ * 文件列表的一页
+ */
+public class FilePage {
+    private List<FileStat> files;
+    /**
+     * 下一页的游标，没有更多数据时为null
+     */
+    private String nextCursor;
+
+    public List<FileStat> getFiles() {
+        return files;
+    }
+
+    public void setFiles(List<FileStat> files) {
+        this.files = files;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,36 @@
+package com.ayw.commomservice.model;
+
+import java.util.Map;
+
+/**
+ * 批量图片处理中的单个任务
+ */
+public class ImageTask {
+    private String fileId;
+    private String operation;
+    private Map<String, Object> params;
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public Map<String, Object> getParams() {
+        return params;
+    }
+
+    public void setParams(Map<String, Object> params) {
+        this.params = params;
+    }
+}
@@ -0,0 +1,70 @@
+package com.ayw.commomservice.model;
+
+/**
+ * 批量图片处理中单个任务的结果，与请求中的任务按顺序一一对应
+ */
+public class ImageTaskResult {
+    private String fileId;
+    private String operation;
+    private boolean success;
+    private String processedFileId;
+    private String error;
+
+    public static ImageTaskResult succeeded(ImageTask task, String processedFileId) {
+        ImageTaskResult result = new ImageTaskResult();
+        result.setFileId(task.getFileId());
+        result.setOperation(task.getOperation());
+        result.setSuccess(true);
+        result.setProcessedFileId(processedFileId);
+        return result;
+    }
+
+    public static ImageTaskResult failed(ImageTask task, String error) {
+        ImageTaskResult result = new ImageTaskResult();
+        result.setFileId(task.getFileId());
+        result.setOperation(task.getOperation());
+        result.setSuccess(false);
+        result.setError(error);
+        return result;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public String getProcessedFileId() {
+        return processedFileId;
+    }
+
+    public void setProcessedFileId(String processedFileId) {
+        this.processedFileId = processedFileId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
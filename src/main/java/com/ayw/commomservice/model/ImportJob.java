@@ -0,0 +1,148 @@
+package com.ayw.commomservice.model;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Excel导入任务
+ */
+public class ImportJob {
+
+    public enum Status {
+        /**
+         * 已提交，等待执行
+         */
+        PENDING,
+        /**
+         * 导入中
+         */
+        RUNNING,
+        /**
+         * 所有工作表导入成功
+         */
+        SUCCEEDED,
+        /**
+         * 至少一个工作表导入失败
+         */
+        FAILED
+    }
+
+    private String jobId;
+    private String fileId;
+    private String table;
+    private volatile Status status = Status.PENDING;
+    private volatile int sheetCount;
+    private final AtomicInteger completedSheets = new AtomicInteger();
+    private final AtomicLong totalRows = new AtomicLong();
+    private final AtomicLong writtenRows = new AtomicLong();
+    private final AtomicLong importedRows = new AtomicLong();
+    private volatile String error;
+    private Date createdAt;
+    private volatile Date completedAt;
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public void setTable(String table) {
+        this.table = table;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getSheetCount() {
+        return sheetCount;
+    }
+
+    public void setSheetCount(int sheetCount) {
+        this.sheetCount = sheetCount;
+    }
+
+    public int getCompletedSheets() {
+        return completedSheets.get();
+    }
+
+    public void incrementCompletedSheets() {
+        completedSheets.incrementAndGet();
+    }
+
+    /**
+     * @return 各工作表的预估总行数，工作表开始读取后才计入
+     */
+    public long getTotalRows() {
+        return totalRows.get();
+    }
+
+    public void addTotalRows(long rows) {
+        totalRows.addAndGet(rows);
+    }
+
+    /**
+     * @return 已写入数据库的行数，包含所在工作表尚未提交、失败时会回滚的行，用于显示进度
+     */
+    public long getWrittenRows() {
+        return writtenRows.get();
+    }
+
+    public void addWrittenRows(long rows) {
+        writtenRows.addAndGet(rows);
+    }
+
+    /**
+     * @return 已提交的行数，每个工作表在一个事务中导入，整个工作表导入成功后才计入
+     */
+    public long getImportedRows() {
+        return importedRows.get();
+    }
+
+    public void addImportedRows(long rows) {
+        importedRows.addAndGet(rows);
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Date completedAt) {
+        this.completedAt = completedAt;
+    }
+}
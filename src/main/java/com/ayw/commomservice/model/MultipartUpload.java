@@ -0,0 +1,45 @@
+package com.ayw.commomservice.model;
+
+import java.util.Date;
+
+/**
+ * 分片上传记录
+ */
+public class MultipartUpload {
+    private String uploadId;
+    private String fileId;
+    private String contentType;
+    private Date createdAt;
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+}
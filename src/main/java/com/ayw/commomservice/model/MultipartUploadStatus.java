@@ -0,0 +1,60 @@
+package com.ayw.commomservice.model;
+
+import java.util.List;
+
+/**
+ * 分片上传进度，客户端断线重连后据此只补传缺少的分片
+ */
+public class MultipartUploadStatus {
+    private String uploadId;
+    private long fileSize;
+    private int partSize;
+    /**
+     * 已上传的分片，按分片编号排序
+     */
+    private List<UploadedPart> parts;
+    /**
+     * 缺少的分片编号；文件大小或分片大小未知时只包含已上传的最大编号之前的空缺
+     */
+    private List<Integer> missingParts;
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public int getPartSize() {
+        return partSize;
+    }
+
+    public void setPartSize(int partSize) {
+        this.partSize = partSize;
+    }
+
+    public List<UploadedPart> getParts() {
+        return parts;
+    }
+
+    public void setParts(List<UploadedPart> parts) {
+        this.parts = parts;
+    }
+
+    public List<Integer> getMissingParts() {
+        return missingParts;
+    }
+
+    public void setMissingParts(List<Integer> missingParts) {
+        this.missingParts = missingParts;
+    }
+}
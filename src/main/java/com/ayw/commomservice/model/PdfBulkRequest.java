@@ -0,0 +1,46 @@
+package com.ayw.commomservice.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量生成PDF请求
+ */
+public class PdfBulkRequest {
+    /**
+     * 带表单域的PDF模板文件ID，为空时按键值对逐行输出
+     */
+    private String templateFileId;
+    /**
+     * 每个文档的填充数据
+     */
+    private List<Map<String, Object>> items;
+    /**
+     * 是否合并为一个PDF
+     */
+    private boolean merge;
+
+    public String getTemplateFileId() {
+        return templateFileId;
+    }
+
+    public void setTemplateFileId(String templateFileId) {
+        this.templateFileId = templateFileId;
+    }
+
+    public List<Map<String, Object>> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Map<String, Object>> items) {
+        this.items = items;
+    }
+
+    public boolean isMerge() {
+        return merge;
+    }
+
+    public void setMerge(boolean merge) {
+        this.merge = merge;
+    }
+}
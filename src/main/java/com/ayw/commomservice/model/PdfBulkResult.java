@@ -0,0 +1,91 @@
+package com.ayw.commomservice.model;
+
+import java.util.List;
+
+/**
+ * 批量生成PDF结果
+ */
+public class PdfBulkResult {
+    /**
+     * 合并模式下合并后的文件ID，有文档生成失败时为null
+     */
+    private String mergedFileId;
+    /**
+     * 与请求顺序一致的每个文档的结果
+     */
+    private List<Item> items;
+
+    public String getMergedFileId() {
+        return mergedFileId;
+    }
+
+    public void setMergedFileId(String mergedFileId) {
+        this.mergedFileId = mergedFileId;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+
+    public static class Item {
+        private int index;
+        private boolean success;
+        /**
+         * 单独生成模式下的文件ID
+         */
+        private String fileId;
+        private String error;
+
+        public static Item succeeded(int index, String fileId) {
+            Item item = new Item();
+            item.setIndex(index);
+            item.setSuccess(true);
+            item.setFileId(fileId);
+            return item;
+        }
+
+        public static Item failed(int index, String error) {
+            Item item = new Item();
+            item.setIndex(index);
+            item.setSuccess(false);
+            item.setError(error);
+            return item;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public void setSuccess(boolean success) {
+            this.success = success;
+        }
+
+        public String getFileId() {
+            return fileId;
+        }
+
+        public void setFileId(String fileId) {
+            this.fileId = fileId;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.ayw.commomservice.model;
+
+/**
+ * 线程池运行状态
+ */
+public class PoolStats {
+    private String name;
+    private int poolSize;
+    private int corePoolSize;
+    private int maximumPoolSize;
+    private int activeCount;
+    private int queueSize;
+    private int queueRemainingCapacity;
+    private long completedTaskCount;
+    private long rejectedCount;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getCorePoolSize() {
+        return corePoolSize;
+    }
+
+    public void setCorePoolSize(int corePoolSize) {
+        this.corePoolSize = corePoolSize;
+    }
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public void setActiveCount(int activeCount) {
+        this.activeCount = activeCount;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public int getQueueRemainingCapacity() {
+        return queueRemainingCapacity;
+    }
+
+    public void setQueueRemainingCapacity(int queueRemainingCapacity) {
+        this.queueRemainingCapacity = queueRemainingCapacity;
+    }
+
+    public long getCompletedTaskCount() {
+        return completedTaskCount;
+    }
+
+    public void setCompletedTaskCount(long completedTaskCount) {
+        this.completedTaskCount = completedTaskCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public void setRejectedCount(long rejectedCount) {
+        this.rejectedCount = rejectedCount;
+    }
+}
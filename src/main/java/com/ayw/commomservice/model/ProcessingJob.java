@@ -0,0 +1,213 @@
+package com.ayw.commomservice.model;
+
+import java.util.Date;
+
+/**
+ * 异步文件处理任务
+ */
+public class ProcessingJob {
+
+    public enum Type {
+        IMAGE,
+        DOCUMENT
+    }
+
+    /**
+     * 优先级通道，各通道使用独立的工作线程，批量任务不会占满交互式任务的线程
+     */
+    public enum Lane {
+        /**
+         * 交互式任务，如缩略图，用户在等待结果
+         */
+        INTERACTIVE,
+        /**
+         * 批量任务，如大PDF、批量导出
+         */
+        BULK
+    }
+
+    public enum Status {
+        /**
+         * 已提交，等待执行
+         */
+        PENDING,
+        /**
+         * 已被工作节点领取，执行中
+         */
+        RUNNING,
+        /**
+         * 执行成功
+         */
+        SUCCEEDED,
+        /**
+         * 执行失败
+         */
+        FAILED
+    }
+
+    private String jobId;
+    /**
+     * 处理类型
+     */
+    private Type type;
+    private String fileId;
+    private String operation;
+    /**
+     * 操作参数（JSON）
+     */
+    private String params;
+    private Lane lane;
+    private Status status;
+    /**
+     * 处理结果文件ID，excelImport为导入任务ID
+     */
+    private String resultFileId;
+    private String error;
+    /**
+     * 完成后回调的地址，可为空
+     */
+    private String callbackUrl;
+    /**
+     * 已执行次数，租约过期后重新执行时增加
+     */
+    private int attempts;
+    /**
+     * 持有租约的节点
+     */
+    private String leaseOwner;
+    /**
+     * 租约到期时间，到期未完成的任务重新排队
+     */
+    private Date leaseUntil;
+    private Date createdAt;
+    private Date startedAt;
+    private Date completedAt;
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public String getParams() {
+        return params;
+    }
+
+    public void setParams(String params) {
+        this.params = params;
+    }
+
+    public Lane getLane() {
+        return lane;
+    }
+
+    public void setLane(Lane lane) {
+        this.lane = lane;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getResultFileId() {
+        return resultFileId;
+    }
+
+    public void setResultFileId(String resultFileId) {
+        this.resultFileId = resultFileId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public String getCallbackUrl() {
+        return callbackUrl;
+    }
+
+    public void setCallbackUrl(String callbackUrl) {
+        this.callbackUrl = callbackUrl;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public Date getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(Date leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Date startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Date getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Date completedAt) {
+        this.completedAt = completedAt;
+    }
+}
@@ -0,0 +1,75 @@
+package com.ayw.commomservice.model;
+
+import java.util.Map;
+
+/**
+ * 提交异步文件处理任务的请求
+ */
+public class ProcessingJobRequest {
+    /**
+     * 处理类型：image, document
+     */
+    private String type;
+    private String fileId;
+    /**
+     * 操作类型，与同步接口相同
+     */
+    private String operation;
+    private Map<String, Object> params;
+    /**
+     * 优先级通道：interactive, bulk，默认图片为interactive，文档为bulk
+     */
+    private String lane;
+    /**
+     * 完成后以POST方式回调的地址，请求体为任务状态
+     */
+    private String callbackUrl;
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public Map<String, Object> getParams() {
+        return params;
+    }
+
+    public void setParams(Map<String, Object> params) {
+        this.params = params;
+    }
+
+    public String getLane() {
+        return lane;
+    }
+
+    public void setLane(String lane) {
+        this.lane = lane;
+    }
+
+    public String getCallbackUrl() {
+        return callbackUrl;
+    }
+
+    public void setCallbackUrl(String callbackUrl) {
+        this.callbackUrl = callbackUrl;
+    }
+}
@@ -0,0 +1,88 @@
+package com.ayw.commomservice.model;
+
+import java.util.Date;
+
+/**
+ * 异步上传任务
+ */
+public class UploadJob {
+
+    public enum Status {
+        /**
+         * 已提交，等待上传完成
+         */
+        PENDING,
+        /**
+         * 上传成功
+         */
+        SUCCEEDED,
+        /**
+         * 上传失败
+         */
+        FAILED
+    }
+
+    private String jobId;
+    private String fileName;
+    private volatile Status status = Status.PENDING;
+    private volatile String fileId;
+    private volatile String error;
+    private Date createdAt;
+    private volatile Date completedAt;
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Date completedAt) {
+        this.completedAt = completedAt;
+    }
+}
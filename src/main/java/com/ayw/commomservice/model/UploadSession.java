@@ -0,0 +1,63 @@
+package com.ayw.commomservice.model;
+
+import java.util.Date;
+
+/**
+ * 客户端发起的分片上传会话，记录文件大小和分片大小，据此计算还缺哪些分片
+ */
+public class UploadSession {
+    private String uploadId;
+    /**
+     * 文件总大小，未知时为0
+     */
+    private long fileSize;
+    /**
+     * 客户端切分的分片大小（最后一片除外），未知时为0
+     */
+    private int partSize;
+    private Date createdAt;
+    /**
+     * 最后一次活动的时间：创建会话或登记分片，据此清理客户端放弃的上传
+     */
+    private Date lastActiveAt;
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public int getPartSize() {
+        return partSize;
+    }
+
+    public void setPartSize(int partSize) {
+        this.partSize = partSize;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getLastActiveAt() {
+        return lastActiveAt;
+    }
+
+    public void setLastActiveAt(Date lastActiveAt) {
+        this.lastActiveAt = lastActiveAt;
+    }
+}
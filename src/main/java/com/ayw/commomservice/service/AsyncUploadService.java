@@ -0,0 +1,34 @@
+package com.ayw.commomservice.service;
+
+import com.ayw.commomservice.model.PoolStats;
+import com.ayw.commomservice.model.UploadJob;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.Map;
+
+public interface AsyncUploadService {
+    /**
+     * 提交异步上传任务
+     * 文件先转存到本地暂存目录，请求线程随即返回，上传在专用线程池中进行
+     * @param file 上传的文件
+     * @param metadata 元数据
+     * @return 上传任务
+     * @throws IOException 转存文件失败
+     * @throws java.util.concurrent.RejectedExecutionException 上传线程池已满
+     */
+    UploadJob submit(MultipartFile file, Map<String, String> metadata) throws IOException;
+
+    /**
+     * 查询异步上传任务
+     * @param jobId 任务ID
+     * @return 上传任务，不存在时返回null
+     */
+    UploadJob getJob(String jobId);
+
+    /**
+     * 上传线程池运行状态
+     * @return 线程池状态
+     */
+    PoolStats getPoolStats();
+}
@@ -0,0 +1,32 @@
+package com.ayw.commomservice.service;
+
+import com.ayw.commomservice.model.ImportJob;
+import com.ayw.commomservice.model.PoolStats;
+
+import java.util.Map;
+
+public interface ExcelImportService {
+    /**
+     * 提交Excel导入任务
+     * 各工作表并行流式读取，按批写入目标表，请求线程随即返回
+     * @param fileId Excel文件ID
+     * @param table 目标表，必须在processing.excel-import.allowed-tables中
+     * @param columnMapping 表头到列名的映射，为空时直接使用表头作为列名
+     * @return 导入任务
+     * @throws IllegalArgumentException 目标表不允许导入或列名不合法
+     */
+    ImportJob submit(String fileId, String table, Map<String, String> columnMapping);
+
+    /**
+     * 查询导入任务
+     * @param jobId 任务ID
+     * @return 导入任务，不存在时返回null
+     */
+    ImportJob getJob(String jobId);
+
+    /**
+     * 导入线程池运行状态
+     * @return 线程池状态
+     */
+    PoolStats getPoolStats();
+}
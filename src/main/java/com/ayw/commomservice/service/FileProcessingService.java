@@ -1,24 +1,61 @@
 package com.ayw.commomservice.service;
 
+import com.ayw.commomservice.model.ImageTask;
+import com.ayw.commomservice.model.ImageTaskResult;
+import com.ayw.commomservice.model.PdfBulkRequest;
+import com.ayw.commomservice.model.PdfBulkResult;
+import com.ayw.commomservice.model.PoolStats;
+
 import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 public interface FileProcessingService {
     /**
      * 处理图片
      * @param fileId 源文件ID
-     * @param operation 操作类型：compress, convert, watermark, crop
+     * @param operation 操作类型：compress, convert, watermark, crop，
+     *                  pipeline表示按params.operations中的顺序在一次解码编码之间执行多个操作
      * @param params 操作参数
      * @return 处理后文件的ID
      */
     String processImage(String fileId, String operation, Map<String, Object> params);
 
+    /**
+     * 批量处理图片，单个任务失败不影响其他任务
+     * @param tasks 图片处理任务
+     * @return 与任务顺序一致的处理结果
+     */
+    List<ImageTaskResult> processImageBatch(List<ImageTask> tasks);
+
+    /**
+     * 获取批量图片处理流水线各阶段线程池状态
+     */
+    List<PoolStats> getImagePipelineStats();
+
     /**
      * 处理文档
      * @param fileId 源文件ID
      * @param operation 操作类型：pdfGenerate, excelImport, excelExport
      * @param params 操作参数
-     * @return 处理后文件的ID
+     * @return 处理后文件的ID，excelImport返回导入任务ID
      */
     String processDocument(String fileId, String operation, Map<String, Object> params);
-}
\ No newline at end of file
+
+    /**
+     * 批量生成PDF，可分别生成文件或按顺序合并为一个文件
+     * @param request 模板文件ID及每个文档的填充数据
+     * @return 合并后的文件ID及与请求顺序一致的每个文档的结果
+     */
+    PdfBulkResult generatePdfBulk(PdfBulkRequest request);
+
+    /**
+     * 流式导出Excel，数据逐行读取、分批写入，生成的内容边写边以分片上传
+     * @param rows 数据行，每行为Map（按表头取值）或List（按列顺序）
+     * @param headers 表头，为空时使用第一行Map的键
+     * @param sheetName 工作表名称
+     * @return 导出文件的ID
+     */
+    String exportExcel(Iterator<?> rows, List<String> headers, String sheetName);
+}
@@ -0,0 +1,29 @@
+package com.ayw.commomservice.service;
+
+import com.ayw.commomservice.model.PoolStats;
+import com.ayw.commomservice.model.ProcessingJob;
+import com.ayw.commomservice.model.ProcessingJobRequest;
+
+import java.util.List;
+
+public interface ProcessingJobService {
+    /**
+     * 提交异步处理任务
+     * 任务写入数据库后立即返回，由各节点的工作线程按优先级通道领取执行
+     * @param request 处理类型、源文件、操作、参数、通道及回调地址
+     * @return 处理任务
+     */
+    ProcessingJob submit(ProcessingJobRequest request);
+
+    /**
+     * 查询处理任务
+     * @param jobId 任务ID
+     * @return 处理任务，不存在时返回null
+     */
+    ProcessingJob getJob(String jobId);
+
+    /**
+     * 各优先级通道工作线程池运行状态
+     */
+    List<PoolStats> getPoolStats();
+}
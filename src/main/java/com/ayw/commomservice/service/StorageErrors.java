@@ -0,0 +1,34 @@
+package com.ayw.commomservice.service;
+
+import com.aliyun.oss.ServiceException;
+import com.qcloud.cos.exception.CosServiceException;
+
+import java.io.FileNotFoundException;
+import java.nio.file.NoSuchFileException;
+
+/**
+ * 存储服务异常的分类，各存储服务把平台异常包装为RuntimeException抛出，需要沿异常链判断
+ */
+public final class StorageErrors {
+
+    private StorageErrors() {
+    }
+
+    /**
+     * 是否因文件不存在而失败，网络错误、存储平台故障等返回false
+     */
+    public static boolean isNotFound(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof NoSuchFileException || cause instanceof FileNotFoundException) {
+                return true;
+            }
+            if (cause instanceof CosServiceException cosException) {
+                return cosException.getStatusCode() == 404;
+            }
+            if (cause instanceof ServiceException ossException) {
+                return "NoSuchKey".equals(ossException.getErrorCode());
+            }
+        }
+        return false;
+    }
+}
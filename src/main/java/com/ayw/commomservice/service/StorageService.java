@@ -1,6 +1,12 @@
 package com.ayw.commomservice.service;
 
+import com.ayw.commomservice.model.DirectUpload;
+import com.ayw.commomservice.model.FileStat;
+
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -15,6 +21,16 @@ public interface StorageService {
      */
     String upload(InputStream inputStream, String fileName, String contentType, Map<String, String> metadata);
 
+    /**
+     * 使用指定的文件ID上传文件，已存在同名文件时覆盖
+     * @param fileId 文件ID
+     * @param inputStream 文件输入流
+     * @param contentType 文件类型
+     * @param metadata 元数据
+     * @return 文件ID
+     */
+    String uploadWithFileId(String fileId, InputStream inputStream, String contentType, Map<String, String> metadata);
+
     /**
      * 异步上传文件
      * @param inputStream 文件输入流
@@ -32,6 +48,33 @@ public interface StorageService {
      */
     InputStream download(String fileId);
 
+    /**
+     * 按字节范围下载文件
+     * @param fileId 文件ID
+     * @param start 起始偏移（包含）
+     * @param end 结束偏移（包含）
+     * @return 指定范围内容的输入流
+     */
+    InputStream download(String fileId, long start, long end);
+
+    /**
+     * 将文件指定字节范围的内容直接写入输出流
+     * @param fileId 文件ID
+     * @param start 起始偏移（包含）
+     * @param end 结束偏移（包含）
+     * @param outputStream 目标输出流
+     * @return 写入的字节数
+     * @throws IOException 写入输出流失败
+     */
+    long transferTo(String fileId, long start, long end, OutputStream outputStream) throws IOException;
+
+    /**
+     * 获取文件元信息，不下载文件内容
+     * @param fileId 文件ID
+     * @return 文件元信息
+     */
+    FileStat stat(String fileId);
+
     /**
      * 删除文件
      * @param fileId 文件ID
@@ -39,6 +82,13 @@ public interface StorageService {
      */
     boolean delete(String fileId);
 
+    /**
+     * 批量删除文件
+     * @param fileIds 文件ID列表
+     * @return 文件ID到是否删除成功的映射，顺序与参数一致
+     */
+    Map<String, Boolean> deleteBatch(Collection<String> fileIds);
+
     /**
      * 生成带时效的访问签名URL
      * @param fileId 文件ID
@@ -47,6 +97,51 @@ public interface StorageService {
      */
     String generatePresignedUrl(String fileId, long expireSeconds);
 
+    /**
+     * 批量生成带时效的访问签名URL
+     * @param fileIds 文件ID列表
+     * @param expireSeconds 过期秒数
+     * @return 文件ID到签名URL的映射，顺序与参数一致
+     */
+    Map<String, String> generatePresignedUrls(Collection<String> fileIds, long expireSeconds);
+
+    /**
+     * 生成浏览器直传存储平台的上传凭证，文件内容不经过本服务
+     * @param fileName 文件名
+     * @param contentType 文件类型
+     * @param maxSize 允许上传的最大字节数，表单上传由存储平台校验，PUT上传在确认时校验
+     * @param expireSeconds 过期秒数
+     * @return 包含文件ID、签名PUT URL和表单上传策略的凭证
+     */
+    DirectUpload prepareDirectUpload(String fileName, String contentType, long maxSize, long expireSeconds);
+
+    /**
+     * 使用指定的文件ID生成直传凭证
+     * @param fileId 文件ID
+     * @param contentType 文件类型
+     * @param maxSize 允许上传的最大字节数，表单上传由存储平台校验，PUT上传在确认时校验
+     * @param expireSeconds 过期秒数
+     * @return 直传凭证
+     */
+    DirectUpload prepareDirectUploadWithFileId(String fileId, String contentType, long maxSize, long expireSeconds);
+
+    /**
+     * 生成直传分片的签名PUT URL，响应头中的ETag即分片ETag
+     * @param uploadId 分片上传ID
+     * @param partNumber 分片编号
+     * @param expireSeconds 过期秒数
+     * @return 带签名的URL
+     */
+    String generatePresignedPartUrl(String uploadId, int partNumber, long expireSeconds);
+
+    /**
+     * 确认直传的文件已写入存储平台并登记，超过凭证允许大小的文件删除后抛出异常
+     * @param fileId 文件ID
+     * @return 存储平台上的文件元信息
+     * @throws IllegalStateException 文件超过凭证允许的大小
+     */
+    FileStat confirmDirectUpload(String fileId);
+
     /**
      * 分片上传初始化
      * @param fileName 文件名
@@ -56,6 +151,15 @@ public interface StorageService {
      */
     String initiateMultipartUpload(String fileName, String contentType, long fileSize);
 
+    /**
+     * 使用指定的文件ID初始化分片上传
+     * @param fileId 文件ID
+     * @param contentType 文件类型
+     * @param metadata 元数据
+     * @return 分片上传ID
+     */
+    String initiateMultipartUploadWithFileId(String fileId, String contentType, Map<String, String> metadata);
+
     /**
      * 上传分片
      * @param uploadId 分片上传ID
@@ -73,4 +177,10 @@ public interface StorageService {
      * @return 文件ID
      */
     String completeMultipartUpload(String uploadId, Map<Integer, String> parts);
+
+    /**
+     * 取消分片上传，清理已上传的分片
+     * @param uploadId 分片上传ID
+     */
+    void abortMultipartUpload(String uploadId);
 }
\ No newline at end of file
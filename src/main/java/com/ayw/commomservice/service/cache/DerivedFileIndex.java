@@ -0,0 +1,173 @@
+package com.ayw.commomservice.service.cache;
+
+import com.ayw.commomservice.model.FileStat;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 派生文件索引
+ * 派生文件ID由源文件ID及其版本（ETag或修改时间）、操作及规范化后的参数唯一确定，相同请求直接返回已生成的文件；
+ * 源文件被覆盖后版本变化，得到新的派生文件ID，不会返回按旧内容生成的文件
+ */
+@Component
+public class DerivedFileIndex {
+    /**
+     * 派生文件ID前缀
+     */
+    public static final String DERIVED_PREFIX = "derived-";
+
+    /**
+     * 内存中记录的已确认存在的派生文件数量上限
+     */
+    private static final int MAX_ENTRIES = 100000;
+
+    /**
+     * 已确认存在的派生文件ID，按访问顺序淘汰
+     */
+    private final Map<String, Boolean> knownFileIds = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * 正在生成中的派生文件，相同请求并发到达时只生成一次
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 计算派生文件ID
+     * @param sourceFileId 源文件ID
+     * @param sourceVersion 源文件版本，见{@link #versionOf(FileStat)}
+     * @param operation 操作类型
+     * @param params 操作参数
+     * @param extension 派生文件扩展名
+     * @return 派生文件ID
+     */
+    public String derivedFileId(String sourceFileId, String sourceVersion, String operation, Map<String, Object> params,
+                                String extension) {
+        String signature = sourceFileId + "|" + sourceVersion + "|" + operation.toLowerCase() + "|" + canonicalize(params);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(signature.getBytes(StandardCharsets.UTF_8));
+            return DERIVED_PREFIX + HexFormat.of().formatHex(digest) + "." + extension;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 源文件版本：优先使用ETag，存储平台没有返回ETag时使用修改时间
+     */
+    public static String versionOf(FileStat stat) {
+        if (stat.getETag() != null && !stat.getETag().isEmpty()) {
+            return stat.getETag();
+        }
+        return stat.getLastModified() != null ? Long.toString(stat.getLastModified().getTime()) : "";
+    }
+
+    /**
+     * 获取派生文件，不存在时生成
+     * @param derivedFileId 派生文件ID
+     * @param exists 检查派生文件是否已在存储中
+     * @param generator 生成并上传派生文件
+     * @return 派生文件ID
+     */
+    public String getOrCreate(String derivedFileId, Predicate<String> exists, Supplier<String> generator) {
+        if (isKnown(derivedFileId)) {
+            return derivedFileId;
+        }
+
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(derivedFileId, future);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            String fileId = exists.test(derivedFileId) ? derivedFileId : generator.get();
+            markKnown(fileId);
+            future.complete(fileId);
+            return fileId;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(derivedFileId, future);
+        }
+    }
+
+    /**
+     * 派生文件被删除时移出索引
+     */
+    public void invalidate(String derivedFileId) {
+        synchronized (knownFileIds) {
+            knownFileIds.remove(derivedFileId);
+        }
+    }
+
+    /**
+     * 派生文件是否已确认存在
+     */
+    public boolean isKnown(String derivedFileId) {
+        synchronized (knownFileIds) {
+            return knownFileIds.get(derivedFileId) != null;
+        }
+    }
+
+    /**
+     * 记录已生成或已确认存在的派生文件
+     */
+    public void markKnown(String derivedFileId) {
+        synchronized (knownFileIds) {
+            knownFileIds.put(derivedFileId, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * 将参数转换为与键顺序、数值类型无关的字符串
+     */
+    private String canonicalize(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, String> sorted = new TreeMap<>();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                sorted.put(String.valueOf(entry.getKey()), canonicalize(entry.getValue()));
+            }
+            StringBuilder builder = new StringBuilder("{");
+            for (Map.Entry<String, String> entry : sorted.entrySet()) {
+                if (builder.length() > 1) {
+                    builder.append(',');
+                }
+                builder.append(entry.getKey()).append('=').append(entry.getValue());
+            }
+            return builder.append('}').toString();
+        }
+        if (value instanceof Collection<?> collection) {
+            StringBuilder builder = new StringBuilder("[");
+            for (Object element : collection) {
+                if (builder.length() > 1) {
+                    builder.append(',');
+                }
+                builder.append(canonicalize(element));
+            }
+            return builder.append(']').toString();
+        }
+        if (value instanceof Number number) {
+            // 200、200.0和"200"视为同一参数
+            String text = number.toString();
+            return text.endsWith(".0") ? text.substring(0, text.length() - 2) : text;
+        }
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,75 @@
+package com.ayw.commomservice.service.cache;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * 签名URL缓存
+ * 过期时间向上对齐到固定窗口的边界，同一窗口内对同一文件的请求得到相同的过期时间，
+ * 从而复用同一个签名URL，浏览器和CDN的缓存才能命中；对齐窗口不超过请求时长的十分之一，
+ * 实际有效期最多比请求的时长多出一个窗口
+ */
+public class PresignedUrlCache {
+    /**
+     * 对齐窗口最多占请求有效期的比例的倒数
+     */
+    private static final long MIN_EXPIRE_PER_WINDOW = 10;
+
+    private final long windowSeconds;
+    private final int maxEntries;
+
+    /**
+     * 按访问顺序淘汰，超过上限时移除最久未用的条目
+     */
+    private final Map<Key, String> urls;
+
+    /**
+     * @param windowSeconds 过期时间对齐窗口，不大于0时不对齐也不缓存
+     * @param maxEntries 缓存条数上限
+     */
+    public PresignedUrlCache(long windowSeconds, int maxEntries) {
+        this.windowSeconds = windowSeconds;
+        this.maxEntries = maxEntries;
+        this.urls = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+                return size() > PresignedUrlCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 获取签名URL，同一窗口内未签过名时调用signer生成
+     * @param fileId 文件ID
+     * @param expireSeconds 至少保证的有效秒数
+     * @param signer 按文件ID和过期时间生成签名URL
+     * @return 签名URL
+     */
+    public String get(String fileId, long expireSeconds, BiFunction<String, Date, String> signer) {
+        long now = System.currentTimeMillis() / 1000;
+        // 短时效的URL按比例缩小窗口，避免有效期被放大数倍
+        long window = Math.min(windowSeconds, expireSeconds / MIN_EXPIRE_PER_WINDOW);
+        if (window <= 0 || maxEntries <= 0) {
+            return signer.apply(fileId, new Date((now + expireSeconds) * 1000));
+        }
+        long expiresAt = (now + expireSeconds + window - 1) / window * window;
+        Key key = new Key(fileId, expiresAt);
+        synchronized (urls) {
+            String url = urls.get(key);
+            if (url != null) {
+                return url;
+            }
+        }
+        // 签名不持有锁，并发未命中时各自签名，过期时间相同得到的URL相同
+        String url = signer.apply(fileId, new Date(expiresAt * 1000));
+        synchronized (urls) {
+            urls.put(key, url);
+        }
+        return url;
+    }
+
+    private record Key(String fileId, long expiresAt) {
+    }
+}
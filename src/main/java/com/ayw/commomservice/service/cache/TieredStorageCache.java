@@ -0,0 +1,327 @@
+package com.ayw.commomservice.service.cache;
+
+import com.ayw.commomservice.config.StorageProperties;
+import com.ayw.commomservice.model.CacheStats;
+import com.ayw.commomservice.model.FileStat;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 两级下载缓存：小文件放在按字节数限额的内存LRU中，大文件放在磁盘LRU中
+ */
+public class TieredStorageCache implements MeterBinder {
+    /**
+     * 缓存的文件元信息条数上限
+     */
+    private static final int MAX_STAT_ENTRIES = 10000;
+
+    private final Logger log = LoggerFactory.getLogger(TieredStorageCache.class);
+
+    private final long memoryMaxBytes;
+    private final long memoryMaxObjectBytes;
+    private final long diskMaxBytes;
+    private final long diskMaxObjectBytes;
+    private final Path diskDir;
+    private final long statTtlMillis;
+
+    /**
+     * 按访问顺序排列的内存缓存，由this加锁保护
+     */
+    private final LinkedHashMap<String, byte[]> memoryEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+
+    /**
+     * 按访问顺序排列的磁盘缓存索引（文件ID -> 文件大小），由diskEntries加锁保护
+     */
+    private final LinkedHashMap<String, Long> diskEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes;
+
+    /**
+     * 文件元信息缓存，下载前的stat调用命中时无需访问存储平台；
+     * 其他节点或直传覆盖文件时本节点收不到通知，超过有效期后重新查询
+     */
+    private final Map<String, CachedStat> statEntries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedStat> eldest) {
+            return size() > MAX_STAT_ENTRIES;
+        }
+    };
+
+    /**
+     * 正在边下载边写入的暂存文件（文件ID -> 暂存文件），期间文件被移除缓存时取消回填
+     */
+    private final Map<String, Path> pendingFills = new ConcurrentHashMap<>();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong memoryEvictions = new AtomicLong();
+    private final AtomicLong diskEvictions = new AtomicLong();
+
+    public TieredStorageCache(StorageProperties.Cache cacheConfig) {
+        this.memoryMaxBytes = cacheConfig.getMemoryMaxBytes();
+        this.memoryMaxObjectBytes = Math.min(cacheConfig.getMemoryMaxObjectBytes(), memoryMaxBytes);
+        this.diskMaxBytes = cacheConfig.getDiskMaxBytes();
+        this.diskMaxObjectBytes = Math.min(cacheConfig.getDiskMaxObjectBytes(), diskMaxBytes);
+        this.diskDir = Paths.get(cacheConfig.getDiskDir()).toAbsolutePath().normalize();
+        this.statTtlMillis = cacheConfig.getStatTtlSeconds() * 1000;
+        try {
+            Files.createDirectories(diskDir);
+            // 磁盘缓存索引只在内存中维护，启动时清理上次遗留的文件
+            clearDiskDir();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to prepare cache directory: " + diskDir, e);
+        }
+    }
+
+    public long getMemoryMaxObjectBytes() {
+        return memoryMaxObjectBytes;
+    }
+
+    public long getDiskMaxObjectBytes() {
+        return diskMaxObjectBytes;
+    }
+
+    /**
+     * 查询内存缓存
+     * @return 文件内容，未命中返回null
+     */
+    public byte[] getFromMemory(String fileId) {
+        byte[] content;
+        synchronized (this) {
+            content = memoryEntries.get(fileId);
+        }
+        if (content != null) {
+            memoryHits.incrementAndGet();
+        }
+        return content;
+    }
+
+    /**
+     * 查询磁盘缓存
+     * @return 缓存文件路径，未命中返回null
+     */
+    public Path getFromDisk(String fileId) {
+        boolean hit;
+        synchronized (diskEntries) {
+            hit = diskEntries.get(fileId) != null;
+        }
+        if (!hit) {
+            return null;
+        }
+        diskHits.incrementAndGet();
+        return pathOf(fileId);
+    }
+
+    /**
+     * @return 未过期的文件元信息，未命中返回null
+     */
+    public FileStat getStat(String fileId) {
+        synchronized (statEntries) {
+            CachedStat cached = statEntries.get(fileId);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.expiresAt() <= System.currentTimeMillis()) {
+                statEntries.remove(fileId);
+                return null;
+            }
+            return cached.stat();
+        }
+    }
+
+    public void putStat(String fileId, FileStat stat) {
+        if (statTtlMillis <= 0) {
+            return;
+        }
+        synchronized (statEntries) {
+            statEntries.put(fileId, new CachedStat(stat, System.currentTimeMillis() + statTtlMillis));
+        }
+    }
+
+    public void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    public void putInMemory(String fileId, byte[] content) {
+        if (content.length > memoryMaxObjectBytes) {
+            return;
+        }
+        synchronized (this) {
+            byte[] previous = memoryEntries.put(fileId, content);
+            if (previous != null) {
+                memoryBytes -= previous.length;
+            }
+            memoryBytes += content.length;
+            Iterator<Map.Entry<String, byte[]>> iterator = memoryEntries.entrySet().iterator();
+            while (memoryBytes > memoryMaxBytes && iterator.hasNext()) {
+                Map.Entry<String, byte[]> eldest = iterator.next();
+                memoryBytes -= eldest.getValue().length;
+                iterator.remove();
+                memoryEvictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 创建用于暂存下载内容的临时文件，写完后通过putOnDisk放入缓存，放弃时通过discardSpoolFile删除
+     * 写入期间文件被移除缓存（覆盖或删除）时，之后的putOnDisk不再放入缓存
+     */
+    public Path createSpoolFile(String fileId) throws IOException {
+        Path spoolFile = Files.createTempFile(diskDir, "spool-", ".tmp");
+        pendingFills.put(fileId, spoolFile);
+        return spoolFile;
+    }
+
+    public void discardSpoolFile(String fileId, Path spoolFile) {
+        pendingFills.remove(fileId, spoolFile);
+        deleteQuietly(spoolFile);
+    }
+
+    /**
+     * 将暂存文件放入磁盘缓存，文件的所有权转移给缓存
+     * @return 缓存文件路径，超过大小限制或写入期间文件已被移除缓存时返回null
+     */
+    public Path putOnDisk(String fileId, Path spoolFile, long size) throws IOException {
+        if (!pendingFills.remove(fileId, spoolFile) || size > diskMaxObjectBytes) {
+            Files.deleteIfExists(spoolFile);
+            return null;
+        }
+        Path target = pathOf(fileId);
+        try {
+            Files.move(spoolFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(spoolFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        synchronized (diskEntries) {
+            Long previous = diskEntries.put(fileId, size);
+            if (previous != null) {
+                diskBytes -= previous;
+            }
+            diskBytes += size;
+            Iterator<Map.Entry<String, Long>> iterator = diskEntries.entrySet().iterator();
+            while (diskBytes > diskMaxBytes && iterator.hasNext()) {
+                Map.Entry<String, Long> eldest = iterator.next();
+                if (eldest.getKey().equals(fileId)) {
+                    continue;
+                }
+                diskBytes -= eldest.getValue();
+                iterator.remove();
+                deleteQuietly(pathOf(eldest.getKey()));
+                diskEvictions.incrementAndGet();
+            }
+        }
+        return target;
+    }
+
+    /**
+     * 移除指定文件的缓存
+     */
+    public void invalidate(String fileId) {
+        pendingFills.remove(fileId);
+        synchronized (statEntries) {
+            statEntries.remove(fileId);
+        }
+        synchronized (this) {
+            byte[] previous = memoryEntries.remove(fileId);
+            if (previous != null) {
+                memoryBytes -= previous.length;
+            }
+        }
+        synchronized (diskEntries) {
+            Long previous = diskEntries.remove(fileId);
+            if (previous != null) {
+                diskBytes -= previous;
+                deleteQuietly(pathOf(fileId));
+            }
+        }
+    }
+
+    public CacheStats getStats() {
+        CacheStats stats = new CacheStats();
+        stats.setMemoryHits(memoryHits.get());
+        stats.setDiskHits(diskHits.get());
+        stats.setMisses(misses.get());
+        stats.setMemoryEvictions(memoryEvictions.get());
+        stats.setDiskEvictions(diskEvictions.get());
+        synchronized (this) {
+            stats.setMemoryEntries(memoryEntries.size());
+            stats.setMemoryBytes(memoryBytes);
+        }
+        synchronized (diskEntries) {
+            stats.setDiskEntries(diskEntries.size());
+            stats.setDiskBytes(diskBytes);
+        }
+        return stats;
+    }
+
+    /**
+     * 导出命中、未命中、淘汰次数及各级缓存占用，标签tier为memory或disk
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("storage.cache.hits", memoryHits, AtomicLong::get).tag("tier", "memory").register(registry);
+        FunctionCounter.builder("storage.cache.hits", diskHits, AtomicLong::get).tag("tier", "disk").register(registry);
+        FunctionCounter.builder("storage.cache.misses", misses, AtomicLong::get).register(registry);
+        FunctionCounter.builder("storage.cache.evictions", memoryEvictions, AtomicLong::get).tag("tier", "memory").register(registry);
+        FunctionCounter.builder("storage.cache.evictions", diskEvictions, AtomicLong::get).tag("tier", "disk").register(registry);
+        Gauge.builder("storage.cache.entries", this, cache -> cache.getStats().getMemoryEntries()).tag("tier", "memory").register(registry);
+        Gauge.builder("storage.cache.entries", this, cache -> cache.getStats().getDiskEntries()).tag("tier", "disk").register(registry);
+        Gauge.builder("storage.cache.size", this, cache -> cache.getStats().getMemoryBytes())
+                .tag("tier", "memory").baseUnit("bytes").register(registry);
+        Gauge.builder("storage.cache.size", this, cache -> cache.getStats().getDiskBytes())
+                .tag("tier", "disk").baseUnit("bytes").register(registry);
+    }
+
+    /**
+     * 文件ID可能包含路径分隔符，磁盘上使用其摘要作为文件名
+     */
+    private Path pathOf(String fileId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(fileId.getBytes(StandardCharsets.UTF_8));
+            return diskDir.resolve(HexFormat.of().formatHex(digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void clearDiskDir() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(diskDir)) {
+            for (Path file : files) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete cache file: {}", file, e);
+        }
+    }
+
+    private record CachedStat(FileStat stat, long expiresAt) {
+    }
+}
@@ -0,0 +1,319 @@
+package com.ayw.commomservice.service.document;
+
+import com.ayw.commomservice.concurrent.MonitoredThreadPoolExecutor;
+import com.ayw.commomservice.config.ProcessingProperties;
+import com.ayw.commomservice.model.PdfBulkRequest;
+import com.ayw.commomservice.model.PdfBulkResult;
+import com.ayw.commomservice.service.StorageService;
+import com.ayw.commomservice.service.cache.DerivedFileIndex;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.pdf.AcroFields;
+import com.itextpdf.text.pdf.BaseFont;
+import com.itextpdf.text.pdf.PdfReader;
+import com.itextpdf.text.pdf.PdfSmartCopy;
+import com.itextpdf.text.pdf.PdfStamper;
+import com.itextpdf.text.pdf.PdfWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 基于模板的PDF生成
+ * 模板为带表单域的PDF，下载和解析结果按文件ID缓存，每个文档只需填充表单域，模板文件被覆盖后按新内容重新加载；
+ * 生成的文档写入本地临时文件后再上传，不在内存中保留整个文档
+ */
+@Component
+public class PdfTemplateRenderer {
+    public static final String CONTENT_TYPE = "application/pdf";
+
+    private final Logger log = LoggerFactory.getLogger(PdfTemplateRenderer.class);
+    private final StorageService storageService;
+    private final MonitoredThreadPoolExecutor renderExecutor;
+    private final ProcessingProperties.Pdf config;
+    private final Path spoolDir;
+    private final BaseFont baseFont;
+
+    /**
+     * 按访问顺序排列的模板缓存，由this加锁保护
+     */
+    private final LinkedHashMap<String, CompiledTemplate> templates;
+
+    @Autowired
+    public PdfTemplateRenderer(StorageService storageService,
+                               MonitoredThreadPoolExecutor pdfRenderExecutor,
+                               ProcessingProperties processingProperties) {
+        this.storageService = storageService;
+        this.renderExecutor = pdfRenderExecutor;
+        this.config = processingProperties.getPdf();
+        this.spoolDir = Paths.get(config.getSpoolDir()).toAbsolutePath().normalize();
+        int cacheSize = Math.max(1, config.getTemplateCacheSize());
+        this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledTemplate> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        try {
+            Files.createDirectories(spoolDir);
+            // 字体只加载一次，所有文档共用
+            this.baseFont = config.getFontPath() == null || config.getFontPath().isEmpty()
+                    ? BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED)
+                    : BaseFont.createFont(config.getFontPath(), BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
+        } catch (IOException | DocumentException e) {
+            throw new IllegalStateException("Failed to initialize PDF renderer", e);
+        }
+    }
+
+    /**
+     * 生成PDF并上传
+     * @param templateFileId 模板文件ID，为空时按键值对逐行输出
+     * @param data 填充数据，键为表单域名称
+     * @return 生成文件的ID
+     */
+    public String render(String templateFileId, Map<String, Object> data) {
+        Path file = null;
+        try {
+            file = renderToFile(templateFileId, data);
+            String fileId = upload(file);
+            log.debug("PDF generated successfully: {}", fileId);
+            return fileId;
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+
+    /**
+     * 批量生成PDF，各文档并行生成，单个文档失败不影响其他文档
+     * 合并模式下按请求顺序将各文档合并为一个文件，有文档失败时不生成合并文件
+     */
+    public PdfBulkResult bulk(PdfBulkRequest request) {
+        List<Map<String, Object>> items = request.getItems() != null ? request.getItems() : List.of();
+        String templateFileId = request.getTemplateFileId();
+        if (templateFileId != null && !templateFileId.isEmpty()) {
+            // 并发生成前先加载模板，避免各任务同时下载
+            template(templateFileId);
+        }
+
+        List<CompletableFuture<Path>> futures = new ArrayList<>(items.size());
+        for (Map<String, Object> data : items) {
+            futures.add(CompletableFuture.supplyAsync(() -> renderToFile(templateFileId, data), renderExecutor));
+        }
+
+        PdfBulkResult result = new PdfBulkResult();
+        if (request.isMerge()) {
+            merge(futures, result);
+        } else {
+            List<CompletableFuture<PdfBulkResult.Item>> uploads = new ArrayList<>(futures.size());
+            for (int i = 0; i < futures.size(); i++) {
+                int index = i;
+                uploads.add(futures.get(i).thenApplyAsync(file -> {
+                    try {
+                        return PdfBulkResult.Item.succeeded(index, upload(file));
+                    } finally {
+                        deleteQuietly(file);
+                    }
+                }, renderExecutor).exceptionally(e -> PdfBulkResult.Item.failed(index, messageOf(e))));
+            }
+            result.setItems(uploads.stream().map(CompletableFuture::join).toList());
+        }
+        log.info("PDF bulk generated: {} documents, merged file: {}", items.size(), result.getMergedFileId());
+        return result;
+    }
+
+    /**
+     * 按顺序等待各文档生成完成并逐个追加到合并文件，合并过程中只保留当前文档的读取器
+     */
+    private void merge(List<CompletableFuture<Path>> futures, PdfBulkResult result) {
+        List<PdfBulkResult.Item> items = new ArrayList<>(futures.size());
+        Path merged = null;
+        Document document = null;
+        PdfSmartCopy copy = null;
+        try {
+            merged = Files.createTempFile(spoolDir, "merged-", ".pdf");
+            try (OutputStream outputStream = Files.newOutputStream(merged)) {
+                for (int i = 0; i < futures.size(); i++) {
+                    Path file = null;
+                    try {
+                        file = futures.get(i).join();
+                        if (copy != null || items.stream().allMatch(PdfBulkResult.Item::isSuccess)) {
+                            if (copy == null) {
+                                document = new Document();
+                                copy = new PdfSmartCopy(document, outputStream);
+                                document.open();
+                            }
+                            PdfReader reader = new PdfReader(file.toString());
+                            try {
+                                copy.addDocument(reader);
+                                copy.freeReader(reader);
+                            } finally {
+                                reader.close();
+                            }
+                        }
+                        items.add(PdfBulkResult.Item.succeeded(i, null));
+                    } catch (CompletionException e) {
+                        items.add(PdfBulkResult.Item.failed(i, messageOf(e)));
+                        // 已失败则不再合并，剩余文档只等待生成结束并清理
+                        if (copy != null) {
+                            document.close();
+                            copy = null;
+                            document = null;
+                        }
+                    } finally {
+                        deleteQuietly(file);
+                    }
+                }
+                if (document != null) {
+                    document.close();
+                }
+            }
+            if (copy != null) {
+                result.setMergedFileId(upload(merged));
+            }
+        } catch (IOException | DocumentException e) {
+            log.error("Failed to merge PDF documents", e);
+            throw new RuntimeException("Failed to merge PDF documents", e);
+        } finally {
+            // 异常退出时清理尚未合并的文档
+            for (CompletableFuture<Path> future : futures) {
+                future.thenAccept(this::deleteQuietly);
+            }
+            deleteQuietly(merged);
+        }
+        result.setItems(items);
+    }
+
+    /**
+     * 生成PDF到本地临时文件
+     */
+    private Path renderToFile(String templateFileId, Map<String, Object> data) {
+        Path file = null;
+        try {
+            file = Files.createTempFile(spoolDir, "pdf-", ".pdf");
+            try (OutputStream outputStream = Files.newOutputStream(file)) {
+                if (templateFileId == null || templateFileId.isEmpty()) {
+                    writeParagraphs(data, outputStream);
+                } else {
+                    fillTemplate(template(templateFileId), data, outputStream);
+                }
+            }
+            return file;
+        } catch (IOException | DocumentException | RuntimeException e) {
+            deleteQuietly(file);
+            throw new CompletionException(e);
+        }
+    }
+
+    private void fillTemplate(CompiledTemplate template, Map<String, Object> data, OutputStream outputStream)
+            throws IOException, DocumentException {
+        PdfReader reader = new PdfReader(template.content());
+        PdfStamper stamper = new PdfStamper(reader, outputStream);
+        try {
+            AcroFields form = stamper.getAcroFields();
+            form.addSubstitutionFont(baseFont);
+            if (data != null) {
+                for (Map.Entry<String, Object> entry : data.entrySet()) {
+                    if (entry.getValue() != null && template.fields().contains(entry.getKey())) {
+                        form.setField(entry.getKey(), String.valueOf(entry.getValue()));
+                    }
+                }
+            }
+            // 表单域转为普通内容，生成的文档不可再编辑
+            stamper.setFormFlattening(true);
+        } finally {
+            stamper.close();
+            reader.close();
+        }
+    }
+
+    private void writeParagraphs(Map<String, Object> data, OutputStream outputStream) throws DocumentException {
+        Document document = new Document();
+        PdfWriter.getInstance(document, outputStream);
+        document.open();
+        Font font = new Font(baseFont);
+        if (data != null) {
+            for (Map.Entry<String, Object> entry : data.entrySet()) {
+                document.add(new Paragraph(entry.getKey() + ": " + entry.getValue(), font));
+            }
+        }
+        document.close();
+    }
+
+    /**
+     * 获取模板，未缓存或缓存的版本（ETag或修改时间）与存储中的不一致时下载并解析表单域
+     */
+    private CompiledTemplate template(String templateFileId) {
+        String version = DerivedFileIndex.versionOf(storageService.stat(templateFileId));
+        synchronized (this) {
+            CompiledTemplate cached = templates.get(templateFileId);
+            if (cached != null && cached.version().equals(version)) {
+                return cached;
+            }
+        }
+        // 在锁外加载，并发未命中时最多重复加载一次
+        CompiledTemplate template;
+        try (InputStream inputStream = storageService.download(templateFileId)) {
+            byte[] content = inputStream.readAllBytes();
+            PdfReader reader = new PdfReader(content);
+            try {
+                template = new CompiledTemplate(version, content, Set.copyOf(reader.getAcroFields().getFields().keySet()));
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load PDF template: " + templateFileId, e);
+        }
+        synchronized (this) {
+            templates.put(templateFileId, template);
+        }
+        return template;
+    }
+
+    private String upload(Path file) {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return storageService.upload(inputStream, UUID.randomUUID() + ".pdf", CONTENT_TYPE, null);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to upload PDF", e);
+        }
+    }
+
+    private String messageOf(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getMessage();
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete PDF spool file: {}", file, e);
+        }
+    }
+
+    /**
+     * 已下载的模板内容及其表单域名称
+     */
+    private record CompiledTemplate(String version, byte[] content, Set<String> fields) {
+    }
+}
@@ -0,0 +1,190 @@
+package com.ayw.commomservice.service.document;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.metadata.WriteSheet;
+import com.ayw.commomservice.concurrent.MonitoredThreadPoolExecutor;
+import com.ayw.commomservice.config.ProcessingProperties;
+import com.ayw.commomservice.config.StorageProperties;
+import com.ayw.commomservice.service.StorageService;
+import com.ayw.commomservice.service.io.MultipartUploadOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 流式Excel导出
+ * 逐行读取数据，分批写入ExcelWriter，生成的文件内容直接写入分片上传，不在内存中保留整个数据集或文件。
+ * SXSSF生成行数据时先写入本地临时文件，finish时才压缩输出xlsx，因此上传只与最后的压缩输出阶段并行，不与行生成并行
+ */
+@Component
+public class StreamingExcelExporter {
+    public static final String CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    private final Logger log = LoggerFactory.getLogger(StreamingExcelExporter.class);
+    private final StorageService storageService;
+    private final MonitoredThreadPoolExecutor partExecutor;
+    private final ProcessingProperties.ExcelExport config;
+    private final int maxRetries;
+
+    @Autowired
+    public StreamingExcelExporter(StorageService storageService,
+                                  MonitoredThreadPoolExecutor storagePartExecutor,
+                                  ProcessingProperties processingProperties,
+                                  StorageProperties storageProperties) {
+        this.storageService = storageService;
+        this.partExecutor = storagePartExecutor;
+        this.config = processingProperties.getExcelExport();
+        this.maxRetries = storageProperties.getMultipart().getMaxRetries();
+    }
+
+    /**
+     * 导出Excel
+     * @param rows 数据行，每行为Map（按表头取值）、List（按列顺序）或单个值
+     * @param headers 表头，为空时使用第一行Map的键
+     * @param sheetName 工作表名称
+     * @return 导出文件的ID
+     */
+    public String export(Iterator<?> rows, List<String> headers, String sheetName) {
+        PeekingIterator source = new PeekingIterator(rows);
+        List<String> columns = headers != null && !headers.isEmpty() ? headers : headersOf(source.peek());
+
+        MultipartUploadOutputStream outputStream = new MultipartUploadOutputStream(
+                storageService, partExecutor, UUID.randomUUID() + ".xlsx", CONTENT_TYPE,
+                config.getPartSize(), config.getUploadConcurrency(), maxRetries);
+        ExcelWriter excelWriter = null;
+        long rowCount = 0;
+        try {
+            // 默认使用SXSSF，已写入的行刷到临时文件，结束时再压缩输出
+            excelWriter = EasyExcel.write(outputStream)
+                    .autoCloseStream(false)
+                    .head(columns.stream().map(List::of).toList())
+                    .build();
+            WriteSheet writeSheet = EasyExcel.writerSheet(sheetName).build();
+
+            List<List<Object>> batch = new ArrayList<>(config.getBatchSize());
+            while (source.hasNext()) {
+                batch.add(toRow(source.next(), columns));
+                if (batch.size() >= config.getBatchSize()) {
+                    excelWriter.write(batch, writeSheet);
+                    rowCount += batch.size();
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty() || rowCount == 0) {
+                excelWriter.write(batch, writeSheet);
+                rowCount += batch.size();
+            }
+            excelWriter.finish();
+            excelWriter = null;
+            outputStream.close();
+
+            log.info("Excel exported successfully: {}, {} rows, {} bytes",
+                    outputStream.getFileId(), rowCount, outputStream.getSize());
+            return outputStream.getFileId();
+        } catch (Exception e) {
+            outputStream.abort();
+            finishQuietly(excelWriter);
+            log.error("Failed to export Excel after {} rows", rowCount, e);
+            throw new RuntimeException("Failed to export Excel", e);
+        }
+    }
+
+    private List<String> headersOf(Object firstRow) {
+        if (firstRow instanceof Map<?, ?> map) {
+            return map.keySet().stream().map(String::valueOf).toList();
+        }
+        throw new IllegalArgumentException("Excel export requires headers when rows are not objects");
+    }
+
+    private List<Object> toRow(Object row, List<String> columns) {
+        List<Object> cells = new ArrayList<>(columns.size());
+        if (row instanceof Map<?, ?> map) {
+            for (String column : columns) {
+                cells.add(toCell(map.get(column)));
+            }
+        } else if (row instanceof Collection<?> values) {
+            for (Object value : values) {
+                cells.add(toCell(value));
+            }
+        } else {
+            cells.add(toCell(row));
+        }
+        return cells;
+    }
+
+    /**
+     * 嵌套对象等ExcelWriter不支持的类型按字符串写入
+     */
+    private Object toCell(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean || value instanceof Date
+                || value instanceof Integer || value instanceof Long || value instanceof Double
+                || value instanceof BigDecimal || value instanceof BigInteger) {
+            return value;
+        }
+        return String.valueOf(value);
+    }
+
+    private void finishQuietly(ExcelWriter excelWriter) {
+        if (excelWriter == null) {
+            return;
+        }
+        try {
+            // 释放SXSSF临时文件
+            excelWriter.finish();
+        } catch (Exception e) {
+            log.debug("Failed to finish Excel writer after export failure", e);
+        }
+    }
+
+    /**
+     * 可预读第一行的迭代器，用于从第一行推断表头
+     */
+    private static class PeekingIterator implements Iterator<Object> {
+        private final Iterator<?> delegate;
+        private Object peeked;
+        private boolean hasPeeked;
+
+        PeekingIterator(Iterator<?> delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * @return 第一行，没有数据时返回null
+         */
+        Object peek() {
+            if (!hasPeeked && delegate.hasNext()) {
+                peeked = delegate.next();
+                hasPeeked = true;
+            }
+            return peeked;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasPeeked || delegate.hasNext();
+        }
+
+        @Override
+        public Object next() {
+            if (hasPeeked) {
+                hasPeeked = false;
+                Object value = peeked;
+                peeked = null;
+                return value;
+            }
+            return delegate.next();
+        }
+    }
+}
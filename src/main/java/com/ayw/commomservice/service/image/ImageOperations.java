@@ -0,0 +1,525 @@
+package com.ayw.commomservice.service.image;
+
+import net.coobird.thumbnailator.Thumbnails;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 图片解码、处理和编码，单张处理与批量流水线共用
+ * 多个操作按顺序在一次解码、编码之间完成，相邻的裁剪和缩放合并为一次重采样
+ * 水印图层从缓存获取，处理每张图片时只做合成
+ */
+@Component
+public class ImageOperations {
+    /**
+     * 支持的图片操作
+     */
+    public static final Set<String> OPERATIONS = Set.of("compress", "convert", "watermark", "crop");
+
+    /**
+     * 按顺序执行params.operations中多个操作的组合操作
+     */
+    public static final String PIPELINE = "pipeline";
+
+    static {
+        // 图片都在内存中解码，不需要ImageIO在磁盘上建临时缓存
+        ImageIO.setUseCache(false);
+    }
+
+    private final WatermarkOverlayCache watermarkOverlayCache;
+
+    @Autowired
+    public ImageOperations(WatermarkOverlayCache watermarkOverlayCache) {
+        this.watermarkOverlayCache = watermarkOverlayCache;
+    }
+
+    /**
+     * 检查操作类型及组合操作中的每一步是否支持
+     */
+    public void checkOperation(String operation, Map<String, Object> params) {
+        parseSteps(operation, params);
+    }
+
+    /**
+     * 解码并处理图片
+     * 先只读取图片尺寸，再按开头的裁剪缩放只解码需要的区域，缩小时按比例隔行隔列取样，
+     * 解码占用的内存与输出尺寸而不是原图尺寸相关
+     * @param operation 操作类型，pipeline表示按params.operations依次执行多个操作
+     */
+    public BufferedImage decodeAndApply(InputStream inputStream, String operation, Map<String, Object> params)
+            throws IOException {
+        List<Step> steps = parseSteps(operation, params);
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+            Iterator<ImageReader> readers = imageInputStream != null
+                    ? ImageIO.getImageReaders(imageInputStream)
+                    : Collections.emptyIterator();
+            if (!readers.hasNext()) {
+                throw new IllegalArgumentException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+                GeometryPlan plan = new GeometryPlan(reader.getWidth(0), reader.getHeight(0));
+                int index = planGeometry(plan, steps, 0);
+                BufferedImage image = plan.decode(reader);
+                return applySteps(image, steps, index);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    public BufferedImage decodeAndApply(byte[] content, String operation, Map<String, Object> params)
+            throws IOException {
+        return decodeAndApply(new ByteArrayInputStream(content), operation, params);
+    }
+
+    /**
+     * 按操作类型处理已解码的图片
+     * @param operation 操作类型，pipeline表示按params.operations依次执行多个操作
+     */
+    public BufferedImage apply(BufferedImage image, String operation, Map<String, Object> params) throws IOException {
+        return applySteps(image, parseSteps(operation, params), 0);
+    }
+
+    private BufferedImage applySteps(BufferedImage image, List<Step> steps, int from) throws IOException {
+        int index = from;
+        while (index < steps.size()) {
+            if ("watermark".equals(steps.get(index).operation())) {
+                // 水印之前的裁剪缩放已经落地，水印直接画在结果图上
+                image = addWatermark(image, steps.get(index).params());
+                index++;
+            } else {
+                GeometryPlan plan = new GeometryPlan(image.getWidth(), image.getHeight());
+                index = planGeometry(plan, steps, index);
+                image = plan.render(image);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * 将从from开始的连续裁剪缩放累积到plan中
+     * @return 第一个非几何操作的位置
+     */
+    private int planGeometry(GeometryPlan plan, List<Step> steps, int from) {
+        for (int index = from; index < steps.size(); index++) {
+            Step step = steps.get(index);
+            switch (step.operation()) {
+                case "compress" -> {
+                    // 按质量压缩在编码时处理
+                    if (step.has("width") && step.has("height")) {
+                        plan.resize(step.intParam("width"), step.intParam("height"));
+                    }
+                }
+                case "convert" -> {
+                    // 格式转换在上传时处理，这里只做缩放（如果需要）
+                    if (step.has("width") && step.has("height")) {
+                        plan.resize(step.intParam("width"), step.intParam("height"));
+                    }
+                }
+                case "crop" -> plan.crop(step.intParam("x"), step.intParam("y"),
+                        step.intParam("width"), step.intParam("height"));
+                case "watermark" -> {
+                    return index;
+                }
+                default -> throw new IllegalArgumentException("Unsupported image operation: " + step.operation());
+            }
+        }
+        return steps.size();
+    }
+
+    /**
+     * 获取编码质量，取最后一个指定quality的压缩操作
+     * @return 0到1之间的质量，未指定时返回null
+     */
+    public Float outputQuality(String operation, Map<String, Object> params) {
+        Float quality = null;
+        for (Step step : parseSteps(operation, params)) {
+            if ("compress".equals(step.operation()) && step.has("quality")) {
+                quality = Float.parseFloat(step.params().get("quality").toString());
+            }
+        }
+        return quality;
+    }
+
+    /**
+     * 编码图片
+     */
+    public byte[] encode(BufferedImage image, String format) throws IOException {
+        return encode(image, format, null);
+    }
+
+    /**
+     * 按指定质量编码图片
+     * @param quality 0到1之间的质量，为null时使用编码器默认值
+     */
+    public byte[] encode(BufferedImage image, String format, Float quality) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IllegalArgumentException("Unsupported output format: " + format);
+        }
+        if (image.getColorModel().hasAlpha() && ("jpg".equalsIgnoreCase(format) || "jpeg".equalsIgnoreCase(format))) {
+            // JPEG不支持透明通道
+            image = copy(image, BufferedImage.TYPE_INT_RGB);
+        }
+
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+            ImageWriteParam writeParam = writer.getDefaultWriteParam();
+            if (quality != null && writeParam.canWriteCompressed()) {
+                writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if (writeParam.getCompressionType() == null && writeParam.getCompressionTypes() != null) {
+                    writeParam.setCompressionType(writeParam.getCompressionTypes()[0]);
+                }
+                writeParam.setCompressionQuality(Math.max(0f, Math.min(1f, quality)));
+            }
+            writer.setOutput(imageOutputStream);
+            writer.write(null, new IIOImage(image, null, null), writeParam);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Step> parseSteps(String operation, Map<String, Object> params) {
+        if (operation == null) {
+            throw new IllegalArgumentException("Image operation is required");
+        }
+        Map<String, Object> safeParams = params != null ? params : Map.of();
+        if (!PIPELINE.equalsIgnoreCase(operation)) {
+            return List.of(parseStep(operation, safeParams));
+        }
+
+        Object operations = safeParams.get("operations");
+        if (!(operations instanceof List<?> list) || list.isEmpty()) {
+            throw new IllegalArgumentException("Pipeline operation requires a non-empty operations parameter");
+        }
+        List<Step> steps = new ArrayList<>(list.size());
+        for (Object element : list) {
+            if (!(element instanceof Map<?, ?> stepParams) || stepParams.get("operation") == null) {
+                throw new IllegalArgumentException("Each pipeline step requires an operation");
+            }
+            steps.add(parseStep(stepParams.get("operation").toString(), (Map<String, Object>) stepParams));
+        }
+        return steps;
+    }
+
+    private Step parseStep(String operation, Map<String, Object> params) {
+        String name = operation.toLowerCase();
+        if (!OPERATIONS.contains(name)) {
+            throw new IllegalArgumentException("Unsupported image operation: " + operation);
+        }
+        Step step = new Step(name, params);
+        switch (name) {
+            case "compress" -> {
+                if (!(step.has("width") && step.has("height")) && !step.has("quality")) {
+                    throw new IllegalArgumentException("Compress operation requires either width/height or quality parameter");
+                }
+            }
+            case "watermark" -> {
+                if (!step.has("watermarkText") && !step.has("watermarkFileId")) {
+                    throw new IllegalArgumentException("Watermark operation requires watermarkText or watermarkFileId parameter");
+                }
+                // 水印尺寸由参数决定，超出范围的参数会渲染出远大于原图的图层
+                if (step.has("relativeSize")) {
+                    double relativeSize = step.doubleParam("relativeSize");
+                    if (!(relativeSize > 0 && relativeSize <= 1)) {
+                        throw new IllegalArgumentException("Watermark relativeSize must be in (0, 1]: " + relativeSize);
+                    }
+                }
+                if (step.has("fontSize") && step.intParam("fontSize") < 0) {
+                    throw new IllegalArgumentException("Watermark fontSize must not be negative");
+                }
+                if (step.has("opacity")) {
+                    double opacity = step.doubleParam("opacity");
+                    if (!(opacity >= 0 && opacity <= 1)) {
+                        throw new IllegalArgumentException("Watermark opacity must be in [0, 1]: " + opacity);
+                    }
+                }
+            }
+            case "crop" -> {
+                if (!step.has("x") || !step.has("y") || !step.has("width") || !step.has("height")) {
+                    throw new IllegalArgumentException("Crop operation requires x, y, width and height parameters");
+                }
+            }
+            default -> {
+            }
+        }
+        return step;
+    }
+
+    private BufferedImage addWatermark(BufferedImage image, Map<String, Object> params) {
+        float opacity = params.containsKey("opacity") ?
+                Float.parseFloat(params.get("opacity").toString()) : 0.5f;
+        double rotation = params.containsKey("rotation") ?
+                Double.parseDouble(params.get("rotation").toString()) : 0;
+        // 水印宽度默认为图片宽度的四分之一
+        double relativeSize = params.containsKey("relativeSize") ?
+                Double.parseDouble(params.get("relativeSize").toString()) : 0.25;
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * relativeSize));
+        // 字号不超过图片的长边
+        int maxFontSize = Math.max(image.getWidth(), image.getHeight());
+        int fontSize = params.containsKey("fontSize") ? Integer.parseInt(params.get("fontSize").toString()) : 0;
+        if (fontSize > maxFontSize) {
+            throw new IllegalArgumentException("Watermark fontSize " + fontSize + " exceeds image size " + maxFontSize);
+        }
+
+        BufferedImage overlay;
+        if (params.containsKey("watermarkFileId")) {
+            overlay = watermarkOverlayCache.imageOverlay(
+                    params.get("watermarkFileId").toString(), targetWidth, opacity, rotation);
+        } else {
+            overlay = watermarkOverlayCache.textOverlay(
+                    params.get("watermarkText").toString(),
+                    params.getOrDefault("fontName", "Arial").toString(),
+                    fontStyle(params.get("fontStyle")),
+                    fontSize,
+                    targetWidth,
+                    maxFontSize,
+                    params.containsKey("color") ? Color.decode(params.get("color").toString()) : Color.BLACK,
+                    opacity,
+                    rotation);
+        }
+
+        // 解码或重采样得到的图片只在本次处理中使用，直接在上面绘制水印，不再复制整张图
+        BufferedImage target = isDrawable(image) ? image : copy(image, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = target.createGraphics();
+        if (Boolean.parseBoolean(String.valueOf(params.get("tiled")))) {
+            int spacing = params.containsKey("spacing") ?
+                    Integer.parseInt(params.get("spacing").toString()) : overlay.getHeight();
+            drawTiled(graphics, overlay, target.getWidth(), target.getHeight(), spacing);
+        } else {
+            int margin = params.containsKey("margin") ?
+                    Integer.parseInt(params.get("margin").toString())
+                    : Math.min(target.getWidth(), target.getHeight()) / 50;
+            String position = params.getOrDefault("position", "center").toString();
+            drawPositioned(graphics, overlay, target.getWidth(), target.getHeight(), position, margin);
+        }
+        graphics.dispose();
+        return target;
+    }
+
+    private void drawPositioned(Graphics2D graphics, BufferedImage overlay, int width, int height,
+                                String position, int margin) {
+        int left = margin;
+        int centerX = (width - overlay.getWidth()) / 2;
+        int right = width - overlay.getWidth() - margin;
+        int top = margin;
+        int centerY = (height - overlay.getHeight()) / 2;
+        int bottom = height - overlay.getHeight() - margin;
+        // 支持center、topLeft、top_right、bottom-left等写法
+        switch (position.replace("_", "").replace("-", "").toLowerCase()) {
+            case "topleft" -> graphics.drawImage(overlay, left, top, null);
+            case "topcenter", "top" -> graphics.drawImage(overlay, centerX, top, null);
+            case "topright" -> graphics.drawImage(overlay, right, top, null);
+            case "centerleft", "left" -> graphics.drawImage(overlay, left, centerY, null);
+            case "center" -> graphics.drawImage(overlay, centerX, centerY, null);
+            case "centerright", "right" -> graphics.drawImage(overlay, right, centerY, null);
+            case "bottomleft" -> graphics.drawImage(overlay, left, bottom, null);
+            case "bottomcenter", "bottom" -> graphics.drawImage(overlay, centerX, bottom, null);
+            case "bottomright" -> graphics.drawImage(overlay, right, bottom, null);
+            default -> throw new IllegalArgumentException("Unsupported watermark position: " + position);
+        }
+    }
+
+    /**
+     * 平铺水印，相邻两行错开半个水印宽度
+     */
+    private void drawTiled(Graphics2D graphics, BufferedImage overlay, int width, int height, int spacing) {
+        int stepX = overlay.getWidth() + Math.max(0, spacing);
+        int stepY = overlay.getHeight() + Math.max(0, spacing);
+        int row = 0;
+        for (int y = 0; y < height; y += stepY, row++) {
+            for (int x = row % 2 == 0 ? 0 : -stepX / 2; x < width; x += stepX) {
+                graphics.drawImage(overlay, x, y, null);
+            }
+        }
+    }
+
+    private int fontStyle(Object style) {
+        if (style == null) {
+            return Font.PLAIN;
+        }
+        return switch (style.toString().toLowerCase()) {
+            case "bold" -> Font.BOLD;
+            case "italic" -> Font.ITALIC;
+            case "bolditalic" -> Font.BOLD | Font.ITALIC;
+            default -> Font.PLAIN;
+        };
+    }
+
+    /**
+     * 索引色、二值及自定义类型的图片直接绘制效果不佳，需要先转换
+     */
+    private boolean isDrawable(BufferedImage image) {
+        int type = image.getType();
+        return type != BufferedImage.TYPE_CUSTOM
+                && type != BufferedImage.TYPE_BYTE_INDEXED
+                && type != BufferedImage.TYPE_BYTE_BINARY;
+    }
+
+    private BufferedImage copy(BufferedImage image, int type) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), type);
+        Graphics2D graphics = copy.createGraphics();
+        if (type == BufferedImage.TYPE_INT_RGB) {
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        }
+        graphics.drawImage(image, 0, 0, null);
+        graphics.dispose();
+        return copy;
+    }
+
+    private record Step(String operation, Map<String, Object> params) {
+        boolean has(String name) {
+            return params.containsKey(name);
+        }
+
+        int intParam(String name) {
+            return Integer.parseInt(params.get(name).toString());
+        }
+
+        double doubleParam(String name) {
+            return Double.parseDouble(params.get(name).toString());
+        }
+    }
+
+    /**
+     * 累积的几何变换：源图中的取样区域及最终输出尺寸
+     * 连续的裁剪和缩放只修改这两项，最后一次性完成重采样
+     */
+    private static class GeometryPlan {
+        private final int sourceWidth;
+        private final int sourceHeight;
+        private double regionX;
+        private double regionY;
+        private double regionWidth;
+        private double regionHeight;
+        private int outputWidth;
+        private int outputHeight;
+
+        GeometryPlan(int sourceWidth, int sourceHeight) {
+            this.sourceWidth = sourceWidth;
+            this.sourceHeight = sourceHeight;
+            this.regionWidth = sourceWidth;
+            this.regionHeight = sourceHeight;
+            this.outputWidth = sourceWidth;
+            this.outputHeight = sourceHeight;
+        }
+
+        /**
+         * 按当前输出坐标裁剪，超出图片的部分被截掉
+         */
+        void crop(int x, int y, int width, int height) {
+            int left = Math.max(0, x);
+            int top = Math.max(0, y);
+            int right = Math.min(outputWidth, x + width);
+            int bottom = Math.min(outputHeight, y + height);
+            if (right <= left || bottom <= top) {
+                throw new IllegalArgumentException("Crop region is outside the image");
+            }
+            double scaleX = regionWidth / outputWidth;
+            double scaleY = regionHeight / outputHeight;
+            regionX += left * scaleX;
+            regionY += top * scaleY;
+            regionWidth = (right - left) * scaleX;
+            regionHeight = (bottom - top) * scaleY;
+            outputWidth = right - left;
+            outputHeight = bottom - top;
+        }
+
+        /**
+         * 保持宽高比缩放到给定范围内
+         */
+        void resize(int width, int height) {
+            if (width <= 0 || height <= 0) {
+                throw new IllegalArgumentException("Resize width and height must be positive");
+            }
+            double ratio = Math.min((double) width / outputWidth, (double) height / outputHeight);
+            outputWidth = Math.max(1, (int) Math.round(outputWidth * ratio));
+            outputHeight = Math.max(1, (int) Math.round(outputHeight * ratio));
+        }
+
+        /**
+         * 对已解码的图片执行累积的变换
+         */
+        BufferedImage render(BufferedImage source) throws IOException {
+            Rectangle region = sourceRegion();
+            boolean sameSize = region.width == outputWidth && region.height == outputHeight;
+            if (isFullRegion(region) && sameSize) {
+                return source;
+            }
+            if (sameSize) {
+                // 只有裁剪时共享原图数据，不复制像素
+                return source.getSubimage(region.x, region.y, region.width, region.height);
+            }
+            return Thumbnails.of(source)
+                    .sourceRegion(region)
+                    .forceSize(outputWidth, outputHeight)
+                    .asBufferedImage();
+        }
+
+        /**
+         * 解码时完成累积的变换：只读取取样区域，缩小时隔行隔列取样
+         */
+        BufferedImage decode(ImageReader reader) throws IOException {
+            Rectangle region = sourceRegion();
+            ImageReadParam readParam = reader.getDefaultReadParam();
+            if (!isFullRegion(region)) {
+                readParam.setSourceRegion(region);
+            }
+            // 取样后至少保留输出尺寸的两倍，再平滑缩放，避免隔行取样产生锯齿
+            double ratio = Math.min((double) region.width / outputWidth, (double) region.height / outputHeight);
+            int subsampling = Math.max(1, (int) (ratio / 2));
+            if (subsampling > 1) {
+                readParam.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            }
+            BufferedImage decoded = reader.read(0, readParam);
+            if (decoded.getWidth() == outputWidth && decoded.getHeight() == outputHeight) {
+                return decoded;
+            }
+            return Thumbnails.of(decoded)
+                    .forceSize(outputWidth, outputHeight)
+                    .asBufferedImage();
+        }
+
+        private Rectangle sourceRegion() {
+            int x = Math.min(sourceWidth - 1, (int) Math.round(regionX));
+            int y = Math.min(sourceHeight - 1, (int) Math.round(regionY));
+            int width = Math.max(1, Math.min(sourceWidth - x, (int) Math.round(regionWidth)));
+            int height = Math.max(1, Math.min(sourceHeight - y, (int) Math.round(regionHeight)));
+            return new Rectangle(x, y, width, height);
+        }
+
+        private boolean isFullRegion(Rectangle region) {
+            return region.x == 0 && region.y == 0 && region.width == sourceWidth && region.height == sourceHeight;
+        }
+    }
+}
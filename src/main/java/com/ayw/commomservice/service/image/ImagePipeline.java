@@ -0,0 +1,243 @@
+package com.ayw.commomservice.service.image;
+
+import com.ayw.commomservice.concurrent.MonitoredThreadPoolExecutor;
+import com.ayw.commomservice.config.ProcessingProperties;
+import com.ayw.commomservice.model.ImageTask;
+import com.ayw.commomservice.model.ImageTaskResult;
+import com.ayw.commomservice.model.PoolStats;
+import com.ayw.commomservice.service.StorageService;
+import com.ayw.commomservice.service.cache.DerivedFileIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 批量图片处理流水线
+ * 下载、解码处理、编码、上传四个阶段各自使用独立线程池，阶段之间通过有界队列衔接，
+ * 下游队列满时上游线程阻塞等待，内存中同时存在的图片数量有上限，网络I/O与CPU计算互相重叠
+ */
+public class ImagePipeline implements MeterBinder {
+    private final Logger log = LoggerFactory.getLogger(ImagePipeline.class);
+
+    private final StorageService storageService;
+    private final DerivedFileIndex derivedFileIndex;
+    private final ImageOperations imageOperations;
+
+    private final MonitoredThreadPoolExecutor fetchExecutor;
+    private final MonitoredThreadPoolExecutor decodeExecutor;
+    private final MonitoredThreadPoolExecutor encodeExecutor;
+    private final MonitoredThreadPoolExecutor uploadExecutor;
+
+    public ImagePipeline(StorageService storageService, DerivedFileIndex derivedFileIndex,
+                         ImageOperations imageOperations, ProcessingProperties.ImagePipeline config) {
+        this.storageService = storageService;
+        this.derivedFileIndex = derivedFileIndex;
+        this.imageOperations = imageOperations;
+        int processors = Runtime.getRuntime().availableProcessors();
+        int queueCapacity = config.getQueueCapacity();
+        this.fetchExecutor = MonitoredThreadPoolExecutor.blocking(
+                "image-fetch", config.getFetchThreads(), queueCapacity);
+        this.decodeExecutor = MonitoredThreadPoolExecutor.blocking(
+                "image-decode", config.getDecodeThreads() > 0 ? config.getDecodeThreads() : processors, queueCapacity);
+        this.encodeExecutor = MonitoredThreadPoolExecutor.blocking(
+                "image-encode", config.getEncodeThreads() > 0 ? config.getEncodeThreads() : processors, queueCapacity);
+        this.uploadExecutor = MonitoredThreadPoolExecutor.blocking(
+                "image-upload", config.getUploadThreads(), queueCapacity);
+    }
+
+    /**
+     * 批量处理图片，单个任务失败不影响其他任务
+     * @param tasks 图片处理任务
+     * @return 与任务顺序一致的处理结果
+     */
+    public List<ImageTaskResult> process(List<ImageTask> tasks) {
+        // 同一批次中派生文件相同的任务只处理一次
+        Map<String, CompletableFuture<String>> submitted = new HashMap<>();
+        List<CompletableFuture<ImageTaskResult>> results = new ArrayList<>(tasks.size());
+        for (ImageTask task : tasks) {
+            CompletableFuture<String> future;
+            try {
+                Work work = prepare(task);
+                future = submitted.get(work.derivedFileId);
+                if (future == null) {
+                    future = submit(work);
+                    submitted.put(work.derivedFileId, future);
+                }
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            results.add(future.handle((processedFileId, error) -> {
+                if (error == null) {
+                    return ImageTaskResult.succeeded(task, processedFileId);
+                }
+                log.warn("Image task failed: {} {}", task.getFileId(), task.getOperation(), error);
+                return ImageTaskResult.failed(task, messageOf(error));
+            }));
+        }
+
+        List<ImageTaskResult> processed = results.stream().map(CompletableFuture::join).toList();
+        log.info("Image batch processed: {} tasks, {} failed",
+                processed.size(), processed.stream().filter(result -> !result.isSuccess()).count());
+        return processed;
+    }
+
+    public List<PoolStats> getPoolStats() {
+        return List.of(fetchExecutor.getStats(), decodeExecutor.getStats(),
+                encodeExecutor.getStats(), uploadExecutor.getStats());
+    }
+
+    /**
+     * 导出各阶段线程池的指标
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        fetchExecutor.bindTo(registry);
+        decodeExecutor.bindTo(registry);
+        encodeExecutor.bindTo(registry);
+        uploadExecutor.bindTo(registry);
+    }
+
+    public void shutdown() {
+        fetchExecutor.shutdown();
+        decodeExecutor.shutdown();
+        encodeExecutor.shutdown();
+        uploadExecutor.shutdown();
+    }
+
+    private Work prepare(ImageTask task) {
+        if (task.getFileId() == null || task.getFileId().isEmpty()) {
+            throw new IllegalArgumentException("fileId is required");
+        }
+        Map<String, Object> params = task.getParams() != null ? task.getParams() : Map.of();
+        imageOperations.checkOperation(task.getOperation(), params);
+        String outputFormat = params.getOrDefault("format", "png").toString();
+        String sourceVersion = DerivedFileIndex.versionOf(storageService.stat(task.getFileId()));
+        String derivedFileId = derivedFileIndex.derivedFileId(
+                task.getFileId(), sourceVersion, task.getOperation(), params, outputFormat);
+        return new Work(task.getFileId(), task.getOperation(), params, outputFormat, derivedFileId);
+    }
+
+    private CompletableFuture<String> submit(Work work) {
+        return CompletableFuture.supplyAsync(() -> fetch(work), fetchExecutor)
+                .thenCompose(fetched -> {
+                    if (fetched.processedFileId != null) {
+                        // 派生文件已存在，不再经过后续阶段
+                        return CompletableFuture.completedFuture(fetched.processedFileId);
+                    }
+                    return CompletableFuture.supplyAsync(() -> transform(fetched), decodeExecutor)
+                            .thenApplyAsync(this::encode, encodeExecutor)
+                            .thenApplyAsync(this::store, uploadExecutor);
+                });
+    }
+
+    /**
+     * 下载阶段：派生文件已存在时直接返回，否则读取源文件内容
+     */
+    private Work fetch(Work work) {
+        if (derivedFileIndex.isKnown(work.derivedFileId) || exists(work.derivedFileId)) {
+            derivedFileIndex.markKnown(work.derivedFileId);
+            work.processedFileId = work.derivedFileId;
+            return work;
+        }
+        try (InputStream inputStream = storageService.download(work.sourceFileId)) {
+            work.source = inputStream.readAllBytes();
+            return work;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to download image", e);
+        }
+    }
+
+    /**
+     * 解码处理阶段
+     */
+    private Work transform(Work work) {
+        try {
+            work.image = imageOperations.decodeAndApply(work.source, work.operation, work.params);
+            work.source = null;
+            return work;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to process image", e);
+        }
+    }
+
+    /**
+     * 编码阶段
+     */
+    private Work encode(Work work) {
+        try {
+            work.encoded = imageOperations.encode(work.image, work.outputFormat,
+                    imageOperations.outputQuality(work.operation, work.params));
+            work.image = null;
+            return work;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to encode image", e);
+        }
+    }
+
+    /**
+     * 上传阶段
+     */
+    private String store(Work work) {
+        String processedFileId = storageService.uploadWithFileId(
+                work.derivedFileId,
+                new ByteArrayInputStream(work.encoded),
+                "image/" + work.outputFormat,
+                null);
+        work.encoded = null;
+        derivedFileIndex.markKnown(processedFileId);
+        return processedFileId;
+    }
+
+    private boolean exists(String fileId) {
+        try {
+            storageService.stat(fileId);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private String messageOf(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause.getCause() != null && cause.getCause().getMessage() != null) {
+            return cause.getMessage() + ": " + cause.getCause().getMessage();
+        }
+        return cause.getMessage();
+    }
+
+    /**
+     * 在各阶段之间传递的处理状态，每个阶段结束后释放不再需要的数据
+     */
+    private static class Work {
+        private final String sourceFileId;
+        private final String operation;
+        private final Map<String, Object> params;
+        private final String outputFormat;
+        private final String derivedFileId;
+        private byte[] source;
+        private BufferedImage image;
+        private byte[] encoded;
+        private String processedFileId;
+
+        Work(String sourceFileId, String operation, Map<String, Object> params,
+             String outputFormat, String derivedFileId) {
+            this.sourceFileId = sourceFileId;
+            this.operation = operation;
+            this.params = params;
+            this.outputFormat = outputFormat;
+            this.derivedFileId = derivedFileId;
+        }
+    }
+}
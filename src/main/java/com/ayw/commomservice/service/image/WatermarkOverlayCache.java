@@ -0,0 +1,205 @@
+package com.ayw.commomservice.service.image;
+
+import com.ayw.commomservice.service.StorageService;
+import net.coobird.thumbnailator.Thumbnails;
+
+import javax.imageio.ImageIO;
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 已渲染水印图层的缓存
+ * 同一文字、字体、颜色、透明度和尺寸的水印只光栅化一次，之后每张图片只需合成
+ */
+public class WatermarkOverlayCache {
+    private static final FontRenderContext FONT_RENDER_CONTEXT = new FontRenderContext(null, true, true);
+
+    /**
+     * 按宽度自适应的水印宽度按此粒度取整，相近尺寸的图片共用同一个图层
+     */
+    private static final int WIDTH_BUCKET = 16;
+
+    /**
+     * 测量文字宽度时使用的参考字号
+     */
+    private static final float REFERENCE_FONT_SIZE = 100f;
+
+    private static final int MIN_FONT_SIZE = 6;
+
+    private final StorageService storageService;
+    private final long maxBytes;
+
+    /**
+     * 按访问顺序排列的图层缓存，由this加锁保护
+     */
+    private final LinkedHashMap<String, BufferedImage> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    public WatermarkOverlayCache(StorageService storageService, long maxBytes) {
+        this.storageService = storageService;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 获取文字水印图层
+     * @param fontSize 字号（像素），不大于0时按targetWidth自适应
+     * @param targetWidth 水印期望宽度（像素）
+     * @param maxFontSize 字号上限（像素），自适应的字号也不超过此值
+     * @param opacity 透明度，已预先乘到图层上
+     * @param rotation 旋转角度
+     */
+    public BufferedImage textOverlay(String text, String fontName, int fontStyle, int fontSize, int targetWidth,
+                                     int maxFontSize, Color color, float opacity, double rotation) {
+        int width = bucket(targetWidth);
+        int maxSize = Math.max(MIN_FONT_SIZE, maxFontSize);
+        String sizeKey = fontSize > 0 ? "px" + Math.min(fontSize, maxSize) : "w" + width + "max" + bucket(maxSize);
+        String key = "text|" + text + "|" + fontName + "|" + fontStyle + "|" + sizeKey + "|"
+                + color.getRGB() + "|" + opacity + "|" + rotation;
+        return get(key, () -> rotate(
+                renderText(text, fontName, fontStyle, fontSize, width, bucket(maxSize), color, opacity), rotation));
+    }
+
+    /**
+     * 获取图片水印图层
+     * @param watermarkFileId 水印图片的文件ID
+     * @param targetWidth 水印宽度（像素），高度按原图比例
+     */
+    public BufferedImage imageOverlay(String watermarkFileId, int targetWidth, float opacity, double rotation) {
+        int width = bucket(targetWidth);
+        String key = "image|" + watermarkFileId + "|" + width + "|" + opacity + "|" + rotation;
+        return get(key, () -> rotate(renderImage(watermarkSource(watermarkFileId), width, opacity), rotation));
+    }
+
+    private BufferedImage watermarkSource(String watermarkFileId) {
+        return get("source|" + watermarkFileId, () -> {
+            try (InputStream inputStream = storageService.download(watermarkFileId)) {
+                BufferedImage image = ImageIO.read(inputStream);
+                if (image == null) {
+                    throw new IllegalArgumentException("Unsupported watermark image format: " + watermarkFileId);
+                }
+                return image;
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to load watermark image", e);
+            }
+        });
+    }
+
+    private BufferedImage get(String key, Supplier<BufferedImage> renderer) {
+        synchronized (this) {
+            BufferedImage cached = entries.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        // 在锁外渲染，并发未命中时最多重复渲染一次
+        BufferedImage rendered = renderer.get();
+        long size = sizeOf(rendered);
+        if (size > maxBytes) {
+            return rendered;
+        }
+        synchronized (this) {
+            BufferedImage previous = entries.put(key, rendered);
+            if (previous != null) {
+                bytes -= sizeOf(previous);
+            }
+            bytes += size;
+            Iterator<Map.Entry<String, BufferedImage>> iterator = entries.entrySet().iterator();
+            while (bytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<String, BufferedImage> eldest = iterator.next();
+                bytes -= sizeOf(eldest.getValue());
+                iterator.remove();
+            }
+        }
+        return rendered;
+    }
+
+    private BufferedImage renderText(String text, String fontName, int fontStyle, int fontSize, int targetWidth,
+                                     int maxFontSize, Color color, float opacity) {
+        Font font;
+        if (fontSize > 0) {
+            font = new Font(fontName, fontStyle, Math.min(fontSize, maxFontSize));
+        } else {
+            Font reference = new Font(fontName, fontStyle, 1).deriveFont(REFERENCE_FONT_SIZE);
+            double referenceWidth = reference.getStringBounds(text, FONT_RENDER_CONTEXT).getWidth();
+            float size = referenceWidth > 0
+                    ? (float) Math.max(MIN_FONT_SIZE, Math.floor(REFERENCE_FONT_SIZE * targetWidth / referenceWidth))
+                    : MIN_FONT_SIZE;
+            // 很短的文字（如单个字符）按宽度自适应时字号会远大于图片
+            font = reference.deriveFont(Math.min(size, maxFontSize));
+        }
+
+        Rectangle2D bounds = font.getStringBounds(text, FONT_RENDER_CONTEXT);
+        LineMetrics metrics = font.getLineMetrics(text, FONT_RENDER_CONTEXT);
+        int width = Math.max(1, (int) Math.ceil(bounds.getWidth()) + 2);
+        int height = Math.max(1, (int) Math.ceil(metrics.getAscent() + metrics.getDescent()) + 2);
+
+        BufferedImage overlay = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = overlay.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        graphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, opacity));
+        graphics.setColor(color);
+        graphics.setFont(font);
+        graphics.drawString(text, 1, 1 + metrics.getAscent());
+        graphics.dispose();
+        return overlay;
+    }
+
+    private BufferedImage renderImage(BufferedImage source, int targetWidth, float opacity) {
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * targetWidth / source.getWidth()));
+        BufferedImage scaled;
+        try {
+            scaled = Thumbnails.of(source).forceSize(targetWidth, height).asBufferedImage();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to scale watermark image", e);
+        }
+        BufferedImage overlay = new BufferedImage(scaled.getWidth(), scaled.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = overlay.createGraphics();
+        graphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, opacity));
+        graphics.drawImage(scaled, 0, 0, null);
+        graphics.dispose();
+        return overlay;
+    }
+
+    private BufferedImage rotate(BufferedImage overlay, double rotation) {
+        if (rotation % 360 == 0) {
+            return overlay;
+        }
+        double radians = Math.toRadians(rotation);
+        double sin = Math.abs(Math.sin(radians));
+        double cos = Math.abs(Math.cos(radians));
+        int width = (int) Math.ceil(overlay.getWidth() * cos + overlay.getHeight() * sin);
+        int height = (int) Math.ceil(overlay.getWidth() * sin + overlay.getHeight() * cos);
+
+        BufferedImage rotated = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = rotated.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.translate(width / 2.0, height / 2.0);
+        graphics.rotate(radians);
+        graphics.drawImage(overlay, -overlay.getWidth() / 2, -overlay.getHeight() / 2, null);
+        graphics.dispose();
+        return rotated;
+    }
+
+    private int bucket(int width) {
+        return Math.max(WIDTH_BUCKET, (width + WIDTH_BUCKET / 2) / WIDTH_BUCKET * WIDTH_BUCKET);
+    }
+
+    private long sizeOf(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+}
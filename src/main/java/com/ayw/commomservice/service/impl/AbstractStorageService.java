@@ -1,17 +1,148 @@
 package com.ayw.commomservice.service.impl;
 
+import com.ayw.commomservice.config.StorageProperties;
+import com.ayw.commomservice.model.DirectUpload;
+import com.ayw.commomservice.model.DirectUploadGrant;
+import com.ayw.commomservice.model.FileStat;
 import com.ayw.commomservice.service.StorageService;
+import com.ayw.commomservice.service.cache.PresignedUrlCache;
+import com.ayw.commomservice.service.io.PartUploads;
+import com.ayw.commomservice.service.registry.DirectUploadRegistry;
+import com.ayw.commomservice.service.registry.MultipartUploadRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public abstract class AbstractStorageService implements StorageService {
+    /**
+     * 流式传输时使用的缓冲区大小
+     */
+    protected static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 存储平台允许的分片数上限，腾讯云COS和阿里云OSS均为10000
+     */
+    protected static final int MAX_PART_COUNT = 10000;
+
     protected final Logger log = LoggerFactory.getLogger(getClass());
 
+    /**
+     * 异步上传使用的线程池
+     */
+    private Executor uploadExecutor;
+
+    /**
+     * 分片上传ID与文件ID的映射
+     */
+    private MultipartUploadRegistry multipartUploadRegistry = new MultipartUploadRegistry(null);
+
+    /**
+     * 已发放的直传凭证及允许的最大字节数
+     */
+    private DirectUploadRegistry directUploadRegistry = new DirectUploadRegistry(null);
+
+    /**
+     * 签名URL缓存，默认不对齐过期时间也不缓存
+     */
+    private PresignedUrlCache presignedUrlCache = new PresignedUrlCache(0, 0);
+
+    /**
+     * 大文件自动分片上传的配置，为null时不自动分片
+     */
+    private StorageProperties.Multipart multipartConfig;
+
+    /**
+     * 并发上传分片使用的线程池
+     */
+    private Executor partExecutor;
+
+    /**
+     * 超过一个分片、未达到阈值的内容暂存目录
+     */
+    private Path spoolDir;
+
+    /**
+     * 批量删除时每批的文件数
+     */
+    private int deleteBatchSize = 1000;
+
+    /**
+     * 并发执行多批删除的线程池，为null时在调用线程中逐批执行
+     */
+    private Executor deleteExecutor;
+
+    public void setUploadExecutor(Executor uploadExecutor) {
+        this.uploadExecutor = uploadExecutor;
+    }
+
+    public void setMultipartUploadRegistry(MultipartUploadRegistry multipartUploadRegistry) {
+        this.multipartUploadRegistry = multipartUploadRegistry;
+    }
+
+    public void setDirectUploadRegistry(DirectUploadRegistry directUploadRegistry) {
+        this.directUploadRegistry = directUploadRegistry;
+    }
+
+    public void setPresignedUrlCache(PresignedUrlCache presignedUrlCache) {
+        this.presignedUrlCache = presignedUrlCache;
+    }
+
+    /**
+     * 开启大文件自动分片上传
+     * @param multipartConfig 分片配置
+     * @param partExecutor 上传分片的线程池，不能与调用upload的线程池相同
+     */
+    public void enableParallelMultipartUpload(StorageProperties.Multipart multipartConfig, Executor partExecutor) {
+        this.spoolDir = Paths.get(multipartConfig.getSpoolDir()).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(spoolDir);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create multipart spool directory: " + spoolDir, e);
+        }
+        this.multipartConfig = multipartConfig;
+        this.partExecutor = partExecutor;
+    }
+
+    /**
+     * 开启并发批量删除
+     * @param batchSize 每批的文件数，存储平台单次请求的上限更小时取平台上限
+     * @param deleteExecutor 执行各批删除的线程池
+     */
+    public void enableParallelBatchDelete(int batchSize, Executor deleteExecutor) {
+        this.deleteBatchSize = Math.max(1, batchSize);
+        this.deleteExecutor = deleteExecutor;
+    }
+
+    protected MultipartUploadRegistry getMultipartUploadRegistry() {
+        return multipartUploadRegistry;
+    }
+
     /**
      * 生成唯一的文件ID
      * @param fileName 原始文件名
@@ -27,6 +158,365 @@ public abstract class AbstractStorageService implements StorageService {
         return uuid;
     }
 
+    /**
+     * 上传文件的默认实现：生成文件ID后按指定ID上传
+     * @param inputStream 文件输入流
+     * @param fileName 文件名
+     * @param contentType 文件类型
+     * @param metadata 元数据
+     * @return 文件ID
+     */
+    @Override
+    public String upload(InputStream inputStream, String fileName, String contentType, Map<String, String> metadata) {
+        return uploadWithFileId(generateFileId(fileName), inputStream, contentType, metadata);
+    }
+
+    /**
+     * 按指定ID上传文件
+     * 内容不超过阈值时整体上传；超过阈值时切换为分片上传，多个分片并发上传并单独重试。
+     * 内存中最多缓冲一个分片，超过一个分片的内容在达到阈值前暂存到磁盘
+     * @param fileId 文件ID
+     * @param inputStream 文件输入流
+     * @param contentType 文件类型
+     * @param metadata 元数据
+     * @return 文件ID
+     */
+    @Override
+    public String uploadWithFileId(String fileId, InputStream inputStream, String contentType, Map<String, String> metadata) {
+        if (multipartConfig == null || multipartConfig.getThreshold() <= 0) {
+            return putObject(fileId, inputStream, -1, contentType, metadata);
+        }
+
+        int partSize = multipartConfig.getPartSize();
+        long threshold = Math.max(multipartConfig.getThreshold(), partSize);
+        byte[] firstPart;
+        try {
+            firstPart = inputStream.readNBytes(partSize);
+        } catch (IOException e) {
+            log.error("Failed to read upload stream: {}", fileId, e);
+            throw new RuntimeException("Failed to upload file", e);
+        }
+        if (firstPart.length < partSize) {
+            return putObject(fileId, new ByteArrayInputStream(firstPart), firstPart.length, contentType, metadata);
+        }
+
+        // 第一个分片已读满，后续内容暂存到磁盘直到阈值，据此判断是否需要分片
+        Path spoolFile = null;
+        try {
+            spoolFile = Files.createTempFile(spoolDir, "upload-", ".tmp");
+            long spoolLimit = threshold - partSize;
+            long spooled;
+            try (OutputStream outputStream = Files.newOutputStream(spoolFile)) {
+                spooled = copy(inputStream, outputStream, spoolLimit);
+            }
+            if (spooled < spoolLimit) {
+                try (InputStream spoolStream = Files.newInputStream(spoolFile)) {
+                    return putObject(fileId, new SequenceInputStream(new ByteArrayInputStream(firstPart), spoolStream),
+                            partSize + spooled, contentType, metadata);
+                }
+            }
+            try (InputStream spoolStream = Files.newInputStream(spoolFile)) {
+                return uploadInParts(fileId, firstPart, new SequenceInputStream(spoolStream, inputStream),
+                        contentType, metadata);
+            }
+        } catch (IOException e) {
+            log.error("Failed to spool upload stream: {}", fileId, e);
+            throw new RuntimeException("Failed to upload file", e);
+        } finally {
+            deleteQuietly(spoolFile);
+        }
+    }
+
+    /**
+     * 从输入流拷贝最多limit个字节
+     * @return 实际拷贝的字节数，小于limit时说明输入流已读完
+     */
+    private long copy(InputStream inputStream, OutputStream outputStream, long limit) throws IOException {
+        byte[] buffer = new byte[TRANSFER_BUFFER_SIZE];
+        long copied = 0;
+        while (copied < limit) {
+            int bytesRead = inputStream.read(buffer, 0, (int) Math.min(buffer.length, limit - copied));
+            if (bytesRead == -1) {
+                break;
+            }
+            outputStream.write(buffer, 0, bytesRead);
+            copied += bytesRead;
+        }
+        return copied;
+    }
+
+    /**
+     * 并发分片上传：读取线程按顺序切分输入流，同一文件最多concurrency个分片同时在途
+     * 输入流长度未知，读到第10001个分片时立即失败并取消上传，不把已上传的分片留到完成时才被存储平台拒绝；
+     * 可上传的最大文件为part-size的10000倍
+     * @param firstPart 已读入内存的第一个分片
+     * @param inputStream 其余内容
+     */
+    private String uploadInParts(String fileId, byte[] firstPart, InputStream inputStream,
+                                 String contentType, Map<String, String> metadata) {
+        String uploadId = initiateMultipartUploadWithFileId(fileId, contentType, metadata);
+        Semaphore inFlight = new Semaphore(Math.max(1, multipartConfig.getConcurrency()));
+        Map<Integer, String> partETags = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try {
+            int partNumber = 0;
+            int partSize = multipartConfig.getPartSize();
+            while (failure.get() == null) {
+                byte[] part = partNumber == 0 ? firstPart : inputStream.readNBytes(partSize);
+                if (part.length == 0) {
+                    break;
+                }
+                if (partNumber == MAX_PART_COUNT) {
+                    throw new IllegalStateException("Upload exceeds " + MAX_PART_COUNT + " parts of " + partSize
+                            + " bytes, increase storage.multipart.part-size: " + fileId);
+                }
+                int currentPartNumber = ++partNumber;
+                inFlight.acquire();
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        partETags.put(currentPartNumber, PartUploads.uploadWithRetry(this, uploadId, currentPartNumber,
+                                part, part.length, multipartConfig.getMaxRetries()));
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                        throw e;
+                    } finally {
+                        inFlight.release();
+                    }
+                }, partExecutor));
+                if (part.length < partSize) {
+                    break;
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+            return completeMultipartUpload(uploadId, partETags);
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Failed to upload file in parts: {}", fileId, e);
+            try {
+                abortMultipartUpload(uploadId);
+            } catch (RuntimeException abortException) {
+                e.addSuppressed(abortException);
+            }
+            throw new RuntimeException("Failed to upload file", e);
+        }
+    }
+
+    /**
+     * 批量删除的默认实现：存储平台没有批量删除接口，按批并发，每批内逐个删除
+     */
+    @Override
+    public Map<String, Boolean> deleteBatch(Collection<String> fileIds) {
+        return deleteInBatches(fileIds, Integer.MAX_VALUE, batch -> {
+            List<String> deleted = new ArrayList<>();
+            for (String fileId : batch) {
+                if (delete(fileId)) {
+                    deleted.add(fileId);
+                }
+            }
+            return deleted;
+        });
+    }
+
+    /**
+     * 去重后切分为多批，多批在删除线程池中并发执行；某一批整体失败时该批的文件都记为删除失败
+     * @param maxBatchSize 存储平台单次请求的文件数上限
+     * @param batchDeleter 删除一批文件，返回删除成功的文件ID
+     * @return 文件ID到是否删除成功的映射，顺序与参数一致
+     */
+    protected Map<String, Boolean> deleteInBatches(Collection<String> fileIds, int maxBatchSize,
+                                                   Function<List<String>, Collection<String>> batchDeleter) {
+        List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(fileIds));
+        int batchSize = Math.min(deleteBatchSize, maxBatchSize);
+        List<CompletableFuture<Collection<String>>> futures = new ArrayList<>();
+        for (int from = 0; from < distinctIds.size(); from += batchSize) {
+            List<String> batch = distinctIds.subList(from, Math.min(from + batchSize, distinctIds.size()));
+            Supplier<Collection<String>> task = () -> {
+                try {
+                    return batchDeleter.apply(batch);
+                } catch (RuntimeException e) {
+                    log.error("Failed to delete batch of {} files starting with: {}", batch.size(), batch.get(0), e);
+                    return List.of();
+                }
+            };
+            // 只有一批时直接在调用线程中执行
+            futures.add(deleteExecutor != null && distinctIds.size() > batchSize
+                    ? CompletableFuture.supplyAsync(task, deleteExecutor)
+                    : CompletableFuture.completedFuture(task.get()));
+        }
+        Set<String> deleted = new HashSet<>();
+        for (CompletableFuture<Collection<String>> future : futures) {
+            deleted.addAll(future.join());
+        }
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        for (String fileId : distinctIds) {
+            results.put(fileId, deleted.contains(fileId));
+        }
+        return results;
+    }
+
+    /**
+     * 生成签名URL，过期时间按窗口对齐，同一窗口内复用已生成的URL
+     */
+    @Override
+    public String generatePresignedUrl(String fileId, long expireSeconds) {
+        return presignedUrlCache.get(fileId, expireSeconds, this::doGeneratePresignedUrl);
+    }
+
+    /**
+     * 批量生成签名URL，签名在本地计算，不访问存储平台
+     */
+    @Override
+    public Map<String, String> generatePresignedUrls(Collection<String> fileIds, long expireSeconds) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (String fileId : fileIds) {
+            urls.computeIfAbsent(fileId, id -> generatePresignedUrl(id, expireSeconds));
+        }
+        return urls;
+    }
+
+    /**
+     * 直传凭证的默认实现：生成文件ID后按指定ID生成
+     */
+    @Override
+    public DirectUpload prepareDirectUpload(String fileName, String contentType, long maxSize, long expireSeconds) {
+        return prepareDirectUploadWithFileId(generateFileId(fileName), contentType, maxSize, expireSeconds);
+    }
+
+    @Override
+    public DirectUpload prepareDirectUploadWithFileId(String fileId, String contentType, long maxSize, long expireSeconds) {
+        Date expiration = new Date(System.currentTimeMillis() + expireSeconds * 1000);
+        DirectUpload directUpload = doPrepareDirectUpload(fileId, contentType, maxSize, expiration);
+        directUploadRegistry.register(fileId, maxSize, expiration);
+        directUpload.setFileId(fileId);
+        directUpload.setExpiration(expiration);
+        return directUpload;
+    }
+
+    @Override
+    public String generatePresignedPartUrl(String uploadId, int partNumber, long expireSeconds) {
+        String fileId = multipartUploadRegistry.getFileId(uploadId);
+        Date expiration = new Date(System.currentTimeMillis() + expireSeconds * 1000);
+        return doGeneratePresignedPartUrl(fileId, uploadId, partNumber, expiration);
+    }
+
+    /**
+     * 读取存储平台上的实际元信息完成确认；签名PUT URL不限制大小，超过凭证允许大小的文件在此删除
+     * @throws IllegalStateException 文件超过凭证允许的大小
+     */
+    @Override
+    public FileStat confirmDirectUpload(String fileId) {
+        FileStat stat = stat(fileId);
+        DirectUploadGrant grant = directUploadRegistry.find(fileId);
+        if (grant != null && stat.getSize() > grant.getMaxSize()) {
+            delete(fileId);
+            directUploadRegistry.remove(fileId);
+            log.warn("Deleted direct upload exceeding granted size {}: {} ({} bytes)", grant.getMaxSize(), fileId, stat.getSize());
+            throw new IllegalStateException("Direct upload exceeds granted size: " + fileId);
+        }
+        directUploadRegistry.remove(fileId);
+        return stat;
+    }
+
+    /**
+     * 分片上传初始化的默认实现：生成文件ID后按指定ID初始化
+     */
+    @Override
+    public String initiateMultipartUpload(String fileName, String contentType, long fileSize) {
+        return initiateMultipartUploadWithFileId(generateFileId(fileName), contentType, null);
+    }
+
+    @Override
+    public String initiateMultipartUploadWithFileId(String fileId, String contentType, Map<String, String> metadata) {
+        String uploadId = doInitiateMultipartUpload(fileId, contentType, metadata);
+        multipartUploadRegistry.register(uploadId, fileId, contentType);
+        return uploadId;
+    }
+
+    @Override
+    public String uploadPart(String uploadId, int partNumber, InputStream inputStream, long partSize) {
+        String fileId = multipartUploadRegistry.getFileId(uploadId);
+        return doUploadPart(fileId, uploadId, partNumber, inputStream, partSize);
+    }
+
+    @Override
+    public String completeMultipartUpload(String uploadId, Map<Integer, String> parts) {
+        String fileId = multipartUploadRegistry.getFileId(uploadId);
+        doCompleteMultipartUpload(fileId, uploadId, parts);
+        multipartUploadRegistry.remove(uploadId);
+        return fileId;
+    }
+
+    @Override
+    public void abortMultipartUpload(String uploadId) {
+        String fileId = multipartUploadRegistry.getFileId(uploadId);
+        doAbortMultipartUpload(fileId, uploadId);
+        multipartUploadRegistry.remove(uploadId);
+    }
+
+    /**
+     * 整体上传文件
+     * @param fileId 文件ID
+     * @param inputStream 文件输入流
+     * @param contentLength 内容长度，未知时为-1
+     * @param contentType 文件类型
+     * @param metadata 元数据
+     * @return 文件ID
+     */
+    protected abstract String putObject(String fileId, InputStream inputStream, long contentLength,
+                                        String contentType, Map<String, String> metadata);
+
+    /**
+     * 在存储平台上生成签名URL
+     * @param expiration 过期时间
+     * @return 带签名的URL
+     */
+    protected abstract String doGeneratePresignedUrl(String fileId, Date expiration);
+
+    /**
+     * 在存储平台上生成直传的签名PUT URL和表单上传策略，不支持浏览器直传的存储平台不覆盖此方法
+     * @param maxSize 允许上传的最大字节数，表单策略据此限制大小
+     * @param expiration 过期时间
+     * @return 直传凭证，文件ID和过期时间由调用方填写
+     */
+    protected DirectUpload doPrepareDirectUpload(String fileId, String contentType, long maxSize, Date expiration) {
+        throw new UnsupportedOperationException("Direct upload is not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * 在存储平台上生成直传分片的签名URL，不支持浏览器直传的存储平台不覆盖此方法
+     * @param expiration 过期时间
+     * @return 带签名的URL
+     */
+    protected String doGeneratePresignedPartUrl(String fileId, String uploadId, int partNumber, Date expiration) {
+        throw new UnsupportedOperationException("Direct upload is not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * 在存储平台上初始化分片上传
+     * @return 分片上传ID
+     */
+    protected abstract String doInitiateMultipartUpload(String fileId, String contentType, Map<String, String> metadata);
+
+    /**
+     * 在存储平台上上传分片
+     * @return 分片ETag
+     */
+    protected abstract String doUploadPart(String fileId, String uploadId, int partNumber,
+                                           InputStream inputStream, long partSize);
+
+    /**
+     * 在存储平台上合并分片
+     */
+    protected abstract void doCompleteMultipartUpload(String fileId, String uploadId, Map<Integer, String> parts);
+
+    /**
+     * 在存储平台上取消分片上传
+     */
+    protected abstract void doAbortMultipartUpload(String fileId, String uploadId);
+
     /**
      * 验证文件格式
      * @param fileName 文件名
@@ -48,7 +538,8 @@ public abstract class AbstractStorageService implements StorageService {
     }
 
     /**
-     * 异步上传文件的默认实现
+     * 异步上传文件的默认实现，在专用的上传线程池中执行
+     * 调用方需保证输入流在上传完成前保持可读；线程池队列已满时抛出RejectedExecutionException
      * @param inputStream 文件输入流
      * @param fileName 文件名
      * @param contentType 文件类型
@@ -57,6 +548,127 @@ public abstract class AbstractStorageService implements StorageService {
      */
     @Override
     public CompletableFuture<String> uploadAsync(InputStream inputStream, String fileName, String contentType, Map<String, String> metadata) {
-        return CompletableFuture.supplyAsync(() -> upload(inputStream, fileName, contentType, metadata));
+        if (uploadExecutor == null) {
+            // 未配置上传线程池时在调用线程中上传，不占用公共ForkJoinPool
+            try {
+                return CompletableFuture.completedFuture(upload(inputStream, fileName, contentType, metadata));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> upload(inputStream, fileName, contentType, metadata), uploadExecutor);
+    }
+
+    /**
+     * 按字节范围下载的默认实现：跳过起始偏移之前的内容，并在结束偏移处截断
+     * 支持服务端范围读取的存储平台应覆盖此方法
+     * @param fileId 文件ID
+     * @param start 起始偏移（包含）
+     * @param end 结束偏移（包含）
+     * @return 指定范围内容的输入流
+     */
+    @Override
+    public InputStream download(String fileId, long start, long end) {
+        InputStream inputStream = download(fileId);
+        try {
+            inputStream.skipNBytes(start);
+        } catch (IOException e) {
+            closeQuietly(inputStream);
+            throw new RuntimeException("Failed to download file range", e);
+        }
+        return new RangeInputStream(inputStream, end - start + 1);
+    }
+
+    /**
+     * 传输文件内容的默认实现：按范围下载后使用固定大小的缓冲区拷贝
+     * @param fileId 文件ID
+     * @param start 起始偏移（包含）
+     * @param end 结束偏移（包含）
+     * @param outputStream 目标输出流
+     * @return 写入的字节数
+     */
+    @Override
+    public long transferTo(String fileId, long start, long end, OutputStream outputStream) throws IOException {
+        if (end < start) {
+            return 0;
+        }
+        try (InputStream inputStream = download(fileId, start, end)) {
+            byte[] buffer = new byte[TRANSFER_BUFFER_SIZE];
+            long transferred = 0;
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, bytesRead);
+                transferred += bytesRead;
+            }
+            outputStream.flush();
+            return transferred;
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete multipart spool file: {}", file, e);
+        }
+    }
+
+    protected void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            log.warn("Failed to close input stream", e);
+        }
+    }
+
+    /**
+     * 限定读取长度的输入流
+     */
+    protected static class RangeInputStream extends FilterInputStream {
+        private long remaining;
+
+        public RangeInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
     }
-}
\ No newline at end of file
+}
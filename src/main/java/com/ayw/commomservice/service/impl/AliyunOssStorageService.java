@@ -1,33 +1,82 @@
 package com.ayw.commomservice.service.impl;
 
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.HttpMethod;
 import com.aliyun.oss.OSS;
 import com.aliyun.oss.OSSClientBuilder;
+import com.aliyun.oss.common.utils.BinaryUtil;
 import com.aliyun.oss.model.*;
+import com.ayw.commomservice.concurrent.HedgedRequestExecutor;
 import com.ayw.commomservice.config.StorageProperties;
+import com.ayw.commomservice.model.DirectUpload;
+import com.ayw.commomservice.model.FileStat;
 import com.ayw.commomservice.service.StorageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
 
+/**
+ * 阿里云OSS存储服务
+ * 连接池、超时、CRC校验和重试按配置设置；开启对冲下载后，GET请求在近期首字节耗时的分位数期限内
+ * 没有返回数据时再发一个相同请求，取先返回的一个，降低单个慢请求造成的长尾延迟
+ */
 public class AliyunOssStorageService extends AbstractStorageService {
     private final Logger log = LoggerFactory.getLogger(AliyunOssStorageService.class);
     private final OSS ossClient;
     private final String bucketName;
+    private final String accessKeyId;
+
+    /**
+     * 浏览器表单直传的地址
+     */
+    private final String formUrl;
+
+    /**
+     * 对冲下载执行器，未开启对冲下载时为null
+     */
+    private final HedgedRequestExecutor hedgedRequestExecutor;
+
+    /**
+     * @param hedgeExecutor 对冲下载执行GET请求的线程池，队满时应拒绝
+     */
+    public AliyunOssStorageService(StorageProperties.Aliyun aliyunConfig, Executor hedgeExecutor) {
+        ClientBuilderConfiguration clientConfig = new ClientBuilderConfiguration();
+        clientConfig.setMaxConnections(aliyunConfig.getMaxConnections());
+        clientConfig.setConnectionTimeout(aliyunConfig.getConnectionTimeoutMillis());
+        clientConfig.setSocketTimeout(aliyunConfig.getSocketTimeoutMillis());
+        clientConfig.setConnectionRequestTimeout(aliyunConfig.getConnectionRequestTimeoutMillis());
+        clientConfig.setIdleConnectionTime(aliyunConfig.getIdleConnectionTimeMillis());
+        clientConfig.setCrcCheckEnabled(aliyunConfig.isCrcCheckEnabled());
+        clientConfig.setMaxErrorRetry(aliyunConfig.getMaxErrorRetry());
 
-    public AliyunOssStorageService(StorageProperties.Aliyun aliyunConfig) {
         // 创建OSS客户端实例
         this.ossClient = new OSSClientBuilder().build(
                 aliyunConfig.getEndpoint(),
                 aliyunConfig.getAccessKeyId(),
-                aliyunConfig.getAccessKeySecret());
+                aliyunConfig.getAccessKeySecret(),
+                clientConfig);
         this.bucketName = aliyunConfig.getBucketName();
+        this.accessKeyId = aliyunConfig.getAccessKeyId();
+        this.formUrl = buildFormUrl(aliyunConfig.getEndpoint(), bucketName);
+
+        StorageProperties.Hedge hedge = aliyunConfig.getHedge();
+        this.hedgedRequestExecutor = hedge.isEnabled() && hedgeExecutor != null
+                ? new HedgedRequestExecutor(hedgeExecutor, hedge.getPercentile(),
+                        hedge.getMinDelayMillis(), hedge.getInitialDelayMillis())
+                : null;
 
         // 检查桶是否存在，如果不存在则创建
         if (!ossClient.doesBucketExist(bucketName)) {
@@ -39,36 +88,25 @@ public class AliyunOssStorageService extends AbstractStorageService {
     }
 
     @Override
-    public String upload(InputStream inputStream, String fileName, String contentType, Map<String, String> metadata) {
+    protected String putObject(String fileId, InputStream inputStream, long contentLength,
+                               String contentType, Map<String, String> metadata) {
         try {
-            // 生成文件ID
-            String fileId = generateFileId(fileName);
-
             // 创建上传请求
             PutObjectRequest request = new PutObjectRequest(bucketName, fileId, inputStream);
 
-            // 设置文件类型
-            if (contentType != null) {
-                ObjectMetadata objectMetadata = new ObjectMetadata();
-                objectMetadata.setContentType(contentType);
-                request.setMetadata(objectMetadata);
-            }
-
-            // 设置元数据
-            if (metadata != null && !metadata.isEmpty()) {
-                ObjectMetadata objectMetadata = request.getMetadata() != null ? request.getMetadata() : new ObjectMetadata();
-                for (Map.Entry<String, String> entry : metadata.entrySet()) {
-                    objectMetadata.addUserMetadata(entry.getKey(), entry.getValue());
-                }
-                request.setMetadata(objectMetadata);
+            // 设置文件类型及元数据
+            ObjectMetadata objectMetadata = buildObjectMetadata(contentType, metadata);
+            if (contentLength >= 0) {
+                objectMetadata.setContentLength(contentLength);
             }
+            request.setMetadata(objectMetadata);
 
             // 执行上传
             ossClient.putObject(request);
-            log.info("File uploaded successfully: {}", fileId);
+            log.debug("File uploaded successfully: {}", fileId);
             return fileId;
         } catch (Exception e) {
-            log.error("Failed to upload file: {}", fileName, e);
+            log.error("Failed to upload file: {}", fileId, e);
             throw new RuntimeException("Failed to upload file", e);
         }
     }
@@ -76,21 +114,53 @@ public class AliyunOssStorageService extends AbstractStorageService {
     @Override
     public InputStream download(String fileId) {
         try {
-            GetObjectRequest request = new GetObjectRequest(bucketName, fileId);
-            OSSObject ossObject = ossClient.getObject(request);
-            log.info("File downloaded successfully: {}", fileId);
-            return ossObject.getObjectContent();
+            InputStream inputStream = getObject(new GetObjectRequest(bucketName, fileId));
+            log.debug("File downloaded successfully: {}", fileId);
+            return inputStream;
         } catch (Exception e) {
             log.error("Failed to download file: {}", fileId, e);
             throw new RuntimeException("Failed to download file", e);
         }
     }
 
+    @Override
+    public InputStream download(String fileId, long start, long end) {
+        try {
+            GetObjectRequest request = new GetObjectRequest(bucketName, fileId);
+            // 只拉取需要的字节范围
+            request.setRange(start, end);
+            InputStream inputStream = getObject(request);
+            log.debug("File range {}-{} downloaded successfully: {}", start, end, fileId);
+            return inputStream;
+        } catch (Exception e) {
+            log.error("Failed to download file range {}-{}: {}", start, end, fileId, e);
+            throw new RuntimeException("Failed to download file range", e);
+        }
+    }
+
+    @Override
+    public FileStat stat(String fileId) {
+        try {
+            ObjectMetadata objectMetadata = ossClient.getObjectMetadata(bucketName, fileId);
+            FileStat stat = new FileStat();
+            stat.setFileId(fileId);
+            stat.setSize(objectMetadata.getContentLength());
+            stat.setContentType(objectMetadata.getContentType());
+            stat.setETag(objectMetadata.getETag());
+            stat.setLastModified(objectMetadata.getLastModified());
+            stat.setMetadata(objectMetadata.getUserMetadata());
+            return stat;
+        } catch (Exception e) {
+            log.error("Failed to stat file: {}", fileId, e);
+            throw new RuntimeException("Failed to stat file", e);
+        }
+    }
+
     @Override
     public boolean delete(String fileId) {
         try {
             ossClient.deleteObject(bucketName, fileId);
-            log.info("File deleted successfully: {}", fileId);
+            log.debug("File deleted successfully: {}", fileId);
             return true;
         } catch (Exception e) {
             log.error("Failed to delete file: {}", fileId, e);
@@ -98,15 +168,26 @@ public class AliyunOssStorageService extends AbstractStorageService {
         }
     }
 
+    /**
+     * 批量删除，每批最多1000个文件用一次DeleteObjects请求删除，多批并发执行
+     */
     @Override
-    public String generatePresignedUrl(String fileId, long expireSeconds) {
-        try {
-            // 设置URL过期时间
-            Date expiration = new Date(System.currentTimeMillis() + expireSeconds * 1000);
+    public Map<String, Boolean> deleteBatch(Collection<String> fileIds) {
+        return deleteInBatches(fileIds, DeleteObjectsRequest.DELETE_OBJECTS_ONETIME_LIMIT, batch -> {
+            // 非静默模式下返回删除成功的文件，文件不存在也算删除成功，与单个删除一致
+            DeleteObjectsResult result = ossClient.deleteObjects(
+                    new DeleteObjectsRequest(bucketName).withKeys(new ArrayList<>(batch)).withQuiet(false));
+            log.debug("Deleted {} of {} files in batch", result.getDeletedObjects().size(), batch.size());
+            return result.getDeletedObjects();
+        });
+    }
 
+    @Override
+    protected String doGeneratePresignedUrl(String fileId, Date expiration) {
+        try {
             // 生成预签名URL
             URL url = ossClient.generatePresignedUrl(bucketName, fileId, expiration);
-            log.info("Generated presigned URL for file: {}", fileId);
+            log.debug("Generated presigned URL for file: {}", fileId);
             return url.toString();
         } catch (Exception e) {
             log.error("Failed to generate presigned URL for file: {}", fileId, e);
@@ -114,39 +195,79 @@ public class AliyunOssStorageService extends AbstractStorageService {
         }
     }
 
+    /**
+     * 签名PUT URL和PostObject表单策略都在本地计算，不访问OSS；表单策略限定文件ID和大小
+     */
     @Override
-    public String initiateMultipartUpload(String fileName, String contentType, long fileSize) {
+    protected DirectUpload doPrepareDirectUpload(String fileId, String contentType, long maxSize, Date expiration) {
         try {
-            // 生成文件ID
-            String fileId = generateFileId(fileName);
-
-            // 创建分片上传请求
-            InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(bucketName, fileId);
+            GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucketName, fileId, HttpMethod.PUT);
+            request.setExpiration(expiration);
+            if (contentType != null) {
+                request.setContentType(contentType);
+            }
+            URL uploadUrl = ossClient.generatePresignedUrl(request);
 
-            // 设置文件类型
+            PolicyConditions conditions = new PolicyConditions();
+            conditions.addConditionItem(MatchMode.Exact, PolicyConditions.COND_KEY, fileId);
+            conditions.addConditionItem(PolicyConditions.COND_CONTENT_LENGTH_RANGE, 0, maxSize);
+            String policy = ossClient.generatePostPolicy(expiration, conditions);
+            Map<String, String> formFields = new LinkedHashMap<>();
+            formFields.put("key", fileId);
+            formFields.put("policy", BinaryUtil.toBase64String(policy.getBytes(StandardCharsets.UTF_8)));
+            formFields.put("OSSAccessKeyId", accessKeyId);
+            formFields.put("Signature", ossClient.calculatePostSignature(policy));
+            formFields.put("success_action_status", "200");
             if (contentType != null) {
-                ObjectMetadata objectMetadata = new ObjectMetadata();
-                objectMetadata.setContentType(contentType);
-                request.setObjectMetadata(objectMetadata);
+                formFields.put("Content-Type", contentType);
             }
 
+            DirectUpload directUpload = new DirectUpload();
+            directUpload.setUploadUrl(uploadUrl.toString());
+            directUpload.setFormUrl(formUrl);
+            directUpload.setFormFields(formFields);
+            log.debug("Prepared direct upload for file: {}", fileId);
+            return directUpload;
+        } catch (Exception e) {
+            log.error("Failed to prepare direct upload for file: {}", fileId, e);
+            throw new RuntimeException("Failed to prepare direct upload", e);
+        }
+    }
+
+    @Override
+    protected String doGeneratePresignedPartUrl(String fileId, String uploadId, int partNumber, Date expiration) {
+        try {
+            GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucketName, fileId, HttpMethod.PUT);
+            request.setExpiration(expiration);
+            request.addQueryParameter("uploadId", uploadId);
+            request.addQueryParameter("partNumber", String.valueOf(partNumber));
+            return ossClient.generatePresignedUrl(request).toString();
+        } catch (Exception e) {
+            log.error("Failed to generate presigned URL for part {} of upload: {}", partNumber, uploadId, e);
+            throw new RuntimeException("Failed to generate presigned part URL", e);
+        }
+    }
+
+    @Override
+    protected String doInitiateMultipartUpload(String fileId, String contentType, Map<String, String> metadata) {
+        try {
+            // 创建分片上传请求
+            InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(bucketName, fileId);
+            request.setObjectMetadata(buildObjectMetadata(contentType, metadata));
+
             // 初始化分片上传
             InitiateMultipartUploadResult result = ossClient.initiateMultipartUpload(request);
-            log.info("Initiated multipart upload for file: {}", fileId);
+            log.debug("Initiated multipart upload for file: {}", fileId);
             return result.getUploadId();
         } catch (Exception e) {
-            log.error("Failed to initiate multipart upload for file: {}", fileName, e);
+            log.error("Failed to initiate multipart upload for file: {}", fileId, e);
             throw new RuntimeException("Failed to initiate multipart upload", e);
         }
     }
 
     @Override
-    public String uploadPart(String uploadId, int partNumber, InputStream inputStream, long partSize) {
+    protected String doUploadPart(String fileId, String uploadId, int partNumber, InputStream inputStream, long partSize) {
         try {
-            // 解析文件ID（假设uploadId包含文件ID信息）
-            // 实际应用中，可能需要维护uploadId和fileId的映射关系
-            String fileId = getFileIdFromUploadId(uploadId);
-
             // 创建分片上传请求
             UploadPartRequest request = new UploadPartRequest();
             request.setBucketName(bucketName);
@@ -158,7 +279,7 @@ public class AliyunOssStorageService extends AbstractStorageService {
 
             // 上传分片
             UploadPartResult result = ossClient.uploadPart(request);
-            log.info("Uploaded part {} for file: {}", partNumber, fileId);
+            log.debug("Uploaded part {} for file: {}", partNumber, fileId);
             return result.getETag();
         } catch (Exception e) {
             log.error("Failed to upload part {} for uploadId: {}", partNumber, uploadId, e);
@@ -167,14 +288,11 @@ public class AliyunOssStorageService extends AbstractStorageService {
     }
 
     @Override
-    public String completeMultipartUpload(String uploadId, Map<Integer, String> parts) {
+    protected void doCompleteMultipartUpload(String fileId, String uploadId, Map<Integer, String> parts) {
         try {
-            // 解析文件ID
-            String fileId = getFileIdFromUploadId(uploadId);
-
-            // 创建分片列表
+            // 创建分片列表，OSS要求按分片编号升序排列
             List<PartETag> partETags = new ArrayList<>();
-            for (Map.Entry<Integer, String> entry : parts.entrySet()) {
+            for (Map.Entry<Integer, String> entry : new TreeMap<>(parts).entrySet()) {
                 partETags.add(new PartETag(entry.getKey(), entry.getValue()));
             }
 
@@ -183,26 +301,88 @@ public class AliyunOssStorageService extends AbstractStorageService {
                     bucketName, fileId, uploadId, partETags);
 
             // 完成分片上传
-            CompleteMultipartUploadResult result = ossClient.completeMultipartUpload(request);
-            log.info("Completed multipart upload for file: {}", fileId);
-            return fileId;
+            ossClient.completeMultipartUpload(request);
+            log.debug("Completed multipart upload for file: {}", fileId);
         } catch (Exception e) {
             log.error("Failed to complete multipart upload for uploadId: {}", uploadId, e);
             throw new RuntimeException("Failed to complete multipart upload", e);
         }
     }
 
+    @Override
+    protected void doAbortMultipartUpload(String fileId, String uploadId) {
+        try {
+            ossClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, fileId, uploadId));
+            log.debug("Aborted multipart upload for file: {}", fileId);
+        } catch (Exception e) {
+            log.error("Failed to abort multipart upload for uploadId: {}", uploadId, e);
+            throw new RuntimeException("Failed to abort multipart upload", e);
+        }
+    }
+
+    /**
+     * 发出GET请求，开启对冲下载时以读到首字节作为请求完成
+     */
+    private InputStream getObject(GetObjectRequest request) throws Exception {
+        if (hedgedRequestExecutor == null) {
+            return ossClient.getObject(request).getObjectContent();
+        }
+        return hedgedRequestExecutor.execute(() -> openWithFirstByte(request), this::forceClose).inputStream();
+    }
+
+    private OpenedObject openWithFirstByte(GetObjectRequest request) throws IOException {
+        OSSObject ossObject = ossClient.getObject(request);
+        try {
+            PushbackInputStream inputStream = new PushbackInputStream(ossObject.getObjectContent(), 1);
+            int firstByte = inputStream.read();
+            if (firstByte >= 0) {
+                inputStream.unread(firstByte);
+            }
+            return new OpenedObject(ossObject, inputStream);
+        } catch (IOException | RuntimeException e) {
+            ossObject.forcedClose();
+            throw e;
+        }
+    }
+
+    /**
+     * 断开未被采用的请求的连接，不读完剩余内容
+     */
+    private void forceClose(OpenedObject opened) {
+        try {
+            opened.ossObject().forcedClose();
+        } catch (IOException e) {
+            log.debug("Failed to close hedged request for {}", opened.ossObject().getKey(), e);
+        }
+    }
+
+    private ObjectMetadata buildObjectMetadata(String contentType, Map<String, String> metadata) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        if (contentType != null) {
+            objectMetadata.setContentType(contentType);
+        }
+        if (metadata != null) {
+            for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                objectMetadata.addUserMetadata(entry.getKey(), entry.getValue());
+            }
+        }
+        return objectMetadata;
+    }
+
+    private record OpenedObject(OSSObject ossObject, InputStream inputStream) {
+    }
+
     /**
-     * 从uploadId中解析文件ID
-     * 实际应用中，可能需要维护uploadId和fileId的映射关系
+     * 表单上传发往存储桶的域名：endpoint未写协议时使用https
      */
-    private String getFileIdFromUploadId(String uploadId) {
-        // 这里简化实现，假设uploadId格式为{fileId}-{randomString}
-        int separatorIndex = uploadId.indexOf('-');
-        if (separatorIndex > 0) {
-            return uploadId.substring(0, separatorIndex);
+    private static String buildFormUrl(String endpoint, String bucketName) {
+        String scheme = "https";
+        String host = endpoint;
+        int schemeIndex = endpoint.indexOf("://");
+        if (schemeIndex > 0) {
+            scheme = endpoint.substring(0, schemeIndex);
+            host = endpoint.substring(schemeIndex + 3);
         }
-        // 如果格式不符合预期，返回默认值
-        return "unknown-file-id";
+        return scheme + "://" + bucketName + "." + host;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,137 @@
+package com.ayw.commomservice.service.impl;
+
+import com.ayw.commomservice.concurrent.MonitoredThreadPoolExecutor;
+import com.ayw.commomservice.config.StorageProperties;
+import com.ayw.commomservice.model.PoolStats;
+import com.ayw.commomservice.model.UploadJob;
+import com.ayw.commomservice.service.AsyncUploadService;
+import com.ayw.commomservice.service.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class AsyncUploadServiceImpl implements AsyncUploadService {
+    /**
+     * 清理过期任务的最小间隔
+     */
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Logger log = LoggerFactory.getLogger(AsyncUploadServiceImpl.class);
+    private final StorageService storageService;
+    private final MonitoredThreadPoolExecutor uploadExecutor;
+    private final Path spoolDir;
+    private final long jobRetentionMillis;
+    private final ConcurrentHashMap<String, UploadJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurgeTime = new AtomicLong();
+
+    @Autowired
+    public AsyncUploadServiceImpl(StorageService storageService,
+                                  MonitoredThreadPoolExecutor storageUploadExecutor,
+                                  StorageProperties storageProperties) {
+        this.storageService = storageService;
+        this.uploadExecutor = storageUploadExecutor;
+        this.spoolDir = Paths.get(storageProperties.getAsyncUpload().getSpoolDir()).toAbsolutePath().normalize();
+        this.jobRetentionMillis = TimeUnit.SECONDS.toMillis(storageProperties.getAsyncUpload().getJobRetentionSeconds());
+        try {
+            Files.createDirectories(spoolDir);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create upload spool directory: " + spoolDir, e);
+        }
+    }
+
+    @Override
+    public UploadJob submit(MultipartFile file, Map<String, String> metadata) throws IOException {
+        purgeExpiredJobs();
+
+        // 在拒绝前先检查队列，避免白白转存一个注定被拒绝的文件
+        if (uploadExecutor.getQueue().remainingCapacity() == 0) {
+            throw new RejectedExecutionException("Upload queue is full");
+        }
+
+        // 请求结束后容器会清理上传的临时文件，先转存到暂存目录再交给上传线程
+        Path spoolFile = Files.createTempFile(spoolDir, "upload-", ".tmp");
+        InputStream inputStream;
+        try {
+            file.transferTo(spoolFile);
+            inputStream = Files.newInputStream(spoolFile);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spoolFile);
+            throw e;
+        }
+
+        UploadJob job = new UploadJob();
+        job.setJobId(UUID.randomUUID().toString().replace("-", ""));
+        job.setFileName(file.getOriginalFilename());
+        job.setCreatedAt(new Date());
+        jobs.put(job.getJobId(), job);
+
+        try {
+            storageService.uploadAsync(inputStream, file.getOriginalFilename(), file.getContentType(), metadata)
+                    .whenComplete((fileId, error) -> {
+                        closeAndDelete(inputStream, spoolFile);
+                        if (error == null) {
+                            job.setFileId(fileId);
+                            job.setStatus(UploadJob.Status.SUCCEEDED);
+                        } else {
+                            log.error("Async upload failed: {}", job.getJobId(), error);
+                            job.setError(error.getMessage());
+                            job.setStatus(UploadJob.Status.FAILED);
+                        }
+                        job.setCompletedAt(new Date());
+                    });
+        } catch (RuntimeException e) {
+            jobs.remove(job.getJobId());
+            closeAndDelete(inputStream, spoolFile);
+            throw e;
+        }
+        return job;
+    }
+
+    @Override
+    public UploadJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    @Override
+    public PoolStats getPoolStats() {
+        return uploadExecutor.getStats();
+    }
+
+    private void closeAndDelete(InputStream inputStream, Path spoolFile) {
+        try {
+            inputStream.close();
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException e) {
+            log.warn("Failed to clean up spool file: {}", spoolFile, e);
+        }
+    }
+
+    /**
+     * 移除超过保留时间的已结束任务
+     */
+    private void purgeExpiredJobs() {
+        long now = System.currentTimeMillis();
+        long lastPurge = lastPurgeTime.get();
+        if (now - lastPurge < PURGE_INTERVAL_MILLIS || !lastPurgeTime.compareAndSet(lastPurge, now)) {
+            return;
+        }
+        jobs.values().removeIf(job -> job.getCompletedAt() != null
+                && now - job.getCompletedAt().getTime() > jobRetentionMillis);
+    }
+}
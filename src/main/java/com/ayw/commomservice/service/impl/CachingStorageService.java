@@ -0,0 +1,323 @@
+package com.ayw.commomservice.service.impl;
+
+import com.ayw.commomservice.model.FileStat;
+import com.ayw.commomservice.service.StorageService;
+import com.ayw.commomservice.service.cache.TieredStorageCache;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 带两级读穿缓存的存储服务装饰器
+ * 命中缓存时直接从内存或本地磁盘返回，不访问存储平台
+ */
+public class CachingStorageService extends DelegatingStorageService {
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final TieredStorageCache cache;
+
+    public CachingStorageService(StorageService delegate, TieredStorageCache cache) {
+        super(delegate);
+        this.cache = cache;
+    }
+
+    public TieredStorageCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public String uploadWithFileId(String fileId, InputStream inputStream, String contentType, Map<String, String> metadata) {
+        String result = delegate.uploadWithFileId(fileId, inputStream, contentType, metadata);
+        // 覆盖写入后旧内容失效
+        cache.invalidate(fileId);
+        return result;
+    }
+
+    @Override
+    public InputStream download(String fileId) {
+        byte[] content = cache.getFromMemory(fileId);
+        if (content != null) {
+            return new ByteArrayInputStream(content);
+        }
+        InputStream cached = openFromDisk(fileId, 0, Long.MAX_VALUE - 1);
+        if (cached != null) {
+            return cached;
+        }
+        cache.recordMiss();
+        return fetchAndCache(fileId);
+    }
+
+    @Override
+    public InputStream download(String fileId, long start, long end) {
+        byte[] content = cache.getFromMemory(fileId);
+        if (content != null) {
+            int from = (int) Math.min(start, content.length);
+            int to = (int) Math.min(end + 1, content.length);
+            return new ByteArrayInputStream(content, from, Math.max(0, to - from));
+        }
+        InputStream cached = openFromDisk(fileId, start, end);
+        if (cached != null) {
+            return cached;
+        }
+        // 范围请求未命中时不回填缓存，避免大文件拖动播放时反复整体拉取
+        cache.recordMiss();
+        return delegate.download(fileId, start, end);
+    }
+
+    @Override
+    public long transferTo(String fileId, long start, long end, OutputStream outputStream) throws IOException {
+        if (end < start) {
+            return 0;
+        }
+        byte[] content = cache.getFromMemory(fileId);
+        if (content != null) {
+            int from = (int) Math.min(start, content.length);
+            int to = (int) Math.min(end + 1, content.length);
+            outputStream.write(content, from, Math.max(0, to - from));
+            outputStream.flush();
+            return Math.max(0, to - from);
+        }
+        Path path = cache.getFromDisk(fileId);
+        if (path != null) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long limit = Math.min(end + 1, channel.size());
+                WritableByteChannel target = Channels.newChannel(outputStream);
+                long position = start;
+                while (position < limit) {
+                    position += channel.transferTo(position, limit - position, target);
+                }
+                outputStream.flush();
+                return Math.max(0, limit - start);
+            } catch (IOException e) {
+                // 缓存文件可能刚被淘汰，按未命中处理
+                if (Files.exists(path)) {
+                    throw e;
+                }
+            }
+        }
+        FileStat stat = cache.getStat(fileId);
+        if (start == 0 && stat != null && end >= stat.getSize() - 1) {
+            // 完整下载时读穿并回填缓存
+            try (InputStream inputStream = download(fileId)) {
+                return copy(inputStream, outputStream);
+            }
+        }
+        cache.recordMiss();
+        return delegate.transferTo(fileId, start, end, outputStream);
+    }
+
+    @Override
+    public FileStat stat(String fileId) {
+        FileStat stat = cache.getStat(fileId);
+        if (stat != null) {
+            return stat;
+        }
+        stat = delegate.stat(fileId);
+        cache.putStat(fileId, stat);
+        return stat;
+    }
+
+    @Override
+    public FileStat confirmDirectUpload(String fileId) {
+        FileStat stat = delegate.confirmDirectUpload(fileId);
+        // 直传绕过了本服务，可能覆盖了已缓存的旧内容
+        cache.invalidate(fileId);
+        return stat;
+    }
+
+    @Override
+    public boolean delete(String fileId) {
+        cache.invalidate(fileId);
+        boolean deleted = delegate.delete(fileId);
+        // 删除期间可能有并发下载回填了缓存，再清理一次
+        cache.invalidate(fileId);
+        return deleted;
+    }
+
+    @Override
+    public Map<String, Boolean> deleteBatch(Collection<String> fileIds) {
+        fileIds.forEach(cache::invalidate);
+        Map<String, Boolean> results = delegate.deleteBatch(fileIds);
+        fileIds.forEach(cache::invalidate);
+        return results;
+    }
+
+    private InputStream openFromDisk(String fileId, long start, long end) {
+        Path path = cache.getFromDisk(fileId);
+        if (path == null) {
+            return null;
+        }
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            channel.position(start);
+            return new AbstractStorageService.RangeInputStream(Channels.newInputStream(channel), end - start + 1);
+        } catch (IOException e) {
+            // 缓存文件可能刚被淘汰
+            return null;
+        }
+    }
+
+    /**
+     * 从存储平台读取文件，小文件读完后放入内存缓存；
+     * 大文件边返回给调用方边写入暂存文件，读到末尾时放入磁盘缓存，中途关闭或超过磁盘缓存上限时放弃回填
+     */
+    private InputStream fetchAndCache(String fileId) {
+        InputStream remote = delegate.download(fileId);
+        try {
+            byte[] head = remote.readNBytes((int) cache.getMemoryMaxObjectBytes() + 1);
+            if (head.length <= cache.getMemoryMaxObjectBytes()) {
+                remote.close();
+                cache.putInMemory(fileId, head);
+                return new ByteArrayInputStream(head);
+            }
+
+            Path spoolFile = cache.createSpoolFile(fileId);
+            OutputStream spool;
+            try {
+                spool = Files.newOutputStream(spoolFile);
+                spool.write(head);
+            } catch (IOException e) {
+                cache.discardSpoolFile(fileId, spoolFile);
+                throw e;
+            }
+            return new SequenceInputStream(new ByteArrayInputStream(head),
+                    new CacheFillingInputStream(remote, fileId, spoolFile, spool, head.length));
+        } catch (IOException e) {
+            try {
+                remote.close();
+            } catch (IOException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw new RuntimeException("Failed to download file", e);
+        }
+    }
+
+    private long copy(InputStream inputStream, OutputStream outputStream) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long transferred = 0;
+        int bytesRead;
+        while ((bytesRead = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, bytesRead);
+            transferred += bytesRead;
+        }
+        outputStream.flush();
+        return transferred;
+    }
+
+    /**
+     * 读取远端内容时同时写入暂存文件的输入流
+     * 暂存文件写入失败只放弃回填，不影响调用方读取
+     */
+    private class CacheFillingInputStream extends FilterInputStream {
+        private final String fileId;
+        private final Path spoolFile;
+        private OutputStream spool;
+        private long size;
+
+        CacheFillingInputStream(InputStream remote, String fileId, Path spoolFile, OutputStream spool, long size) {
+            super(remote);
+            this.fileId = fileId;
+            this.spoolFile = spoolFile;
+            this.spool = spool;
+            this.size = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                fill(new byte[]{(byte) b}, 0, 1);
+            } else {
+                complete();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                fill(b, off, n);
+            } else if (n < 0) {
+                complete();
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // 跳过的内容不在暂存文件中，缓存不完整
+            abandon();
+            return super.skip(n);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                abandon();
+            } finally {
+                super.close();
+            }
+        }
+
+        private void fill(byte[] b, int off, int len) {
+            if (spool == null) {
+                return;
+            }
+            size += len;
+            if (size > cache.getDiskMaxObjectBytes()) {
+                abandon();
+                return;
+            }
+            try {
+                spool.write(b, off, len);
+            } catch (IOException e) {
+                abandon();
+            }
+        }
+
+        private void complete() {
+            if (spool == null) {
+                return;
+            }
+            try {
+                spool.close();
+                spool = null;
+                cache.putOnDisk(fileId, spoolFile, size);
+            } catch (IOException e) {
+                spool = null;
+                cache.discardSpoolFile(fileId, spoolFile);
+            }
+        }
+
+        private void abandon() {
+            if (spool == null) {
+                return;
+            }
+            try {
+                spool.close();
+            } catch (IOException ignored) {
+                // 暂存文件随后删除
+            }
+            spool = null;
+            cache.discardSpoolFile(fileId, spoolFile);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.ayw.commomservice.service.impl;
+
+import com.ayw.commomservice.model.FileStat;
+import com.ayw.commomservice.service.StorageService;
+import com.ayw.commomservice.service.registry.ContentHashRegistry;
+import com.ayw.commomservice.service.registry.FileMetadataIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按内容去重的存储服务装饰器
+ * 上传时边读取边计算SHA-256，同一租户下相同内容（且扩展名和文件类型相同）已上传过时直接返回已有文件ID，
+ * 此时本次上传的自定义元数据不会保存，文件保留第一次上传时的元数据；不同租户的相同内容各自保存，互不复用。
+ * 小文件在内存中算出摘要后再决定是否写入；大文件边写入存储平台边计算摘要，命中已有内容时删除刚写入的文件。
+ * 删除时按引用计数处理，最后一个引用释放后才删除文件。按指定ID写入（覆盖、分片上传、直传）不参与去重，
+ * 写入的文件ID如果已登记则移除登记，之后的相同内容不会复用内容已变化的文件
+ */
+public class DeduplicatingStorageService extends DelegatingStorageService {
+    private final Logger log = LoggerFactory.getLogger(DeduplicatingStorageService.class);
+    private final ContentHashRegistry registry;
+    private final int memoryThreshold;
+
+    /**
+     * @param memoryThreshold 不超过该字节数的内容先在内存中计算摘要，命中时不写入存储平台
+     */
+    public DeduplicatingStorageService(StorageService delegate, ContentHashRegistry registry, int memoryThreshold) {
+        super(delegate);
+        this.registry = registry;
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    @Override
+    public String upload(InputStream inputStream, String fileName, String contentType, Map<String, String> metadata) {
+        String extension = extensionOf(fileName);
+        String type = contentType != null ? contentType : "";
+        String tenant = metadata != null && metadata.get(FileMetadataIndex.TENANT_KEY) != null
+                ? metadata.get(FileMetadataIndex.TENANT_KEY) : "";
+        HashingInputStream hashingInputStream = new HashingInputStream(inputStream);
+        try {
+            byte[] head = hashingInputStream.readNBytes(memoryThreshold + 1);
+            if (head.length <= memoryThreshold) {
+                String contentHash = hashingInputStream.contentHash();
+                String existingFileId = registry.acquire(contentHash, tenant, extension, type);
+                if (existingFileId != null) {
+                    log.debug("Duplicate upload of {} bytes reuses file: {}", head.length, existingFileId);
+                    return existingFileId;
+                }
+                String fileId = delegate.upload(new ByteArrayInputStream(head), fileName, contentType, metadata);
+                return register(contentHash, tenant, extension, type, fileId, head.length);
+            }
+
+            // 大文件不再暂存，直接写入存储平台，写完时摘要也已算出
+            String fileId = delegate.upload(new SequenceInputStream(new ByteArrayInputStream(head), hashingInputStream),
+                    fileName, contentType, metadata);
+            String contentHash = hashingInputStream.contentHash();
+            String existingFileId = registry.acquire(contentHash, tenant, extension, type);
+            if (existingFileId != null) {
+                delegate.delete(fileId);
+                log.debug("Duplicate upload of {} bytes reuses file: {}", hashingInputStream.count, existingFileId);
+                return existingFileId;
+            }
+            return register(contentHash, tenant, extension, type, fileId, hashingInputStream.count);
+        } catch (IOException e) {
+            log.error("Failed to upload file: {}", fileName, e);
+            throw new RuntimeException("Failed to upload file", e);
+        }
+    }
+
+    private String register(String contentHash, String tenant, String extension, String type, String fileId, long size) {
+        if (!registry.register(contentHash, tenant, extension, type, fileId, size)) {
+            // 相同内容被并发的上传先登记了，改用先登记的文件
+            String existingFileId = registry.acquire(contentHash, tenant, extension, type);
+            if (existingFileId != null) {
+                delegate.delete(fileId);
+                return existingFileId;
+            }
+            // 先登记的文件正在被删除，本次上传的文件不参与去重
+            log.warn("Content hash {} is being released, keeping file {} untracked", contentHash, fileId);
+        }
+        return fileId;
+    }
+
+    @Override
+    public String uploadWithFileId(String fileId, InputStream inputStream, String contentType, Map<String, String> metadata) {
+        String result = delegate.uploadWithFileId(fileId, inputStream, contentType, metadata);
+        registry.forget(fileId);
+        return result;
+    }
+
+    @Override
+    public String completeMultipartUpload(String uploadId, Map<Integer, String> parts) {
+        String fileId = delegate.completeMultipartUpload(uploadId, parts);
+        registry.forget(fileId);
+        return fileId;
+    }
+
+    @Override
+    public FileStat confirmDirectUpload(String fileId) {
+        FileStat stat = delegate.confirmDirectUpload(fileId);
+        registry.forget(fileId);
+        return stat;
+    }
+
+    @Override
+    public boolean delete(String fileId) {
+        if (registry.release(fileId) == ContentHashRegistry.Release.REFERENCED) {
+            log.debug("File is still referenced by other uploads, not deleted: {}", fileId);
+            return true;
+        }
+        return delegate.delete(fileId);
+    }
+
+    /**
+     * 逐个释放引用，只把引用已全部释放的文件交给被装饰的存储服务批量删除
+     */
+    @Override
+    public Map<String, Boolean> deleteBatch(Collection<String> fileIds) {
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        List<String> unreferenced = new ArrayList<>();
+        for (String fileId : new LinkedHashSet<>(fileIds)) {
+            boolean referenced = registry.release(fileId) == ContentHashRegistry.Release.REFERENCED;
+            // 先占位保持顺序，删除结果稍后覆盖
+            results.put(fileId, referenced);
+            if (!referenced) {
+                unreferenced.add(fileId);
+            }
+        }
+        if (!unreferenced.isEmpty()) {
+            results.putAll(delegate.deleteBatch(unreferenced));
+        }
+        return results;
+    }
+
+    private String extensionOf(String fileName) {
+        int extensionIndex = fileName.lastIndexOf('.');
+        return extensionIndex > 0 ? fileName.substring(extensionIndex).toLowerCase() : "";
+    }
+
+    /**
+     * 边读取边计算SHA-256并计数的输入流
+     * 不支持mark/reset，存储平台SDK重试时不能回退，否则摘要会重复计入回退的内容
+     */
+    private static class HashingInputStream extends FilterInputStream {
+        private final MessageDigest digest;
+        private long count;
+
+        HashingInputStream(InputStream in) {
+            super(in);
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                digest.update((byte) b);
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                digest.update(b, off, n);
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // 跳过的内容同样计入摘要
+            return readNBytes((int) Math.min(n, Integer.MAX_VALUE)).length;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            throw new IOException("mark/reset not supported");
+        }
+
+        /**
+         * 读完剩余内容后返回摘要，存储平台未读到流末尾时剩余内容也要计入
+         */
+        String contentHash() throws IOException {
+            transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(digest.digest());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.ayw.commomservice.service.impl;
+
+import com.ayw.commomservice.model.DirectUpload;
+import com.ayw.commomservice.model.FileStat;
+import com.ayw.commomservice.service.StorageService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 存储服务装饰器基类，默认将所有调用转发给被装饰的存储服务
+ */
+public abstract class DelegatingStorageService implements StorageService {
+    protected final StorageService delegate;
+
+    /**
+     * 异步上传使用的线程池，设置后异步上传也会经过当前装饰器
+     */
+    private Executor uploadExecutor;
+
+    protected DelegatingStorageService(StorageService delegate) {
+        this.delegate = delegate;
+    }
+
+    public void setUploadExecutor(Executor uploadExecutor) {
+        this.uploadExecutor = uploadExecutor;
+    }
+
+    public StorageService getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public String upload(InputStream inputStream, String fileName, String contentType, Map<String, String> metadata) {
+        return delegate.upload(inputStream, fileName, contentType, metadata);
+    }
+
+    @Override
+    public String uploadWithFileId(String fileId, InputStream inputStream, String contentType, Map<String, String> metadata) {
+        return delegate.uploadWithFileId(fileId, inputStream, contentType, metadata);
+    }
+
+    @Override
+    public CompletableFuture<String> uploadAsync(InputStream inputStream, String fileName, String contentType, Map<String, String> metadata) {
+        if (uploadExecutor == null) {
+            return delegate.uploadAsync(inputStream, fileName, contentType, metadata);
+        }
+        return CompletableFuture.supplyAsync(() -> upload(inputStream, fileName, contentType, metadata), uploadExecutor);
+    }
+
+    @Override
+    public InputStream download(String fileId) {
+        return delegate.download(fileId);
+    }
+
+    @Override
+    public InputStream download(String fileId, long start, long end) {
+        return delegate.download(fileId, start, end);
+    }
+
+    @Override
+    public long transferTo(String fileId, long start, long end, OutputStream outputStream) throws IOException {
+        return delegate.transferTo(fileId, start, end, outputStream);
+    }
+
+    @Override
+    public FileStat stat(String fileId) {
+        return delegate.stat(fileId);
+    }
+
+    @Override
+    public boolean delete(String fileId) {
+        return delegate.delete(fileId);
+    }
+
+    @Override
+    public String generatePresignedUrl(String fileId, long expireSeconds) {
+        return delegate.generatePresignedUrl(fileId, expireSeconds);
+    }
+
+    @Override
+    public Map<String, Boolean> deleteBatch(Collection<String> fileIds) {
+        return delegate.deleteBatch(fileIds);
+    }
+
+    @Override
+    public Map<String, String> generatePresignedUrls(Collection<String> fileIds, long expireSeconds) {
+        return delegate.generatePresignedUrls(fileIds, expireSeconds);
+    }
+
+    @Override
+    public DirectUpload prepareDirectUpload(String fileName, String contentType, long maxSize, long expireSeconds) {
+        return delegate.prepareDirectUpload(fileName, contentType, maxSize, expireSeconds);
+    }
+
+    @Override
+    public DirectUpload prepareDirectUploadWithFileId(String fileId, String contentType, long maxSize, long expireSeconds) {
+        return delegate.prepareDirectUploadWithFileId(fileId, contentType, maxSize, expireSeconds);
+    }
+
+    @Override
+    public String generatePresignedPartUrl(String uploadId, int partNumber, long expireSeconds) {
+        return delegate.generatePresignedPartUrl(uploadId, partNumber, expireSeconds);
+    }
+
+    @Override
+    public FileStat confirmDirectUpload(String fileId) {
+        return delegate.confirmDirectUpload(fileId);
+    }
+
+    @Override
+    public String initiateMultipartUpload(String fileName, String contentType, long fileSize) {
+        return delegate.initiateMultipartUpload(fileName, contentType, fileSize);
+    }
+
+    @Override
+    public String initiateMultipartUploadWithFileId(String fileId, String contentType, Map<String, String> metadata) {
+        return delegate.initiateMultipartUploadWithFileId(fileId, contentType, metadata);
+    }
+
+    @Override
+    public String uploadPart(String uploadId, int partNumber, InputStream inputStream, long partSize) {
+        return delegate.uploadPart(uploadId, partNumber, inputStream, partSize);
+    }
+
+    @Override
+    public String completeMultipartUpload(String uploadId, Map<Integer, String> parts) {
+        return delegate.completeMultipartUpload(uploadId, parts);
+    }
+
+    @Override
+    public void abortMultipartUpload(String uploadId) {
+        delegate.abortMultipartUpload(uploadId);
+    }
+}
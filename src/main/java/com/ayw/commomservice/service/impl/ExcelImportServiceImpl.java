@@ -0,0 +1,320 @@
+package com.ayw.commomservice.service.impl;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelReader;
+import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.event.AnalysisEventListener;
+import com.alibaba.excel.read.metadata.ReadSheet;
+import com.ayw.commomservice.concurrent.MonitoredThreadPoolExecutor;
+import com.ayw.commomservice.config.ProcessingProperties;
+import com.ayw.commomservice.mapper.ExcelImportMapper;
+import com.ayw.commomservice.model.ImportJob;
+import com.ayw.commomservice.model.PoolStats;
+import com.ayw.commomservice.service.ExcelImportService;
+import com.ayw.commomservice.service.StorageService;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+@Service
+public class ExcelImportServiceImpl implements ExcelImportService {
+    /**
+     * 表名和列名拼入SQL，只允许普通标识符
+     */
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]{0,63}");
+
+    /**
+     * 清理过期任务的最小间隔
+     */
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Logger log = LoggerFactory.getLogger(ExcelImportServiceImpl.class);
+    private final StorageService storageService;
+    private final SqlSessionFactory sqlSessionFactory;
+    private final MonitoredThreadPoolExecutor importExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final ProcessingProperties.ExcelImport config;
+    private final Path spoolDir;
+    private final long jobRetentionMillis;
+    private final ConcurrentHashMap<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurgeTime = new AtomicLong();
+
+    @Autowired
+    public ExcelImportServiceImpl(StorageService storageService,
+                                  SqlSessionFactory sqlSessionFactory,
+                                  MonitoredThreadPoolExecutor excelImportExecutor,
+                                  PlatformTransactionManager transactionManager,
+                                  ProcessingProperties processingProperties) {
+        this.storageService = storageService;
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.importExecutor = excelImportExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = processingProperties.getExcelImport();
+        this.spoolDir = Paths.get(config.getSpoolDir()).toAbsolutePath().normalize();
+        this.jobRetentionMillis = TimeUnit.SECONDS.toMillis(config.getJobRetentionSeconds());
+        try {
+            Files.createDirectories(spoolDir);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create import spool directory: " + spoolDir, e);
+        }
+    }
+
+    @Override
+    public ImportJob submit(String fileId, String table, Map<String, String> columnMapping) {
+        purgeExpiredJobs();
+        checkTable(table);
+        Map<String, String> mapping = columnMapping != null ? columnMapping : Map.of();
+        mapping.values().forEach(this::checkIdentifier);
+
+        ImportJob job = new ImportJob();
+        job.setJobId(UUID.randomUUID().toString().replace("-", ""));
+        job.setFileId(fileId);
+        job.setTable(table);
+        job.setCreatedAt(new Date());
+        jobs.put(job.getJobId(), job);
+
+        CompletableFuture.supplyAsync(() -> spool(job), importExecutor)
+                .thenCompose(workbook -> importSheets(job, workbook, mapping)
+                        .whenComplete((result, error) -> deleteQuietly(workbook.file())))
+                .whenComplete((result, error) -> {
+                    if (error == null) {
+                        job.setStatus(ImportJob.Status.SUCCEEDED);
+                        log.info("Excel imported successfully: {} -> {}, {} rows",
+                                fileId, table, job.getImportedRows());
+                    } else {
+                        if (job.getError() == null) {
+                            job.setError(messageOf(error));
+                        }
+                        job.setStatus(ImportJob.Status.FAILED);
+                        log.error("Failed to import Excel: {}", fileId, error);
+                    }
+                    job.setCompletedAt(new Date());
+                });
+        return job;
+    }
+
+    @Override
+    public ImportJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    @Override
+    public PoolStats getPoolStats() {
+        return importExecutor.getStats();
+    }
+
+    /**
+     * 将文件转存到本地，各工作表的读取任务分别打开同一个本地文件
+     */
+    private SpooledWorkbook spool(ImportJob job) {
+        job.setStatus(ImportJob.Status.RUNNING);
+        String fileId = job.getFileId();
+        String suffix = fileId.lastIndexOf('.') >= 0 ? fileId.substring(fileId.lastIndexOf('.')) : ".xlsx";
+        Path file = null;
+        try {
+            file = Files.createTempFile(spoolDir, "import-", suffix);
+            try (InputStream inputStream = storageService.download(fileId)) {
+                Files.copy(inputStream, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            ExcelReader reader = EasyExcel.read(file.toFile()).build();
+            List<ReadSheet> sheets;
+            try {
+                sheets = new ArrayList<>(reader.excelExecutor().sheetList());
+            } finally {
+                reader.finish();
+            }
+            job.setSheetCount(sheets.size());
+            return new SpooledWorkbook(file, sheets);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(file);
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * 每个工作表一个任务并行导入，单个工作表失败只回滚该工作表，不影响其他工作表
+     */
+    private CompletableFuture<Void> importSheets(ImportJob job, SpooledWorkbook workbook, Map<String, String> mapping) {
+        CompletableFuture<?>[] sheets = workbook.sheets().stream()
+                .map(sheet -> CompletableFuture
+                        .runAsync(() -> importSheet(job, workbook.file(), sheet, mapping), importExecutor)
+                        .whenComplete((result, error) -> {
+                            job.incrementCompletedSheets();
+                            if (error != null && job.getError() == null) {
+                                job.setError("Sheet " + sheet.getSheetName() + " rolled back: " + messageOf(error));
+                            }
+                        }))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(sheets);
+    }
+
+    /**
+     * 整个工作表在一个事务中导入，中途失败时回滚，不会留下导入了一半的工作表
+     */
+    private void importSheet(ImportJob job, Path file, ReadSheet sheet, Map<String, String> mapping) {
+        SheetImportListener listener = new SheetImportListener(job, mapping);
+        transactionTemplate.executeWithoutResult(status -> {
+            // BATCH执行器缓存同一语句的多次插入，攒够一批作为一个JDBC批次发送；会话加入当前事务，由事务统一提交
+            try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+                listener.open(sqlSession);
+                EasyExcel.read(file.toFile(), listener)
+                        .headRowNumber(1)
+                        .sheet(sheet.getSheetNo())
+                        .doRead();
+            }
+        });
+        job.addImportedRows(listener.writtenRows);
+    }
+
+    private void checkTable(String table) {
+        checkIdentifier(table);
+        boolean allowed = config.getAllowedTables().stream().anyMatch(table::equalsIgnoreCase);
+        if (!allowed) {
+            throw new IllegalArgumentException("Table is not allowed for import: " + table);
+        }
+    }
+
+    private void checkIdentifier(String identifier) {
+        if (identifier == null || !IDENTIFIER.matcher(identifier).matches()) {
+            throw new IllegalArgumentException("Invalid table or column name: " + identifier);
+        }
+    }
+
+    private String messageOf(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getMessage();
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete import spool file: {}", file, e);
+        }
+    }
+
+    /**
+     * 移除超过保留时间的已结束任务
+     */
+    private void purgeExpiredJobs() {
+        long now = System.currentTimeMillis();
+        long lastPurge = lastPurgeTime.get();
+        if (now - lastPurge < PURGE_INTERVAL_MILLIS || !lastPurgeTime.compareAndSet(lastPurge, now)) {
+            return;
+        }
+        jobs.values().removeIf(job -> job.getCompletedAt() != null
+                && now - job.getCompletedAt().getTime() > jobRetentionMillis);
+    }
+
+    private record SpooledWorkbook(Path file, List<ReadSheet> sheets) {
+    }
+
+    /**
+     * 逐行读取一个工作表，攒够一批发送一次，内存中只保留当前批次
+     */
+    private class SheetImportListener extends AnalysisEventListener<Map<Integer, String>> {
+        private final ImportJob job;
+        private final Map<String, String> mapping;
+        private SqlSession sqlSession;
+        private ExcelImportMapper mapper;
+        private List<String> columns;
+        private int[] columnIndexes;
+        private int pendingRows;
+        private long writtenRows;
+
+        SheetImportListener(ImportJob job, Map<String, String> mapping) {
+            this.job = job;
+            this.mapping = mapping;
+        }
+
+        void open(SqlSession sqlSession) {
+            this.sqlSession = sqlSession;
+            this.mapper = sqlSession.getMapper(ExcelImportMapper.class);
+        }
+
+        @Override
+        public void invokeHeadMap(Map<Integer, String> headMap, AnalysisContext context) {
+            List<String> names = new ArrayList<>();
+            List<Integer> indexes = new ArrayList<>();
+            for (Map.Entry<Integer, String> entry : new TreeMap<>(headMap).entrySet()) {
+                String header = entry.getValue() != null ? entry.getValue().trim() : "";
+                // 指定了映射时只导入映射中的列，否则表头即列名
+                String column = mapping.isEmpty() ? header : mapping.get(header);
+                if (column == null || column.isEmpty()) {
+                    continue;
+                }
+                checkIdentifier(column);
+                names.add(column);
+                indexes.add(entry.getKey());
+            }
+            if (names.isEmpty()) {
+                throw new IllegalArgumentException("No importable columns in sheet " + context.readSheetHolder().getSheetName());
+            }
+            columns = names;
+            columnIndexes = indexes.stream().mapToInt(Integer::intValue).toArray();
+
+            Integer approximateRows = context.readSheetHolder().getApproximateTotalRowNumber();
+            if (approximateRows != null) {
+                job.addTotalRows(Math.max(0, approximateRows - 1));
+            }
+        }
+
+        @Override
+        public void invoke(Map<Integer, String> row, AnalysisContext context) {
+            if (columns == null) {
+                throw new IllegalArgumentException("Missing header row in sheet " + context.readSheetHolder().getSheetName());
+            }
+            List<Object> values = new ArrayList<>(columnIndexes.length);
+            for (int index : columnIndexes) {
+                values.add(row.get(index));
+            }
+            mapper.insertRow(job.getTable(), columns, values);
+            if (++pendingRows >= config.getBatchSize()) {
+                flush();
+            }
+        }
+
+        @Override
+        public void doAfterAllAnalysed(AnalysisContext context) {
+            flush();
+        }
+
+        private void flush() {
+            if (pendingRows == 0) {
+                return;
+            }
+            sqlSession.flushStatements();
+            job.addWrittenRows(pendingRows);
+            writtenRows += pendingRows;
+            pendingRows = 0;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.ayw.commomservice.service.impl;
+
+import com.ayw.commomservice.model.FileStat;
+import com.ayw.commomservice.service.StorageService;
+import com.ayw.commomservice.service.registry.FileMetadataIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 维护文件元信息索引的存储服务装饰器
+ * 上传时统计写入的字节数，完成后直接用上传参数登记到索引，不再额外查询存储平台；删除后移除。
+ * stat只查索引，索引中没有的文件（如启用索引前上传的）按配置回源查询存储平台并补登记
+ */
+public class IndexingStorageService extends DelegatingStorageService {
+    private final Logger log = LoggerFactory.getLogger(IndexingStorageService.class);
+    private final FileMetadataIndex index;
+    private final boolean fallbackToStore;
+
+    /**
+     * @param fallbackToStore 索引中没有时是否查询存储平台，已有文件都登记后可关闭
+     */
+    public IndexingStorageService(StorageService delegate, FileMetadataIndex index, boolean fallbackToStore) {
+        super(delegate);
+        this.index = index;
+        this.fallbackToStore = fallbackToStore;
+    }
+
+    @Override
+    public String upload(InputStream inputStream, String fileName, String contentType, Map<String, String> metadata) {
+        PositionInputStream counted = new PositionInputStream(inputStream);
+        return indexed(delegate.upload(counted, fileName, contentType, metadata), counted, contentType, metadata);
+    }
+
+    @Override
+    public String uploadWithFileId(String fileId, InputStream inputStream, String contentType, Map<String, String> metadata) {
+        PositionInputStream counted = new PositionInputStream(inputStream);
+        return indexed(delegate.uploadWithFileId(fileId, counted, contentType, metadata), counted, contentType, metadata);
+    }
+
+    /**
+     * 分片上传完成时不知道总大小和文件类型，读取一次实际元信息登记
+     */
+    @Override
+    public String completeMultipartUpload(String uploadId, Map<Integer, String> parts) {
+        String fileId = delegate.completeMultipartUpload(uploadId, parts);
+        try {
+            index.put(delegate.stat(fileId));
+        } catch (RuntimeException e) {
+            log.error("Failed to index file: {}", fileId, e);
+        }
+        return fileId;
+    }
+
+    /**
+     * 直传的文件不经过本服务，确认时登记存储平台返回的实际元信息
+     */
+    @Override
+    public FileStat confirmDirectUpload(String fileId) {
+        FileStat stat = delegate.confirmDirectUpload(fileId);
+        index.put(stat);
+        return stat;
+    }
+
+    @Override
+    public FileStat stat(String fileId) {
+        FileStat stat = index.get(fileId);
+        if (stat != null) {
+            return stat;
+        }
+        if (!fallbackToStore) {
+            throw new RuntimeException("File not found: " + fileId, new NoSuchFileException(fileId));
+        }
+        stat = delegate.stat(fileId);
+        index.put(stat);
+        return stat;
+    }
+
+    @Override
+    public boolean delete(String fileId) {
+        boolean deleted = delegate.delete(fileId);
+        if (deleted) {
+            index.remove(fileId);
+        }
+        return deleted;
+    }
+
+    @Override
+    public Map<String, Boolean> deleteBatch(Collection<String> fileIds) {
+        Map<String, Boolean> results = delegate.deleteBatch(fileIds);
+        List<String> deleted = results.entrySet().stream()
+                .filter(Map.Entry::getValue)
+                .map(Map.Entry::getKey)
+                .toList();
+        index.removeAll(deleted);
+        return results;
+    }
+
+    /**
+     * 用上传参数和实际写入的字节数登记刚写入的文件，登记失败不影响上传结果
+     * 与本地存储一样用大小和写入时间作为ETag，下载响应的ETag和Last-Modified都来自索引，前后保持一致
+     */
+    private String indexed(String fileId, PositionInputStream counted, String contentType, Map<String, String> metadata) {
+        long now = System.currentTimeMillis();
+        FileStat stat = new FileStat();
+        stat.setFileId(fileId);
+        stat.setSize(counted.position);
+        stat.setContentType(contentType);
+        stat.setETag(Long.toHexString(counted.position) + "-" + Long.toHexString(now));
+        stat.setLastModified(new Date(now));
+        stat.setMetadata(metadata != null ? metadata : Map.of());
+        try {
+            index.put(stat);
+        } catch (RuntimeException e) {
+            log.error("Failed to index file: {}", fileId, e);
+        }
+        return fileId;
+    }
+
+    /**
+     * 记录读取位置的输入流，存储平台SDK重试时用mark/reset回退，位置随之回退
+     */
+    private static class PositionInputStream extends FilterInputStream {
+        private long position;
+        private long markedPosition;
+
+        PositionInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                position++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public synchronized void mark(int readLimit) {
+            super.mark(readLimit);
+            markedPosition = position;
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            super.reset();
+            position = markedPosition;
+        }
+    }
+}
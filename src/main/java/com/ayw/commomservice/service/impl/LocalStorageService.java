@@ -0,0 +1,403 @@
+package com.ayw.commomservice.service.impl;
+
+import com.ayw.commomservice.config.StorageProperties;
+import com.ayw.commomservice.model.FileStat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * 本地文件系统存储服务
+ * 读取使用FileChannel零拷贝传输，分片各自落盘后在内核中拼接
+ */
+public class LocalStorageService extends AbstractStorageService {
+    private static final String CONTENT_TYPE_KEY = "content-type";
+    private static final String USER_METADATA_PREFIX = "meta.";
+
+    private final Path objectsDir;
+    private final Path metaDir;
+    private final Path multipartDir;
+    private final String baseUrl;
+
+    public LocalStorageService(StorageProperties.Local localConfig) {
+        Path rootDir = Paths.get(localConfig.getRootDir()).toAbsolutePath().normalize();
+        this.objectsDir = rootDir.resolve("objects");
+        this.metaDir = rootDir.resolve("meta");
+        this.multipartDir = rootDir.resolve("multipart");
+        this.baseUrl = localConfig.getBaseUrl();
+        try {
+            Files.createDirectories(objectsDir);
+            Files.createDirectories(metaDir);
+            Files.createDirectories(multipartDir);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create local storage directory: " + rootDir, e);
+        }
+        log.info("Local storage root: {}", rootDir);
+    }
+
+    @Override
+    protected String putObject(String fileId, InputStream inputStream, long contentLength,
+                               String contentType, Map<String, String> metadata) {
+        try {
+            Path target = resolve(objectsDir, fileId);
+            Path tempFile = createTempFile(target);
+            try {
+                Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                writeMetadata(fileId, contentType, metadata);
+                moveAtomically(tempFile, target);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            log.debug("File uploaded successfully: {}", fileId);
+            return fileId;
+        } catch (Exception e) {
+            log.error("Failed to upload file: {}", fileId, e);
+            throw new RuntimeException("Failed to upload file", e);
+        }
+    }
+
+    @Override
+    public InputStream download(String fileId) {
+        try {
+            FileChannel channel = FileChannel.open(resolve(objectsDir, fileId), StandardOpenOption.READ);
+            return Channels.newInputStream(channel);
+        } catch (Exception e) {
+            log.error("Failed to download file: {}", fileId, e);
+            throw new RuntimeException("Failed to download file", e);
+        }
+    }
+
+    @Override
+    public InputStream download(String fileId, long start, long end) {
+        try (FileChannel channel = FileChannel.open(resolve(objectsDir, fileId), StandardOpenOption.READ)) {
+            long length = Math.min(end, channel.size() - 1) - start + 1;
+            if (length <= 0) {
+                return InputStream.nullInputStream();
+            }
+            if (length <= Integer.MAX_VALUE) {
+                // 映射后直接从页缓存读取，关闭通道不影响映射
+                return new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, start, length));
+            }
+        } catch (Exception e) {
+            log.error("Failed to download file range {}-{}: {}", start, end, fileId, e);
+            throw new RuntimeException("Failed to download file range", e);
+        }
+        // 超过单次映射上限的范围退回通道读取
+        try {
+            FileChannel channel = FileChannel.open(resolve(objectsDir, fileId), StandardOpenOption.READ);
+            channel.position(start);
+            return new RangeInputStream(Channels.newInputStream(channel), end - start + 1);
+        } catch (Exception e) {
+            log.error("Failed to download file range {}-{}: {}", start, end, fileId, e);
+            throw new RuntimeException("Failed to download file range", e);
+        }
+    }
+
+    @Override
+    public long transferTo(String fileId, long start, long end, OutputStream outputStream) throws IOException {
+        if (end < start) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(resolve(objectsDir, fileId), StandardOpenOption.READ)) {
+            long limit = Math.min(end + 1, channel.size());
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            long position = start;
+            while (position < limit) {
+                position += channel.transferTo(position, limit - position, target);
+            }
+            outputStream.flush();
+            return Math.max(0, limit - start);
+        }
+    }
+
+    @Override
+    public FileStat stat(String fileId) {
+        try {
+            Path file = resolve(objectsDir, fileId);
+            long size = Files.size(file);
+            long lastModified = Files.getLastModifiedTime(file).toMillis();
+            Properties properties = readProperties(resolve(metaDir, fileId + ".properties"));
+
+            FileStat stat = new FileStat();
+            stat.setFileId(fileId);
+            stat.setSize(size);
+            stat.setLastModified(new Date(lastModified));
+            // 本地文件不计算内容摘要，使用大小和修改时间作为ETag
+            stat.setETag(Long.toHexString(size) + "-" + Long.toHexString(lastModified));
+            stat.setContentType(properties.getProperty(CONTENT_TYPE_KEY));
+            Map<String, String> metadata = new HashMap<>();
+            for (String key : properties.stringPropertyNames()) {
+                if (key.startsWith(USER_METADATA_PREFIX)) {
+                    metadata.put(key.substring(USER_METADATA_PREFIX.length()), properties.getProperty(key));
+                }
+            }
+            stat.setMetadata(metadata);
+            return stat;
+        } catch (Exception e) {
+            log.error("Failed to stat file: {}", fileId, e);
+            throw new RuntimeException("Failed to stat file", e);
+        }
+    }
+
+    @Override
+    public boolean delete(String fileId) {
+        try {
+            boolean deleted = Files.deleteIfExists(resolve(objectsDir, fileId));
+            Files.deleteIfExists(resolve(metaDir, fileId + ".properties"));
+            log.debug("File deleted successfully: {}", fileId);
+            return deleted;
+        } catch (Exception e) {
+            log.error("Failed to delete file: {}", fileId, e);
+            return false;
+        }
+    }
+
+    /**
+     * 本地存储没有预签名机制，返回的是不带签名、不会过期的下载地址，访问控制由部署在下载接口前的网关负责；
+     * 不再附带expires参数，避免调用方误以为地址会过期
+     */
+    @Override
+    protected String doGeneratePresignedUrl(String fileId, Date expiration) {
+        return baseUrl + fileId;
+    }
+
+    @Override
+    protected String doInitiateMultipartUpload(String fileId, String contentType, Map<String, String> metadata) {
+        try {
+            String uploadId = UUID.randomUUID().toString().replace("-", "");
+            Path uploadDir = multipartDir.resolve(uploadId);
+            Files.createDirectories(uploadDir);
+
+            Properties properties = new Properties();
+            if (contentType != null) {
+                properties.setProperty(CONTENT_TYPE_KEY, contentType);
+            }
+            if (metadata != null) {
+                for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                    properties.setProperty(USER_METADATA_PREFIX + entry.getKey(), entry.getValue());
+                }
+            }
+            writeProperties(uploadDir.resolve("upload.properties"), properties);
+            log.debug("Initiated multipart upload for file: {}", fileId);
+            return uploadId;
+        } catch (Exception e) {
+            log.error("Failed to initiate multipart upload for file: {}", fileId, e);
+            throw new RuntimeException("Failed to initiate multipart upload", e);
+        }
+    }
+
+    @Override
+    protected String doUploadPart(String fileId, String uploadId, int partNumber, InputStream inputStream, long partSize) {
+        try {
+            Path uploadDir = getUploadDir(uploadId);
+            Path partFile = uploadDir.resolve("part-" + partNumber);
+            Path tempFile = Files.createTempFile(uploadDir, "part-" + partNumber, ".tmp");
+            try {
+                // 每个分片写入独立文件，不同分片可以并行上传
+                MessageDigest digest = MessageDigest.getInstance("MD5");
+                Files.copy(new DigestInputStream(inputStream, digest), tempFile, StandardCopyOption.REPLACE_EXISTING);
+                moveAtomically(tempFile, partFile);
+                log.debug("Uploaded part {} for upload: {}", partNumber, uploadId);
+                return HexFormat.of().formatHex(digest.digest());
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (Exception e) {
+            log.error("Failed to upload part {} for uploadId: {}", partNumber, uploadId, e);
+            throw new RuntimeException("Failed to upload part", e);
+        }
+    }
+
+    @Override
+    protected void doCompleteMultipartUpload(String fileId, String uploadId, Map<Integer, String> parts) {
+        try {
+            Path uploadDir = getUploadDir(uploadId);
+            Properties properties = readProperties(uploadDir.resolve("upload.properties"));
+            Path target = resolve(objectsDir, fileId);
+            Path tempFile = createTempFile(target);
+            try {
+                try (FileChannel targetChannel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                    // 按分片编号顺序拼接，文件通道间的transferTo由内核完成拷贝
+                    for (Integer partNumber : new TreeMap<>(parts).keySet()) {
+                        Path partFile = uploadDir.resolve("part-" + partNumber);
+                        if (!Files.exists(partFile)) {
+                            throw new IllegalArgumentException("Part " + partNumber + " has not been uploaded");
+                        }
+                        try (FileChannel partChannel = FileChannel.open(partFile, StandardOpenOption.READ)) {
+                            long size = partChannel.size();
+                            long position = 0;
+                            while (position < size) {
+                                position += partChannel.transferTo(position, size - position, targetChannel);
+                            }
+                        }
+                    }
+                }
+                Map<String, String> metadata = new HashMap<>();
+                for (String key : properties.stringPropertyNames()) {
+                    if (key.startsWith(USER_METADATA_PREFIX)) {
+                        metadata.put(key.substring(USER_METADATA_PREFIX.length()), properties.getProperty(key));
+                    }
+                }
+                writeMetadata(fileId, properties.getProperty(CONTENT_TYPE_KEY), metadata);
+                moveAtomically(tempFile, target);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            deleteDirectory(uploadDir);
+            log.debug("Completed multipart upload for file: {}", fileId);
+        } catch (Exception e) {
+            log.error("Failed to complete multipart upload for uploadId: {}", uploadId, e);
+            throw new RuntimeException("Failed to complete multipart upload", e);
+        }
+    }
+
+    @Override
+    protected void doAbortMultipartUpload(String fileId, String uploadId) {
+        try {
+            deleteDirectory(getUploadDir(uploadId));
+            log.debug("Aborted multipart upload for file: {}", fileId);
+        } catch (Exception e) {
+            log.error("Failed to abort multipart upload for uploadId: {}", uploadId, e);
+            throw new RuntimeException("Failed to abort multipart upload", e);
+        }
+    }
+
+    private Path getUploadDir(String uploadId) throws IOException {
+        Path uploadDir = resolve(multipartDir, uploadId);
+        if (!Files.isDirectory(uploadDir)) {
+            throw new NoSuchFileException("Unknown uploadId: " + uploadId);
+        }
+        return uploadDir;
+    }
+
+    /**
+     * 解析存储路径，拒绝越出存储目录的文件ID
+     */
+    private Path resolve(Path baseDir, String name) {
+        Path path = baseDir.resolve(name).normalize();
+        if (!path.startsWith(baseDir) || path.equals(baseDir)) {
+            throw new IllegalArgumentException("Invalid file id: " + name);
+        }
+        return path;
+    }
+
+    private Path createTempFile(Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        return Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+    }
+
+    private void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void writeMetadata(String fileId, String contentType, Map<String, String> metadata) throws IOException {
+        Properties properties = new Properties();
+        if (contentType != null) {
+            properties.setProperty(CONTENT_TYPE_KEY, contentType);
+        }
+        if (metadata != null) {
+            for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                properties.setProperty(USER_METADATA_PREFIX + entry.getKey(), entry.getValue());
+            }
+        }
+        Path metaFile = resolve(metaDir, fileId + ".properties");
+        Files.createDirectories(metaFile.getParent());
+        writeProperties(metaFile, properties);
+    }
+
+    private void writeProperties(Path file, Properties properties) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+    }
+
+    private Properties readProperties(Path file) throws IOException {
+        Properties properties = new Properties();
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+        }
+        return properties;
+    }
+
+    private void deleteDirectory(Path dir) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    /**
+     * 基于内存映射缓冲区的输入流
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.ayw.commomservice.service.impl;
+
+import com.ayw.commomservice.model.DirectUpload;
+import com.ayw.commomservice.model.FileStat;
+import com.ayw.commomservice.service.StorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 记录指标的存储服务装饰器
+ * 按方法和存储平台记录耗时分布（p50/p95/p99）、进行中的调用数、按异常类型的错误数以及上传下载字节数；
+ * 下载方法的耗时为拿到输入流的时间，字节数在读取时累计
+ */
+public class MeteredStorageService extends DelegatingStorageService {
+    private final MeterRegistry registry;
+    private final String backend;
+    private final Counter bytesIn;
+    private final Counter bytesOut;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param backend 存储平台名称，作为指标的backend标签
+     */
+    public MeteredStorageService(StorageService delegate, MeterRegistry registry, String backend) {
+        super(delegate);
+        this.registry = registry;
+        this.backend = backend;
+        this.bytesIn = Counter.builder("storage.bytes.in")
+                .description("Bytes uploaded to storage")
+                .baseUnit("bytes")
+                .tag("backend", backend)
+                .register(registry);
+        this.bytesOut = Counter.builder("storage.bytes.out")
+                .description("Bytes downloaded from storage")
+                .baseUnit("bytes")
+                .tag("backend", backend)
+                .register(registry);
+    }
+
+    @Override
+    public String upload(InputStream inputStream, String fileName, String contentType, Map<String, String> metadata) {
+        return record("upload", () -> delegate.upload(counting(inputStream, bytesIn), fileName, contentType, metadata));
+    }
+
+    @Override
+    public String uploadWithFileId(String fileId, InputStream inputStream, String contentType, Map<String, String> metadata) {
+        return record("uploadWithFileId",
+                () -> delegate.uploadWithFileId(fileId, counting(inputStream, bytesIn), contentType, metadata));
+    }
+
+    @Override
+    public InputStream download(String fileId) {
+        return counting(record("download", () -> delegate.download(fileId)), bytesOut);
+    }
+
+    @Override
+    public InputStream download(String fileId, long start, long end) {
+        return counting(record("downloadRange", () -> delegate.download(fileId, start, end)), bytesOut);
+    }
+
+    @Override
+    public long transferTo(String fileId, long start, long end, OutputStream outputStream) throws IOException {
+        long transferred = record("transferTo", () -> delegate.transferTo(fileId, start, end, outputStream));
+        bytesOut.increment(transferred);
+        return transferred;
+    }
+
+    @Override
+    public FileStat stat(String fileId) {
+        return record("stat", () -> delegate.stat(fileId));
+    }
+
+    @Override
+    public boolean delete(String fileId) {
+        return record("delete", () -> delegate.delete(fileId));
+    }
+
+    @Override
+    public String generatePresignedUrl(String fileId, long expireSeconds) {
+        return record("generatePresignedUrl", () -> delegate.generatePresignedUrl(fileId, expireSeconds));
+    }
+
+    @Override
+    public Map<String, Boolean> deleteBatch(Collection<String> fileIds) {
+        return record("deleteBatch", () -> delegate.deleteBatch(fileIds));
+    }
+
+    @Override
+    public Map<String, String> generatePresignedUrls(Collection<String> fileIds, long expireSeconds) {
+        return record("generatePresignedUrls", () -> delegate.generatePresignedUrls(fileIds, expireSeconds));
+    }
+
+    @Override
+    public DirectUpload prepareDirectUpload(String fileName, String contentType, long maxSize, long expireSeconds) {
+        return record("prepareDirectUpload",
+                () -> delegate.prepareDirectUpload(fileName, contentType, maxSize, expireSeconds));
+    }
+
+    @Override
+    public DirectUpload prepareDirectUploadWithFileId(String fileId, String contentType, long maxSize, long expireSeconds) {
+        return record("prepareDirectUpload",
+                () -> delegate.prepareDirectUploadWithFileId(fileId, contentType, maxSize, expireSeconds));
+    }
+
+    @Override
+    public String generatePresignedPartUrl(String uploadId, int partNumber, long expireSeconds) {
+        return record("generatePresignedPartUrl",
+                () -> delegate.generatePresignedPartUrl(uploadId, partNumber, expireSeconds));
+    }
+
+    @Override
+    public FileStat confirmDirectUpload(String fileId) {
+        return record("confirmDirectUpload", () -> delegate.confirmDirectUpload(fileId));
+    }
+
+    @Override
+    public String initiateMultipartUpload(String fileName, String contentType, long fileSize) {
+        return record("initiateMultipartUpload", () -> delegate.initiateMultipartUpload(fileName, contentType, fileSize));
+    }
+
+    @Override
+    public String initiateMultipartUploadWithFileId(String fileId, String contentType, Map<String, String> metadata) {
+        return record("initiateMultipartUpload",
+                () -> delegate.initiateMultipartUploadWithFileId(fileId, contentType, metadata));
+    }
+
+    @Override
+    public String uploadPart(String uploadId, int partNumber, InputStream inputStream, long partSize) {
+        return record("uploadPart",
+                () -> delegate.uploadPart(uploadId, partNumber, counting(inputStream, bytesIn), partSize));
+    }
+
+    @Override
+    public String completeMultipartUpload(String uploadId, Map<Integer, String> parts) {
+        return record("completeMultipartUpload", () -> delegate.completeMultipartUpload(uploadId, parts));
+    }
+
+    @Override
+    public void abortMultipartUpload(String uploadId) {
+        record("abortMultipartUpload", () -> {
+            delegate.abortMultipartUpload(uploadId);
+            return null;
+        });
+    }
+
+    private <T, E extends Exception> T record(String method, Call<T, E> call) throws E {
+        AtomicInteger active = inFlight.computeIfAbsent(method, this::registerInFlight);
+        active.incrementAndGet();
+        long start = System.nanoTime();
+        String outcome = "success";
+        try {
+            return call.run();
+        } catch (Throwable e) {
+            outcome = "error";
+            registry.counter("storage.errors", "backend", backend, "method", method,
+                    "exception", e.getClass().getSimpleName()).increment();
+            throw e;
+        } finally {
+            active.decrementAndGet();
+            timer(method, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String method, String outcome) {
+        return timers.computeIfAbsent(method + "|" + outcome, key -> Timer.builder("storage.requests")
+                .description("Storage call latency")
+                .tag("backend", backend)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+
+    private AtomicInteger registerInFlight(String method) {
+        AtomicInteger active = new AtomicInteger();
+        Gauge.builder("storage.requests.active", active, AtomicInteger::get)
+                .description("Storage calls in progress")
+                .tag("backend", backend)
+                .tag("method", method)
+                .register(registry);
+        return active;
+    }
+
+    private InputStream counting(InputStream inputStream, Counter counter) {
+        return inputStream != null ? new CountingInputStream(inputStream, counter) : null;
+    }
+
+    @FunctionalInterface
+    private interface Call<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    /**
+     * 读取时累计字节数的输入流
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private final Counter counter;
+
+        CountingInputStream(InputStream in, Counter counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counter.increment();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                counter.increment(n);
+            }
+            return n;
+        }
+    }
+}
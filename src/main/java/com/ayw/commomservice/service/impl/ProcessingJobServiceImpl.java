@@ -0,0 +1,484 @@
+package com.ayw.commomservice.service.impl;
+
+import com.ayw.commomservice.concurrent.MonitoredThreadPoolExecutor;
+import com.ayw.commomservice.config.ProcessingProperties;
+import com.ayw.commomservice.mapper.ProcessingJobMapper;
+import com.ayw.commomservice.model.PoolStats;
+import com.ayw.commomservice.model.ProcessingJob;
+import com.ayw.commomservice.model.ProcessingJobRequest;
+import com.ayw.commomservice.service.FileProcessingService;
+import com.ayw.commomservice.service.ProcessingJobService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于MySQL的异步处理任务队列
+ * 每个优先级通道一个领取线程和一个工作线程池，领取时用SELECT ... FOR UPDATE SKIP LOCKED锁定待执行任务，
+ * 多个节点并发领取互不阻塞；领取的任务带有租约，执行期间定期续约，节点宕机后租约到期的任务重新排队
+ */
+@Service
+public class ProcessingJobServiceImpl implements ProcessingJobService, SmartLifecycle, MeterBinder {
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final int CALLBACK_THREADS = 4;
+
+    private final Logger log = LoggerFactory.getLogger(ProcessingJobServiceImpl.class);
+    private final ProcessingJobMapper mapper;
+    private final FileProcessingService fileProcessingService;
+    private final ProcessingProperties.Jobs config;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final CloseableHttpClient callbackClient;
+    private final ExecutorService callbackExecutor;
+
+    /**
+     * 租约持有者标识，区分各节点及同一节点的多次启动
+     */
+    private final String owner;
+    private final Map<ProcessingJob.Lane, LaneWorker> lanes = new EnumMap<>(ProcessingJob.Lane.class);
+    private ScheduledExecutorService maintenanceExecutor;
+    private volatile boolean running;
+
+    @Autowired
+    public ProcessingJobServiceImpl(ProcessingJobMapper mapper,
+                                    FileProcessingService fileProcessingService,
+                                    ProcessingProperties processingProperties,
+                                    PlatformTransactionManager transactionManager,
+                                    ObjectMapper objectMapper) {
+        this.mapper = mapper;
+        this.fileProcessingService = fileProcessingService;
+        this.config = processingProperties.getJobs();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        int callbackTimeoutMillis = (int) TimeUnit.SECONDS.toMillis(config.getCallbackTimeoutSeconds());
+        // 建立连接时由resolveCallbackHost解析并校验地址，连接的就是校验过的地址，域名无法在校验后改指向内网；
+        // 请求仍按域名发送，Host头和TLS的SNI、证书校验不受影响
+        this.callbackClient = HttpClients.custom()
+                .setDnsResolver(this::resolveCallbackHost)
+                .disableRedirectHandling()
+                .disableAutomaticRetries()
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(callbackTimeoutMillis)
+                        .setConnectionRequestTimeout(callbackTimeoutMillis)
+                        .setSocketTimeout(callbackTimeoutMillis)
+                        .build())
+                .build();
+        this.callbackExecutor = Executors.newFixedThreadPool(CALLBACK_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "job-callback");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.owner = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        lanes.put(ProcessingJob.Lane.INTERACTIVE, new LaneWorker(ProcessingJob.Lane.INTERACTIVE, config.getInteractiveWorkers()));
+        lanes.put(ProcessingJob.Lane.BULK, new LaneWorker(ProcessingJob.Lane.BULK, config.getBulkWorkers()));
+    }
+
+    @Override
+    public ProcessingJob submit(ProcessingJobRequest request) {
+        ProcessingJob.Type type = parse(ProcessingJob.Type.class, request.getType(), "type");
+        if (request.getOperation() == null || request.getOperation().isEmpty()) {
+            throw new IllegalArgumentException("operation is required");
+        }
+        ProcessingJob.Lane lane = request.getLane() != null
+                ? parse(ProcessingJob.Lane.class, request.getLane(), "lane")
+                : type == ProcessingJob.Type.IMAGE ? ProcessingJob.Lane.INTERACTIVE : ProcessingJob.Lane.BULK;
+        checkCallbackUrl(request.getCallbackUrl());
+
+        ProcessingJob job = new ProcessingJob();
+        job.setJobId(UUID.randomUUID().toString().replace("-", ""));
+        job.setType(type);
+        job.setFileId(request.getFileId());
+        job.setOperation(request.getOperation());
+        job.setParams(toJson(request.getParams() != null ? request.getParams() : Map.of()));
+        job.setLane(lane);
+        job.setStatus(ProcessingJob.Status.PENDING);
+        job.setCallbackUrl(request.getCallbackUrl());
+        job.setCreatedAt(new Date());
+        mapper.insert(job);
+        // 本节点有空闲线程时立即领取，不必等下一次轮询
+        lanes.get(lane).wakeUp();
+        return job;
+    }
+
+    @Override
+    public ProcessingJob getJob(String jobId) {
+        return mapper.selectById(jobId);
+    }
+
+    @Override
+    public List<PoolStats> getPoolStats() {
+        List<PoolStats> stats = new ArrayList<>();
+        for (LaneWorker worker : lanes.values()) {
+            stats.add(worker.executor.getStats());
+        }
+        return stats;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (LaneWorker worker : lanes.values()) {
+            worker.executor.bindTo(registry);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!config.isEnabled()) {
+            log.info("Processing job workers are disabled on this node");
+            return;
+        }
+        lanes.values().forEach(LaneWorker::start);
+        long maintenanceMillis = Math.max(1000, TimeUnit.SECONDS.toMillis(config.getLeaseSeconds()) / 3);
+        maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "job-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenanceExecutor.scheduleWithFixedDelay(this::maintain, maintenanceMillis, maintenanceMillis, TimeUnit.MILLISECONDS);
+        log.info("Processing job workers started: {}", owner);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (maintenanceExecutor != null) {
+            maintenanceExecutor.shutdownNow();
+        }
+        // 停止领取新任务并等待执行中的任务结束，未结束的任务租约到期后由其他节点重新执行
+        lanes.values().forEach(LaneWorker::stop);
+        callbackExecutor.shutdown();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 续约本节点的任务，回收租约过期的任务并清理过期记录
+     */
+    void maintain() {
+        try {
+            Date now = new Date();
+            mapper.renewLeases(owner, leaseUntil(now));
+            int requeued = mapper.requeueExpired(now, config.getMaxAttempts());
+            int failed = mapper.failExpired(now, config.getMaxAttempts());
+            if (requeued > 0 || failed > 0) {
+                log.warn("Recovered expired processing jobs: {} requeued, {} failed", requeued, failed);
+                lanes.values().forEach(LaneWorker::wakeUp);
+            }
+            mapper.deleteCompletedBefore(new Date(now.getTime() - TimeUnit.HOURS.toMillis(config.getRetentionHours())));
+        } catch (RuntimeException e) {
+            log.warn("Failed to maintain processing job leases", e);
+        }
+    }
+
+    /**
+     * 在事务中锁定并领取最多limit个任务
+     */
+    private List<ProcessingJob> claim(ProcessingJob.Lane lane, int limit) {
+        List<ProcessingJob> claimed = transactionTemplate.execute(status -> {
+            List<String> jobIds = mapper.lockPending(lane, limit);
+            if (jobIds.isEmpty()) {
+                return List.<ProcessingJob>of();
+            }
+            Date now = new Date();
+            mapper.markRunning(jobIds, owner, leaseUntil(now), now);
+            return mapper.selectByIds(jobIds);
+        });
+        return claimed != null ? claimed : List.of();
+    }
+
+    private void execute(ProcessingJob job) {
+        try {
+            Map<String, Object> params = objectMapper.readValue(job.getParams(), new TypeReference<Map<String, Object>>() {
+            });
+            String result = switch (job.getType()) {
+                case IMAGE -> fileProcessingService.processImage(job.getFileId(), job.getOperation(), params);
+                case DOCUMENT -> fileProcessingService.processDocument(job.getFileId(), job.getOperation(), params);
+            };
+            job.setStatus(ProcessingJob.Status.SUCCEEDED);
+            job.setResultFileId(result);
+        } catch (Exception e) {
+            log.error("Processing job failed: {}", job.getJobId(), e);
+            job.setStatus(ProcessingJob.Status.FAILED);
+            job.setError(truncate(messageOf(e)));
+        }
+        job.setCompletedAt(new Date());
+        if (mapper.complete(job) == 0) {
+            // 执行超过租约期限后已被其他节点接管
+            log.warn("Lease of processing job {} was lost, result discarded", job.getJobId());
+            return;
+        }
+        job.setLeaseOwner(null);
+        job.setLeaseUntil(null);
+        if (job.getCallbackUrl() != null && !job.getCallbackUrl().isEmpty()) {
+            notifyCallback(job, 0);
+        }
+    }
+
+    /**
+     * 将任务状态POST到回调地址，失败后按指数退避重试
+     */
+    private void notifyCallback(ProcessingJob job, int attempt) {
+        CompletableFuture.runAsync(() -> sendCallback(job, attempt), callbackExecutor);
+    }
+
+    private void sendCallback(ProcessingJob job, int attempt) {
+        HttpPost request = new HttpPost(URI.create(job.getCallbackUrl()));
+        request.setEntity(new StringEntity(toJson(job), ContentType.APPLICATION_JSON));
+        String failure;
+        try (CloseableHttpResponse response = callbackClient.execute(request)) {
+            EntityUtils.consumeQuietly(response.getEntity());
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode / 100 == 2) {
+                return;
+            }
+            failure = "HTTP " + statusCode;
+        } catch (RejectedHostException e) {
+            log.warn("Skipped callback of processing job {}: {}", job.getJobId(), e.getMessage());
+            return;
+        } catch (IOException | RuntimeException e) {
+            failure = e.getMessage();
+        }
+        if (attempt < config.getCallbackMaxRetries()) {
+            CompletableFuture.delayedExecutor(1L << attempt, TimeUnit.SECONDS, callbackExecutor)
+                    .execute(() -> sendCallback(job, attempt + 1));
+        } else {
+            log.warn("Failed to notify callback of processing job {}: {}", job.getJobId(), failure);
+        }
+    }
+
+    private void checkCallbackUrl(String callbackUrl) {
+        if (callbackUrl == null || callbackUrl.isEmpty()) {
+            return;
+        }
+        try {
+            URI uri = URI.create(callbackUrl);
+            if (!"http".equalsIgnoreCase(uri.getScheme()) && !"https".equalsIgnoreCase(uri.getScheme())) {
+                throw new IllegalArgumentException("callbackUrl must be an http or https URL");
+            }
+            checkCallbackTarget(uri);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid callbackUrl: " + callbackUrl, e);
+        }
+    }
+
+    /**
+     * 提交时校验回调地址的主机，发送时建立连接前还会再校验一次
+     */
+    private void checkCallbackTarget(URI uri) {
+        String host = uri.getHost();
+        if (host == null || host.isEmpty()) {
+            throw new IllegalArgumentException("callbackUrl has no host");
+        }
+        try {
+            resolveCallbackHost(host);
+        } catch (RejectedHostException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Unknown callbackUrl host: " + host, e);
+        }
+    }
+
+    /**
+     * 解析并校验回调主机：配置了白名单时只允许白名单内的主机；未配置时拒绝解析到回环、内网、
+     * 链路本地（含云元数据地址）等内部地址的主机。回调请求不跟随重定向
+     */
+    private InetAddress[] resolveCallbackHost(String host) throws UnknownHostException {
+        String name = host.toLowerCase();
+        List<String> allowedHosts = config.getCallbackAllowedHosts();
+        if (allowedHosts != null && !allowedHosts.isEmpty()) {
+            for (String allowed : allowedHosts) {
+                String entry = allowed.trim().toLowerCase();
+                if (entry.startsWith(".") ? name.endsWith(entry) : name.equals(entry)) {
+                    return InetAddress.getAllByName(host);
+                }
+            }
+            throw new RejectedHostException("callbackUrl host is not allowed: " + name);
+        }
+        InetAddress[] addresses = InetAddress.getAllByName(host);
+        for (InetAddress address : addresses) {
+            if (isInternalAddress(address)) {
+                throw new RejectedHostException("callbackUrl must not point to an internal address: " + name);
+            }
+        }
+        return addresses;
+    }
+
+    private static boolean isInternalAddress(InetAddress address) {
+        if (address.isAnyLocalAddress() || address.isLoopbackAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return true;
+        }
+        byte[] bytes = address.getAddress();
+        if (bytes.length == 4) {
+            // 100.64.0.0/10 运营商级NAT
+            return (bytes[0] & 0xff) == 100 && (bytes[1] & 0xc0) == 64;
+        }
+        // fc00::/7 IPv6唯一本地地址
+        return (bytes[0] & 0xfe) == 0xfc;
+    }
+
+    private <E extends Enum<E>> E parse(Class<E> type, String value, String name) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize processing job", e);
+        }
+    }
+
+    private Date leaseUntil(Date now) {
+        return new Date(now.getTime() + TimeUnit.SECONDS.toMillis(config.getLeaseSeconds()));
+    }
+
+    private String messageOf(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    private String truncate(String message) {
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+
+    /**
+     * 一个优先级通道：领取线程只在有空闲工作线程时领取任务，领取数量不超过空闲线程数
+     */
+    private class LaneWorker {
+        private final ProcessingJob.Lane lane;
+        private final int workers;
+        private final MonitoredThreadPoolExecutor executor;
+        private final AtomicInteger active = new AtomicInteger();
+        private final Semaphore wakeups = new Semaphore(0);
+        private Thread poller;
+
+        LaneWorker(ProcessingJob.Lane lane, int workers) {
+            this.lane = lane;
+            this.workers = Math.max(1, workers);
+            String name = "job-" + lane.name().toLowerCase();
+            this.executor = MonitoredThreadPoolExecutor.aborting(name, this.workers, this.workers, this.workers, 60);
+        }
+
+        void start() {
+            poller = new Thread(this::poll, "job-poller-" + lane.name().toLowerCase());
+            poller.setDaemon(true);
+            poller.start();
+        }
+
+        void stop() {
+            if (poller != null) {
+                poller.interrupt();
+            }
+            executor.shutdown();
+            try {
+                executor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void wakeUp() {
+            wakeups.release();
+        }
+
+        private void poll() {
+            while (running && !Thread.currentThread().isInterrupted()) {
+                try {
+                    int free = workers - active.get();
+                    List<ProcessingJob> claimed = free > 0 ? claim(lane, free) : List.of();
+                    for (ProcessingJob job : claimed) {
+                        active.incrementAndGet();
+                        executor.execute(() -> {
+                            try {
+                                execute(job);
+                            } finally {
+                                active.decrementAndGet();
+                                wakeUp();
+                            }
+                        });
+                    }
+                    // 领满了说明可能还有待执行任务，有线程空闲时马上再领
+                    if (claimed.isEmpty() || claimed.size() < free) {
+                        wakeups.tryAcquire(config.getPollIntervalMillis(), TimeUnit.MILLISECONDS);
+                    } else {
+                        wakeups.acquire();
+                    }
+                    wakeups.drainPermits();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to claim processing jobs in lane {}", lane, e);
+                    try {
+                        Thread.sleep(config.getPollIntervalMillis());
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 回调主机未通过校验，不再重试
+     */
+    private static class RejectedHostException extends UnknownHostException {
+        RejectedHostException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,669 @@
+package com.ayw.commomservice.service.impl;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.ServiceException;
+import com.ayw.commomservice.config.StorageProperties;
+import com.ayw.commomservice.model.DirectUpload;
+import com.ayw.commomservice.model.FileStat;
+import com.ayw.commomservice.service.StorageService;
+import com.qcloud.cos.exception.CosClientException;
+import com.qcloud.cos.exception.CosServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * 多后端分片存储服务
+ * 按文件ID一致性哈希到多个存储后端（不同存储平台或同一平台的多个存储桶），分散单个存储桶的请求频率限制；
+ * 配置副本数后每个文件并行写入哈希环上相邻的多个后端，读取时优先选择近期最快且没有失败的副本，失败时依次尝试其他副本
+ */
+public class ShardedStorageService implements StorageService {
+    /**
+     * 后端名称拼入分片上传ID，只允许普通标识符
+     */
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    /**
+     * 响应时间滑动平均中最近一次请求的权重
+     */
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    /**
+     * 阿里云OSS服务端错误的错误码，OSS异常不带HTTP状态码
+     */
+    private static final Set<String> OSS_SERVER_ERRORS = Set.of("InternalError", "ServiceUnavailable");
+
+    private final Logger log = LoggerFactory.getLogger(ShardedStorageService.class);
+    private final Map<String, Replica> replicas = new LinkedHashMap<>();
+    private final TreeMap<Long, Replica> ring = new TreeMap<>();
+    private final int replicationFactor;
+    private final Executor replicaExecutor;
+    private final int memoryThreshold;
+    private final Path spoolDir;
+    private final long failureCooldownNanos;
+
+    /**
+     * 异步上传使用的线程池
+     */
+    private Executor uploadExecutor;
+
+    /**
+     * @param shards 参与分片的后端，名称决定其在哈希环上的位置
+     * @param replicaExecutor 并行写入各副本的线程池，不能与调用upload的线程池相同
+     */
+    public ShardedStorageService(List<Shard> shards, StorageProperties.Sharding config, Executor replicaExecutor) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("Sharded storage requires at least one backend");
+        }
+        for (Shard shard : shards) {
+            if (shard.name() == null || !NAME.matcher(shard.name()).matches()) {
+                throw new IllegalArgumentException("Invalid storage backend name: " + shard.name());
+            }
+            if (replicas.putIfAbsent(shard.name(), new Replica(shard.name(), shard.storageService())) != null) {
+                throw new IllegalArgumentException("Duplicate storage backend name: " + shard.name());
+            }
+        }
+        int virtualNodes = Math.max(1, config.getVirtualNodes());
+        for (Replica replica : replicas.values()) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(replica.name + "#" + i), replica);
+            }
+        }
+        this.replicationFactor = Math.max(1, Math.min(config.getReplicationFactor(), replicas.size()));
+        this.replicaExecutor = replicaExecutor;
+        this.memoryThreshold = config.getMemoryThreshold();
+        this.spoolDir = Paths.get(config.getSpoolDir()).toAbsolutePath().normalize();
+        this.failureCooldownNanos = TimeUnit.SECONDS.toNanos(config.getFailureCooldownSeconds());
+        try {
+            Files.createDirectories(spoolDir);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create replica spool directory: " + spoolDir, e);
+        }
+    }
+
+    public void setUploadExecutor(Executor uploadExecutor) {
+        this.uploadExecutor = uploadExecutor;
+    }
+
+    @Override
+    public String upload(InputStream inputStream, String fileName, String contentType, Map<String, String> metadata) {
+        return uploadWithFileId(generateFileId(fileName), inputStream, contentType, metadata);
+    }
+
+    /**
+     * 单副本时直接流式写入；多副本时先暂存内容，再从暂存内容并行写入各副本，任一副本失败则删除已写入的副本
+     */
+    @Override
+    public String uploadWithFileId(String fileId, InputStream inputStream, String contentType, Map<String, String> metadata) {
+        List<Replica> targets = replicasOf(fileId);
+        if (targets.size() == 1) {
+            return targets.get(0).storageService.uploadWithFileId(fileId, inputStream, contentType, metadata);
+        }
+        Path spoolFile = null;
+        try {
+            byte[] content = inputStream.readNBytes(memoryThreshold + 1);
+            if (content.length > memoryThreshold) {
+                spoolFile = Files.createTempFile(spoolDir, "replica-", ".tmp");
+                try (OutputStream outputStream = Files.newOutputStream(spoolFile)) {
+                    outputStream.write(content);
+                    inputStream.transferTo(outputStream);
+                }
+                content = null;
+            }
+            byte[] buffered = content;
+            Path spooled = spoolFile;
+            fanOut(targets, replica -> {
+                try (InputStream source = buffered != null ? new ByteArrayInputStream(buffered) : Files.newInputStream(spooled)) {
+                    return replica.storageService.uploadWithFileId(fileId, source, contentType, metadata);
+                }
+            }, replica -> replica.storageService.delete(fileId));
+            log.debug("File replicated to {} backends: {}", targets.size(), fileId);
+            return fileId;
+        } catch (IOException e) {
+            log.error("Failed to read upload stream: {}", fileId, e);
+            throw new RuntimeException("Failed to upload file", e);
+        } finally {
+            deleteQuietly(spoolFile);
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> uploadAsync(InputStream inputStream, String fileName, String contentType, Map<String, String> metadata) {
+        if (uploadExecutor == null) {
+            try {
+                return CompletableFuture.completedFuture(upload(inputStream, fileName, contentType, metadata));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> upload(inputStream, fileName, contentType, metadata), uploadExecutor);
+    }
+
+    @Override
+    public InputStream download(String fileId) {
+        return read(fileId, storageService -> storageService.download(fileId));
+    }
+
+    @Override
+    public InputStream download(String fileId, long start, long end) {
+        return read(fileId, storageService -> storageService.download(fileId, start, end));
+    }
+
+    /**
+     * 已有内容写入输出流后不能再换副本重试，只有尚未写出任何字节时才尝试下一个副本
+     */
+    @Override
+    public long transferTo(String fileId, long start, long end, OutputStream outputStream) throws IOException {
+        CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
+        IOException failure = null;
+        for (Replica replica : readOrder(fileId)) {
+            long startTime = System.nanoTime();
+            try {
+                long transferred = replica.storageService.transferTo(fileId, start, end, countingOutputStream);
+                replica.recordSuccess(System.nanoTime() - startTime);
+                return transferred;
+            } catch (IOException | RuntimeException e) {
+                replica.recordFailure(e);
+                if (countingOutputStream.count > 0) {
+                    throw e;
+                }
+                log.warn("Failed to transfer {} from backend {}, trying next replica", fileId, replica.name, e);
+                if (failure == null) {
+                    failure = e instanceof IOException ioException ? ioException : new IOException(e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        throw failure;
+    }
+
+    @Override
+    public FileStat stat(String fileId) {
+        return read(fileId, storageService -> storageService.stat(fileId));
+    }
+
+    /**
+     * 删除所有副本，任一副本删除成功即返回true
+     */
+    @Override
+    public boolean delete(String fileId) {
+        List<Replica> targets = replicasOf(fileId);
+        if (targets.size() == 1) {
+            return targets.get(0).storageService.delete(fileId);
+        }
+        return fanOut(targets, replica -> replica.storageService.delete(fileId), null)
+                .stream().anyMatch(Boolean::booleanValue);
+    }
+
+    /**
+     * 按副本所在后端分组，各后端并行执行批量删除，任一副本删除成功即记为成功
+     */
+    @Override
+    public Map<String, Boolean> deleteBatch(Collection<String> fileIds) {
+        Map<Replica, List<String>> byReplica = new LinkedHashMap<>();
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        for (String fileId : fileIds) {
+            if (results.putIfAbsent(fileId, false) == null) {
+                for (Replica replica : replicasOf(fileId)) {
+                    byReplica.computeIfAbsent(replica, key -> new ArrayList<>()).add(fileId);
+                }
+            }
+        }
+        if (byReplica.isEmpty()) {
+            return results;
+        }
+        List<Replica> targets = new ArrayList<>(byReplica.keySet());
+        List<Map<String, Boolean>> replicaResults = targets.size() == 1
+                ? List.of(targets.get(0).storageService.deleteBatch(byReplica.get(targets.get(0))))
+                : fanOut(targets, replica -> replica.storageService.deleteBatch(byReplica.get(replica)), null);
+        for (Map<String, Boolean> replicaResult : replicaResults) {
+            replicaResult.forEach((fileId, deleted) -> {
+                if (deleted) {
+                    results.put(fileId, true);
+                }
+            });
+        }
+        return results;
+    }
+
+    /**
+     * 固定使用哈希环上第一个没有近期失败的副本签名，同一文件的URL保持不变，浏览器和CDN缓存才能命中
+     */
+    @Override
+    public String generatePresignedUrl(String fileId, long expireSeconds) {
+        List<Replica> targets = replicasOf(fileId);
+        long now = System.nanoTime();
+        Replica signer = targets.stream().filter(replica -> !replica.isCoolingDown(now)).findFirst().orElse(targets.get(0));
+        return signer.storageService.generatePresignedUrl(fileId, expireSeconds);
+    }
+
+    @Override
+    public Map<String, String> generatePresignedUrls(Collection<String> fileIds, long expireSeconds) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (String fileId : fileIds) {
+            urls.computeIfAbsent(fileId, id -> generatePresignedUrl(id, expireSeconds));
+        }
+        return urls;
+    }
+
+    @Override
+    public DirectUpload prepareDirectUpload(String fileName, String contentType, long maxSize, long expireSeconds) {
+        return prepareDirectUploadWithFileId(generateFileId(fileName), contentType, maxSize, expireSeconds);
+    }
+
+    /**
+     * 浏览器只直传到主副本，其余副本在确认上传时复制
+     */
+    @Override
+    public DirectUpload prepareDirectUploadWithFileId(String fileId, String contentType, long maxSize, long expireSeconds) {
+        return replicasOf(fileId).get(0).storageService
+                .prepareDirectUploadWithFileId(fileId, contentType, maxSize, expireSeconds);
+    }
+
+    /**
+     * 只支持单副本的分片上传，多副本时每个分片需要分别写入各副本，浏览器无法直传
+     */
+    @Override
+    public String generatePresignedPartUrl(String uploadId, int partNumber, long expireSeconds) {
+        List<ReplicaUpload> uploads = parseUploadId(uploadId);
+        if (uploads.size() > 1) {
+            throw new UnsupportedOperationException("Direct part upload requires a single replica");
+        }
+        ReplicaUpload upload = uploads.get(0);
+        return upload.replica().storageService.generatePresignedPartUrl(upload.uploadId(), partNumber, expireSeconds);
+    }
+
+    /**
+     * 确认主副本上的文件后，从主副本读取内容并行写入其余副本
+     */
+    @Override
+    public FileStat confirmDirectUpload(String fileId) {
+        List<Replica> targets = replicasOf(fileId);
+        Replica primary = targets.get(0);
+        FileStat stat = primary.storageService.confirmDirectUpload(fileId);
+        if (targets.size() > 1) {
+            fanOut(targets.subList(1, targets.size()), replica -> {
+                try (InputStream inputStream = primary.storageService.download(fileId)) {
+                    return replica.storageService.uploadWithFileId(
+                            fileId, inputStream, stat.getContentType(), stat.getMetadata());
+                }
+            }, null);
+        }
+        return stat;
+    }
+
+    @Override
+    public String initiateMultipartUpload(String fileName, String contentType, long fileSize) {
+        return initiateMultipartUploadWithFileId(generateFileId(fileName), contentType, null);
+    }
+
+    /**
+     * 在每个副本上分别初始化分片上传
+     * @return 由“后端名称:分片上传ID”逗号连接而成的组合ID，后续调用据此找到各副本，不需要额外保存状态
+     */
+    @Override
+    public String initiateMultipartUploadWithFileId(String fileId, String contentType, Map<String, String> metadata) {
+        List<Replica> targets = replicasOf(fileId);
+        Map<Replica, String> uploadIds = new HashMap<>();
+        List<String> parts = fanOut(targets, replica -> {
+            String uploadId = replica.storageService.initiateMultipartUploadWithFileId(fileId, contentType, metadata);
+            synchronized (uploadIds) {
+                uploadIds.put(replica, uploadId);
+            }
+            return replica.name + ":" + uploadId;
+        }, replica -> {
+            String uploadId;
+            synchronized (uploadIds) {
+                uploadId = uploadIds.get(replica);
+            }
+            replica.storageService.abortMultipartUpload(uploadId);
+            return null;
+        });
+        return String.join(",", parts);
+    }
+
+    /**
+     * 多副本时分片内容读入内存后并行写入各副本
+     * @return 各副本的ETag按组合ID中的顺序逗号连接
+     */
+    @Override
+    public String uploadPart(String uploadId, int partNumber, InputStream inputStream, long partSize) {
+        List<ReplicaUpload> uploads = parseUploadId(uploadId);
+        if (uploads.size() == 1) {
+            ReplicaUpload upload = uploads.get(0);
+            return upload.replica().storageService.uploadPart(upload.uploadId(), partNumber, inputStream, partSize);
+        }
+        byte[] part;
+        try {
+            part = inputStream.readAllBytes();
+        } catch (IOException e) {
+            log.error("Failed to read part {} of upload {}", partNumber, uploadId, e);
+            throw new RuntimeException("Failed to upload part", e);
+        }
+        List<String> eTags = fanOutUploads(uploads, upload -> upload.replica().storageService.uploadPart(
+                upload.uploadId(), partNumber, new ByteArrayInputStream(part), part.length));
+        return String.join(",", eTags);
+    }
+
+    @Override
+    public String completeMultipartUpload(String uploadId, Map<Integer, String> parts) {
+        List<ReplicaUpload> uploads = parseUploadId(uploadId);
+        List<Map<Integer, String>> replicaParts = new ArrayList<>(uploads.size());
+        for (int i = 0; i < uploads.size(); i++) {
+            replicaParts.add(new TreeMap<>());
+        }
+        for (Map.Entry<Integer, String> part : parts.entrySet()) {
+            String[] eTags = part.getValue().split(",", -1);
+            if (eTags.length != uploads.size()) {
+                throw new IllegalArgumentException("Invalid ETag for part " + part.getKey());
+            }
+            for (int i = 0; i < eTags.length; i++) {
+                replicaParts.get(i).put(part.getKey(), eTags[i]);
+            }
+        }
+        List<String> fileIds = fanOutUploads(uploads, upload -> upload.replica().storageService.completeMultipartUpload(
+                upload.uploadId(), replicaParts.get(uploads.indexOf(upload))));
+        return fileIds.get(0);
+    }
+
+    @Override
+    public void abortMultipartUpload(String uploadId) {
+        fanOutUploads(parseUploadId(uploadId), upload -> {
+            upload.replica().storageService.abortMultipartUpload(upload.uploadId());
+            return null;
+        });
+    }
+
+    /**
+     * 从哈希环上文件ID所在位置顺时针取副本数个不同的后端，第一个为主副本
+     */
+    private List<Replica> replicasOf(String fileId) {
+        List<Replica> targets = new ArrayList<>(replicationFactor);
+        long hash = hash(fileId);
+        for (Replica replica : ring.tailMap(hash).values()) {
+            if (targets.size() == replicationFactor) {
+                return targets;
+            }
+            if (!targets.contains(replica)) {
+                targets.add(replica);
+            }
+        }
+        for (Replica replica : ring.headMap(hash).values()) {
+            if (targets.size() == replicationFactor) {
+                break;
+            }
+            if (!targets.contains(replica)) {
+                targets.add(replica);
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * 读取顺序：冷却期内失败过的副本排在最后，其余按近期响应时间从快到慢
+     */
+    private List<Replica> readOrder(String fileId) {
+        List<Replica> targets = replicasOf(fileId);
+        if (targets.size() > 1) {
+            long now = System.nanoTime();
+            targets.sort(Comparator.comparing((Replica replica) -> replica.isCoolingDown(now))
+                    .thenComparingLong(replica -> replica.latencyNanos.get()));
+        }
+        return targets;
+    }
+
+    private <T> T read(String fileId, ReplicaCall<StorageService, T> call) {
+        RuntimeException failure = null;
+        for (Replica replica : readOrder(fileId)) {
+            long startTime = System.nanoTime();
+            try {
+                T result = call.apply(replica.storageService);
+                replica.recordSuccess(System.nanoTime() - startTime);
+                return result;
+            } catch (IOException | RuntimeException e) {
+                replica.recordFailure(e);
+                log.warn("Failed to read {} from backend {}, trying next replica", fileId, replica.name, e);
+                RuntimeException exception = e instanceof RuntimeException runtimeException
+                        ? runtimeException : new RuntimeException(e);
+                if (failure == null) {
+                    failure = exception;
+                } else {
+                    failure.addSuppressed(exception);
+                }
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * 在各副本上并行执行写操作，任一副本失败时对已成功的副本执行回滚后抛出异常
+     * @param rollback 回滚操作，为null时不回滚
+     * @return 按副本顺序排列的结果
+     */
+    private <T> List<T> fanOut(List<Replica> targets, ReplicaCall<Replica, T> call, ReplicaCall<Replica, ?> rollback) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(targets.size());
+        for (Replica replica : targets) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return call.apply(replica);
+                } catch (IOException | RuntimeException e) {
+                    replica.recordFailure(e);
+                    throw new CompletionException(e);
+                }
+            }, replicaExecutor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (rollback != null) {
+                for (int i = 0; i < targets.size(); i++) {
+                    if (!futures.get(i).isCompletedExceptionally()) {
+                        rollbackQuietly(targets.get(i), rollback);
+                    }
+                }
+            }
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("Failed to write to all {} replicas", targets.size(), cause);
+            throw cause instanceof RuntimeException runtimeException ? runtimeException : new RuntimeException(cause);
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private <T> List<T> fanOutUploads(List<ReplicaUpload> uploads, ReplicaCall<ReplicaUpload, T> call) {
+        if (uploads.size() == 1) {
+            try {
+                return List.of(call.apply(uploads.get(0)));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        Map<Replica, ReplicaUpload> byReplica = new LinkedHashMap<>();
+        for (ReplicaUpload upload : uploads) {
+            byReplica.put(upload.replica(), upload);
+        }
+        return fanOut(new ArrayList<>(byReplica.keySet()), replica -> call.apply(byReplica.get(replica)), null);
+    }
+
+    private void rollbackQuietly(Replica replica, ReplicaCall<Replica, ?> rollback) {
+        try {
+            rollback.apply(replica);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to roll back partial write on backend {}", replica.name, e);
+        }
+    }
+
+    private List<ReplicaUpload> parseUploadId(String uploadId) {
+        List<ReplicaUpload> uploads = new ArrayList<>();
+        for (String part : uploadId.split(",")) {
+            int separator = part.indexOf(':');
+            Replica replica = separator > 0 ? replicas.get(part.substring(0, separator)) : null;
+            if (replica == null) {
+                throw new IllegalArgumentException("Unknown uploadId: " + uploadId);
+            }
+            uploads.add(new ReplicaUpload(replica, part.substring(separator + 1)));
+        }
+        return uploads;
+    }
+
+    private String generateFileId(String fileName) {
+        String uuid = UUID.randomUUID().toString().replace("-", "");
+        int extensionIndex = fileName.lastIndexOf('.');
+        return extensionIndex > 0 ? uuid + fileName.substring(extensionIndex) : uuid;
+    }
+
+    /**
+     * 取MD5的前8个字节作为哈希环上的位置，分布均匀且与JVM无关
+     */
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not supported", e);
+        }
+    }
+
+    /**
+     * 沿异常链判断是否为后端故障，各存储服务把平台异常包装为RuntimeException抛出
+     */
+    static boolean isBackendFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CosServiceException cosException) {
+                return cosException.getStatusCode() >= 500;
+            }
+            if (cause instanceof ServiceException ossException) {
+                return OSS_SERVER_ERRORS.contains(ossException.getErrorCode());
+            }
+            if (cause instanceof CosClientException || cause instanceof ClientException) {
+                return true;
+            }
+            if (cause instanceof NoSuchFileException || cause instanceof FileNotFoundException) {
+                return false;
+            }
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete replica spool file: {}", file, e);
+        }
+    }
+
+    /**
+     * 参与分片的存储后端
+     * @param name 后端名称
+     * @param storageService 后端存储服务
+     */
+    public record Shard(String name, StorageService storageService) {
+    }
+
+    private record ReplicaUpload(Replica replica, String uploadId) {
+    }
+
+    @FunctionalInterface
+    private interface ReplicaCall<S, T> {
+        T apply(S target) throws IOException;
+    }
+
+    /**
+     * 后端及其近期响应时间和失败时间
+     */
+    private final class Replica {
+        private final String name;
+        private final StorageService storageService;
+        private final AtomicLong latencyNanos = new AtomicLong();
+        private volatile long failedAt;
+        private volatile boolean failed;
+
+        Replica(String name, StorageService storageService) {
+            this.name = name;
+            this.storageService = storageService;
+        }
+
+        void recordSuccess(long elapsedNanos) {
+            latencyNanos.getAndUpdate(current -> current == 0
+                    ? elapsedNanos
+                    : (long) (current * (1 - LATENCY_WEIGHT) + elapsedNanos * LATENCY_WEIGHT));
+        }
+
+        /**
+         * 只有网络错误和存储平台5xx错误才说明后端不可用；文件不存在、参数错误等不影响读取顺序
+         */
+        void recordFailure(Exception e) {
+            if (isBackendFailure(e)) {
+                failedAt = System.nanoTime();
+                failed = true;
+            }
+        }
+
+        boolean isCoolingDown(long now) {
+            return failed && now - failedAt < failureCooldownNanos;
+        }
+    }
+
+    /**
+     * 统计已写出字节数的输出流
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.ayw.commomservice.service.impl;
+
+import com.ayw.commomservice.config.StorageProperties;
+import com.ayw.commomservice.model.DirectUpload;
+import com.ayw.commomservice.model.FileStat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qcloud.cos.COSClient;
+import com.qcloud.cos.ClientConfig;
+import com.qcloud.cos.auth.BasicCOSCredentials;
+import com.qcloud.cos.endpoint.EndpointBuilder;
+import com.qcloud.cos.exception.MultiObjectDeleteException;
+import com.qcloud.cos.http.HttpMethodName;
+import com.qcloud.cos.http.HttpProtocol;
+import com.qcloud.cos.model.*;
+import com.qcloud.cos.region.Region;
+import com.qcloud.cos.transfer.TransferManager;
+import com.qcloud.cos.transfer.TransferManagerConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 腾讯云COS存储服务
+ * 大文件上传交给TransferManager，拆分为多个分块在传输线程池中并发传输；
+ * 小文件直接整体上传，下载时直接返回对象流
+ */
+public class TencentCosStorageService extends AbstractStorageService {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Logger log = LoggerFactory.getLogger(TencentCosStorageService.class);
+    private final COSClient cosClient;
+    private final TransferManager transferManager;
+    private final String bucketName;
+    private final int partSize;
+    private final long multipartThreshold;
+    private final Path spoolDir;
+    private final String secretId;
+    private final String secretKey;
+
+    /**
+     * 浏览器表单直传的地址
+     */
+    private final String formUrl;
+
+    /**
+     * @param transferExecutor TransferManager传输分块使用的线程池
+     */
+    public TencentCosStorageService(StorageProperties.Tencent tencentConfig, ExecutorService transferExecutor) {
+        ClientConfig clientConfig = new ClientConfig(new Region(tencentConfig.getRegion()));
+        clientConfig.setHttpProtocol(HttpProtocol.valueOf(tencentConfig.getHttpProtocol()));
+        clientConfig.setMaxConnectionsCount(tencentConfig.getMaxConnections());
+        clientConfig.setConnectionTimeout(tencentConfig.getConnectionTimeoutMillis());
+        clientConfig.setSocketTimeout(tencentConfig.getSocketTimeoutMillis());
+        String endpoint = tencentConfig.getEndpoint();
+        if (endpoint != null && !endpoint.isEmpty()) {
+            // 所有请求发往固定地址，用于自定义域名或本地模拟服务
+            clientConfig.setEndpointBuilder(new EndpointBuilder() {
+                @Override
+                public String buildGeneralApiEndpoint(String bucketName) {
+                    return endpoint;
+                }
+
+                @Override
+                public String buildGetServiceApiEndpoint() {
+                    return endpoint;
+                }
+            });
+        }
+        // 创建COS客户端实例
+        this.cosClient = new COSClient(
+                new BasicCOSCredentials(tencentConfig.getSecretId(), tencentConfig.getSecretKey()),
+                clientConfig);
+        this.bucketName = tencentConfig.getBucketName();
+        this.partSize = tencentConfig.getPartSize();
+        this.multipartThreshold = Math.max(tencentConfig.getMultipartThreshold(), partSize);
+        this.spoolDir = Paths.get(tencentConfig.getSpoolDir()).toAbsolutePath().normalize();
+        this.secretId = tencentConfig.getSecretId();
+        this.secretKey = tencentConfig.getSecretKey();
+        this.formUrl = tencentConfig.getHttpProtocol() + "://" + (endpoint != null && !endpoint.isEmpty()
+                ? endpoint : bucketName + ".cos." + tencentConfig.getRegion() + ".myqcloud.com");
+
+        this.transferManager = new TransferManager(cosClient, transferExecutor, false);
+        TransferManagerConfiguration transferConfig = new TransferManagerConfiguration();
+        transferConfig.setMultipartUploadThreshold(multipartThreshold);
+        transferConfig.setMinimumUploadPartSize(partSize);
+        transferManager.setConfiguration(transferConfig);
+
+        try {
+            Files.createDirectories(spoolDir);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create COS spool directory: " + spoolDir, e);
+        }
+
+        // 检查桶是否存在，如果不存在则创建
+        if (!cosClient.doesBucketExist(bucketName)) {
+            cosClient.createBucket(bucketName);
+            log.info("Created bucket: {}", bucketName);
+        } else {
+            log.info("Bucket already exists: {}", bucketName);
+        }
+    }
+
+    /**
+     * 不超过一个分块的内容整体上传；更大的内容先暂存到本地文件，
+     * TransferManager只对文件来源并发上传分块，对输入流只能逐块顺序上传
+     */
+    @Override
+    public String uploadWithFileId(String fileId, InputStream inputStream, String contentType, Map<String, String> metadata) {
+        Path spoolFile = null;
+        try {
+            byte[] content = inputStream.readNBytes(partSize + 1);
+            if (content.length <= partSize) {
+                return putObject(fileId, new ByteArrayInputStream(content), content.length, contentType, metadata);
+            }
+            spoolFile = Files.createTempFile(spoolDir, "upload-", ".tmp");
+            try (OutputStream outputStream = Files.newOutputStream(spoolFile)) {
+                outputStream.write(content);
+                inputStream.transferTo(outputStream);
+            }
+            PutObjectRequest request = new PutObjectRequest(bucketName, fileId, spoolFile.toFile());
+            request.setMetadata(buildObjectMetadata(contentType, metadata));
+            transferManager.upload(request).waitForUploadResult();
+            log.debug("File uploaded successfully: {}", fileId);
+            return fileId;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while uploading file: {}", fileId, e);
+            throw new RuntimeException("Failed to upload file", e);
+        } catch (Exception e) {
+            log.error("Failed to upload file: {}", fileId, e);
+            throw new RuntimeException("Failed to upload file", e);
+        } finally {
+            deleteQuietly(spoolFile);
+        }
+    }
+
+    @Override
+    protected String putObject(String fileId, InputStream inputStream, long contentLength,
+                               String contentType, Map<String, String> metadata) {
+        try {
+            ObjectMetadata objectMetadata = buildObjectMetadata(contentType, metadata);
+            if (contentLength >= 0) {
+                objectMetadata.setContentLength(contentLength);
+            }
+            cosClient.putObject(new PutObjectRequest(bucketName, fileId, inputStream, objectMetadata));
+            log.debug("File uploaded successfully: {}", fileId);
+            return fileId;
+        } catch (Exception e) {
+            log.error("Failed to upload file: {}", fileId, e);
+            throw new RuntimeException("Failed to upload file", e);
+        }
+    }
+
+    /**
+     * 直接返回GET响应的对象流，调用方读到第一个字节前不等待整个对象传输完成
+     */
+    @Override
+    public InputStream download(String fileId) {
+        try {
+            COSObject cosObject = cosClient.getObject(new GetObjectRequest(bucketName, fileId));
+            log.debug("File downloaded successfully: {}", fileId);
+            return cosObject.getObjectContent();
+        } catch (Exception e) {
+            log.error("Failed to download file: {}", fileId, e);
+            throw new RuntimeException("Failed to download file", e);
+        }
+    }
+
+    @Override
+    public InputStream download(String fileId, long start, long end) {
+        try {
+            GetObjectRequest request = new GetObjectRequest(bucketName, fileId);
+            // 只拉取需要的字节范围
+            request.setRange(start, end);
+            COSObject cosObject = cosClient.getObject(request);
+            log.debug("File range {}-{} downloaded successfully: {}", start, end, fileId);
+            return cosObject.getObjectContent();
+        } catch (Exception e) {
+            log.error("Failed to download file range {}-{}: {}", start, end, fileId, e);
+            throw new RuntimeException("Failed to download file range", e);
+        }
+    }
+
+    @Override
+    public FileStat stat(String fileId) {
+        try {
+            ObjectMetadata objectMetadata = cosClient.getObjectMetadata(bucketName, fileId);
+            FileStat stat = new FileStat();
+            stat.setFileId(fileId);
+            stat.setSize(objectMetadata.getContentLength());
+            stat.setContentType(objectMetadata.getContentType());
+            stat.setETag(objectMetadata.getETag());
+            stat.setLastModified(objectMetadata.getLastModified());
+            stat.setMetadata(objectMetadata.getUserMetadata());
+            return stat;
+        } catch (Exception e) {
+            log.error("Failed to stat file: {}", fileId, e);
+            throw new RuntimeException("Failed to stat file", e);
+        }
+    }
+
+    @Override
+    public boolean delete(String fileId) {
+        try {
+            cosClient.deleteObject(bucketName, fileId);
+            log.debug("File deleted successfully: {}", fileId);
+            return true;
+        } catch (Exception e) {
+            log.error("Failed to delete file: {}", fileId, e);
+            return false;
+        }
+    }
+
+    /**
+     * 批量删除，每批最多1000个文件用一次DeleteObjects请求删除，多批并发执行
+     */
+    @Override
+    public Map<String, Boolean> deleteBatch(Collection<String> fileIds) {
+        return deleteInBatches(fileIds, 1000, batch -> {
+            DeleteObjectsRequest request = new DeleteObjectsRequest(bucketName);
+            request.setKeys(batch.stream().map(DeleteObjectsRequest.KeyVersion::new).toList());
+            try {
+                List<DeleteObjectsResult.DeletedObject> deleted = cosClient.deleteObjects(request).getDeletedObjects();
+                log.debug("Deleted {} of {} files in batch", deleted.size(), batch.size());
+                return deleted.stream().map(DeleteObjectsResult.DeletedObject::getKey).toList();
+            } catch (MultiObjectDeleteException e) {
+                // 部分文件删除失败时异常中带有删除成功的文件
+                log.warn("Failed to delete {} of {} files in batch, first error: {}", e.getErrors().size(), batch.size(),
+                        e.getErrors().isEmpty() ? null : e.getErrors().get(0).getMessage());
+                return e.getDeletedObjects().stream().map(DeleteObjectsResult.DeletedObject::getKey).toList();
+            }
+        });
+    }
+
+    @Override
+    protected String doGeneratePresignedUrl(String fileId, Date expiration) {
+        try {
+            URL url = cosClient.generatePresignedUrl(bucketName, fileId, expiration, HttpMethodName.GET);
+            log.debug("Generated presigned URL for file: {}", fileId);
+            return url.toString();
+        } catch (Exception e) {
+            log.error("Failed to generate presigned URL for file: {}", fileId, e);
+            throw new RuntimeException("Failed to generate presigned URL", e);
+        }
+    }
+
+    /**
+     * 签名PUT URL和PostObject表单策略都在本地计算，不访问COS；表单策略限定存储桶、文件ID和大小
+     */
+    @Override
+    protected DirectUpload doPrepareDirectUpload(String fileId, String contentType, long maxSize, Date expiration) {
+        try {
+            GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucketName, fileId, HttpMethodName.PUT);
+            request.setExpiration(expiration);
+            URL uploadUrl = cosClient.generatePresignedUrl(request);
+
+            String keyTime = System.currentTimeMillis() / 1000 + ";" + expiration.getTime() / 1000;
+            Map<String, Object> policy = new LinkedHashMap<>();
+            policy.put("expiration", Instant.ofEpochMilli(expiration.getTime()).toString());
+            policy.put("conditions", List.of(
+                    Map.of("q-sign-algorithm", "sha1"),
+                    Map.of("q-ak", secretId),
+                    Map.of("q-sign-time", keyTime),
+                    Map.of("bucket", bucketName),
+                    Map.of("key", fileId),
+                    List.of("content-length-range", 0, maxSize)));
+            String policyJson = OBJECT_MAPPER.writeValueAsString(policy);
+            // 签名方式：SignKey = HMAC-SHA1(SecretKey, KeyTime)，Signature = HMAC-SHA1(SignKey, SHA1(Policy))
+            String signKey = hmacSha1Hex(secretKey, keyTime);
+            String stringToSign = HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-1").digest(policyJson.getBytes(StandardCharsets.UTF_8)));
+            Map<String, String> formFields = new LinkedHashMap<>();
+            formFields.put("key", fileId);
+            formFields.put("policy", Base64.getEncoder().encodeToString(policyJson.getBytes(StandardCharsets.UTF_8)));
+            formFields.put("q-sign-algorithm", "sha1");
+            formFields.put("q-ak", secretId);
+            formFields.put("q-key-time", keyTime);
+            formFields.put("q-signature", hmacSha1Hex(signKey, stringToSign));
+            formFields.put("success_action_status", "200");
+            if (contentType != null) {
+                formFields.put("Content-Type", contentType);
+            }
+
+            DirectUpload directUpload = new DirectUpload();
+            directUpload.setUploadUrl(uploadUrl.toString());
+            directUpload.setFormUrl(formUrl);
+            directUpload.setFormFields(formFields);
+            log.debug("Prepared direct upload for file: {}", fileId);
+            return directUpload;
+        } catch (Exception e) {
+            log.error("Failed to prepare direct upload for file: {}", fileId, e);
+            throw new RuntimeException("Failed to prepare direct upload", e);
+        }
+    }
+
+    @Override
+    protected String doGeneratePresignedPartUrl(String fileId, String uploadId, int partNumber, Date expiration) {
+        try {
+            GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucketName, fileId, HttpMethodName.PUT);
+            request.setExpiration(expiration);
+            request.addRequestParameter("uploadId", uploadId);
+            request.addRequestParameter("partNumber", String.valueOf(partNumber));
+            return cosClient.generatePresignedUrl(request).toString();
+        } catch (Exception e) {
+            log.error("Failed to generate presigned URL for part {} of upload: {}", partNumber, uploadId, e);
+            throw new RuntimeException("Failed to generate presigned part URL", e);
+        }
+    }
+
+    @Override
+    protected String doInitiateMultipartUpload(String fileId, String contentType, Map<String, String> metadata) {
+        try {
+            InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(bucketName, fileId);
+            request.setObjectMetadata(buildObjectMetadata(contentType, metadata));
+            InitiateMultipartUploadResult result = cosClient.initiateMultipartUpload(request);
+            log.debug("Initiated multipart upload for file: {}", fileId);
+            return result.getUploadId();
+        } catch (Exception e) {
+            log.error("Failed to initiate multipart upload for file: {}", fileId, e);
+            throw new RuntimeException("Failed to initiate multipart upload", e);
+        }
+    }
+
+    @Override
+    protected String doUploadPart(String fileId, String uploadId, int partNumber, InputStream inputStream, long partSize) {
+        try {
+            UploadPartRequest request = new UploadPartRequest();
+            request.setBucketName(bucketName);
+            request.setKey(fileId);
+            request.setUploadId(uploadId);
+            request.setPartNumber(partNumber);
+            request.setInputStream(inputStream);
+            request.setPartSize(partSize);
+            UploadPartResult result = cosClient.uploadPart(request);
+            log.debug("Uploaded part {} for file: {}", partNumber, fileId);
+            return result.getETag();
+        } catch (Exception e) {
+            log.error("Failed to upload part {} for uploadId: {}", partNumber, uploadId, e);
+            throw new RuntimeException("Failed to upload part", e);
+        }
+    }
+
+    @Override
+    protected void doCompleteMultipartUpload(String fileId, String uploadId, Map<Integer, String> parts) {
+        try {
+            // COS要求按分片编号升序排列
+            List<PartETag> partETags = new ArrayList<>();
+            for (Map.Entry<Integer, String> entry : new TreeMap<>(parts).entrySet()) {
+                partETags.add(new PartETag(entry.getKey(), entry.getValue()));
+            }
+            cosClient.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, fileId, uploadId, partETags));
+            log.debug("Completed multipart upload for file: {}", fileId);
+        } catch (Exception e) {
+            log.error("Failed to complete multipart upload for uploadId: {}", uploadId, e);
+            throw new RuntimeException("Failed to complete multipart upload", e);
+        }
+    }
+
+    @Override
+    protected void doAbortMultipartUpload(String fileId, String uploadId) {
+        try {
+            cosClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, fileId, uploadId));
+            log.debug("Aborted multipart upload for file: {}", fileId);
+        } catch (Exception e) {
+            log.error("Failed to abort multipart upload for uploadId: {}", uploadId, e);
+            throw new RuntimeException("Failed to abort multipart upload", e);
+        }
+    }
+
+    private static String hmacSha1Hex(String key, String data) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA1");
+        mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA1"));
+        return HexFormat.of().formatHex(mac.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private ObjectMetadata buildObjectMetadata(String contentType, Map<String, String> metadata) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        if (contentType != null) {
+            objectMetadata.setContentType(contentType);
+        }
+        if (metadata != null) {
+            for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                objectMetadata.addUserMetadata(entry.getKey(), entry.getValue());
+            }
+        }
+        return objectMetadata;
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete COS spool file: {}", file, e);
+        }
+    }
+}
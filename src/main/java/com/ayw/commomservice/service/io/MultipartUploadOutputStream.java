@@ -0,0 +1,193 @@
+package com.ayw.commomservice.service.io;
+
+import com.ayw.commomservice.service.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 写入即上传的输出流
+ * 写满一个分片就提交到线程池上传，写入数据与上传同时进行（能否重叠取决于调用方何时写出数据）；
+ * 分片缓冲区循环复用，占用内存固定为 分片大小 x (并发数 + 1)，上传跟不上时写入方阻塞等待
+ */
+public class MultipartUploadOutputStream extends OutputStream {
+    private final Logger log = LoggerFactory.getLogger(MultipartUploadOutputStream.class);
+
+    private final StorageService storageService;
+    private final Executor executor;
+    private final String uploadId;
+    private final int maxRetries;
+
+    /**
+     * 空闲缓冲区，容量即同时存在的缓冲区数量
+     */
+    private final BlockingQueue<byte[]> freeBuffers;
+    private final int bufferCount;
+    private final Map<Integer, String> partETags = new ConcurrentHashMap<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private byte[] buffer;
+    private int position;
+    private int nextPartNumber = 1;
+    private long size;
+    private boolean closed;
+    private boolean aborted;
+    private String fileId;
+
+    /**
+     * @param fileName 文件名，用于生成文件ID
+     * @param partSize 分片大小
+     * @param concurrency 同时上传的分片数
+     * @param maxRetries 单个分片失败重试次数
+     */
+    public MultipartUploadOutputStream(StorageService storageService, Executor executor, String fileName,
+                                       String contentType, int partSize, int concurrency, int maxRetries) {
+        this.storageService = storageService;
+        this.executor = executor;
+        this.maxRetries = maxRetries;
+        // 总大小事先未知
+        this.uploadId = storageService.initiateMultipartUpload(fileName, contentType, -1);
+        this.bufferCount = Math.max(1, concurrency) + 1;
+        this.freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+        for (int i = 0; i < bufferCount; i++) {
+            freeBuffers.add(new byte[partSize]);
+        }
+        this.buffer = freeBuffers.poll();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (position == buffer.length) {
+            submitPart();
+        }
+        buffer[position++] = (byte) b;
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (position == buffer.length) {
+                submitPart();
+            }
+            int count = Math.min(len, buffer.length - position);
+            System.arraycopy(b, off, buffer, position, count);
+            position += count;
+            off += count;
+            len -= count;
+            size += count;
+        }
+    }
+
+    /**
+     * 上传最后一个分片并合并
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (position > 0 || nextPartNumber == 1) {
+                submitPart();
+            }
+            // 所有缓冲区都归还说明分片都已上传结束
+            freeBuffers.add(buffer);
+            buffer = null;
+            for (int i = 0; i < bufferCount; i++) {
+                freeBuffers.take();
+            }
+            checkFailure();
+            fileId = storageService.completeMultipartUpload(uploadId, new TreeMap<>(partETags));
+            log.debug("Streamed multipart upload completed: {}, {} bytes in {} parts", fileId, size, partETags.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort();
+            throw new InterruptedIOException("Interrupted while waiting for part uploads");
+        } catch (IOException | RuntimeException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    /**
+     * 放弃上传，已上传的分片由存储平台清理
+     */
+    public void abort() {
+        closed = true;
+        if (aborted) {
+            return;
+        }
+        aborted = true;
+        try {
+            storageService.abortMultipartUpload(uploadId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to abort multipart upload: {}", uploadId, e);
+        }
+    }
+
+    /**
+     * @return 上传完成后的文件ID，close之前返回null
+     */
+    public String getFileId() {
+        return fileId;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    private void submitPart() throws IOException {
+        checkFailure();
+        byte[] part = buffer;
+        int length = position;
+        int partNumber = nextPartNumber++;
+        executor.execute(() -> {
+            try {
+                if (failure.get() == null) {
+                    partETags.put(partNumber,
+                            PartUploads.uploadWithRetry(storageService, uploadId, partNumber, part, length, maxRetries));
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                freeBuffers.add(part);
+            }
+        });
+        try {
+            // 没有空闲缓冲区时等待分片上传完成
+            buffer = freeBuffers.take();
+            position = 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for part upload");
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() throws IOException {
+        Throwable error = failure.get();
+        if (error != null) {
+            throw new IOException("Failed to upload part", error);
+        }
+    }
+}
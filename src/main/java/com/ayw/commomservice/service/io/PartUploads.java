@@ -0,0 +1,48 @@
+package com.ayw.commomservice.service.io;
+
+import com.ayw.commomservice.service.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+
+/**
+ * 分片上传的重试：失败后按 100ms、200ms、400ms... 退避重试，避免存储平台限流或抖动时立即重试加剧拥塞
+ */
+public final class PartUploads {
+    private static final Logger log = LoggerFactory.getLogger(PartUploads.class);
+
+    /**
+     * 第一次重试前的等待毫秒数，之后每次翻倍
+     */
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+
+    private PartUploads() {
+    }
+
+    /**
+     * 上传分片，失败时退避重试
+     * @param part 分片内容，取前length个字节
+     * @param maxRetries 失败重试次数
+     * @return 分片ETag
+     */
+    public static String uploadWithRetry(StorageService storageService, String uploadId, int partNumber,
+                                         byte[] part, int length, int maxRetries) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return storageService.uploadPart(uploadId, partNumber, new ByteArrayInputStream(part, 0, length), length);
+            } catch (RuntimeException e) {
+                if (attempt >= Math.max(0, maxRetries)) {
+                    throw e;
+                }
+                log.warn("Retrying part {} of upload {} (attempt {})", partNumber, uploadId, attempt + 1, e);
+                try {
+                    Thread.sleep(INITIAL_BACKOFF_MILLIS << attempt);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+}
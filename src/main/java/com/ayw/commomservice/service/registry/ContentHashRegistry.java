@@ -0,0 +1,145 @@
+package com.ayw.commomservice.service.registry;
+
+import com.ayw.commomservice.mapper.ContentHashMapper;
+import com.ayw.commomservice.model.ContentHash;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 内容摘要到文件ID的映射及引用计数
+ * 未配置数据库时保存在内存中；配置了数据库时以数据库为准，多个节点共享同一份引用计数
+ */
+public class ContentHashRegistry {
+    /**
+     * 删除文件时的引用情况
+     */
+    public enum Release {
+        /**
+         * 文件不是去重上传的，直接删除
+         */
+        NOT_TRACKED,
+        /**
+         * 仍有其他上传引用该文件，不删除
+         */
+        REFERENCED,
+        /**
+         * 最后一个引用已释放，需要删除文件
+         */
+        UNREFERENCED
+    }
+
+    private final ContentHashMapper mapper;
+
+    /**
+     * 内存模式下的记录，由this加锁保护
+     */
+    private final Map<String, ContentHash> entries = new HashMap<>();
+    private final Map<String, String> keysByFileId = new HashMap<>();
+
+    /**
+     * @param mapper 数据库映射，为null时只保存在内存中
+     */
+    public ContentHashRegistry(ContentHashMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * 增加已有内容的引用
+     * @param tenant 租户，没有时为空字符串；不同租户的相同内容不共用文件
+     * @param contentType 文件类型，没有时为空字符串
+     * @return 已有文件的ID，内容未登记时返回null
+     */
+    public String acquire(String contentHash, String tenant, String extension, String contentType) {
+        if (mapper != null) {
+            if (mapper.incrementRefCount(contentHash, tenant, extension, contentType) == 0) {
+                return null;
+            }
+            ContentHash existing = mapper.selectByHash(contentHash, tenant, extension, contentType);
+            return existing != null ? existing.getFileId() : null;
+        }
+        synchronized (this) {
+            ContentHash existing = entries.get(key(contentHash, tenant, extension, contentType));
+            if (existing == null) {
+                return null;
+            }
+            existing.setRefCount(existing.getRefCount() + 1);
+            return existing.getFileId();
+        }
+    }
+
+    /**
+     * 登记新上传的内容，引用计数为1
+     * @return 是否登记成功，相同内容已被并发的上传登记时返回false
+     */
+    public boolean register(String contentHash, String tenant, String extension, String contentType,
+                            String fileId, long size) {
+        ContentHash entry = new ContentHash();
+        entry.setContentHash(contentHash);
+        entry.setTenant(tenant);
+        entry.setExtension(extension);
+        entry.setContentType(contentType);
+        entry.setFileId(fileId);
+        entry.setRefCount(1);
+        entry.setSize(size);
+        entry.setCreatedAt(new Date());
+        if (mapper != null) {
+            return mapper.insertIgnore(entry) > 0;
+        }
+        synchronized (this) {
+            String key = key(contentHash, tenant, extension, contentType);
+            if (entries.putIfAbsent(key, entry) != null) {
+                return false;
+            }
+            keysByFileId.put(fileId, key);
+            return true;
+        }
+    }
+
+    /**
+     * 释放文件的一个引用，引用计数减到0时移除记录
+     */
+    public Release release(String fileId) {
+        if (mapper != null) {
+            if (mapper.decrementRefCount(fileId) == 0) {
+                return Release.NOT_TRACKED;
+            }
+            return mapper.deleteUnreferenced(fileId) > 0 ? Release.UNREFERENCED : Release.REFERENCED;
+        }
+        synchronized (this) {
+            String key = keysByFileId.get(fileId);
+            if (key == null) {
+                return Release.NOT_TRACKED;
+            }
+            ContentHash entry = entries.get(key);
+            entry.setRefCount(entry.getRefCount() - 1);
+            if (entry.getRefCount() > 0) {
+                return Release.REFERENCED;
+            }
+            entries.remove(key);
+            keysByFileId.remove(fileId);
+            return Release.UNREFERENCED;
+        }
+    }
+
+    /**
+     * 文件被覆盖写入后内容已与登记的摘要不符，移除记录，之后的相同内容不再复用该文件
+     */
+    public void forget(String fileId) {
+        if (mapper != null) {
+            mapper.deleteByFileId(fileId);
+            return;
+        }
+        synchronized (this) {
+            String key = keysByFileId.remove(fileId);
+            if (key != null) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    private String key(String contentHash, String tenant, String extension, String contentType) {
+        return tenant + "|" + contentHash + extension + "|" + contentType;
+    }
+}
@@ -0,0 +1,81 @@
+package com.ayw.commomservice.service.registry;
+
+import com.ayw.commomservice.mapper.DirectUploadGrantMapper;
+import com.ayw.commomservice.model.DirectUploadGrant;
+
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已发放的直传凭证
+ * 签名PUT URL无法限制请求体大小，申请凭证时记录允许的最大字节数，确认上传时按此校验；
+ * 配置了数据库时持久化，确认请求落到其他节点或服务重启后仍可校验
+ */
+public class DirectUploadRegistry {
+    private final DirectUploadGrantMapper mapper;
+
+    /**
+     * 内存模式下的记录
+     */
+    private final ConcurrentHashMap<String, DirectUploadGrant> grants = new ConcurrentHashMap<>();
+
+    /**
+     * @param mapper 数据库映射，为null时只保存在内存中
+     */
+    public DirectUploadRegistry(DirectUploadGrantMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * 登记发放的凭证
+     */
+    public void register(String fileId, long maxSize, Date expiration) {
+        DirectUploadGrant grant = new DirectUploadGrant();
+        grant.setFileId(fileId);
+        grant.setMaxSize(maxSize);
+        grant.setExpiration(expiration);
+        grant.setCreatedAt(new Date());
+        if (mapper != null) {
+            mapper.upsert(grant);
+        } else {
+            grants.put(fileId, grant);
+        }
+    }
+
+    /**
+     * 查询凭证
+     * @return 凭证，不存在时返回null
+     */
+    public DirectUploadGrant find(String fileId) {
+        return mapper != null ? mapper.selectByFileId(fileId) : grants.get(fileId);
+    }
+
+    /**
+     * 确认上传后移除
+     */
+    public void remove(String fileId) {
+        if (mapper != null) {
+            mapper.deleteByFileId(fileId);
+        } else {
+            grants.remove(fileId);
+        }
+    }
+
+    /**
+     * 发放时间早于cutoff、一直没有确认的凭证对应的文件ID
+     * @param limit 最多返回的条数
+     */
+    public List<String> listCreatedBefore(Date cutoff, int limit) {
+        if (mapper != null) {
+            return mapper.selectCreatedBefore(cutoff, limit);
+        }
+        return grants.values().stream()
+                .filter(grant -> grant.getCreatedAt().before(cutoff))
+                .sorted(Comparator.comparing(DirectUploadGrant::getCreatedAt))
+                .limit(limit)
+                .map(DirectUploadGrant::getFileId)
+                .toList();
+    }
+}
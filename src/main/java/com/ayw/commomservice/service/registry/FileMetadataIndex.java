@@ -0,0 +1,258 @@
+package com.ayw.commomservice.service.registry;
+
+import com.ayw.commomservice.mapper.FileMetadataMapper;
+import com.ayw.commomservice.model.FileListQuery;
+import com.ayw.commomservice.model.FileMetadata;
+import com.ayw.commomservice.model.FilePage;
+import com.ayw.commomservice.model.FileStat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * 文件元信息索引
+ * 上传、完成分片上传和删除时同步写入，查询文件元信息和列出文件只读索引，不访问存储平台；
+ * 配置了数据库时以数据库为准，前面加一层有过期时间的内存缓存，多个节点共享同一份索引；未配置数据库时只保存在内存中
+ */
+public class FileMetadataIndex {
+    /**
+     * 元数据中表示租户的键
+     */
+    public static final String TENANT_KEY = "tenant";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, String>> METADATA_TYPE = new TypeReference<>() {
+    };
+
+    private final FileMetadataMapper mapper;
+    private final long cacheTtlMillis;
+
+    /**
+     * 数据库记录的缓存，按访问顺序淘汰，由自身加锁保护
+     */
+    private final Map<String, CachedStat> cache;
+
+    /**
+     * 内存模式下的记录，按文件ID排序
+     */
+    private final ConcurrentSkipListMap<String, FileMetadata> entries = new ConcurrentSkipListMap<>();
+
+    /**
+     * @param mapper 数据库映射，为null时只保存在内存中
+     * @param cacheSize 缓存的记录数上限
+     * @param cacheTtlSeconds 缓存有效期，其他节点删除或覆盖文件后本节点最多在这段时间内读到旧记录
+     */
+    public FileMetadataIndex(FileMetadataMapper mapper, int cacheSize, long cacheTtlSeconds) {
+        this.mapper = mapper;
+        this.cacheTtlMillis = cacheTtlSeconds * 1000;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStat> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * 写入或覆盖文件的元信息
+     */
+    public void put(FileStat stat) {
+        FileMetadata fileMetadata = toFileMetadata(stat);
+        if (mapper == null) {
+            entries.put(fileMetadata.getFileId(), fileMetadata);
+            return;
+        }
+        mapper.upsert(fileMetadata);
+        cachePut(fileMetadata.getFileId(), toFileStat(fileMetadata));
+    }
+
+    /**
+     * 查询文件的元信息
+     * @return 文件元信息，未登记时返回null
+     */
+    public FileStat get(String fileId) {
+        if (mapper == null) {
+            FileMetadata fileMetadata = entries.get(fileId);
+            return fileMetadata != null ? toFileStat(fileMetadata) : null;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            CachedStat cached = cache.get(fileId);
+            if (cached != null && cached.expiresAt() > now) {
+                return cached.stat();
+            }
+        }
+        FileMetadata fileMetadata = mapper.selectById(fileId);
+        if (fileMetadata == null) {
+            return null;
+        }
+        FileStat stat = toFileStat(fileMetadata);
+        cachePut(fileId, stat);
+        return stat;
+    }
+
+    public void remove(String fileId) {
+        synchronized (cache) {
+            cache.remove(fileId);
+        }
+        if (mapper != null) {
+            mapper.deleteById(fileId);
+        } else {
+            entries.remove(fileId);
+        }
+    }
+
+    public void removeAll(Collection<String> fileIds) {
+        if (fileIds.isEmpty()) {
+            return;
+        }
+        synchronized (cache) {
+            cache.keySet().removeAll(fileIds);
+        }
+        if (mapper != null) {
+            mapper.deleteByIds(fileIds);
+        } else {
+            entries.keySet().removeAll(fileIds);
+        }
+    }
+
+    /**
+     * 按游标分页列出文件
+     * @param query 查询条件
+     * @param cursor 上一页返回的游标，首页为null
+     * @return 一页文件，还有更多数据时带下一页的游标
+     * @throws IllegalArgumentException 游标格式错误
+     */
+    public FilePage list(FileListQuery query, String cursor) {
+        if (cursor != null && !cursor.isEmpty()) {
+            decodeCursor(cursor, query);
+        }
+        int limit = query.getLimit();
+        // 多取一条判断是否还有下一页
+        query.setLimit(limit + 1);
+        List<FileMetadata> rows;
+        if (mapper != null) {
+            String prefix = query.getPrefix();
+            query.setPrefix(prefix != null ? escapeLike(prefix) : null);
+            rows = mapper.list(query);
+            query.setPrefix(prefix);
+        } else {
+            rows = listFromMemory(query);
+        }
+        query.setLimit(limit);
+
+        FilePage page = new FilePage();
+        List<FileStat> files = new ArrayList<>(Math.min(rows.size(), limit));
+        for (FileMetadata row : rows.subList(0, Math.min(rows.size(), limit))) {
+            files.add(toFileStat(row));
+        }
+        page.setFiles(files);
+        if (rows.size() > limit) {
+            page.setNextCursor(encodeCursor(rows.get(limit - 1)));
+        }
+        return page;
+    }
+
+    private List<FileMetadata> listFromMemory(FileListQuery query) {
+        boolean byTime = query.getOrder() == FileListQuery.Order.TIME;
+        String afterFileId = query.getAfterFileId();
+        Collection<FileMetadata> candidates = !byTime && afterFileId != null
+                ? entries.tailMap(afterFileId, false).values()
+                : entries.values();
+        Stream<FileMetadata> stream = candidates.stream()
+                .filter(row -> query.getTenant() == null || query.getTenant().equals(row.getTenant()))
+                .filter(row -> query.getPrefix() == null || row.getFileId().startsWith(query.getPrefix()))
+                .filter(row -> query.getFrom() == null || !row.getLastModified().before(query.getFrom()))
+                .filter(row -> query.getTo() == null || row.getLastModified().before(query.getTo()));
+        if (byTime) {
+            Comparator<FileMetadata> newestFirst = Comparator.comparing(FileMetadata::getLastModified)
+                    .thenComparing(FileMetadata::getFileId)
+                    .reversed();
+            if (afterFileId != null) {
+                FileMetadata after = new FileMetadata();
+                after.setFileId(afterFileId);
+                after.setLastModified(query.getAfterTime());
+                stream = stream.filter(row -> newestFirst.compare(row, after) > 0);
+            }
+            stream = stream.sorted(newestFirst);
+        }
+        return stream.limit(query.getLimit()).toList();
+    }
+
+    private void cachePut(String fileId, FileStat stat) {
+        synchronized (cache) {
+            cache.put(fileId, new CachedStat(stat, System.currentTimeMillis() + cacheTtlMillis));
+        }
+    }
+
+    /**
+     * 游标为上一页最后一条的修改时间和文件ID
+     */
+    private String encodeCursor(FileMetadata last) {
+        String value = last.getLastModified().getTime() + ":" + last.getFileId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void decodeCursor(String cursor, FileListQuery query) {
+        String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separator = value.indexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        query.setAfterTime(new Date(Long.parseLong(value.substring(0, separator))));
+        query.setAfterFileId(value.substring(separator + 1));
+    }
+
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private FileMetadata toFileMetadata(FileStat stat) {
+        Map<String, String> metadata = stat.getMetadata();
+        FileMetadata fileMetadata = new FileMetadata();
+        fileMetadata.setFileId(stat.getFileId());
+        fileMetadata.setTenant(metadata != null && metadata.get(TENANT_KEY) != null ? metadata.get(TENANT_KEY) : "");
+        fileMetadata.setSize(stat.getSize());
+        fileMetadata.setContentType(stat.getContentType());
+        fileMetadata.setETag(stat.getETag());
+        fileMetadata.setLastModified(stat.getLastModified() != null ? stat.getLastModified() : new Date());
+        try {
+            fileMetadata.setMetadata(metadata != null && !metadata.isEmpty() ? OBJECT_MAPPER.writeValueAsString(metadata) : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Failed to serialize metadata of file: " + stat.getFileId(), e);
+        }
+        return fileMetadata;
+    }
+
+    private FileStat toFileStat(FileMetadata fileMetadata) {
+        FileStat stat = new FileStat();
+        stat.setFileId(fileMetadata.getFileId());
+        stat.setSize(fileMetadata.getSize());
+        stat.setContentType(fileMetadata.getContentType());
+        stat.setETag(fileMetadata.getETag());
+        stat.setLastModified(fileMetadata.getLastModified());
+        try {
+            stat.setMetadata(fileMetadata.getMetadata() != null
+                    ? OBJECT_MAPPER.readValue(fileMetadata.getMetadata(), METADATA_TYPE)
+                    : Map.of());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupted metadata of file: " + fileMetadata.getFileId(), e);
+        }
+        return stat;
+    }
+
+    private record CachedStat(FileStat stat, long expiresAt) {
+    }
+}
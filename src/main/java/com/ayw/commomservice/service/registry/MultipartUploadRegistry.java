@@ -0,0 +1,75 @@
+package com.ayw.commomservice.service.registry;
+
+import com.ayw.commomservice.mapper.MultipartUploadMapper;
+import com.ayw.commomservice.model.MultipartUpload;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分片上传ID与文件ID的映射
+ * 内存中缓存进行中的上传，配置了数据库时同时持久化，分片请求落到其他节点或重启后仍可找回
+ */
+public class MultipartUploadRegistry {
+    private final ConcurrentHashMap<String, MultipartUpload> uploads = new ConcurrentHashMap<>();
+    private final MultipartUploadMapper mapper;
+
+    /**
+     * @param mapper 数据库映射，为null时只保存在内存中
+     */
+    public MultipartUploadRegistry(MultipartUploadMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * 登记分片上传
+     */
+    public void register(String uploadId, String fileId, String contentType) {
+        MultipartUpload upload = new MultipartUpload();
+        upload.setUploadId(uploadId);
+        upload.setFileId(fileId);
+        upload.setContentType(contentType);
+        upload.setCreatedAt(new Date());
+        if (mapper != null) {
+            mapper.insert(upload);
+        }
+        uploads.put(uploadId, upload);
+    }
+
+    /**
+     * 查询分片上传
+     * @return 分片上传记录，不存在时返回null
+     */
+    public MultipartUpload find(String uploadId) {
+        MultipartUpload upload = uploads.get(uploadId);
+        if (upload == null && mapper != null) {
+            upload = mapper.selectByUploadId(uploadId);
+            if (upload != null) {
+                uploads.putIfAbsent(uploadId, upload);
+            }
+        }
+        return upload;
+    }
+
+    /**
+     * 查询分片上传对应的文件ID
+     * @throws IllegalArgumentException 分片上传不存在
+     */
+    public String getFileId(String uploadId) {
+        MultipartUpload upload = find(uploadId);
+        if (upload == null) {
+            throw new IllegalArgumentException("Unknown uploadId: " + uploadId);
+        }
+        return upload.getFileId();
+    }
+
+    /**
+     * 分片上传完成或取消后移除
+     */
+    public void remove(String uploadId) {
+        uploads.remove(uploadId);
+        if (mapper != null) {
+            mapper.deleteByUploadId(uploadId);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.ayw.commomservice.service.registry;
+
+import com.ayw.commomservice.mapper.UploadSessionMapper;
+import com.ayw.commomservice.model.MultipartUploadStatus;
+import com.ayw.commomservice.model.UploadSession;
+import com.ayw.commomservice.model.UploadedPart;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 客户端分片上传会话及已上传的分片
+ * 每个分片上传成功后立即登记，客户端断线重连后查询缺少的分片只补传这些分片，完成时直接使用登记的ETag；
+ * 配置了数据库时持久化，分片请求落到其他节点或服务重启后仍可续传
+ */
+public class UploadSessionRegistry {
+    private final UploadSessionMapper mapper;
+
+    /**
+     * 内存模式下的记录
+     */
+    private final ConcurrentHashMap<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentSkipListMap<Integer, UploadedPart>> parts = new ConcurrentHashMap<>();
+
+    /**
+     * @param mapper 数据库映射，为null时只保存在内存中
+     */
+    public UploadSessionRegistry(UploadSessionMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * 登记上传会话
+     * @param fileSize 文件总大小，未知时为0
+     * @param partSize 分片大小，未知时为0
+     */
+    public void register(String uploadId, long fileSize, int partSize) {
+        UploadSession session = new UploadSession();
+        session.setUploadId(uploadId);
+        session.setFileSize(Math.max(0, fileSize));
+        session.setPartSize(Math.max(0, partSize));
+        session.setCreatedAt(new Date());
+        session.setLastActiveAt(session.getCreatedAt());
+        if (mapper != null) {
+            mapper.insert(session);
+        } else {
+            sessions.put(uploadId, session);
+        }
+    }
+
+    /**
+     * 登记上传成功的分片
+     */
+    public void recordPart(String uploadId, int partNumber, long size, String eTag) {
+        UploadedPart part = new UploadedPart();
+        part.setUploadId(uploadId);
+        part.setPartNumber(partNumber);
+        part.setSize(size);
+        part.setETag(eTag);
+        part.setUploadedAt(new Date());
+        if (mapper != null) {
+            mapper.upsertPart(part);
+            mapper.touch(uploadId, part.getUploadedAt());
+        } else {
+            parts.computeIfAbsent(uploadId, key -> new ConcurrentSkipListMap<>()).put(partNumber, part);
+            UploadSession session = sessions.get(uploadId);
+            if (session != null) {
+                session.setLastActiveAt(part.getUploadedAt());
+            }
+        }
+    }
+
+    /**
+     * 会话是否存在
+     */
+    public boolean contains(String uploadId) {
+        return mapper != null ? mapper.selectByUploadId(uploadId) != null : sessions.containsKey(uploadId);
+    }
+
+    /**
+     * 查询上传进度
+     * @return 上传进度，会话不存在时返回null
+     */
+    public MultipartUploadStatus getStatus(String uploadId) {
+        UploadSession session = mapper != null ? mapper.selectByUploadId(uploadId) : sessions.get(uploadId);
+        if (session == null) {
+            return null;
+        }
+        List<UploadedPart> uploaded = listParts(uploadId);
+        MultipartUploadStatus status = new MultipartUploadStatus();
+        status.setUploadId(uploadId);
+        status.setFileSize(session.getFileSize());
+        status.setPartSize(session.getPartSize());
+        status.setParts(uploaded);
+        status.setMissingParts(missingParts(session, uploaded));
+        return status;
+    }
+
+    /**
+     * 已上传的分片，按分片编号排序
+     */
+    public List<UploadedPart> listParts(String uploadId) {
+        if (mapper != null) {
+            return mapper.selectParts(uploadId);
+        }
+        ConcurrentSkipListMap<Integer, UploadedPart> uploaded = parts.get(uploadId);
+        return uploaded != null ? new ArrayList<>(uploaded.values()) : new ArrayList<>();
+    }
+
+    /**
+     * 最后活动时间（创建会话或最后一次登记分片）早于cutoff的会话，用于清理客户端放弃的上传；
+     * 仍在持续上传分片的大文件不会因为创建得早而被清理
+     * @param limit 最多返回的条数
+     */
+    public List<String> listInactiveSince(Date cutoff, int limit) {
+        if (mapper != null) {
+            return mapper.selectInactiveSince(cutoff, limit);
+        }
+        return sessions.values().stream()
+                .filter(session -> session.getLastActiveAt().before(cutoff))
+                .sorted(Comparator.comparing(UploadSession::getLastActiveAt))
+                .limit(limit)
+                .map(UploadSession::getUploadId)
+                .toList();
+    }
+
+    /**
+     * 上传完成或取消后移除
+     */
+    public void remove(String uploadId) {
+        if (mapper != null) {
+            mapper.deleteParts(uploadId);
+            mapper.deleteByUploadId(uploadId);
+        } else {
+            parts.remove(uploadId);
+            sessions.remove(uploadId);
+        }
+    }
+
+    /**
+     * 文件大小和分片大小已知时按总分片数计算，否则只计算已上传的最大编号之前的空缺
+     */
+    private List<Integer> missingParts(UploadSession session, List<UploadedPart> uploaded) {
+        Set<Integer> uploadedNumbers = new HashSet<>();
+        int maxPartNumber = 0;
+        for (UploadedPart part : uploaded) {
+            uploadedNumbers.add(part.getPartNumber());
+            maxPartNumber = Math.max(maxPartNumber, part.getPartNumber());
+        }
+        int totalParts = maxPartNumber;
+        if (session.getFileSize() > 0 && session.getPartSize() > 0) {
+            totalParts = (int) ((session.getFileSize() + session.getPartSize() - 1) / session.getPartSize());
+        }
+        List<Integer> missing = new ArrayList<>();
+        for (int partNumber = 1; partNumber <= totalParts; partNumber++) {
+            if (!uploadedNumbers.contains(partNumber)) {
+                missing.add(partNumber);
+            }
+        }
+        return missing;
+    }
+}
@@ -0,0 +1,119 @@
+package com.ayw.commomservice.service.registry;
+
+import com.ayw.commomservice.config.StorageProperties;
+import com.ayw.commomservice.service.StorageErrors;
+import com.ayw.commomservice.service.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定期清理客户端放弃的分片上传：超过保留时长没有新分片的会话取消存储平台上的分片上传后移除，
+ * 否则已上传的分片一直占用存储空间，会话记录也一直留在表中；超过保留时长仍未确认的直传凭证按确认流程处理，
+ * 客户端上传了超出授权大小的文件却不确认时同样会被删除
+ */
+public class UploadSessionSweeper implements SmartLifecycle {
+    /**
+     * 每轮最多处理的会话数，剩余的下一轮继续
+     */
+    private static final int BATCH_SIZE = 500;
+
+    private final Logger log = LoggerFactory.getLogger(UploadSessionSweeper.class);
+    private final UploadSessionRegistry registry;
+    private final DirectUploadRegistry directUploadRegistry;
+    private final StorageService storageService;
+    private final long ttlMillis;
+    private final long intervalSeconds;
+    private ScheduledExecutorService executor;
+    private volatile boolean running;
+
+    public UploadSessionSweeper(UploadSessionRegistry registry, DirectUploadRegistry directUploadRegistry,
+                                StorageService storageService, StorageProperties.Multipart multipartConfig) {
+        this.registry = registry;
+        this.directUploadRegistry = directUploadRegistry;
+        this.storageService = storageService;
+        this.ttlMillis = TimeUnit.HOURS.toMillis(multipartConfig.getSessionTtlHours());
+        this.intervalSeconds = Math.max(1, multipartConfig.getSessionSweepIntervalSeconds());
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (ttlMillis <= 0) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "upload-session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::sweep, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 取消失败（如上传已在存储平台上完成或取消）时同样移除会话，残留的分片交给存储桶的生命周期规则
+     */
+    void sweep() {
+        try {
+            Date cutoff = new Date(System.currentTimeMillis() - ttlMillis);
+            sweepDirectUploads(cutoff);
+            List<String> stale = registry.listInactiveSince(cutoff, BATCH_SIZE);
+            for (String uploadId : stale) {
+                try {
+                    storageService.abortMultipartUpload(uploadId);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to abort stale multipart upload: {}", uploadId, e);
+                }
+                registry.remove(uploadId);
+            }
+            if (!stale.isEmpty()) {
+                log.info("Removed {} stale multipart upload sessions", stale.size());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to sweep stale multipart upload sessions", e);
+        }
+    }
+
+    /**
+     * 未确认的直传凭证：文件超出授权大小时由确认流程删除，文件不存在时只移除凭证，
+     * 其他失败（如存储平台不可用）保留凭证留待下一轮
+     */
+    private void sweepDirectUploads(Date cutoff) {
+        List<String> stale = directUploadRegistry.listCreatedBefore(cutoff, BATCH_SIZE);
+        for (String fileId : stale) {
+            try {
+                storageService.confirmDirectUpload(fileId);
+            } catch (IllegalStateException e) {
+                log.warn("Deleted unconfirmed oversize direct upload: {}", fileId);
+            } catch (RuntimeException e) {
+                if (!StorageErrors.isNotFound(e)) {
+                    log.warn("Failed to check unconfirmed direct upload: {}", fileId, e);
+                    continue;
+                }
+                directUploadRegistry.remove(fileId);
+            }
+        }
+        if (!stale.isEmpty()) {
+            log.info("Checked {} unconfirmed direct uploads", stale.size());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+CREATE TABLE IF NOT EXISTS multipart_upload (
+    upload_id    VARCHAR(255) NOT NULL PRIMARY KEY,
+    file_id      VARCHAR(512) NOT NULL,
+    content_type VARCHAR(255),
+    created_at   DATETIME(3)  NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS direct_upload_grant (
+    file_id    VARCHAR(512) NOT NULL PRIMARY KEY,
+    max_size   BIGINT       NOT NULL,
+    expiration DATETIME(3)  NOT NULL,
+    created_at DATETIME(3)  NOT NULL,
+    INDEX idx_direct_upload_grant_created_at (created_at)
+);
+
+CREATE TABLE IF NOT EXISTS content_hash (
+    content_hash CHAR(64)     NOT NULL,
+    tenant       VARCHAR(64)  NOT NULL DEFAULT '',
+    extension    VARCHAR(32)  NOT NULL,
+    content_type VARCHAR(255) NOT NULL,
+    file_id      VARCHAR(512) NOT NULL,
+    ref_count    INT          NOT NULL,
+    size         BIGINT       NOT NULL,
+    created_at   DATETIME(3)  NOT NULL,
+    PRIMARY KEY (tenant, content_hash, extension, content_type),
+    UNIQUE KEY uk_content_hash_file_id (file_id)
+);
+
+CREATE TABLE IF NOT EXISTS processing_job (
+    job_id         VARCHAR(64)  NOT NULL PRIMARY KEY,
+    type           VARCHAR(16)  NOT NULL,
+    file_id        VARCHAR(512),
+    operation      VARCHAR(64)  NOT NULL,
+    params         MEDIUMTEXT,
+    lane           VARCHAR(16)  NOT NULL,
+    status         VARCHAR(16)  NOT NULL,
+    result_file_id VARCHAR(512),
+    error          VARCHAR(1024),
+    callback_url   VARCHAR(1024),
+    attempts       INT          NOT NULL DEFAULT 0,
+    lease_owner    VARCHAR(128),
+    lease_until    DATETIME(3),
+    created_at     DATETIME(3)  NOT NULL,
+    started_at     DATETIME(3),
+    completed_at   DATETIME(3),
+    -- 领取任务时按通道和状态取最早提交的任务
+    KEY idx_processing_job_claim (lane, status, created_at),
+    KEY idx_processing_job_lease (status, lease_until),
+    KEY idx_processing_job_completed (completed_at)
+);
+
+CREATE TABLE IF NOT EXISTS file_metadata (
+    file_id       VARCHAR(512) NOT NULL PRIMARY KEY,
+    tenant        VARCHAR(64)  NOT NULL DEFAULT '',
+    size          BIGINT       NOT NULL,
+    content_type  VARCHAR(255),
+    etag          VARCHAR(128),
+    metadata      TEXT,
+    last_modified DATETIME(3)  NOT NULL,
+    -- 按租户和前缀列出、按时间列出，二级索引隐含主键file_id，可直接作为游标的第二列
+    KEY idx_file_metadata_tenant_id (tenant, file_id),
+    KEY idx_file_metadata_tenant_time (tenant, last_modified),
+    KEY idx_file_metadata_time (last_modified)
+);
+
+CREATE TABLE IF NOT EXISTS upload_session (
+    upload_id  VARCHAR(512) NOT NULL PRIMARY KEY,
+    file_size  BIGINT       NOT NULL,
+    part_size  INT          NOT NULL,
+    created_at     DATETIME(3)  NOT NULL,
+    last_active_at DATETIME(3)  NOT NULL,
+    INDEX idx_upload_session_last_active_at (last_active_at)
+);
+
+CREATE TABLE IF NOT EXISTS upload_session_part (
+    upload_id   VARCHAR(512)  NOT NULL,
+    part_number INT           NOT NULL,
+    size        BIGINT        NOT NULL,
+    etag        VARCHAR(1024) NOT NULL,
+    uploaded_at DATETIME(3)   NOT NULL,
+    PRIMARY KEY (upload_id, part_number)
+);
@@ -0,0 +1,116 @@
+package com.ayw.commomservice.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证对冲期限按耗时分位数计算、慢请求被对冲且落后的结果交给丢弃回调
+ */
+class HedgedRequestExecutorTest {
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void delayFollowsConfiguredPercentile() throws Exception {
+        // 128个样本中有7个慢请求，90分位落在快请求上，99分位落在慢请求上
+        HedgedRequestExecutor p90 = new HedgedRequestExecutor(executor, 0.90, 1, 10_000);
+        HedgedRequestExecutor p99 = new HedgedRequestExecutor(executor, 0.99, 1, 10_000);
+        assertEquals(10_000, p90.getDelayMillis());
+
+        for (int i = 0; i < 128; i++) {
+            long sleepMillis = i % 20 == 0 ? 50 : 0;
+            p90.execute(() -> sleep(sleepMillis), value -> {
+            });
+            p99.execute(() -> sleep(sleepMillis), value -> {
+            });
+        }
+
+        assertTrue(p90.getDelayMillis() < 50, "p90 delay: " + p90.getDelayMillis());
+        assertTrue(p99.getDelayMillis() >= 50, "p99 delay: " + p99.getDelayMillis());
+        assertEquals(0, p90.getHedgedCount());
+    }
+
+    @Test
+    void delayNeverDropsBelowMinimum() throws Exception {
+        HedgedRequestExecutor hedged = new HedgedRequestExecutor(executor, 0.95, 20, 10_000);
+        for (int i = 0; i < 128; i++) {
+            hedged.execute(() -> "fast", value -> {
+            });
+        }
+        assertEquals(20, hedged.getDelayMillis());
+    }
+
+    @Test
+    void hedgesSlowRequestAndDiscardsLoser() throws Exception {
+        HedgedRequestExecutor hedged = new HedgedRequestExecutor(executor, 0.95, 1, 20);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch discarded = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        AtomicReference<String> discardedValue = new AtomicReference<>();
+
+        String result = hedged.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                release.await(5, TimeUnit.SECONDS);
+                return "slow";
+            }
+            return "fast";
+        }, value -> {
+            discardedValue.set(value);
+            discarded.countDown();
+        });
+
+        assertEquals("fast", result);
+        release.countDown();
+        assertTrue(discarded.await(5, TimeUnit.SECONDS));
+        assertEquals("slow", discardedValue.get());
+        assertEquals(1, hedged.getHedgedCount());
+        assertEquals(1, hedged.getHedgeWinCount());
+    }
+
+    @Test
+    void failsWhenAllRequestsFail() {
+        HedgedRequestExecutor hedged = new HedgedRequestExecutor(executor, 0.95, 1, 1_000);
+        assertThrows(IOException.class, () -> hedged.execute(() -> {
+            throw new IOException("Connection reset");
+        }, value -> {
+        }));
+    }
+
+    @Test
+    void runsInCallerWhenExecutorRejects() throws Exception {
+        HedgedRequestExecutor hedged = new HedgedRequestExecutor(runnable -> {
+            throw new RejectedExecutionException("full");
+        }, 0.95, 1, 20);
+        assertEquals(Thread.currentThread().getName(), hedged.execute(() -> Thread.currentThread().getName(), value -> {
+        }));
+        assertEquals(0, hedged.getHedgedCount());
+    }
+
+    private static String sleep(long millis) throws InterruptedException {
+        Thread.sleep(millis);
+        return "done";
+    }
+}
@@ -0,0 +1,83 @@
+package com.ayw.commomservice.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 验证签名URL缓存的过期时间对齐窗口、窗口随有效期缩小以及按最久未用淘汰
+ */
+class PresignedUrlCacheTest {
+    private final List<Date> signed = new ArrayList<>();
+    private final BiFunction<String, Date, String> signer = (fileId, expiration) -> {
+        signed.add(expiration);
+        return fileId + "?expires=" + expiration.getTime() / 1000;
+    };
+
+    @Test
+    void alignsExpirationToWindowAndReusesUrl() {
+        PresignedUrlCache cache = new PresignedUrlCache(3600, 100);
+        long now = System.currentTimeMillis() / 1000;
+
+        String url = cache.get("a.png", 86400, signer);
+        assertEquals(url, cache.get("a.png", 86400, signer));
+        assertEquals(1, signed.size());
+
+        long expiresAt = signed.get(0).getTime() / 1000;
+        assertEquals(0, expiresAt % 3600);
+        assertTrue(expiresAt >= now + 86400);
+        assertTrue(expiresAt < now + 86400 + 3600 + 1);
+    }
+
+    @Test
+    void shortExpiryShrinksWindow() {
+        PresignedUrlCache cache = new PresignedUrlCache(3600, 100);
+        long now = System.currentTimeMillis() / 1000;
+
+        cache.get("a.png", 600, signer);
+
+        // 窗口缩小为有效期的十分之一，有效期最多多出60秒而不是一小时
+        long expiresAt = signed.get(0).getTime() / 1000;
+        assertEquals(0, expiresAt % 60);
+        assertTrue(expiresAt >= now + 600);
+        assertTrue(expiresAt < now + 600 + 60 + 1);
+    }
+
+    @Test
+    void signsEveryTimeWhenDisabled() {
+        PresignedUrlCache cache = new PresignedUrlCache(0, 100);
+        cache.get("a.png", 3600, signer);
+        cache.get("a.png", 3600, signer);
+        assertEquals(2, signed.size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedUrl() {
+        PresignedUrlCache cache = new PresignedUrlCache(3600, 2);
+        cache.get("a.png", 86400, signer);
+        cache.get("b.png", 86400, signer);
+        // 访问a后b成为最久未用的条目，加入c时被淘汰
+        cache.get("a.png", 86400, signer);
+        cache.get("c.png", 86400, signer);
+        assertEquals(3, signed.size());
+
+        cache.get("a.png", 86400, signer);
+        assertEquals(3, signed.size());
+        cache.get("b.png", 86400, signer);
+        assertEquals(4, signed.size());
+    }
+
+    @Test
+    void differentExpirySignsSeparately() {
+        PresignedUrlCache cache = new PresignedUrlCache(3600, 100);
+        assertNotEquals(cache.get("a.png", 86400, signer), cache.get("a.png", 2 * 86400, signer));
+        assertEquals(2, signed.size());
+    }
+}
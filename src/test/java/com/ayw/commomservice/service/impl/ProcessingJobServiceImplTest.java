@@ -0,0 +1,347 @@
+package com.ayw.commomservice.service.impl;
+
+import com.ayw.commomservice.config.ProcessingProperties;
+import com.ayw.commomservice.mapper.ProcessingJobMapper;
+import com.ayw.commomservice.model.ProcessingJob;
+import com.ayw.commomservice.model.ProcessingJobRequest;
+import com.ayw.commomservice.service.FileProcessingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 以内存中的任务表验证任务领取时的租约、执行期间续约、租约过期后重新排队或失败，以及租约被接管后丢弃执行结果
+ */
+class ProcessingJobServiceImplTest {
+    private static final long LEASE_SECONDS = 60;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final InMemoryProcessingJobMapper mapper = new InMemoryProcessingJobMapper();
+    private final FileProcessingService fileProcessingService = mock(FileProcessingService.class);
+    private ProcessingJobServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        ProcessingProperties properties = new ProcessingProperties();
+        ProcessingProperties.Jobs jobs = properties.getJobs();
+        jobs.setInteractiveWorkers(1);
+        jobs.setBulkWorkers(1);
+        jobs.setPollIntervalMillis(50);
+        jobs.setLeaseSeconds(LEASE_SECONDS);
+        jobs.setMaxAttempts(MAX_ATTEMPTS);
+        service = new ProcessingJobServiceImpl(mapper, fileProcessingService, properties,
+                new NoOpTransactionManager(), new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void claimsPendingJobWithLeaseAndRecordsResult() throws InterruptedException {
+        when(fileProcessingService.processImage(eq("source.png"), eq("compress"), anyMap())).thenReturn("derived.png");
+        String jobId = service.submit(request()).getJobId();
+
+        service.start();
+        ProcessingJob job = await(jobId, row -> row.getStatus() == ProcessingJob.Status.SUCCEEDED);
+
+        assertEquals("derived.png", job.getResultFileId());
+        assertEquals(1, job.getAttempts());
+        assertNull(job.getLeaseOwner());
+        assertNull(job.getLeaseUntil());
+        assertTrue(mapper.leaseSeen(jobId) > System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(LEASE_SECONDS) / 2);
+    }
+
+    @Test
+    void maintainRequeuesExpiredLeasesAndFailsExhaustedJobs() {
+        Date expired = new Date(System.currentTimeMillis() - 1000);
+        Date valid = new Date(System.currentTimeMillis() + 60_000);
+        mapper.put(running("retry", "crashed-node", expired, 1));
+        mapper.put(running("exhausted", "crashed-node", expired, MAX_ATTEMPTS));
+        mapper.put(running("healthy", "other-node", valid, 1));
+
+        service.maintain();
+
+        ProcessingJob retry = mapper.selectById("retry");
+        assertEquals(ProcessingJob.Status.PENDING, retry.getStatus());
+        assertNull(retry.getLeaseOwner());
+        ProcessingJob exhausted = mapper.selectById("exhausted");
+        assertEquals(ProcessingJob.Status.FAILED, exhausted.getStatus());
+        assertEquals(ProcessingJob.Status.RUNNING, mapper.selectById("healthy").getStatus());
+        assertEquals("other-node", mapper.selectById("healthy").getLeaseOwner());
+    }
+
+    @Test
+    void renewsOwnLeaseAndDiscardsResultAfterTakeover() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(fileProcessingService.processImage(any(), any(), anyMap())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return "derived.png";
+        });
+        String jobId = service.submit(request()).getJobId();
+        service.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // 执行时间超过租约时由维护任务续约，不会被当作宕机节点的任务重新排队
+        mapper.update(jobId, row -> row.setLeaseUntil(new Date(System.currentTimeMillis() - 1000)));
+        service.maintain();
+        ProcessingJob renewed = mapper.selectById(jobId);
+        assertEquals(ProcessingJob.Status.RUNNING, renewed.getStatus());
+        assertTrue(renewed.getLeaseUntil().after(new Date()));
+
+        // 其他节点接管后本节点的结果不能覆盖
+        mapper.update(jobId, row -> row.setLeaseOwner("other-node"));
+        release.countDown();
+        assertTrue(mapper.completeAttempted.await(5, TimeUnit.SECONDS));
+        ProcessingJob taken = mapper.selectById(jobId);
+        assertEquals(ProcessingJob.Status.RUNNING, taken.getStatus());
+        assertEquals("other-node", taken.getLeaseOwner());
+        assertNull(taken.getResultFileId());
+    }
+
+    private ProcessingJob await(String jobId, Predicate<ProcessingJob> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            ProcessingJob job = mapper.selectById(jobId);
+            if (condition.test(job)) {
+                return job;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Processing job did not reach the expected state: " + jobId);
+    }
+
+    private static ProcessingJobRequest request() {
+        ProcessingJobRequest request = new ProcessingJobRequest();
+        request.setType("IMAGE");
+        request.setFileId("source.png");
+        request.setOperation("compress");
+        request.setParams(Map.of("quality", 0.8));
+        return request;
+    }
+
+    private static ProcessingJob running(String jobId, String owner, Date leaseUntil, int attempts) {
+        ProcessingJob job = new ProcessingJob();
+        job.setJobId(jobId);
+        job.setType(ProcessingJob.Type.IMAGE);
+        job.setFileId("source.png");
+        job.setOperation("compress");
+        job.setParams("{}");
+        job.setLane(ProcessingJob.Lane.BULK);
+        job.setStatus(ProcessingJob.Status.RUNNING);
+        job.setAttempts(attempts);
+        job.setLeaseOwner(owner);
+        job.setLeaseUntil(leaseUntil);
+        job.setCreatedAt(new Date());
+        return job;
+    }
+
+    /**
+     * 按ProcessingJobMapper中SQL的语义在内存中维护任务表，返回的都是副本，与数据库行一样不受调用方修改影响
+     */
+    private static class InMemoryProcessingJobMapper implements ProcessingJobMapper {
+        private final Map<String, ProcessingJob> rows = new ConcurrentHashMap<>();
+        private final Map<String, Long> leases = new ConcurrentHashMap<>();
+        private final CountDownLatch completeAttempted = new CountDownLatch(1);
+
+        synchronized void put(ProcessingJob job) {
+            rows.put(job.getJobId(), copy(job));
+        }
+
+        synchronized void update(String jobId, Consumer<ProcessingJob> change) {
+            change.accept(rows.get(jobId));
+        }
+
+        long leaseSeen(String jobId) {
+            return leases.getOrDefault(jobId, 0L);
+        }
+
+        @Override
+        public synchronized int insert(ProcessingJob job) {
+            ProcessingJob row = copy(job);
+            row.setAttempts(0);
+            rows.put(row.getJobId(), row);
+            return 1;
+        }
+
+        @Override
+        public synchronized ProcessingJob selectById(String jobId) {
+            ProcessingJob row = rows.get(jobId);
+            return row != null ? copy(row) : null;
+        }
+
+        @Override
+        public synchronized List<String> lockPending(ProcessingJob.Lane lane, int limit) {
+            return rows.values().stream()
+                    .filter(row -> row.getLane() == lane && row.getStatus() == ProcessingJob.Status.PENDING)
+                    .sorted(Comparator.comparing(ProcessingJob::getCreatedAt))
+                    .limit(limit)
+                    .map(ProcessingJob::getJobId)
+                    .toList();
+        }
+
+        @Override
+        public synchronized int markRunning(List<String> jobIds, String owner, Date leaseUntil, Date now) {
+            for (String jobId : jobIds) {
+                ProcessingJob row = rows.get(jobId);
+                row.setStatus(ProcessingJob.Status.RUNNING);
+                row.setLeaseOwner(owner);
+                row.setLeaseUntil(leaseUntil);
+                row.setAttempts(row.getAttempts() + 1);
+                row.setStartedAt(now);
+                leases.put(jobId, leaseUntil.getTime());
+            }
+            return jobIds.size();
+        }
+
+        @Override
+        public synchronized List<ProcessingJob> selectByIds(List<String> jobIds) {
+            List<ProcessingJob> selected = new ArrayList<>();
+            for (String jobId : jobIds) {
+                selected.add(copy(rows.get(jobId)));
+            }
+            return selected;
+        }
+
+        @Override
+        public synchronized int renewLeases(String owner, Date leaseUntil) {
+            int updated = 0;
+            for (ProcessingJob row : rows.values()) {
+                if (owner.equals(row.getLeaseOwner()) && row.getStatus() == ProcessingJob.Status.RUNNING) {
+                    row.setLeaseUntil(leaseUntil);
+                    updated++;
+                }
+            }
+            return updated;
+        }
+
+        @Override
+        public synchronized int complete(ProcessingJob job) {
+            try {
+                ProcessingJob row = rows.get(job.getJobId());
+                if (row == null || !Objects.equals(row.getLeaseOwner(), job.getLeaseOwner())
+                        || row.getStatus() != ProcessingJob.Status.RUNNING) {
+                    return 0;
+                }
+                row.setStatus(job.getStatus());
+                row.setResultFileId(job.getResultFileId());
+                row.setError(job.getError());
+                row.setCompletedAt(job.getCompletedAt());
+                row.setLeaseOwner(null);
+                row.setLeaseUntil(null);
+                return 1;
+            } finally {
+                completeAttempted.countDown();
+            }
+        }
+
+        @Override
+        public synchronized int requeueExpired(Date now, int maxAttempts) {
+            int updated = 0;
+            for (ProcessingJob row : rows.values()) {
+                if (expired(row, now) && row.getAttempts() < maxAttempts) {
+                    row.setStatus(ProcessingJob.Status.PENDING);
+                    row.setLeaseOwner(null);
+                    row.setLeaseUntil(null);
+                    updated++;
+                }
+            }
+            return updated;
+        }
+
+        @Override
+        public synchronized int failExpired(Date now, int maxAttempts) {
+            int updated = 0;
+            for (ProcessingJob row : rows.values()) {
+                if (expired(row, now) && row.getAttempts() >= maxAttempts) {
+                    row.setStatus(ProcessingJob.Status.FAILED);
+                    row.setError("Lease expired after maximum attempts");
+                    row.setCompletedAt(now);
+                    row.setLeaseOwner(null);
+                    row.setLeaseUntil(null);
+                    updated++;
+                }
+            }
+            return updated;
+        }
+
+        @Override
+        public synchronized int deleteCompletedBefore(Date before) {
+            int size = rows.size();
+            rows.values().removeIf(row -> row.getCompletedAt() != null && row.getCompletedAt().before(before));
+            return size - rows.size();
+        }
+
+        private static boolean expired(ProcessingJob row, Date now) {
+            return row.getStatus() == ProcessingJob.Status.RUNNING && row.getLeaseUntil().before(now);
+        }
+
+        private static ProcessingJob copy(ProcessingJob source) {
+            ProcessingJob job = new ProcessingJob();
+            job.setJobId(source.getJobId());
+            job.setType(source.getType());
+            job.setFileId(source.getFileId());
+            job.setOperation(source.getOperation());
+            job.setParams(source.getParams());
+            job.setLane(source.getLane());
+            job.setStatus(source.getStatus());
+            job.setResultFileId(source.getResultFileId());
+            job.setError(source.getError());
+            job.setCallbackUrl(source.getCallbackUrl());
+            job.setAttempts(source.getAttempts());
+            job.setLeaseOwner(source.getLeaseOwner());
+            job.setLeaseUntil(source.getLeaseUntil());
+            job.setCreatedAt(source.getCreatedAt());
+            job.setStartedAt(source.getStartedAt());
+            job.setCompletedAt(source.getCompletedAt());
+            return job;
+        }
+    }
+
+    /**
+     * 内存任务表不需要真正的事务
+     */
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
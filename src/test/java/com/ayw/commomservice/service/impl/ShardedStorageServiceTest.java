@@ -0,0 +1,218 @@
+package com.ayw.commomservice.service.impl;
+
+import com.ayw.commomservice.config.StorageProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 以多个本地存储作为后端验证分片存储的哈希环分布、多副本写入、失败回滚和故障判定
+ */
+class ShardedStorageServiceTest {
+    private static final byte[] CONTENT = "sharded content".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService replicaExecutor;
+
+    @BeforeEach
+    void setUp() {
+        replicaExecutor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        replicaExecutor.shutdownNow();
+    }
+
+    @Test
+    void placesEachFileOnOneBackendDeterministically() throws IOException {
+        List<ShardedStorageService.Shard> shards = shards("a", "b", "c");
+        ShardedStorageService storage = sharded(shards, 1);
+        List<String> fileIds = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            fileIds.add(storage.upload(new ByteArrayInputStream(CONTENT), "file" + i + ".txt", "text/plain", Map.of()));
+        }
+
+        int[] counts = new int[shards.size()];
+        for (String fileId : fileIds) {
+            int holders = 0;
+            for (int i = 0; i < shards.size(); i++) {
+                if (exists(shards.get(i), fileId)) {
+                    holders++;
+                    counts[i]++;
+                }
+            }
+            assertEquals(1, holders, fileId);
+        }
+        for (int count : counts) {
+            assertTrue(count > 0, "every backend should receive files");
+        }
+
+        // 同名后端重新组成的哈希环上位置不变
+        ShardedStorageService reopened = sharded(shards("a", "b", "c"), 1);
+        for (String fileId : fileIds) {
+            try (InputStream inputStream = reopened.download(fileId)) {
+                assertArrayEquals(CONTENT, inputStream.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void replicatesToConfiguredNumberOfBackends() throws IOException {
+        List<ShardedStorageService.Shard> shards = shards("a", "b", "c");
+        ShardedStorageService storage = sharded(shards, 2);
+        List<String> fileIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            fileIds.add(storage.upload(new ByteArrayInputStream(CONTENT), "file" + i + ".txt", "text/plain", Map.of()));
+        }
+
+        for (String fileId : fileIds) {
+            int holders = 0;
+            for (ShardedStorageService.Shard shard : shards) {
+                if (exists(shard, fileId)) {
+                    holders++;
+                    try (InputStream inputStream = shard.storageService().download(fileId)) {
+                        assertArrayEquals(CONTENT, inputStream.readAllBytes());
+                    }
+                }
+            }
+            assertEquals(2, holders, fileId);
+        }
+
+        String deleted = fileIds.get(0);
+        assertTrue(storage.delete(deleted));
+        for (ShardedStorageService.Shard shard : shards) {
+            assertFalse(exists(shard, deleted));
+        }
+    }
+
+    @Test
+    void rollsBackReplicasWhenOneWriteFails() {
+        FlakyLocalStorageService broken = flaky("broken");
+        broken.failing = true;
+        ShardedStorageService.Shard healthy = shards("healthy").get(0);
+        ShardedStorageService storage = sharded(List.of(healthy, new ShardedStorageService.Shard("broken", broken)), 2);
+
+        assertThrows(RuntimeException.class, () -> storage.uploadWithFileId(
+                "rollback.txt", new ByteArrayInputStream(CONTENT), "text/plain", Map.of()));
+        assertFalse(exists(healthy, "rollback.txt"));
+    }
+
+    @Test
+    void missingFileDoesNotCoolDownBackend() {
+        ShardedStorageService storage = sharded(shards("a", "b"), 2);
+        String signer = storage.generatePresignedUrl("missing.txt", 60);
+
+        assertThrows(RuntimeException.class, () -> storage.download("missing.txt"));
+        assertThrows(RuntimeException.class, () -> storage.stat("missing.txt"));
+        assertEquals(signer, storage.generatePresignedUrl("missing.txt", 60));
+    }
+
+    @Test
+    void transportFailureFailsOverAndCoolsDownBackend() throws IOException {
+        FlakyLocalStorageService flaky = flaky("flaky");
+        ShardedStorageService storage = sharded(
+                List.of(new ShardedStorageService.Shard("flaky", flaky), shards("stable").get(0)), 2);
+        String fileId = fileIdWithPrimary(storage, "flaky");
+        storage.uploadWithFileId(fileId, new ByteArrayInputStream(CONTENT), "text/plain", Map.of());
+
+        flaky.failing = true;
+        try (InputStream inputStream = storage.download(fileId)) {
+            assertArrayEquals(CONTENT, inputStream.readAllBytes());
+        }
+        assertTrue(storage.generatePresignedUrl(fileId, 60).contains("/stable/"));
+    }
+
+    private String fileIdWithPrimary(ShardedStorageService storage, String backend) {
+        for (int i = 0; ; i++) {
+            String fileId = "file" + i + ".txt";
+            if (storage.generatePresignedUrl(fileId, 60).contains("/" + backend + "/")) {
+                return fileId;
+            }
+        }
+    }
+
+    private ShardedStorageService sharded(List<ShardedStorageService.Shard> shards, int replicationFactor) {
+        StorageProperties.Sharding config = new StorageProperties.Sharding();
+        config.setReplicationFactor(replicationFactor);
+        config.setSpoolDir(tempDir.resolve("spool").toString());
+        return new ShardedStorageService(shards, config, replicaExecutor);
+    }
+
+    private List<ShardedStorageService.Shard> shards(String... names) {
+        List<ShardedStorageService.Shard> shards = new ArrayList<>();
+        for (String name : names) {
+            shards.add(new ShardedStorageService.Shard(name, new LocalStorageService(local(name))));
+        }
+        return shards;
+    }
+
+    private FlakyLocalStorageService flaky(String name) {
+        return new FlakyLocalStorageService(local(name));
+    }
+
+    private StorageProperties.Local local(String name) {
+        StorageProperties.Local config = new StorageProperties.Local();
+        config.setRootDir(tempDir.resolve(name).toString());
+        config.setBaseUrl("http://localhost/" + name + "/");
+        return config;
+    }
+
+    private static boolean exists(ShardedStorageService.Shard shard, String fileId) {
+        try {
+            shard.storageService().stat(fileId);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 可切换为网络故障状态的本地存储
+     */
+    private static class FlakyLocalStorageService extends LocalStorageService {
+        private volatile boolean failing;
+
+        FlakyLocalStorageService(StorageProperties.Local config) {
+            super(config);
+        }
+
+        @Override
+        public String uploadWithFileId(String fileId, InputStream inputStream, String contentType, Map<String, String> metadata) {
+            checkConnection();
+            return super.uploadWithFileId(fileId, inputStream, contentType, metadata);
+        }
+
+        @Override
+        public InputStream download(String fileId) {
+            checkConnection();
+            return super.download(fileId);
+        }
+
+        private void checkConnection() {
+            if (failing) {
+                throw new RuntimeException("Storage request failed", new IOException("Connection reset"));
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.ayw.commomservice.service.impl;
+
+import com.ayw.commomservice.config.StorageProperties;
+import com.ayw.commomservice.model.FileStat;
+import com.ayw.commomservice.service.StorageErrors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 通过endpoint和http-protocol把COS客户端指向本地HTTP模拟服务，验证上传、整体和范围下载、元数据、删除以及对象不存在的判定
+ */
+class TencentCosStorageServiceTest {
+    private static final String BUCKET = "test-1250000000";
+    private static final byte[] CONTENT = "tencent cos content".getBytes(StandardCharsets.UTF_8);
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    @TempDir
+    Path tempDir;
+
+    private ServerSocket server;
+    private ExecutorService transferExecutor;
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        transferExecutor = Executors.newFixedThreadPool(2);
+        Thread acceptor = new Thread(this::serve, "cos-stand-in");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        transferExecutor.shutdownNow();
+        server.close();
+    }
+
+    @Test
+    void uploadsAndDownloadsThroughEndpoint() throws IOException {
+        TencentCosStorageService storage = storage();
+        assertEquals("cos.txt", storage.uploadWithFileId("cos.txt", new ByteArrayInputStream(CONTENT), "text/plain", Map.of()));
+        assertArrayEquals(CONTENT, objects.get("cos.txt"));
+
+        try (InputStream inputStream = storage.download("cos.txt")) {
+            assertArrayEquals(CONTENT, inputStream.readAllBytes());
+        }
+        try (InputStream inputStream = storage.download("cos.txt", 8, 10)) {
+            assertArrayEquals(Arrays.copyOfRange(CONTENT, 8, 11), inputStream.readAllBytes());
+        }
+
+        FileStat stat = storage.stat("cos.txt");
+        assertEquals(CONTENT.length, stat.getSize());
+        assertEquals(md5(CONTENT), stat.getETag());
+
+        assertTrue(storage.delete("cos.txt"));
+        assertFalse(objects.containsKey("cos.txt"));
+    }
+
+    @Test
+    void missingObjectIsNotFound() {
+        TencentCosStorageService storage = storage();
+
+        RuntimeException download = assertThrows(RuntimeException.class, () -> storage.download("missing.txt"));
+        assertTrue(StorageErrors.isNotFound(download));
+        assertFalse(ShardedStorageService.isBackendFailure(download));
+
+        RuntimeException stat = assertThrows(RuntimeException.class, () -> storage.stat("missing.txt"));
+        assertTrue(StorageErrors.isNotFound(stat));
+    }
+
+    private TencentCosStorageService storage() {
+        StorageProperties.Tencent config = new StorageProperties.Tencent();
+        config.setSecretId("test-id");
+        config.setSecretKey("test-key");
+        config.setBucketName(BUCKET);
+        config.setRegion("ap-guangzhou");
+        config.setEndpoint("127.0.0.1:" + server.getLocalPort());
+        config.setHttpProtocol("http");
+        config.setSpoolDir(tempDir.resolve("spool").toString());
+        return new TencentCosStorageService(config, transferExecutor);
+    }
+
+    private void serve() {
+        while (!server.isClosed()) {
+            try (Socket socket = server.accept()) {
+                handle(socket);
+            } catch (IOException e) {
+                // 服务关闭或客户端断开
+            }
+        }
+    }
+
+    /**
+     * 只实现测试用到的接口：HEAD桶和对象、PUT、带Range的GET、DELETE，每个连接处理一个请求。
+     * JDK自带的HttpServer会把响应头名称改写为Content-length，COS客户端按原样读取响应头时取不到长度，因此直接读写套接字
+     */
+    private void handle(Socket socket) throws IOException {
+        InputStream in = socket.getInputStream();
+        String[] requestLine = readLine(in).split(" ");
+        String method = requestLine[0];
+        String key = URI.create(requestLine[1]).getPath().substring(1);
+        Map<String, String> headers = new HashMap<>();
+        for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+            int colon = line.indexOf(':');
+            headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+        }
+        OutputStream out = socket.getOutputStream();
+        if ("100-continue".equalsIgnoreCase(headers.get("expect"))) {
+            out.write("HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+        byte[] body = in.readNBytes(Integer.parseInt(headers.getOrDefault("content-length", "0")));
+
+        Map<String, String> responseHeaders = new LinkedHashMap<>();
+        if (key.isEmpty()) {
+            respond(out, 200, responseHeaders, new byte[0], method);
+            return;
+        }
+        if ("PUT".equals(method)) {
+            objects.put(key, body);
+            responseHeaders.put("ETag", "\"" + md5(body) + "\"");
+            respond(out, 200, responseHeaders, new byte[0], method);
+            return;
+        }
+        if ("DELETE".equals(method)) {
+            objects.remove(key);
+            respond(out, 204, responseHeaders, new byte[0], method);
+            return;
+        }
+        byte[] content = objects.get(key);
+        if (content == null) {
+            responseHeaders.put("Content-Type", "application/xml");
+            respond(out, 404, responseHeaders, ("<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>NoSuchKey</Code>"
+                    + "<Message>The specified key does not exist.</Message></Error>").getBytes(StandardCharsets.UTF_8), method);
+            return;
+        }
+        responseHeaders.put("ETag", "\"" + md5(content) + "\"");
+        responseHeaders.put("Content-Type", "text/plain");
+        responseHeaders.put("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC)));
+        int status = 200;
+        Matcher matcher = RANGE.matcher(headers.getOrDefault("range", ""));
+        if (matcher.matches()) {
+            int start = Integer.parseInt(matcher.group(1));
+            int end = Math.min(Integer.parseInt(matcher.group(2)), content.length - 1);
+            responseHeaders.put("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+            content = Arrays.copyOfRange(content, start, end + 1);
+            status = 206;
+        }
+        respond(out, status, responseHeaders, content, method);
+    }
+
+    private static void respond(OutputStream out, int status, Map<String, String> headers, byte[] body,
+                                String method) throws IOException {
+        StringBuilder head = new StringBuilder("HTTP/1.1 ").append(status).append(status < 400 ? " OK\r\n" : " Error\r\n");
+        headers.forEach((name, value) -> head.append(name).append(": ").append(value).append("\r\n"));
+        head.append("Content-Length: ").append(body.length).append("\r\n");
+        head.append("Connection: close\r\n\r\n");
+        out.write(head.toString().getBytes(StandardCharsets.US_ASCII));
+        if (!"HEAD".equals(method) && status != 204) {
+            out.write(body);
+        }
+        out.flush();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int b = in.read(); b != '\n'; b = in.read()) {
+            if (b < 0) {
+                throw new EOFException();
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    private static String md5(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
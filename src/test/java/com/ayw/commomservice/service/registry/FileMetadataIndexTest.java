@@ -0,0 +1,109 @@
+package com.ayw.commomservice.service.registry;
+
+import com.ayw.commomservice.model.FileListQuery;
+import com.ayw.commomservice.model.FilePage;
+import com.ayw.commomservice.model.FileStat;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 以内存模式验证文件元信息索引的游标分页：翻页不重复、不遗漏，按时间排序时修改时间相同的文件按文件ID区分
+ */
+class FileMetadataIndexTest {
+    private final FileMetadataIndex index = new FileMetadataIndex(null, 100, 60);
+
+    @Test
+    void pagesByFileIdWithoutGapsOrDuplicates() {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            String fileId = String.format("file%02d.txt", i);
+            index.put(stat(fileId, new Date(1_000_000L + i), null));
+            expected.add(fileId);
+        }
+
+        List<Integer> pageSizes = new ArrayList<>();
+        List<String> listed = listAll(FileListQuery.Order.NAME, 10, null, null, pageSizes);
+
+        assertEquals(expected, listed);
+        assertEquals(List.of(10, 10, 5), pageSizes);
+    }
+
+    @Test
+    void pagesByTimeNewestFirstAcrossEqualTimestamps() {
+        // 每3个文件共用一个修改时间，分页边界会落在相同时间的文件之间
+        List<FileStat> stats = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            FileStat stat = stat("file" + (char) ('a' + i) + ".txt", new Date(1_000_000L + (i / 3) * 1000), null);
+            index.put(stat);
+            stats.add(stat);
+        }
+        List<String> expected = stats.stream()
+                .sorted(Comparator.comparing(FileStat::getLastModified).thenComparing(FileStat::getFileId).reversed())
+                .map(FileStat::getFileId)
+                .toList();
+
+        assertEquals(expected, listAll(FileListQuery.Order.TIME, 4, null, null, new ArrayList<>()));
+        assertEquals(expected, listAll(FileListQuery.Order.TIME, 5, null, null, new ArrayList<>()));
+    }
+
+    @Test
+    void filtersByTenantAndPrefix() {
+        index.put(stat("img/a.png", new Date(1_000_000L), "t1"));
+        index.put(stat("img/b.png", new Date(1_000_000L), "t2"));
+        index.put(stat("doc/c.pdf", new Date(1_000_000L), "t1"));
+        index.put(stat("img/d.png", new Date(1_000_000L), "t1"));
+
+        assertEquals(List.of("img/a.png", "img/d.png"),
+                listAll(FileListQuery.Order.NAME, 1, "t1", "img/", new ArrayList<>()));
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        index.put(stat("only.txt", new Date(), null));
+        FileListQuery query = new FileListQuery();
+        query.setLimit(1);
+        assertNull(index.list(query, null).getNextCursor());
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> index.list(new FileListQuery(), "bm8tc2VwYXJhdG9y"));
+    }
+
+    private List<String> listAll(FileListQuery.Order order, int limit, String tenant, String prefix,
+                                 List<Integer> pageSizes) {
+        List<String> fileIds = new ArrayList<>();
+        String cursor = null;
+        do {
+            FileListQuery query = new FileListQuery();
+            query.setOrder(order);
+            query.setLimit(limit);
+            query.setTenant(tenant);
+            query.setPrefix(prefix);
+            FilePage page = index.list(query, cursor);
+            page.getFiles().forEach(file -> fileIds.add(file.getFileId()));
+            pageSizes.add(page.getFiles().size());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return fileIds;
+    }
+
+    private static FileStat stat(String fileId, Date lastModified, String tenant) {
+        FileStat stat = new FileStat();
+        stat.setFileId(fileId);
+        stat.setSize(1);
+        stat.setContentType("text/plain");
+        stat.setLastModified(lastModified);
+        stat.setMetadata(tenant != null ? Map.of(FileMetadataIndex.TENANT_KEY, tenant) : Map.of());
+        return stat;
+    }
+}
@@ -0,0 +1,77 @@
+package com.ayw.commomservice.service.registry;
+
+import com.ayw.commomservice.model.MultipartUploadStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 以内存模式验证分片上传会话的缺失分片计算和按最后活动时间清理
+ */
+class UploadSessionRegistryTest {
+    private final UploadSessionRegistry registry = new UploadSessionRegistry(null);
+
+    @Test
+    void missingPartsCountsTotalFromFileSize() {
+        // 25字节按10字节分片共3片
+        registry.register("upload", 25, 10);
+        registry.recordPart("upload", 2, 10, "etag-2");
+        assertEquals(List.of(1, 3), registry.getStatus("upload").getMissingParts());
+
+        registry.recordPart("upload", 1, 10, "etag-1");
+        registry.recordPart("upload", 3, 5, "etag-3");
+        MultipartUploadStatus status = registry.getStatus("upload");
+        assertEquals(List.of(), status.getMissingParts());
+        assertEquals(3, status.getParts().size());
+        assertEquals(1, status.getParts().get(0).getPartNumber());
+    }
+
+    @Test
+    void missingPartsWithUnknownSizeOnlyFillsGaps() {
+        registry.register("upload", 0, 0);
+        assertEquals(List.of(), registry.getStatus("upload").getMissingParts());
+
+        registry.recordPart("upload", 1, 10, "etag-1");
+        registry.recordPart("upload", 4, 10, "etag-4");
+        assertEquals(List.of(2, 3), registry.getStatus("upload").getMissingParts());
+    }
+
+    @Test
+    void reuploadedPartReplacesPreviousRecord() {
+        registry.register("upload", 20, 10);
+        registry.recordPart("upload", 1, 10, "old");
+        registry.recordPart("upload", 1, 10, "new");
+        assertEquals(1, registry.listParts("upload").size());
+        assertEquals("new", registry.listParts("upload").get(0).getETag());
+    }
+
+    @Test
+    void expiresByLastActivityRatherThanCreation() throws InterruptedException {
+        registry.register("abandoned", 0, 0);
+        registry.register("active", 0, 0);
+        Thread.sleep(20);
+        Date cutoff = new Date();
+        Thread.sleep(20);
+        registry.recordPart("active", 1, 10, "etag-1");
+
+        assertEquals(List.of("abandoned"), registry.listInactiveSince(cutoff, 10));
+    }
+
+    @Test
+    void removedSessionIsGone() {
+        registry.register("upload", 0, 0);
+        registry.recordPart("upload", 1, 10, "etag-1");
+        assertTrue(registry.contains("upload"));
+
+        registry.remove("upload");
+        assertFalse(registry.contains("upload"));
+        assertNull(registry.getStatus("upload"));
+        assertTrue(registry.listParts("upload").isEmpty());
+    }
+}